@@ -54,6 +54,43 @@ public enum BuiltInCleanupStrategy {
         }
     },
 
+    /**
+     * Deletes only those entries which were inserted or modified by the test, together with the entries
+     * referencing them. Rows are compared by primary key with the ones present in the database before the test,
+     * so tables without primary key are not cleaned.
+     */
+    CHANGED_ROWS_ONLY {
+        @Override
+        public <T> T provide(StrategyProvider<T> provider) {
+            return provider.changedRowsOnlyStrategy();
+        }
+    },
+
+    /**
+     * Nothing is deleted. Seeding, the test and verification run within a single transaction
+     * (or a savepoint, if the connection is already in a transaction) which is rolled back after the test.
+     * Application under test has to use the same connection to take part in it, e.g. through the
+     * {@link javax.sql.DataSource} injected using {@code @ArquillianResource}.
+     */
+    ROLLBACK {
+        @Override
+        public <T> T provide(StrategyProvider<T> provider) {
+            return provider.rollbackStrategy();
+        }
+    },
+
+    /**
+     * Restores the state captured right after seeding the database. Only tables which content differs from
+     * the captured one are reloaded, together with tables referencing them. Subsequent tests using the same
+     * data sets are not seeded again, as the database is already in the expected state.
+     */
+    SNAPSHOT {
+        @Override
+        public <T> T provide(StrategyProvider<T> provider) {
+            return provider.snapshotStrategy();
+        }
+    },
+
     /**
      * This is guarding enum instance used to indicate
      * that use has not defined cleanup strategy explicitly.
@@ -76,6 +113,12 @@ public enum BuiltInCleanupStrategy {
 
         T usedRowsOnlyStrategy();
 
+        T changedRowsOnlyStrategy();
+
+        T rollbackStrategy();
+
+        T snapshotStrategy();
+
         T defaultStrategy();
     }
 
@@ -70,6 +70,19 @@ public enum DataSeedStrategy {
         }
     },
 
+    /**
+     * Brings the tables referred in provided data sets to the same state as {@link #CLEAN_INSERT},
+     * but writes only the rows which differ from the current database content. Rows are matched
+     * by their primary keys; missing rows are inserted, changed ones are updated and the ones not
+     * defined in the data sets are deleted. Tables without primary key are cleaned and inserted.
+     */
+    INCREMENTAL {
+        @Override
+        public <T> T provide(StrategyProvider<T> provider) {
+            return provider.incrementalStrategy();
+        }
+    },
+
     /**
      * This is guarding enum instance used to indicate
      * that use has not defined seeding strategy explicitly.
@@ -94,6 +107,8 @@ public enum DataSeedStrategy {
 
         T updateStrategy();
 
+        T incrementalStrategy();
+
         T defaultStrategy();
     }
 
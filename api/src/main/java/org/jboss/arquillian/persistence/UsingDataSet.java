@@ -54,4 +54,13 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface UsingDataSet {
 
     String[] value() default "";
+
+    /**
+     * Inserts rows while data set files are being read, instead of loading them into memory first.
+     * Applies to XML, YAML and JSON formats. As there is no column sensing for streamed XML, columns
+     * of each table are defined by its first row or by the DTD.
+     * <br />
+     * Can be also enabled for all tests in <code>arquillian.xml</code>.
+     */
+    boolean streaming() default false;
 }
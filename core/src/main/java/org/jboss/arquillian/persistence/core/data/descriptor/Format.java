@@ -25,6 +25,7 @@ public enum Format {
     EXCEL("xls"),
     YAML("yml"),
     JSON("json"),
+    BINARY("dsb"),
     INLINE_SQL("-inline-"),
     SQL_SCRIPT("sql"),
     UNSUPPORTED("-none-");
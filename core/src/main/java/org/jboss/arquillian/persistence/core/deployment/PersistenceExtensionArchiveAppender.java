@@ -22,6 +22,7 @@ import org.jboss.arquillian.container.test.spi.client.deployment.AuxiliaryArchiv
 import org.jboss.arquillian.persistence.core.client.PersistenceExtension;
 import org.jboss.arquillian.persistence.core.container.RemotePersistenceExtension;
 import org.jboss.arquillian.persistence.script.splitter.DefaultStatementSplitter;
+import org.jboss.arquillian.persistence.script.splitter.lexer.LexerStatementSplitter;
 import org.jboss.arquillian.persistence.script.splitter.oracle.OracleStatementSplitter;
 import org.jboss.arquillian.persistence.spi.script.StatementSplitter;
 import org.jboss.arquillian.persistence.transaction.PersistenceExtensionConventionTransactionEnabler;
@@ -50,7 +51,7 @@ public class PersistenceExtensionArchiveAppender implements AuxiliaryArchiveAppe
                     "org.jboss.arquillian.persistence")
                 .addAsServiceProvider(RemoteLoadableExtension.class, RemotePersistenceExtension.class)
                 .addAsServiceProviderAndClasses(StatementSplitter.class, DefaultStatementSplitter.class,
-                    OracleStatementSplitter.class)
+                    OracleStatementSplitter.class, LexerStatementSplitter.class)
                 .addAsServiceProvider(TransactionEnabler.class, PersistenceExtensionConventionTransactionEnabler.class);
         return persistenceExtensionArchive;
     }
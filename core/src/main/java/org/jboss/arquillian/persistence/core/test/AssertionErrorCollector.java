@@ -37,6 +37,13 @@ public class AssertionErrorCollector {
         assertionErrors.add(error);
     }
 
+    /**
+     * Collects all errors of the other collector, in the order they were collected there.
+     */
+    public void collectAll(AssertionErrorCollector other) {
+        assertionErrors.addAll(other.assertionErrors);
+    }
+
     public void report() {
         if (assertionErrors.isEmpty()) {
             return;
@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads classpath resources. Resources resolved to local files (e.g. exploded archives or embedded
+ * containers) are memory-mapped instead of being copied through streams, other resources are read
+ * into a single heap buffer.
+ */
+public final class Resources {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private Resources() {
+    }
+
+    public static URL find(String location) {
+        return Thread.currentThread().getContextClassLoader().getResource(location);
+    }
+
+    /**
+     * @return whole content of the resource. Buffer is read-only for mapped files.
+     */
+    public static ByteBuffer read(URL resource) throws IOException {
+        final File file = toFile(resource);
+        if (file != null && file.length() <= Integer.MAX_VALUE) {
+            final FileInputStream inputStream = new FileInputStream(file);
+            try {
+                final FileChannel channel = inputStream.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                inputStream.close();
+            }
+        }
+
+        final InputStream inputStream = resource.openStream();
+        try {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                content.write(chunk, 0, read);
+            }
+            return ByteBuffer.wrap(content.toByteArray());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Decodes whole resource at once. Malformed input is replaced the same way as by
+     * {@link java.io.InputStreamReader}.
+     */
+    public static CharBuffer readText(URL resource, Charset charset) throws IOException {
+        try {
+            return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(read(resource));
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("Unable to decode " + resource + " using " + charset, e);
+        }
+    }
+
+    /**
+     * @return stream reading the resource content, backed by mapped file when possible.
+     */
+    public static InputStream openStream(URL resource) throws IOException {
+        if (toFile(resource) == null) {
+            return resource.openStream();
+        }
+        return new ByteBufferInputStream(read(resource));
+    }
+
+    /**
+     * @return file the resource points to or null if it's not available on the local file system.
+     */
+    public static File toFile(URL resource) {
+        if (!"file".equals(resource.getProtocol())) {
+            return null;
+        }
+        File file;
+        try {
+            file = new File(resource.toURI());
+        } catch (URISyntaxException e) {
+            file = new File(resource.getPath());
+        } catch (IllegalArgumentException e) {
+            file = new File(resource.getPath());
+        }
+        return file.isFile() ? file : null;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            final int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -17,14 +17,20 @@
  */
 package org.jboss.arquillian.persistence.script;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.logging.Logger;
 import org.jboss.arquillian.persistence.core.exception.ScriptExecutionException;
 import org.jboss.arquillian.persistence.script.configuration.ScriptingConfiguration;
+import org.jboss.arquillian.persistence.script.data.descriptor.SqlScriptResourceDescriptor;
 import org.jboss.arquillian.persistence.spi.script.StatementSplitter;
+import org.jboss.arquillian.persistence.spi.script.StreamingStatementSplitter;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
@@ -39,6 +45,8 @@ public class ScriptExecutor {
 
     private final StatementSplitter statementSplitter;
 
+    private boolean schemaModified;
+
     public ScriptExecutor(final Connection connection, final ScriptingConfiguration scriptingConfiguration,
         final StatementSplitter statementSplitter) {
         this.connection = connection;
@@ -48,16 +56,41 @@ public class ScriptExecutor {
 
     public void execute(String script) {
         final List<String> statements = statementSplitter.splitStatements(script);
+        executeStatements(statements.iterator());
+    }
+
+    /**
+     * Executes given script. When {@link StreamingStatementSplitter} is used, statements are executed
+     * as soon as they are read from the script.
+     */
+    public void execute(SqlScriptResourceDescriptor script) {
+        if (!(statementSplitter instanceof StreamingStatementSplitter)) {
+            execute(script.getContent());
+            return;
+        }
 
-        for (String statement : statements) {
-            executeStatement(statement);
+        final Reader reader = script.openReader();
+        try {
+            executeStatements(((StreamingStatementSplitter) statementSplitter).iterateStatements(reader));
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warning("Unable to close script " + script.getLocation() + ". " + e.getMessage());
+            }
         }
     }
 
+    /**
+     * @return true if any of the statements executed so far was changing database schema,
+     * i.e. was a <code>CREATE</code>, <code>ALTER</code>, <code>DROP</code> or <code>RENAME</code> statement.
+     */
+    public boolean isSchemaModified() {
+        return schemaModified;
+    }
+
     void executeStatement(String sqlStatement) {
-        if (scriptingConfiguration.isShowSql()) {
-            log.info("Executing SQL statement: " + sqlStatement);
-        }
+        logStatement(sqlStatement);
 
         Statement statement = null;
         try {
@@ -75,4 +108,96 @@ public class ScriptExecutor {
             }
         }
     }
+
+    // Private methods
+
+    private void executeStatements(Iterator<String> statements) {
+        final boolean batching = isBatchingEnabled();
+        if (!batching && !scriptingConfiguration.isTemplateStatements()) {
+            while (statements.hasNext()) {
+                executeStatement(statements.next());
+            }
+            return;
+        }
+
+        final int batchSize = batching ? scriptingConfiguration.getStatementBatchSize() : 1;
+        final StatementBatch batch = new StatementBatch(connection, batchSize);
+        if (scriptingConfiguration.isTemplateStatements()) {
+            executeTemplated(statements, new TemplatedStatementExecutor(connection, batchSize, batch));
+            return;
+        }
+        try {
+            while (statements.hasNext()) {
+                final String statement = statements.next();
+                logStatement(statement);
+                batch.add(statement);
+            }
+            batch.flush();
+        } finally {
+            batch.close();
+        }
+    }
+
+    private void executeTemplated(Iterator<String> statements, TemplatedStatementExecutor executor) {
+        try {
+            while (statements.hasNext()) {
+                final String statement = statements.next();
+                logStatement(statement);
+                executor.add(statement);
+            }
+            executor.flush();
+        } finally {
+            executor.close();
+        }
+    }
+
+    private boolean isBatchingEnabled() {
+        if (!scriptingConfiguration.isBatchStatements()) {
+            return false;
+        }
+        try {
+            final boolean supported = connection.getMetaData().supportsBatchUpdates();
+            if (!supported) {
+                log.warning("JDBC driver does not support batch updates, statements will be executed one by one.");
+            }
+            return supported;
+        } catch (SQLException e) {
+            throw new ScriptExecutionException("Unable to determine if JDBC driver supports batch updates.", e);
+        }
+    }
+
+    private void logStatement(String sqlStatement) {
+        if (!schemaModified && isSchemaStatement(sqlStatement)) {
+            schemaModified = true;
+        }
+        if (scriptingConfiguration.isShowSql()) {
+            log.info("Executing SQL statement: " + sqlStatement);
+        }
+    }
+
+    static boolean isSchemaStatement(String sqlStatement) {
+        int position = 0;
+        final int length = sqlStatement.length();
+        while (position < length) {
+            final char current = sqlStatement.charAt(position);
+            if (Character.isWhitespace(current)) {
+                position++;
+            } else if (sqlStatement.startsWith("--", position)) {
+                final int lineEnd = sqlStatement.indexOf('\n', position);
+                position = lineEnd < 0 ? length : lineEnd + 1;
+            } else if (sqlStatement.startsWith("/*", position)) {
+                final int commentEnd = sqlStatement.indexOf("*/", position + 2);
+                position = commentEnd < 0 ? length : commentEnd + 2;
+            } else {
+                break;
+            }
+        }
+        int wordEnd = position;
+        while (wordEnd < length && Character.isLetter(sqlStatement.charAt(wordEnd))) {
+            wordEnd++;
+        }
+        final String keyword = sqlStatement.substring(position, wordEnd).toUpperCase(Locale.ENGLISH);
+        return "CREATE".equals(keyword) || "ALTER".equals(keyword) || "DROP".equals(keyword)
+            || "RENAME".equals(keyword);
+    }
 }
@@ -17,47 +17,103 @@
  */
 package org.jboss.arquillian.persistence.script;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import org.jboss.arquillian.persistence.core.exception.ScriptLoadingException;
+import org.jboss.arquillian.persistence.core.util.Resources;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  */
 public final class ScriptLoader {
 
+    /**
+     * Loads whole script decoded with given charset. Every line is terminated with {@code \r\n},
+     * regardless of line separators used in the file.
+     */
     public static String loadScript(String location, Charset charset) {
-        final StringBuilder builder = new StringBuilder();
+        final URL resource = Resources.find(location);
+        if (resource == null) {
+            throw new ScriptLoadingException("Failed loading script " + location,
+                new IllegalArgumentException("Unable to find " + location));
+        }
 
-        final InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(location);
+        try {
+            return normalizeLineEndings(Resources.readText(resource, charset));
+        } catch (Exception e) {
+            throw new ScriptLoadingException("Failed loading script " + location, e);
+        }
+    }
 
-        BufferedReader reader = null;
-        String line;
+    /**
+     * Opens script for reading, so it can be processed without loading it into memory at once.
+     */
+    public static Reader openScript(String location, Charset charset) {
+        final URL resource = Resources.find(location);
+        if (resource == null) {
+            throw new ScriptLoadingException("Failed loading script " + location,
+                new IllegalArgumentException("Unable to find " + location));
+        }
 
         try {
-            reader = new BufferedReader(new InputStreamReader(inputStream, charset));
-            while ((line = reader.readLine()) != null) {
-                builder.append(line)
-                    .append("\r\n");
-            }
-        } catch (Exception e) {
+            return new InputStreamReader(Resources.openStream(resource), charset);
+        } catch (IOException e) {
             throw new ScriptLoadingException("Failed loading script " + location, e);
-        } finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    throw new ScriptLoadingException("Unable to close script.", e);
+        }
+    }
+
+    static String normalizeLineEndings(CharBuffer text) {
+        final int length = text.remaining();
+        if (isNormalized(text)) {
+            return text.toString();
+        }
+
+        final StringBuilder builder = new StringBuilder(length + length / 32 + 2);
+        int lineStart = 0;
+        int i = 0;
+        while (i < length) {
+            final char c = text.get(i);
+            if (c == '\n' || c == '\r') {
+                builder.append(text, lineStart, i).append("\r\n");
+                if (c == '\r' && i + 1 < length && text.get(i + 1) == '\n') {
+                    i++;
                 }
+                lineStart = i + 1;
             }
+            i++;
+        }
+        if (lineStart < length) {
+            builder.append(text, lineStart, length).append("\r\n");
         }
-
         return builder.toString();
     }
 
+    private static boolean isNormalized(CharBuffer text) {
+        final int length = text.remaining();
+        if (length == 0) {
+            return true;
+        }
+        if (length < 2 || text.get(length - 2) != '\r' || text.get(length - 1) != '\n') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char c = text.get(i);
+            if (c == '\r') {
+                if (i + 1 >= length || text.get(i + 1) != '\n') {
+                    return false;
+                }
+                i++;
+            } else if (c == '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static boolean isSqlScriptFile(String script) {
         if (script == null) {
             return false;
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.jboss.arquillian.persistence.core.exception.ScriptExecutionException;
+
+/**
+ * Groups consecutive DML statements into JDBC batches executed using single, reused {@link Statement}.
+ * Any other statement flushes pending batch first and is then executed on its own, so the order
+ * of statements from the script is preserved. Batch of size 1 executes all statements one by one.
+ */
+class StatementBatch {
+
+    private static final String[] BATCHABLE_KEYWORDS = {"INSERT", "UPDATE", "DELETE", "MERGE"};
+
+    private final Connection connection;
+
+    private final int batchSize;
+
+    private final List<String> pending = new ArrayList<String>();
+
+    private Statement statement;
+
+    StatementBatch(Connection connection, int batchSize) {
+        this.connection = connection;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    void add(String sqlStatement) {
+        if (batchSize == 1 || !isBatchable(sqlStatement)) {
+            flush();
+            executeAlone(sqlStatement);
+            return;
+        }
+
+        try {
+            statement().addBatch(sqlStatement);
+        } catch (SQLException e) {
+            throw new ScriptExecutionException("Unable to execute statement: " + sqlStatement, e);
+        }
+        pending.add(sqlStatement);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            statement.executeBatch();
+        } catch (BatchUpdateException e) {
+            throw new ScriptExecutionException(describeFailure(e), e);
+        } catch (SQLException e) {
+            throw new ScriptExecutionException("Unable to execute batch of statements: " + pending, e);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    void close() {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                throw new ScriptExecutionException("Unable to close statement after script execution.", e);
+            } finally {
+                statement = null;
+            }
+        }
+    }
+
+    static boolean isBatchable(String sqlStatement) {
+        int start = 0;
+        final int length = sqlStatement.length();
+        while (start < length
+            && (Character.isWhitespace(sqlStatement.charAt(start)) || sqlStatement.charAt(start) == '(')) {
+            start++;
+        }
+        for (String keyword : BATCHABLE_KEYWORDS) {
+            final int end = start + keyword.length();
+            if (sqlStatement.regionMatches(true, start, keyword, 0, keyword.length())
+                && (end == length || !Character.isLetterOrDigit(sqlStatement.charAt(end)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Private methods
+
+    private Statement statement() throws SQLException {
+        if (statement == null) {
+            statement = connection.createStatement();
+        }
+        return statement;
+    }
+
+    private void executeAlone(String sqlStatement) {
+        try {
+            statement().execute(sqlStatement);
+        } catch (Exception e) {
+            throw new ScriptExecutionException("Unable to execute statement: " + sqlStatement, e);
+        }
+    }
+
+    /**
+     * Drivers either stop at the first failure, returning update counts of the statements executed before it,
+     * or continue and mark failed statements with {@link Statement#EXECUTE_FAILED}.
+     */
+    private String describeFailure(BatchUpdateException e) {
+        final int[] updateCounts = e.getUpdateCounts();
+        int failed = -1;
+        if (updateCounts != null) {
+            if (updateCounts.length < pending.size()) {
+                failed = updateCounts.length;
+            } else {
+                for (int i = 0; i < updateCounts.length && failed < 0; i++) {
+                    if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                        failed = i;
+                    }
+                }
+            }
+        }
+        if (failed < 0 || failed >= pending.size()) {
+            return "Unable to execute batch of statements: " + pending;
+        }
+        return "Unable to execute statement: " + pending.get(failed);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * INSERT or UPDATE statement with its literals replaced by JDBC parameters, so statements of the same
+ * shape share single template.
+ * <br><br>
+ * Typed literals (e.g. {@code DATE '2012-01-01'}, {@code N'text'}) are kept in the template, as they
+ * cannot be replaced by a parameter without changing their meaning. Statements using backslashes in
+ * string literals, existing parameters, comments or sub-selects are not templated at all.
+ */
+class TemplatedStatement {
+
+    private static final String[] TEMPLATED_KEYWORDS = {"INSERT", "UPDATE"};
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final String statement;
+
+    private final String template;
+
+    private final List<Object> parameters;
+
+    private TemplatedStatement(String statement, String template, List<Object> parameters) {
+        this.statement = statement;
+        this.template = template;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @return templated statement or null if given statement cannot be templated.
+     */
+    static TemplatedStatement parse(String statement) {
+        if (!startsWithTemplatedKeyword(statement)) {
+            return null;
+        }
+
+        final StringBuilder template = new StringBuilder(statement.length());
+        final List<Object> parameters = new ArrayList<Object>();
+        final int length = statement.length();
+        int i = 0;
+        while (i < length) {
+            final char c = statement.charAt(i);
+            if (c == '\'') {
+                final int end = endOfQuoted(statement, i, '\'');
+                if (end < 0) {
+                    return null;
+                }
+                if (isIdentifierPart(lastNonWhitespace(template))) {
+                    template.append(statement, i, end);
+                } else {
+                    final String value = statement.substring(i + 1, end - 1);
+                    if (value.indexOf('\\') >= 0) {
+                        return null;
+                    }
+                    parameters.add(value.replace("''", "'"));
+                    template.append('?');
+                }
+                i = end;
+            } else if (c == '"' || c == '`') {
+                final int end = endOfQuoted(statement, i, c);
+                if (end < 0) {
+                    return null;
+                }
+                template.append(statement, i, end);
+                i = end;
+            } else if (Character.isDigit(c)) {
+                final int end = endOfNumber(statement, i);
+                if (end < length && isIdentifierPart(statement.charAt(end))) {
+                    return null;
+                }
+                parameters.add(toNumber(statement.substring(i, end)));
+                template.append('?');
+                i = end;
+            } else if (isIdentifierPart(c)) {
+                final int start = i;
+                while (i < length && isIdentifierPart(statement.charAt(i))) {
+                    i++;
+                }
+                if (statement.regionMatches(true, start, "SELECT", 0, i - start) && i - start == "SELECT".length()) {
+                    return null;
+                }
+                template.append(statement, start, i);
+            } else if (c == '?' || c == '$' || c == '\\' || startsComment(statement, i)) {
+                return null;
+            } else {
+                template.append(c);
+                i++;
+            }
+        }
+
+        return new TemplatedStatement(statement, template.toString(), Collections.unmodifiableList(parameters));
+    }
+
+    String getStatement() {
+        return statement;
+    }
+
+    String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return values of extracted literals, either {@link String}, {@link Long} or {@link BigDecimal}.
+     */
+    List<Object> getParameters() {
+        return parameters;
+    }
+
+    // Private methods
+
+    private static boolean startsWithTemplatedKeyword(String statement) {
+        int start = 0;
+        while (start < statement.length() && Character.isWhitespace(statement.charAt(start))) {
+            start++;
+        }
+        for (String keyword : TEMPLATED_KEYWORDS) {
+            final int end = start + keyword.length();
+            if (statement.regionMatches(true, start, keyword, 0, keyword.length())
+                && end < statement.length() && Character.isWhitespace(statement.charAt(end))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return index right after the closing quote or -1 if quoted text is not terminated.
+     */
+    private static int endOfQuoted(String statement, int start, char quote) {
+        int i = start + 1;
+        while (i < statement.length()) {
+            if (statement.charAt(i) == quote) {
+                if (i + 1 < statement.length() && statement.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int endOfNumber(String statement, int start) {
+        final int length = statement.length();
+        int i = skipDigits(statement, start);
+        if (i < length && statement.charAt(i) == '.') {
+            i = skipDigits(statement, i + 1);
+        }
+        if (i + 1 < length && (statement.charAt(i) == 'e' || statement.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (statement.charAt(exponent) == '+' || statement.charAt(exponent) == '-') {
+                exponent++;
+            }
+            if (exponent < length && Character.isDigit(statement.charAt(exponent))) {
+                i = skipDigits(statement, exponent);
+            }
+        }
+        return i;
+    }
+
+    private static int skipDigits(String statement, int start) {
+        int i = start;
+        while (i < statement.length() && Character.isDigit(statement.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Object toNumber(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (!Character.isDigit(literal.charAt(i))) {
+                return new BigDecimal(literal);
+            }
+        }
+        if (literal.length() <= MAX_LONG_DIGITS) {
+            return Long.valueOf(literal);
+        }
+        return new BigDecimal(literal);
+    }
+
+    private static boolean startsComment(String statement, int i) {
+        if (i + 1 >= statement.length()) {
+            return false;
+        }
+        final char c = statement.charAt(i);
+        final char next = statement.charAt(i + 1);
+        return (c == '-' && next == '-') || (c == '/' && next == '*');
+    }
+
+    private static int lastNonWhitespace(StringBuilder text) {
+        for (int i = text.length() - 1; i >= 0; i--) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return text.charAt(i);
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return c >= 0 && (Character.isLetterOrDigit(c) || c == '_');
+    }
+}
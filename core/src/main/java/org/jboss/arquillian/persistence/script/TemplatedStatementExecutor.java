@@ -0,0 +1,336 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.jboss.arquillian.persistence.core.exception.ScriptExecutionException;
+
+/**
+ * Executes structurally identical INSERT and UPDATE statements as batches of a cached {@link PreparedStatement},
+ * binding their literals as parameters, so the database parses each shape of statement only once.
+ * <br><br>
+ * Templates are distinguished also by the kind of each literal (string, integer or decimal), as it determines
+ * the type the parameter is bound with. The first statement of every template is executed on its own. If the
+ * database refuses the templated form (e.g. because of a string literal implicitly converted to another type),
+ * statements of this shape are executed as they are. Statements which cannot be templated are passed
+ * to the {@link StatementBatch}.
+ */
+class TemplatedStatementExecutor {
+
+    private static final Logger log = Logger.getLogger(TemplatedStatementExecutor.class.getName());
+
+    private static final int MAX_CACHED_TEMPLATES = 64;
+
+    private static final int REPORTED_TEMPLATES = 10;
+
+    private static final long NANOS_IN_MILLI = 1000000L;
+
+    private final Connection connection;
+
+    private final int batchSize;
+
+    private final StatementBatch statementBatch;
+
+    private final boolean useSavepoints;
+
+    private final Map<String, Template> templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+            if (size() > MAX_CACHED_TEMPLATES) {
+                eldest.getValue().close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, TemplateStatistics> statistics = new LinkedHashMap<String, TemplateStatistics>();
+
+    private final List<String> pending = new ArrayList<String>();
+
+    private Template current;
+
+    TemplatedStatementExecutor(Connection connection, int batchSize, StatementBatch statementBatch) {
+        this.connection = connection;
+        this.batchSize = Math.max(batchSize, 1);
+        this.statementBatch = statementBatch;
+        this.useSavepoints = isTransactional(connection);
+    }
+
+    void add(String sqlStatement) {
+        final TemplatedStatement templated = TemplatedStatement.parse(sqlStatement);
+        final String key = templated == null ? null : keyOf(templated);
+        Template template = key == null ? null : templates.get(key);
+        if (templated == null || (template != null && template.refused)) {
+            flush();
+            statementBatch.add(sqlStatement);
+            return;
+        }
+
+        statementBatch.flush();
+        if (template != current) {
+            flush();
+        }
+        if (template == null) {
+            template = new Template(templated.getTemplate());
+            templates.put(key, template);
+        }
+        current = template;
+
+        if (!template.verified) {
+            verify(template, templated);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            bind(template.prepared(connection), templated.getParameters());
+            if (batchSize == 1) {
+                template.prepared.execute();
+                statisticsOf(template.sql).record(1, System.nanoTime() - start);
+                return;
+            }
+            template.prepared.addBatch();
+        } catch (SQLException e) {
+            throw new ScriptExecutionException("Unable to execute statement: " + sqlStatement, e);
+        }
+        pending.add(sqlStatement);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    void flush() {
+        statementBatch.flush();
+        if (pending.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            current.prepared.executeBatch();
+        } catch (BatchUpdateException e) {
+            throw new ScriptExecutionException(describeFailure(e), e);
+        } catch (SQLException e) {
+            throw new ScriptExecutionException("Unable to execute batch of statements: " + pending, e);
+        } finally {
+            statisticsOf(current.sql).record(pending.size(), System.nanoTime() - start);
+            pending.clear();
+        }
+    }
+
+    void close() {
+        try {
+            for (Template template : templates.values()) {
+                template.close();
+            }
+            templates.clear();
+        } finally {
+            statementBatch.close();
+        }
+        report();
+    }
+
+    // Private methods
+
+    private void verify(Template template, TemplatedStatement templated) {
+        Savepoint savepoint = null;
+        final long start = System.nanoTime();
+        try {
+            if (useSavepoints) {
+                savepoint = connection.setSavepoint();
+            }
+            bind(template.prepared(connection), templated.getParameters());
+            template.prepared.execute();
+            template.verified = true;
+            statisticsOf(template.sql).record(1, System.nanoTime() - start);
+        } catch (SQLException e) {
+            rollback(savepoint);
+            template.refused = true;
+            template.close();
+            log.fine("Statement " + templated.getStatement() + " cannot be executed as a template "
+                + template.sql + ", statements of this shape will be executed as they are. " + e.getMessage());
+            statementBatch.add(templated.getStatement());
+        }
+    }
+
+    /**
+     * Template followed by the kinds of its parameters, so literals bound using different setters
+     * don't share one prepared statement.
+     */
+    private static String keyOf(TemplatedStatement templated) {
+        final StringBuilder key = new StringBuilder(templated.getTemplate()).append('\0');
+        for (Object parameter : templated.getParameters()) {
+            if (parameter instanceof Long) {
+                key.append('L');
+            } else if (parameter instanceof BigDecimal) {
+                key.append('D');
+            } else {
+                key.append('S');
+            }
+        }
+        return key.toString();
+    }
+
+    private void rollback(Savepoint savepoint) {
+        if (savepoint != null) {
+            try {
+                connection.rollback(savepoint);
+            } catch (SQLException e) {
+                throw new ScriptExecutionException("Unable to rollback to savepoint.", e);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            final Object parameter = parameters.get(i);
+            if (parameter instanceof Long) {
+                statement.setLong(i + 1, (Long) parameter);
+            } else if (parameter instanceof BigDecimal) {
+                statement.setBigDecimal(i + 1, (BigDecimal) parameter);
+            } else {
+                statement.setString(i + 1, (String) parameter);
+            }
+        }
+    }
+
+    private String describeFailure(BatchUpdateException e) {
+        final int[] updateCounts = e.getUpdateCounts();
+        if (updateCounts != null && updateCounts.length < pending.size()) {
+            return "Unable to execute statement: " + pending.get(updateCounts.length);
+        }
+        if (updateCounts != null) {
+            for (int i = 0; i < updateCounts.length && i < pending.size(); i++) {
+                if (updateCounts[i] == PreparedStatement.EXECUTE_FAILED) {
+                    return "Unable to execute statement: " + pending.get(i);
+                }
+            }
+        }
+        return "Unable to execute batch of statements: " + pending;
+    }
+
+    private TemplateStatistics statisticsOf(String template) {
+        TemplateStatistics templateStatistics = statistics.get(template);
+        if (templateStatistics == null) {
+            templateStatistics = new TemplateStatistics(template);
+            statistics.put(template, templateStatistics);
+        }
+        return templateStatistics;
+    }
+
+    private void report() {
+        if (statistics.isEmpty()) {
+            return;
+        }
+        final List<TemplateStatistics> slowest = new ArrayList<TemplateStatistics>(statistics.values());
+        Collections.sort(slowest, new Comparator<TemplateStatistics>() {
+            @Override
+            public int compare(TemplateStatistics first, TemplateStatistics second) {
+                return first.nanos < second.nanos ? 1 : (first.nanos == second.nanos ? 0 : -1);
+            }
+        });
+        final StringBuilder report = new StringBuilder("Executed ").append(statistics.size())
+            .append(" statement templates:");
+        for (TemplateStatistics templateStatistics : slowest.subList(0, Math.min(REPORTED_TEMPLATES, slowest.size()))) {
+            report.append("\n  ").append(templateStatistics);
+        }
+        if (slowest.size() > REPORTED_TEMPLATES) {
+            report.append("\n  ... ").append(slowest.size() - REPORTED_TEMPLATES).append(" more");
+        }
+        log.info(report.toString());
+    }
+
+    private static boolean isTransactional(Connection connection) {
+        try {
+            return !connection.getAutoCommit() && connection.getMetaData().supportsSavepoints();
+        } catch (SQLException e) {
+            throw new ScriptExecutionException("Unable to determine transaction mode of the connection.", e);
+        }
+    }
+
+    private static class Template {
+
+        private final String sql;
+
+        private PreparedStatement prepared;
+
+        private boolean verified;
+
+        private boolean refused;
+
+        private Template(String sql) {
+            this.sql = sql;
+        }
+
+        private PreparedStatement prepared(Connection connection) throws SQLException {
+            if (prepared == null) {
+                prepared = connection.prepareStatement(sql);
+            }
+            return prepared;
+        }
+
+        private void close() {
+            if (prepared != null) {
+                try {
+                    prepared.close();
+                } catch (SQLException e) {
+                    log.warning("Unable to close prepared statement " + sql + ". " + e.getMessage());
+                } finally {
+                    prepared = null;
+                }
+            }
+        }
+    }
+
+    private static class TemplateStatistics {
+
+        private final String template;
+
+        private long executions;
+
+        private long nanos;
+
+        private TemplateStatistics(String template) {
+            this.template = template;
+        }
+
+        private void record(int executed, long elapsedNanos) {
+            executions += executed;
+            nanos += elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return executions + " executions in " + nanos / NANOS_IN_MILLI + " ms: " + template;
+        }
+    }
+}
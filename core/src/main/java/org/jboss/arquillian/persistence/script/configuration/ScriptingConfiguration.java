@@ -48,6 +48,12 @@ public class ScriptingConfiguration extends Configuration {
 
     private boolean showSql = false;
 
+    private boolean batchStatements = false;
+
+    private int statementBatchSize = 100;
+
+    private boolean templateStatements = false;
+
     private String sqlDialect = "default";
 
     private Charset charset = Charset.forName("UTF-8");
@@ -144,6 +150,48 @@ public class ScriptingConfiguration extends Configuration {
         this.showSql = showSql;
     }
 
+    public boolean isBatchStatements() {
+        return batchStatements;
+    }
+
+    /**
+     * @param batchStatements
+     *     Defines if consecutive DML statements (INSERT, UPDATE, DELETE and MERGE) from SQL scripts should be
+     *     sent to the database in JDBC batches. Other statements are executed one by one, after flushing
+     *     pending batch. Default value: false
+     */
+    public void setBatchStatements(boolean batchStatements) {
+        this.batchStatements = batchStatements;
+    }
+
+    public int getStatementBatchSize() {
+        return statementBatchSize;
+    }
+
+    /**
+     * @param statementBatchSize
+     *     Defines maximum amount of statements sent to the database in a single batch
+     *     when {@link #batchStatements} is enabled. Default value: 100
+     */
+    public void setStatementBatchSize(int statementBatchSize) {
+        this.statementBatchSize = statementBatchSize;
+    }
+
+    public boolean isTemplateStatements() {
+        return templateStatements;
+    }
+
+    /**
+     * @param templateStatements
+     *     Defines if INSERT and UPDATE statements from SQL scripts should be executed as cached prepared
+     *     statements, with their literals bound as parameters. Statements of the same shape are batched
+     *     using {@link #statementBatchSize} when {@link #batchStatements} is enabled. Execution counts and
+     *     timings of each template are logged after the script is executed. Default value: false
+     */
+    public void setTemplateStatements(boolean templateStatements) {
+        this.templateStatements = templateStatements;
+    }
+
     public String getSqlDialect() {
         return sqlDialect;
     }
@@ -17,6 +17,7 @@
  */
 package org.jboss.arquillian.persistence.script.data.descriptor;
 
+import java.io.Reader;
 import java.nio.charset.Charset;
 import org.jboss.arquillian.persistence.core.data.descriptor.Format;
 import org.jboss.arquillian.persistence.script.ScriptLoader;
@@ -44,6 +45,11 @@ public class FileSqlScriptResourceDescriptor extends SqlScriptResourceDescriptor
         return ScriptLoader.loadScript(getLocation(), charset);
     }
 
+    @Override
+    public Reader openReader() {
+        return ScriptLoader.openScript(getLocation(), charset);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
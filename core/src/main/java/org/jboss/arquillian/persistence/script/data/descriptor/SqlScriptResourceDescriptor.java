@@ -17,6 +17,8 @@
  */
 package org.jboss.arquillian.persistence.script.data.descriptor;
 
+import java.io.Reader;
+import java.io.StringReader;
 import org.jboss.arquillian.persistence.core.data.descriptor.ResourceDescriptor;
 
 /**
@@ -27,4 +29,11 @@ public abstract class SqlScriptResourceDescriptor extends ResourceDescriptor<Str
     public SqlScriptResourceDescriptor(String location) {
         super(location);
     }
+
+    /**
+     * @return reader of the script content. It's up to the caller to close it.
+     */
+    public Reader openReader() {
+        return new StringReader(getContent());
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script.splitter.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.jboss.arquillian.persistence.spi.script.StreamingStatementSplitter;
+
+/**
+ * Splits SQL script in a single pass over its characters, without holding the whole script in memory.
+ * <p>
+ * Statement delimiters are not recognized within:
+ * <ul>
+ * <li>string literals ({@code 'it''s'}, including PostgreSQL {@code E'it\'s'} escape strings),</li>
+ * <li>quoted identifiers ({@code "name"} and {@code `name`}),</li>
+ * <li>dollar-quoted strings ({@code $$ ... $$}, {@code $body$ ... $body$}),</li>
+ * <li>comments ({@code -- ...} and nested {@code /* ... *&#47;}), which are removed from the statements.</li>
+ * </ul>
+ * Delimiter consisting of letters and digits only (e.g. {@code GO}) has to be placed on its own line.
+ * Other delimiters are recognized anywhere outside of the constructs above.
+ */
+public class LexerStatementSplitter implements StreamingStatementSplitter {
+
+    private String statementDelimiter = ";";
+
+    private boolean trimStatementDelimiter;
+
+    public LexerStatementSplitter() {
+    }
+
+    public LexerStatementSplitter(String statementDelimiter) {
+        this.statementDelimiter = statementDelimiter;
+    }
+
+    @Override
+    public String supports() {
+        return "lexer";
+    }
+
+    @Override
+    public void setStatementDelimiter(String statementDelimiter) {
+        this.statementDelimiter = statementDelimiter;
+    }
+
+    @Override
+    public void setTrimStatementDelimiter(boolean trimStatementDelimiter) {
+        this.trimStatementDelimiter = trimStatementDelimiter;
+    }
+
+    @Override
+    public List<String> splitStatements(String script) {
+        return splitStatements(new StringReader(script));
+    }
+
+    @Override
+    public List<String> splitStatements(Reader reader) {
+        final List<String> statements = new ArrayList<String>();
+        final Iterator<String> iterator = iterateStatements(reader);
+        while (iterator.hasNext()) {
+            statements.add(iterator.next());
+        }
+        return statements;
+    }
+
+    @Override
+    public Iterator<String> iterateStatements(Reader reader) {
+        return new StatementIterator(new SqlLexer(reader, statementDelimiter, trimStatementDelimiter));
+    }
+
+    private static class StatementIterator implements Iterator<String> {
+
+        private final SqlLexer lexer;
+
+        private String next;
+
+        private boolean finished;
+
+        private StatementIterator(SqlLexer lexer) {
+            this.lexer = lexer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = lexer.nextStatement();
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed parsing file.", e);
+                }
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final String statement = next;
+            next = null;
+            return statement;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Statements are read-only");
+        }
+    }
+}
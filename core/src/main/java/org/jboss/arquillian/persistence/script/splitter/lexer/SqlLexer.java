@@ -0,0 +1,324 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script.splitter.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import org.jboss.arquillian.persistence.script.configuration.ScriptingConfiguration;
+
+/**
+ * Reads SQL statements one by one, keeping in memory only the statement being read
+ * and a small window of the script.
+ */
+class SqlLexer {
+
+    private static final int EOF = -1;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    /**
+     * Null when line breaks delimit statements.
+     */
+    private final String delimiter;
+
+    private final boolean wordDelimiter;
+
+    private final boolean trimDelimiter;
+
+    private final StringBuilder statement = new StringBuilder();
+
+    private char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private boolean endOfInput;
+
+    /**
+     * True if there was nothing but whitespace and comments since the last line break.
+     */
+    private boolean blankLine = true;
+
+    SqlLexer(Reader reader, String delimiter, boolean trimDelimiter) {
+        this.reader = reader;
+        this.delimiter = ScriptingConfiguration.NEW_LINE_SYMBOL.equals(delimiter) ? null : delimiter;
+        this.wordDelimiter = this.delimiter != null && isWord(this.delimiter);
+        this.trimDelimiter = trimDelimiter;
+    }
+
+    /**
+     * @return next statement or null if the end of script has been reached.
+     */
+    String nextStatement() throws IOException {
+        statement.setLength(0);
+        boolean hasContent = false;
+        int c;
+        while ((c = peek(0)) != EOF) {
+            if (c == '-' && peek(1) == '-') {
+                skipLineComment();
+                continue;
+            }
+            if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+                continue;
+            }
+
+            final int delimiterLength = matchDelimiter(c);
+            if (delimiterLength > 0) {
+                if (hasContent && delimiter != null && !trimDelimiter) {
+                    statement.append(buffer, position, delimiterLength);
+                }
+                position += delimiterLength;
+                blankLine = delimiter == null;
+                if (hasContent) {
+                    return trimmedStatement();
+                }
+                statement.setLength(0);
+                continue;
+            }
+
+            if (c == '\n' || c == '\r') {
+                blankLine = true;
+                appendCurrent();
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                appendCurrent();
+                continue;
+            }
+
+            blankLine = false;
+            hasContent = true;
+            if (c == '\'') {
+                readQuoted('\'', isEscapeStringPrefix());
+            } else if (c == '"' || c == '`') {
+                readQuoted((char) c, false);
+            } else if (c != '$' || isIdentifierPart(lastAppended()) || !readDollarQuoted()) {
+                appendCurrent();
+            }
+        }
+
+        return hasContent ? trimmedStatement() : null;
+    }
+
+    // Tokens
+
+    private int matchDelimiter(int c) throws IOException {
+        if (delimiter == null) {
+            if (c == '\n') {
+                return 1;
+            }
+            if (c == '\r') {
+                return peek(1) == '\n' ? 2 : 1;
+            }
+            return 0;
+        }
+
+        if (wordDelimiter) {
+            if (blankLine && matches(0, delimiter, true) && !isIdentifierPart(peek(delimiter.length()))) {
+                return delimiter.length();
+            }
+            return 0;
+        }
+
+        return matches(0, delimiter, false) ? delimiter.length() : 0;
+    }
+
+    private void skipLineComment() throws IOException {
+        int c;
+        while ((c = peek(0)) != EOF && c != '\n' && c != '\r') {
+            position++;
+        }
+    }
+
+    /**
+     * Block comments can be nested, as supported e.g. by PostgreSQL. Comment is replaced by a space, so it
+     * still separates surrounding tokens.
+     */
+    private void skipBlockComment() throws IOException {
+        position += 2;
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = peek(0)) != EOF) {
+            if (c == '*' && peek(1) == '/') {
+                depth--;
+                position += 2;
+            } else if (c == '/' && peek(1) == '*') {
+                depth++;
+                position += 2;
+            } else {
+                position++;
+            }
+        }
+        if (statement.length() > 0 && !Character.isWhitespace(lastAppended())) {
+            statement.append(' ');
+        }
+    }
+
+    private void readQuoted(char quote, boolean backslashEscapes) throws IOException {
+        appendCurrent();
+        int c;
+        while ((c = peek(0)) != EOF) {
+            appendCurrent();
+            if (backslashEscapes && c == '\\') {
+                if (peek(0) != EOF) {
+                    appendCurrent();
+                }
+            } else if (c == quote) {
+                if (peek(0) != quote) {
+                    return;
+                }
+                appendCurrent();
+            }
+        }
+    }
+
+    /**
+     * Reads {@code $tag$ ... $tag$} string, where tag is optional.
+     *
+     * @return false if current dollar sign does not start dollar-quoted string
+     */
+    private boolean readDollarQuoted() throws IOException {
+        int tagLength = 1;
+        if (peek(1) != '$') {
+            if (!isIdentifierStart(peek(1))) {
+                return false;
+            }
+            tagLength++;
+            while (isIdentifierPart(peek(tagLength))) {
+                tagLength++;
+            }
+            if (peek(tagLength) != '$') {
+                return false;
+            }
+        }
+        tagLength++;
+
+        final String tag = new String(buffer, position, tagLength);
+        statement.append(tag);
+        position += tagLength;
+        while (peek(0) != EOF) {
+            if (matches(0, tag, false)) {
+                statement.append(tag);
+                position += tagLength;
+                return true;
+            }
+            appendCurrent();
+        }
+        return true;
+    }
+
+    private boolean isEscapeStringPrefix() {
+        final int length = statement.length();
+        if (length == 0) {
+            return false;
+        }
+        final char prefix = statement.charAt(length - 1);
+        return (prefix == 'E' || prefix == 'e') && (length == 1 || !isIdentifierPart(statement.charAt(length - 2)));
+    }
+
+    private String trimmedStatement() {
+        int start = 0;
+        int end = statement.length();
+        while (start < end && statement.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && statement.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return statement.substring(start, end);
+    }
+
+    // Buffer handling
+
+    private void appendCurrent() {
+        statement.append(buffer[position++]);
+    }
+
+    private int lastAppended() {
+        return statement.length() == 0 ? EOF : statement.charAt(statement.length() - 1);
+    }
+
+    private boolean matches(int offset, String text, boolean ignoreCase) throws IOException {
+        final int length = text.length();
+        if (length == 0 || peek(offset + length - 1) == EOF) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char actual = buffer[position + offset + i];
+            final char expected = text.charAt(i);
+            if (actual != expected
+                && !(ignoreCase && Character.toUpperCase(actual) == Character.toUpperCase(expected))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return character at given distance from the current position or {@link #EOF} if script is shorter.
+     */
+    private int peek(int ahead) throws IOException {
+        while (position + ahead >= limit) {
+            if (endOfInput) {
+                return EOF;
+            }
+            fill(ahead);
+        }
+        return buffer[position + ahead];
+    }
+
+    private void fill(int ahead) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (ahead >= buffer.length || limit == buffer.length) {
+            final char[] larger = new char[Math.max(buffer.length * 2, ahead + 1)];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        final int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read == -1) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private static boolean isWord(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!isIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return text.length() > 0;
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return c != EOF && (Character.isLetter(c) || c == '_');
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return c != EOF && (Character.isLetterOrDigit(c) || c == '_');
+    }
+}
@@ -17,11 +17,18 @@
  */
 package org.jboss.arquillian.persistence.script;
 
+import java.nio.charset.Charset;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import org.jboss.arquillian.persistence.core.exception.ScriptExecutionException;
 import org.jboss.arquillian.persistence.script.configuration.ScriptingConfiguration;
+import org.jboss.arquillian.persistence.script.data.descriptor.FileSqlScriptResourceDescriptor;
 import org.jboss.arquillian.persistence.script.splitter.DefaultStatementSplitter;
+import org.jboss.arquillian.persistence.script.splitter.lexer.LexerStatementSplitter;
 import org.jboss.arquillian.persistence.testutils.FileLoader;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,7 +38,12 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -330,4 +342,134 @@ public class ScriptExecutorTest {
         assertThat(statementsCaptor.getAllValues()).containsSequence(
             "INSERT INTO `com` (`comtxt`) VALUES ('{}');");
     }
+
+    @Test
+    public void should_execute_statements_read_by_streaming_splitter() throws Exception {
+        // given
+        ArgumentCaptor<String> statementsCaptor = ArgumentCaptor.forClass(String.class);
+        scriptExecutor = spy(new ScriptExecutor(connection, scriptingConfiguration, new LexerStatementSplitter()));
+
+        // when
+        scriptExecutor.execute(new FileSqlScriptResourceDescriptor("scripts/two-inserts.sql", Charset.forName("UTF-8")));
+
+        // then
+        verify(connection, times(2)).createStatement();
+        verify(connection.createStatement(), times(2)).execute(statementsCaptor.capture());
+        assertThat(statementsCaptor.getAllValues()).hasSize(2);
+    }
+
+    @Test
+    public void should_group_consecutive_inserts_into_batches_when_batching_is_enabled() throws Exception {
+        // given
+        final Statement statement = enableBatching(2);
+        when(statement.executeBatch()).thenReturn(new int[] {1, 1});
+
+        // when
+        scriptExecutor.execute("INSERT INTO a VALUES (1);INSERT INTO a VALUES (2);INSERT INTO a VALUES (3);"
+            + "CREATE TABLE b (id INT);UPDATE a SET id = 4;");
+
+        // then
+        verify(connection, times(1)).createStatement();
+        verify(statement, times(4)).addBatch(anyString());
+        verify(statement, times(3)).executeBatch();
+        verify(statement).execute("CREATE TABLE b (id INT)");
+        verify(statement).close();
+    }
+
+    @Test
+    public void should_report_failing_statement_of_the_batch() throws Exception {
+        // given
+        final Statement statement = enableBatching(10);
+        when(statement.executeBatch()).thenThrow(new BatchUpdateException(new int[] {1}));
+
+        // when
+        try {
+            scriptExecutor.execute("INSERT INTO a VALUES (1);INSERT INTO a VALUES ('x');INSERT INTO a VALUES (3);");
+            failBecauseExceptionWasNotThrown(ScriptExecutionException.class);
+        } catch (ScriptExecutionException e) {
+            // then
+            assertThat(e).hasMessage("Unable to execute statement: INSERT INTO a VALUES ('x')");
+        }
+    }
+
+    @Test
+    public void should_execute_statements_of_the_same_shape_as_batched_prepared_statement() throws Exception {
+        // given
+        final Statement statement = enableBatching(10);
+        final PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement("INSERT INTO a VALUES (?, ?)")).thenReturn(preparedStatement);
+        scriptingConfiguration.setTemplateStatements(true);
+
+        // when
+        scriptExecutor.execute("INSERT INTO a VALUES (1, 'x');INSERT INTO a VALUES (2, 'y');"
+            + "INSERT INTO a VALUES (3, 'z');CREATE TABLE b (id INT);");
+
+        // then
+        verify(connection, times(1)).prepareStatement("INSERT INTO a VALUES (?, ?)");
+        verify(preparedStatement).setLong(1, 1L);
+        verify(preparedStatement).setString(2, "z");
+        verify(preparedStatement, times(1)).execute();
+        verify(preparedStatement, times(2)).addBatch();
+        verify(preparedStatement, times(1)).executeBatch();
+        verify(statement).execute("CREATE TABLE b (id INT)");
+    }
+
+    @Test
+    public void should_not_share_prepared_statement_between_quoted_and_unquoted_literals() throws Exception {
+        // given
+        enableBatching(10);
+        final PreparedStatement stringStatement = mock(PreparedStatement.class);
+        final PreparedStatement longStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement("INSERT INTO a VALUES (?)")).thenReturn(stringStatement, longStatement);
+        scriptingConfiguration.setTemplateStatements(true);
+
+        // when
+        scriptExecutor.execute("INSERT INTO a VALUES ('1');INSERT INTO a VALUES (2);INSERT INTO a VALUES ('3');");
+
+        // then
+        verify(connection, times(2)).prepareStatement("INSERT INTO a VALUES (?)");
+        verify(stringStatement).setString(1, "1");
+        verify(stringStatement).setString(1, "3");
+        verify(stringStatement, never()).setLong(anyInt(), anyLong());
+        verify(longStatement).setLong(1, 2L);
+        verify(longStatement, times(1)).execute();
+        verify(longStatement, never()).addBatch();
+    }
+
+    @Test
+    public void should_report_schema_modification_when_script_contains_ddl_statement() throws Exception {
+        // when
+        scriptExecutor.execute("INSERT INTO a VALUES (1);/* new table */ create table b (id INT);");
+
+        // then
+        assertThat(scriptExecutor.isSchemaModified()).isTrue();
+    }
+
+    @Test
+    public void should_not_report_schema_modification_when_script_contains_only_dml_statements() throws Exception {
+        // when
+        scriptExecutor.execute("INSERT INTO a VALUES (1);UPDATE a SET id = 2;DELETE FROM a;");
+
+        // then
+        assertThat(scriptExecutor.isSchemaModified()).isFalse();
+    }
+
+    @Test
+    public void should_recognize_ddl_statement_preceded_by_comments() throws Exception {
+        assertThat(ScriptExecutor.isSchemaStatement("-- drop it\n  DROP TABLE a")).isTrue();
+        assertThat(ScriptExecutor.isSchemaStatement("/* alter */ALTER TABLE a ADD COLUMN b INT")).isTrue();
+        assertThat(ScriptExecutor.isSchemaStatement("INSERT INTO created VALUES ('CREATE')")).isFalse();
+        assertThat(ScriptExecutor.isSchemaStatement("CREATED_AT")).isFalse();
+    }
+
+    private Statement enableBatching(int batchSize) throws SQLException {
+        final Statement statement = mock(Statement.class);
+        final DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenReturn(statement);
+        scriptingConfiguration.setBatchStatements(true);
+        scriptingConfiguration.setStatementBatchSize(batchSize);
+        return statement;
+    }
 }
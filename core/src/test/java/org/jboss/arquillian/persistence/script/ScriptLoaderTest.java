@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script;
+
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import org.jboss.arquillian.persistence.core.exception.ScriptLoadingException;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScriptLoaderTest {
+
+    @Test
+    public void should_terminate_every_line_with_crlf_when_loading_script() throws Exception {
+        // when
+        final String script = ScriptLoader.loadScript("scripts/two-inserts.sql", Charset.forName("UTF-8"));
+
+        // then
+        assertThat(script).endsWith("\r\n");
+        assertThat(script.replace("\r\n", "")).doesNotContain("\r").doesNotContain("\n");
+    }
+
+    @Test
+    public void should_normalize_mixed_line_endings() throws Exception {
+        // when
+        final String script = ScriptLoader.normalizeLineEndings(CharBuffer.wrap("a;\nb;\r\nc;\rd;"));
+
+        // then
+        assertThat(script).isEqualTo("a;\r\nb;\r\nc;\r\nd;\r\n");
+    }
+
+    @Test
+    public void should_keep_empty_lines_when_normalizing() throws Exception {
+        // when
+        final String script = ScriptLoader.normalizeLineEndings(CharBuffer.wrap("a;\n\n\r\n\rb;\n"));
+
+        // then
+        assertThat(script).isEqualTo("a;\r\n\r\n\r\n\r\nb;\r\n");
+    }
+
+    @Test
+    public void should_return_empty_script_when_file_is_empty() throws Exception {
+        // when
+        final String script = ScriptLoader.normalizeLineEndings(CharBuffer.wrap(""));
+
+        // then
+        assertThat(script).isEmpty();
+    }
+
+    @Test(expected = ScriptLoadingException.class)
+    public void should_fail_when_script_does_not_exist() throws Exception {
+        ScriptLoader.loadScript("scripts/non-existing.sql", Charset.forName("UTF-8"));
+    }
+}
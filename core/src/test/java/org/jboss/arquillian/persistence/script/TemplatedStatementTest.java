@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script;
+
+import java.math.BigDecimal;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplatedStatementTest {
+
+    @Test
+    public void should_replace_literals_with_parameters() {
+        // when
+        final TemplatedStatement templated = TemplatedStatement.parse(
+            "INSERT INTO useraccount (id, firstname, lastname) VALUES (1, 'John', 'O''Brien');");
+
+        // then
+        assertThat(templated.getTemplate())
+            .isEqualTo("INSERT INTO useraccount (id, firstname, lastname) VALUES (?, ?, ?);");
+        assertThat(templated.getParameters()).containsExactly(1L, "John", "O'Brien");
+    }
+
+    @Test
+    public void should_share_template_between_statements_of_the_same_shape() {
+        // when
+        final TemplatedStatement first = TemplatedStatement.parse("UPDATE t SET a = 'x', b = 2 WHERE id = 3");
+        final TemplatedStatement second = TemplatedStatement.parse("UPDATE t SET a = 'y', b = 2.5 WHERE id = 4");
+
+        // then
+        assertThat(first.getTemplate()).isEqualTo(second.getTemplate());
+        assertThat(second.getParameters()).containsExactly("y", new BigDecimal("2.5"), 4L);
+    }
+
+    @Test
+    public void should_keep_typed_literals_and_quoted_identifiers_in_template() {
+        // when
+        final TemplatedStatement templated =
+            TemplatedStatement.parse("INSERT INTO \"t1\" (a, b) VALUES (DATE '2012-01-01', N'text')");
+
+        // then
+        assertThat(templated.getTemplate()).isEqualTo("INSERT INTO \"t1\" (a, b) VALUES (DATE '2012-01-01', N'text')");
+        assertThat(templated.getParameters()).isEmpty();
+    }
+
+    @Test
+    public void should_not_template_statements_which_could_change_meaning() {
+        assertThat(TemplatedStatement.parse("INSERT INTO t SELECT * FROM s WHERE id = 1")).isNull();
+        assertThat(TemplatedStatement.parse("INSERT INTO t VALUES ('C:\\temp')")).isNull();
+        assertThat(TemplatedStatement.parse("INSERT INTO t VALUES (?)")).isNull();
+        assertThat(TemplatedStatement.parse("INSERT INTO t VALUES (0x1F)")).isNull();
+        assertThat(TemplatedStatement.parse("DELETE FROM t WHERE id = 1")).isNull();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.script.splitter.lexer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.List;
+import org.jboss.arquillian.persistence.script.configuration.ScriptingConfiguration;
+import org.jboss.arquillian.persistence.testutils.FileLoader;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LexerStatementSplitterTest {
+
+    @Test
+    public void should_split_statements_keeping_delimiter() {
+        // given
+        final LexerStatementSplitter splitter = new LexerStatementSplitter();
+
+        // when
+        final List<String> statements = splitter.splitStatements("SELECT * FROM TEST1;SELECT * FROM TEST2;\n");
+
+        // then
+        assertThat(statements).containsExactly("SELECT * FROM TEST1;", "SELECT * FROM TEST2;");
+    }
+
+    @Test
+    public void should_remove_delimiter_when_trimming_is_enabled() {
+        // given
+        final LexerStatementSplitter splitter = new LexerStatementSplitter();
+        splitter.setTrimStatementDelimiter(true);
+
+        // when
+        final List<String> statements = splitter.splitStatements("SELECT * FROM TEST1;\r\n\r\nSELECT * FROM TEST2");
+
+        // then
+        assertThat(statements).containsExactly("SELECT * FROM TEST1", "SELECT * FROM TEST2");
+    }
+
+    @Test
+    public void should_ignore_delimiters_in_quoted_text() {
+        // given
+        final LexerStatementSplitter splitter = new LexerStatementSplitter();
+        splitter.setTrimStatementDelimiter(true);
+
+        // when
+        final List<String> statements = splitter.splitStatements(
+            "INSERT INTO \"a;b\" VALUES ('it''s; fine', E'\\'; still', `c;d`);INSERT INTO t VALUES ('&amp;;')");
+
+        // then
+        assertThat(statements).containsExactly(
+            "INSERT INTO \"a;b\" VALUES ('it''s; fine', E'\\'; still', `c;d`)",
+            "INSERT INTO t VALUES ('&amp;;')");
+    }
+
+    @Test
+    public void should_ignore_delimiters_in_dollar_quoted_text() {
+        // given
+        final String function =
+            "CREATE FUNCTION f() RETURNS int AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql";
+        final LexerStatementSplitter splitter = new LexerStatementSplitter();
+        splitter.setTrimStatementDelimiter(true);
+
+        // when
+        final List<String> statements = splitter.splitStatements(function + ";\nDO $$ BEGIN PERFORM f(); END $$;");
+
+        // then
+        assertThat(statements).containsExactly(function, "DO $$ BEGIN PERFORM f(); END $$");
+    }
+
+    @Test
+    public void should_remove_comments() {
+        // given
+        final LexerStatementSplitter splitter = new LexerStatementSplitter();
+        splitter.setTrimStatementDelimiter(true);
+
+        // when
+        final List<String> statements = splitter.splitStatements("/* header; /* nested; */ still comment; */\n"
+            + "-- INSERT INTO t VALUES (1);\n"
+            + "INSERT INTO t VALUES (2); -- trailing; comment\n"
+            + "INSERT INTO t/**/VALUES ('-- not a comment')");
+
+        // then
+        assertThat(statements).containsExactly("INSERT INTO t VALUES (2)",
+            "INSERT INTO t VALUES ('-- not a comment')");
+    }
+
+    @Test
+    public void should_not_return_statements_when_script_contains_only_comments() {
+        // when
+        final List<String> statements =
+            new LexerStatementSplitter().splitStatements(FileLoader.loadAsString("scripts/just-comments.sql"));
+
+        // then
+        assertThat(statements).isEmpty();
+    }
+
+    @Test
+    public void should_split_on_word_delimiter_placed_on_its_own_line() {
+        // given
+        final LexerStatementSplitter splitter = new LexerStatementSplitter("GO");
+
+        // when
+        final List<String> statements = splitter.splitStatements(FileLoader.loadAsString("scripts/t-sql-example.sql"));
+
+        // then
+        assertThat(statements).hasSize(4);
+        assertThat(statements.get(1)).startsWith("DECLARE @MyMsg").endsWith("GO");
+    }
+
+    @Test
+    public void should_split_on_new_lines() {
+        // given
+        final LexerStatementSplitter splitter = new LexerStatementSplitter(ScriptingConfiguration.NEW_LINE_SYMBOL);
+
+        // when
+        final List<String> statements =
+            splitter.splitStatements(FileLoader.loadAsString("scripts/new-line-delimiter-with-trailing-comments.sql"));
+
+        // then
+        assertThat(statements).hasSize(6);
+        assertThat(statements.get(5)).isEqualTo("create sequence hibernate_sequence start with 1 increment by 1");
+    }
+
+    @Test
+    public void should_read_statements_lazily() {
+        // given
+        final StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            script.append("INSERT INTO t VALUES (").append(i).append(", 'value ").append(i).append("');\n");
+        }
+        final CountingReader reader = new CountingReader(script.toString());
+
+        // when
+        final Iterator<String> statements = new LexerStatementSplitter().iterateStatements(reader);
+        final String first = statements.next();
+
+        // then
+        assertThat(first).isEqualTo("INSERT INTO t VALUES (0, 'value 0');");
+        assertThat(reader.read).isLessThan(script.length());
+    }
+
+    private static class CountingReader extends StringReader {
+
+        private int read;
+
+        private CountingReader(String content) {
+            super(content);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            final int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                read += count;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.compiler;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.EnumSet;
+import java.util.logging.Logger;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetBuilder;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.BinaryDataSetWriter;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.PrecompiledDataSets;
+
+/**
+ * Precompiles XML, Excel, YAML and JSON data sets into the binary format, so tests load them without
+ * parsing. Precompiled file is written next to its source and picked up instead of it when
+ * it's not older than the source.
+ * <br><br>
+ * Intended to be run at build time on the test classes directory, e.g. using
+ * <code>exec-maven-plugin</code> in the <code>process-test-classes</code> phase:
+ * <pre>
+ * java DataSetCompiler target/test-classes [datasets]
+ * </pre>
+ * Only data sets which are newer than their precompiled versions are compiled again.
+ */
+public class DataSetCompiler {
+
+    private static final Logger log = Logger.getLogger(DataSetCompiler.class.getName());
+
+    private static final String DEFAULT_FOLDER = "datasets";
+
+    private static final EnumSet<Format> SOURCE_FORMATS =
+        EnumSet.of(Format.XML, Format.EXCEL, Format.YAML, Format.JSON);
+
+    private final File root;
+
+    private final BinaryDataSetWriter writer = new BinaryDataSetWriter();
+
+    public DataSetCompiler(File root) {
+        this.root = root;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: DataSetCompiler <classpath root> [<data sets folder>...]");
+        }
+
+        final String[] folders = new String[Math.max(args.length - 1, 1)];
+        if (args.length > 1) {
+            System.arraycopy(args, 1, folders, 0, args.length - 1);
+        } else {
+            folders[0] = DEFAULT_FOLDER;
+        }
+
+        final int compiled = new DataSetCompiler(new File(args[0])).compile(folders);
+        log.info("Precompiled " + compiled + " data sets in " + args[0]);
+    }
+
+    /**
+     * @param folders
+     *     folders relative to the classpath root which should be scanned recursively for data sets.
+     *
+     * @return amount of compiled data sets
+     */
+    public int compile(String... folders) throws IOException, DataSetException {
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+        // Data sets and their DTDs are resolved as classpath resources
+        currentThread.setContextClassLoader(
+            new URLClassLoader(new URL[] {root.toURI().toURL()}, originalClassLoader));
+        try {
+            int compiled = 0;
+            for (String folder : folders) {
+                compiled += compileDirectory(new File(root, folder), folder);
+            }
+            return compiled;
+        } finally {
+            currentThread.setContextClassLoader(originalClassLoader);
+        }
+    }
+
+    // Private methods
+
+    private int compileDirectory(File directory, String location) throws IOException, DataSetException {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        int compiled = 0;
+        for (File file : files) {
+            final String fileLocation = location + '/' + file.getName();
+            if (file.isDirectory()) {
+                compiled += compileDirectory(file, fileLocation);
+                continue;
+            }
+
+            final Format format = Format.inferFromFile(file.getName());
+            final File target = new File(directory, PrecompiledDataSets.precompiledLocationOf(file.getName()));
+            if (SOURCE_FORMATS.contains(format) && isOutdated(target, file)) {
+                compile(fileLocation, format, target);
+                compiled++;
+            }
+        }
+        return compiled;
+    }
+
+    private boolean isOutdated(File target, File source) {
+        return !target.exists() || target.lastModified() < source.lastModified();
+    }
+
+    private void compile(String location, Format format, File target) throws IOException, DataSetException {
+        log.fine("Precompiling " + location);
+        final IDataSet dataSet = DataSetBuilder.builderFor(format).buildFromSource(location);
+        final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(target));
+        boolean written = false;
+        try {
+            writer.write(dataSet, outputStream);
+            written = true;
+        } finally {
+            outputStream.close();
+            if (!written && !target.delete()) {
+                log.warning("Unable to remove incomplete " + target);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.compiler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.dbunit.dataset.IDataSet;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataSetCompilerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File source;
+
+    @Before
+    public void createDataSet() throws Exception {
+        final File dataSets = new File(folder.getRoot(), "datasets/users");
+        assertThat(dataSets.mkdirs()).isTrue();
+        source = new File(dataSets, "users.yml");
+        final OutputStream outputStream = new FileOutputStream(source);
+        try {
+            outputStream.write(("useraccount:\n"
+                + "  - id: 1\n"
+                + "    username: doovde\n"
+                + "  - id: 2\n"
+                + "    username: ckent\n"
+                + "    nickname: \"[null]\"\n").getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @Test
+    public void should_precompile_data_sets_found_in_nested_folders() throws Exception {
+        // given
+        final DataSetCompiler compiler = new DataSetCompiler(folder.getRoot());
+
+        // when
+        final int compiled = compiler.compile("datasets");
+
+        // then
+        assertThat(compiled).isEqualTo(1);
+        assertThat(new File(source.getParentFile(), "users.yml.dsb")).exists();
+    }
+
+    @Test
+    public void should_skip_data_sets_which_are_already_precompiled() throws Exception {
+        // given
+        final DataSetCompiler compiler = new DataSetCompiler(folder.getRoot());
+        compiler.compile("datasets");
+
+        // when
+        final int compiled = compiler.compile("datasets");
+
+        // then
+        assertThat(compiled).isZero();
+    }
+
+    @Test
+    public void should_load_precompiled_version_when_source_is_referenced() throws Exception {
+        // given
+        new DataSetCompiler(folder.getRoot()).compile("datasets");
+        // Source is still referenced by the test, but only precompiled version can be loaded
+        assertThat(source.delete()).isTrue();
+        final ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(
+            new URLClassLoader(new URL[] {folder.getRoot().toURI().toURL()}, originalClassLoader));
+
+        // when
+        final IDataSet dataSet;
+        try {
+            dataSet = DataSetBuilder.builderFor(Format.YAML).build("datasets/users/users.yml");
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalClassLoader);
+        }
+
+        // then
+        assertThat(dataSet.getTable("useraccount").getValue(1, "username")).isEqualTo("ckent");
+        assertThat(dataSet.getTable("useraccount").getValue(1, "nickname")).isNull();
+    }
+}
@@ -41,6 +41,18 @@ public class ColumnsHolder {
         }
     }
 
+    /**
+     * @return columns applying to all tables followed by columns associated with given table.
+     */
+    public List<String> columnsFor(String tableName) {
+        final List<String> columns = new ArrayList<String>(global);
+        final List<String> tableColumns = columnsPerTable.get(tableName);
+        if (tableColumns != null) {
+            columns.addAll(tableColumns);
+        }
+        return columns;
+    }
+
     private void splitTableAndColumn(String columnToExclude) {
         final String[] splittedTableAndColumn = columnToExclude.split("\\.");
 
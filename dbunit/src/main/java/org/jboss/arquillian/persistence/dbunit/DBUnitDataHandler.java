@@ -18,6 +18,8 @@
 package org.jboss.arquillian.persistence.dbunit;
 
 import java.sql.SQLException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
 import org.dbunit.database.DatabaseConnection;
 import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
@@ -35,21 +37,33 @@ import org.jboss.arquillian.persistence.core.event.CleanupDataUsingScript;
 import org.jboss.arquillian.persistence.core.event.ExecuteScripts;
 import org.jboss.arquillian.persistence.core.metadata.PersistenceExtensionFeatureResolver;
 import org.jboss.arquillian.persistence.core.test.AssertionErrorCollector;
+import org.jboss.arquillian.persistence.dbunit.bulk.BulkLoaderResolver;
+import org.jboss.arquillian.persistence.dbunit.cleanup.ChangedRowsTracker;
 import org.jboss.arquillian.persistence.dbunit.cleanup.CleanupStrategyExecutor;
 import org.jboss.arquillian.persistence.dbunit.cleanup.CleanupStrategyProvider;
+import org.jboss.arquillian.persistence.dbunit.cleanup.DatabaseSnapshot;
 import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
 import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitDataSeedStrategyProvider;
 import org.jboss.arquillian.persistence.dbunit.dataset.DataSetRegister;
+import org.jboss.arquillian.persistence.dbunit.dataset.ExpectedTablesDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.StreamedDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
 import org.jboss.arquillian.persistence.dbunit.event.CompareDBUnitData;
 import org.jboss.arquillian.persistence.dbunit.event.PrepareDBUnitData;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitConnectionException;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitDataSetHandlingException;
+import org.jboss.arquillian.persistence.dbunit.fingerprint.DatabaseFingerprintVerifier;
+import org.jboss.arquillian.persistence.dbunit.fingerprint.FingerprintDialectResolver;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
 import org.jboss.arquillian.persistence.dbunit.filter.TableFilterResolver;
+import org.jboss.arquillian.persistence.dbunit.seed.ParallelDataSeeder;
 import org.jboss.arquillian.persistence.script.ScriptExecutor;
 import org.jboss.arquillian.persistence.script.configuration.ScriptingConfiguration;
 import org.jboss.arquillian.persistence.script.data.descriptor.SqlScriptResourceDescriptor;
 import org.jboss.arquillian.persistence.script.splitter.StatementSplitterResolver;
+import org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader;
 import org.jboss.arquillian.persistence.spi.dbunit.filter.TableFilterProvider;
+import org.jboss.arquillian.persistence.spi.dbunit.fingerprint.FingerprintDialect;
 import org.jboss.arquillian.persistence.spi.script.StatementSplitter;
 
 import static org.jboss.arquillian.persistence.dbunit.DataSetUtils.mergeDataSets;
@@ -59,9 +73,20 @@ import static org.jboss.arquillian.persistence.dbunit.DataSetUtils.mergeDataSets
  */
 public class DBUnitDataHandler implements DataHandler<PrepareDBUnitData, CompareDBUnitData> {
 
+    private static final Logger log = Logger.getLogger(DBUnitDataHandler.class.getName());
+
+    @Inject
+    private Instance<DataSource> dataSourceInstance;
+
     @Inject
     private Instance<DatabaseConnection> databaseConnection;
 
+    @Inject
+    private Instance<DatabaseSnapshot> databaseSnapshotInstance;
+
+    @Inject
+    private Instance<ChangedRowsTracker> changedRowsTrackerInstance;
+
     @Inject
     private Instance<DataSetRegister> dataSetRegister;
 
@@ -79,26 +104,41 @@ public class DBUnitDataHandler implements DataHandler<PrepareDBUnitData, Compare
 
     @Override
     public void prepare(@Observes PrepareDBUnitData prepareDataEvent) {
+        final DatabaseSnapshot databaseSnapshot = databaseSnapshotInstance.get();
+        if (databaseSnapshot != null && databaseSnapshot.isCurrent()
+            && databaseSnapshot.isSeededWith(prepareDataEvent.getDescriptors())) {
+            log.fine("Database has been restored to the state after seeding the same data sets, skipping seeding.");
+            return;
+        }
         try {
             seedDatabase();
         } catch (Exception e) {
             throw new DBUnitDataSetHandlingException("Failed while seeding database.", e);
+        } finally {
+            markDatabaseSnapshotStale();
         }
     }
 
     @Override
     public void compare(@Observes CompareDBUnitData compareDataEvent) {
         try {
-            IDataSet currentDataSet = databaseConnection.get().createDataSet();
-            final String[] excludeTables =
-                dbunitConfigurationInstance.get().getExcludeTablesFromComparisonWhenEmptyExpected();
-            if (excludeTables.length != 0) {
-                currentDataSet = new FilteredDataSet(new ExcludeTableFilter(excludeTables), currentDataSet);
-            }
             final IDataSet expectedDataSet = mergeDataSets(dataSetRegister.get().getExpected());
-            final DataSetComparator dataSetComparator = new DataSetComparator(compareDataEvent.getSortByColumns(),
-                compareDataEvent.getColumnsToExclude(), compareDataEvent.getCustomColumnFilters());
-            dataSetComparator.compare(currentDataSet, expectedDataSet, assertionErrorCollector.get());
+            final FingerprintDialect fingerprintDialect = fingerprintDialect();
+            final int comparisonThreads = dbunitConfigurationInstance.get().getComparisonThreads();
+            if (comparisonThreads > 1 && expectedDataSet.getTableNames().length > 1
+                && canCompareInParallel(databaseConnection.get())) {
+                compareInParallel(compareDataEvent, expectedDataSet, fingerprintDialect, comparisonThreads);
+                return;
+            }
+            final IDataSet currentDataSet;
+            if (expectedDataSet.getTableNames().length == 0) {
+                currentDataSet = wholeDatabaseDataSet();
+            } else {
+                currentDataSet = new ExpectedTablesDataSet(databaseConnection.get(), expectedDataSet,
+                    compareDataEvent.getSortByColumns());
+            }
+            dataSetComparator(compareDataEvent, databaseConnection.get(), fingerprintDialect)
+                .compare(currentDataSet, expectedDataSet, assertionErrorCollector.get());
         } catch (Exception e) {
             throw new DBUnitDataSetHandlingException("Failed while comparing database state with provided data sets.", e);
         }
@@ -111,28 +151,93 @@ public class DBUnitDataHandler implements DataHandler<PrepareDBUnitData, Compare
 
     public void cleanupUsingScript(@Observes CleanupDataUsingScript cleanupDataUsingScriptEvent) {
         for (SqlScriptResourceDescriptor scriptDescriptor : cleanupDataUsingScriptEvent.getDescriptors()) {
-            final String script = scriptDescriptor.getContent();
-            executeScript(script);
+            executeScript(scriptDescriptor);
         }
     }
 
     public void executeScripts(@Observes ExecuteScripts executeScriptsEvent) {
         for (SqlScriptResourceDescriptor scriptDescriptor : executeScriptsEvent.getDescriptors()) {
-            final String script = scriptDescriptor.getContent();
-            executeScript(script);
+            executeScript(scriptDescriptor);
         }
     }
 
     // -- Private methods
 
-    private void executeScript(String script) {
+    private void compareInParallel(final CompareDBUnitData compareDataEvent, final IDataSet expectedDataSet,
+        final FingerprintDialect fingerprintDialect, int comparisonThreads) throws Exception {
+        final DatabaseConnectionFactory databaseConnectionFactory =
+            new DatabaseConnectionFactory(dbunitConfigurationInstance.get());
+        new ParallelDataSetComparator(dataSourceInstance.get(), databaseConnectionFactory, comparisonThreads)
+            .compare(expectedDataSet.getTableNames(), new ParallelDataSetComparator.TableComparison() {
+                @Override
+                public void compare(DatabaseConnection connection, String tableName,
+                    AssertionErrorCollector errorCollector) throws Exception {
+                    final IDataSet currentDataSet =
+                        new ExpectedTablesDataSet(connection, expectedDataSet, compareDataEvent.getSortByColumns());
+                    dataSetComparator(compareDataEvent, connection, fingerprintDialect)
+                        .compareTable(tableName, currentDataSet, expectedDataSet, errorCollector);
+                }
+            }, assertionErrorCollector.get());
+    }
+
+    private boolean canCompareInParallel(DatabaseConnection connection) throws SQLException {
+        if (dataSourceInstance.get() == null || !connection.getConnection().getAutoCommit()) {
+            log.fine("Connection is not in auto-commit mode, comparing database state using single thread.");
+            return false;
+        }
+        for (IDataSet expectedDataSet : dataSetRegister.get().getExpected()) {
+            if (expectedDataSet instanceof StreamedDataSet) {
+                log.fine("Streamed data sets are compared using single thread.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DataSetComparator dataSetComparator(CompareDBUnitData compareDataEvent, DatabaseConnection connection,
+        FingerprintDialect fingerprintDialect) {
+        DatabaseFingerprintVerifier fingerprintVerifier = null;
+        if (fingerprintDialect != null) {
+            fingerprintVerifier = new DatabaseFingerprintVerifier(connection, fingerprintDialect,
+                dbunitConfigurationInstance.get().getFingerprintVerificationThreshold());
+        }
+        return new DataSetComparator(compareDataEvent.getSortByColumns(), compareDataEvent.getColumnsToExclude(),
+            compareDataEvent.getCustomColumnFilters(), fingerprintVerifier);
+    }
+
+    private FingerprintDialect fingerprintDialect() throws SQLException {
+        if (dbunitConfigurationInstance.get().getFingerprintVerificationThreshold() <= 0) {
+            return null;
+        }
+        return new FingerprintDialectResolver(dbunitConfigurationInstance.get()).resolve(databaseConnection.get());
+    }
+
+    private IDataSet wholeDatabaseDataSet() throws SQLException {
+        final IDataSet currentDataSet = TableMetadataCache.instance().createDataSet(databaseConnection.get());
+        final String[] excludeTables =
+            dbunitConfigurationInstance.get().getExcludeTablesFromComparisonWhenEmptyExpected();
+        if (excludeTables.length != 0) {
+            return new FilteredDataSet(new ExcludeTableFilter(excludeTables), currentDataSet);
+        }
+        return currentDataSet;
+    }
+
+    private void executeScript(SqlScriptResourceDescriptor script) {
+        markDatabaseSnapshotStale();
         try {
             final StatementSplitter statementSplitter =
                 new StatementSplitterResolver(scriptConfigurationInstance.get()).resolve();
             final ScriptExecutor scriptExecutor =
                 new ScriptExecutor(databaseConnection.get().getConnection(), scriptConfigurationInstance.get(),
                     statementSplitter);
-            scriptExecutor.execute(script);
+            try {
+                scriptExecutor.execute(script);
+            } finally {
+                if (scriptExecutor.isSchemaModified()) {
+                    TableDependencyGraphCache.instance().invalidate(databaseConnection.get());
+                    TableMetadataCache.instance().invalidate(databaseConnection.get());
+                }
+            }
         } catch (SQLException e) {
             throw new DBUnitConnectionException("Unable to execute script.", e);
         }
@@ -148,19 +253,58 @@ public class DBUnitDataHandler implements DataHandler<PrepareDBUnitData, Compare
                 sequenceFilterProvider.provide(connection, initialDataSet.getTableNames());
             initialDataSet = new FilteredDataSet(databaseSequenceFilter, initialDataSet);
         }
+        final int seedingThreads = dbunitConfigurationInstance.get().getSeedingThreads();
+        if (seedingThreads > 1 && canSeedInParallel(connection)) {
+            final DatabaseConnectionFactory databaseConnectionFactory =
+                new DatabaseConnectionFactory(dbunitConfigurationInstance.get());
+            new ParallelDataSeeder(dataSourceInstance.get(), databaseConnectionFactory, seedingThreads)
+                .seed(connection, initialDataSet, seedingStrategy());
+            return;
+        }
         seedingStrategy().execute(connection, initialDataSet);
     }
 
-    private DatabaseOperation seedingStrategy() {
+    private boolean canSeedInParallel(DatabaseConnection connection) throws SQLException {
+        if (dataSourceInstance.get() == null || !connection.getConnection().getAutoCommit()) {
+            log.fine("Connection is not in auto-commit mode, seeding database using single thread.");
+            return false;
+        }
+        for (IDataSet initialDataSet : dataSetRegister.get().getInitial()) {
+            if (initialDataSet instanceof StreamedDataSet) {
+                log.fine("Streamed data sets are seeded using single thread.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DatabaseOperation seedingStrategy() throws SQLException {
         final DBUnitConfiguration dbUnitConfiguration = dbunitConfigurationInstance.get();
         final DataSeedStrategy dataSeedStrategy = persistenceExtensionFeatureResolverInstance.get().getDataSeedStrategy();
         final boolean useIdentityInsert = dbUnitConfiguration.isUseIdentityInsert();
-        return dataSeedStrategy.provide(new DBUnitDataSeedStrategyProvider(useIdentityInsert));
+        final int bulkLoadThreshold = dbUnitConfiguration.getBulkLoadThreshold();
+        BulkLoader bulkLoader = null;
+        if (bulkLoadThreshold > 0) {
+            bulkLoader = new BulkLoaderResolver(dbUnitConfiguration).resolve(databaseConnection.get());
+        }
+        return dataSeedStrategy.provide(
+            new DBUnitDataSeedStrategyProvider(useIdentityInsert, bulkLoader, bulkLoadThreshold));
     }
 
     private void cleanDatabase(BuiltInCleanupStrategy cleanupStrategy) {
+        if (!BuiltInCleanupStrategy.SNAPSHOT.equals(cleanupStrategy)) {
+            markDatabaseSnapshotStale();
+        }
         final CleanupStrategyExecutor cleanupStrategyExecutor = cleanupStrategy.provide(new CleanupStrategyProvider(
-            databaseConnection.get(), dataSetRegister.get(), dbunitConfigurationInstance.get()));
+            databaseConnection.get(), dataSetRegister.get(), dbunitConfigurationInstance.get(),
+            databaseSnapshotInstance.get(), changedRowsTrackerInstance.get()));
         cleanupStrategyExecutor.cleanupDatabase(dbunitConfigurationInstance.get().getExcludeTablesFromCleanup());
     }
+
+    private void markDatabaseSnapshotStale() {
+        final DatabaseSnapshot databaseSnapshot = databaseSnapshotInstance.get();
+        if (databaseSnapshot != null) {
+            databaseSnapshot.markStale();
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.lang.annotation.Annotation;
+import javax.sql.DataSource;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.persistence.dbunit.cleanup.TestTransaction;
+import org.jboss.arquillian.persistence.dbunit.cleanup.TransactionBoundDataSource;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.arquillian.test.spi.enricher.resource.ResourceProvider;
+
+/**
+ * Injects data source used by the extension through {@link ArquillianResource} annotation to the test class instance.
+ * <br><br>
+ * When the test runs with {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#ROLLBACK} cleanup strategy,
+ * injected data source hands out the connection of the test transaction, so it can be passed to the application
+ * under test.
+ */
+public class DBUnitDataSourceResourceProvider implements ResourceProvider {
+
+    @Inject
+    private Instance<DataSource> dataSourceInstance;
+
+    @Inject
+    private Instance<TestTransaction> testTransactionInstance;
+
+    @Override
+    public boolean canProvide(Class<?> type) {
+        return DataSource.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public Object lookup(ArquillianResource resource, Annotation... qualifiers) {
+        final TestTransaction testTransaction = testTransactionInstance.get();
+        if (testTransaction == null) {
+            return dataSourceInstance.get();
+        }
+        return TransactionBoundDataSource.wrap(dataSourceInstance.get(), testTransaction);
+    }
+}
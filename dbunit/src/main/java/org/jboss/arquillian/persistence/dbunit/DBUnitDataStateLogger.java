@@ -36,6 +36,7 @@ import org.jboss.arquillian.persistence.core.data.dump.DataStateLogger;
 import org.jboss.arquillian.persistence.core.event.BeforePersistenceTest;
 import org.jboss.arquillian.persistence.core.event.CleanupData;
 import org.jboss.arquillian.persistence.core.event.PersistenceEvent;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
 import org.jboss.arquillian.persistence.dbunit.event.PrepareDBUnitData;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitDataSetHandlingException;
 import org.jboss.arquillian.test.spi.TestClass;
@@ -129,7 +130,7 @@ public class DBUnitDataStateLogger implements DataStateLogger<PrepareDBUnitData>
     private void dumpDatabaseState(PersistenceEvent event, Phase phase) {
         final String path = configuration.get().getDumpDirectory() + "/" + createFileName(phase.getName());
         try {
-            final IDataSet dbContent = databaseConnection.get().createDataSet();
+            final IDataSet dbContent = TableMetadataCache.instance().createDataSet(databaseConnection.get());
             DataDump dumpData = createDataDump(path, dbContent);
             commandService.get().execute(new DumpDataCommand(dumpData));
         } catch (Exception e) {
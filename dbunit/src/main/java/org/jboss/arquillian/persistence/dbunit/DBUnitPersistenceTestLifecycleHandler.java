@@ -21,32 +21,39 @@ import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collection;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Collections;
 import javax.sql.DataSource;
-import org.dbunit.DatabaseUnitException;
-import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.DatabaseConnection;
-import org.dbunit.dataset.datatype.DefaultDataTypeFactory;
+import org.dbunit.dataset.IDataSet;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.InstanceProducer;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.api.annotation.Observes;
 import org.jboss.arquillian.core.spi.EventContext;
+import org.jboss.arquillian.persistence.BuiltInCleanupStrategy;
+import org.jboss.arquillian.persistence.UsingDataSet;
 import org.jboss.arquillian.persistence.core.event.AfterPersistenceTest;
 import org.jboss.arquillian.persistence.core.event.BeforePersistenceTest;
 import org.jboss.arquillian.persistence.core.metadata.MetadataExtractor;
 import org.jboss.arquillian.persistence.core.metadata.PersistenceExtensionFeatureResolver;
+import org.jboss.arquillian.persistence.dbunit.cleanup.ChangedRowsTracker;
+import org.jboss.arquillian.persistence.dbunit.cleanup.DatabaseSnapshot;
+import org.jboss.arquillian.persistence.dbunit.cleanup.TestTransaction;
+import org.jboss.arquillian.persistence.dbunit.configuration.ConnectionLifecycle;
 import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
-import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfigurationPropertyMapper;
 import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
 import org.jboss.arquillian.persistence.dbunit.data.provider.DataSetProvider;
 import org.jboss.arquillian.persistence.dbunit.data.provider.ExpectedDataSetProvider;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetCache;
 import org.jboss.arquillian.persistence.dbunit.dataset.DataSetRegister;
+import org.jboss.arquillian.persistence.dbunit.dataset.StreamedDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitConnectionException;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitInitializationException;
 import org.jboss.arquillian.test.spi.annotation.ClassScoped;
 import org.jboss.arquillian.test.spi.annotation.TestScoped;
+import org.jboss.arquillian.test.spi.event.suite.AfterClass;
+import org.jboss.arquillian.test.spi.event.suite.AfterSuite;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
@@ -66,10 +73,22 @@ public class DBUnitPersistenceTestLifecycleHandler {
     @ClassScoped
     private InstanceProducer<DatabaseConnection> databaseConnectionProducer;
 
+    @Inject
+    @ClassScoped
+    private InstanceProducer<DatabaseSnapshot> databaseSnapshotProducer;
+
+    @Inject
+    @ClassScoped
+    private InstanceProducer<ChangedRowsTracker> changedRowsTrackerProducer;
+
     @Inject
     @TestScoped
     private InstanceProducer<DataSetRegister> dataSetRegisterProducer;
 
+    @Inject
+    @TestScoped
+    private InstanceProducer<TestTransaction> testTransactionProducer;
+
     @Inject
     private Instance<PersistenceExtensionFeatureResolver> persistenceExtensionFeatureResolverInstance;
 
@@ -80,17 +99,36 @@ public class DBUnitPersistenceTestLifecycleHandler {
     public void provideDatabaseConnectionAroundBeforePersistenceTest(
         @Observes(precedence = 100000) EventContext<BeforePersistenceTest> context) {
         createDatabaseConnection();
+        beginTestTransaction();
         context.proceed();
+        captureDatabaseSnapshot(context.getEvent().getTestMethod());
+        trackChangedRows();
     }
 
     public void closeDatabaseConnections(@Observes(precedence = 100000) EventContext<AfterPersistenceTest> context) {
         try {
             context.proceed();
         } finally {
+            try {
+                rollbackTestTransaction();
+            } finally {
+                if (ConnectionLifecycle.TEST.equals(getConnectionLifecycle())) {
+                    closeDatabaseConnection();
+                }
+            }
+        }
+    }
+
+    public void closeClassDatabaseConnection(@Observes AfterClass afterClass) {
+        if (ConnectionLifecycle.CLASS.equals(getConnectionLifecycle()) && databaseConnectionProducer.get() != null) {
             closeDatabaseConnection();
         }
     }
 
+    public void closeSuiteDatabaseConnections(@Observes AfterSuite afterSuite) {
+        SharedDatabaseConnections.instance().closeAll();
+    }
+
     public void createDatasets(@Observes(precedence = 1000) EventContext<BeforePersistenceTest> context) {
         final Method testMethod = context.getEvent().getTestMethod();
 
@@ -99,7 +137,8 @@ public class DBUnitPersistenceTestLifecycleHandler {
         if (persistenceExtensionFeatureResolver.shouldSeedData()) {
             DataSetProvider dataSetProvider =
                 new DataSetProvider(metadataExtractorInstance.get(), dbUnitConfigurationInstance.get());
-            createInitialDataSets(dataSetProvider.getDescriptorsDefinedFor(testMethod));
+            createInitialDataSets(dataSetProvider.getDescriptorsDefinedFor(testMethod),
+                shouldStreamDataSets(testMethod));
         }
 
         if (persistenceExtensionFeatureResolver.shouldVerifyDataAfterTest()) {
@@ -114,41 +153,104 @@ public class DBUnitPersistenceTestLifecycleHandler {
     // ------------------------------------------------------------------------------------------------
 
     private void createDatabaseConnection() {
-
-        if (databaseConnectionProducer.get() == null) {
-            configureDatabaseConnection();
+        TableMetadataCache.instance().setEnabled(dbUnitConfigurationInstance.get().isCacheTableMetadata());
+        final DatabaseConnection databaseConnection = databaseConnectionProducer.get();
+        switch (getConnectionLifecycle()) {
+            case SUITE:
+                configureDatabaseConnection(true);
+                break;
+            case CLASS:
+                if (databaseConnection != null && SharedDatabaseConnections.isUsable(databaseConnection)) {
+                    break;
+                }
+                if (databaseConnection != null) {
+                    closeDatabaseConnection();
+                }
+                configureDatabaseConnection(false);
+                break;
+            default:
+                configureDatabaseConnection(false);
         }
     }
 
-    private void configureDatabaseConnection() {
+    private void configureDatabaseConnection(boolean sharedBySuite) {
         try {
-            final DataSource dataSource = dataSourceInstance.get();
-            final String schema = dbUnitConfigurationInstance.get().getSchema();
-            final DatabaseConnection databaseConnection = createDatabaseConnection(dataSource, schema);
-            databaseConnectionProducer.set(databaseConnection);
-
-            final DatabaseConfig dbUnitConfig = databaseConnection.getConfig();
-            dbUnitConfig.setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY, new DefaultDataTypeFactory());
-
-            final Map<String, Object> properties =
-                new DBUnitConfigurationPropertyMapper().map(dbUnitConfigurationInstance.get());
-            for (Entry<String, Object> property : properties.entrySet()) {
-                dbUnitConfig.setProperty(property.getKey(), property.getValue());
+            final DatabaseConnectionFactory databaseConnectionFactory =
+                new DatabaseConnectionFactory(dbUnitConfigurationInstance.get());
+            if (sharedBySuite) {
+                databaseConnectionProducer.set(
+                    SharedDatabaseConnections.instance().get(dataSourceInstance.get(), databaseConnectionFactory));
+            } else {
+                databaseConnectionProducer.set(databaseConnectionFactory.create(dataSourceInstance.get()));
             }
         } catch (Exception e) {
             throw new DBUnitInitializationException("Unable to initialize database connection for DBUnit module.", e);
         }
     }
 
-    public DatabaseConnection createDatabaseConnection(final DataSource dataSource, final String schema)
-        throws DatabaseUnitException, SQLException {
-        DatabaseConnection databaseConnection;
-        if (schema != null && schema.length() > 0) {
-            databaseConnection = new DatabaseConnection(dataSource.getConnection(), schema);
-        } else {
-            databaseConnection = new DatabaseConnection(dataSource.getConnection());
+    private void beginTestTransaction() {
+        final BuiltInCleanupStrategy cleanupStrategy =
+            persistenceExtensionFeatureResolverInstance.get().getCleanupStrategy();
+        if (!BuiltInCleanupStrategy.ROLLBACK.equals(cleanupStrategy)) {
+            return;
+        }
+        try {
+            testTransactionProducer.set(TestTransaction.begin(databaseConnectionProducer.get().getConnection()));
+        } catch (SQLException e) {
+            throw new DBUnitConnectionException("Unable to begin test transaction.", e);
+        }
+    }
+
+    private void rollbackTestTransaction() {
+        final TestTransaction testTransaction = testTransactionProducer.get();
+        if (testTransaction == null) {
+            return;
+        }
+        try {
+            testTransaction.rollback();
+        } catch (SQLException e) {
+            throw new DBUnitConnectionException("Unable to rollback test transaction.", e);
+        }
+    }
+
+    private void captureDatabaseSnapshot(Method testMethod) {
+        final PersistenceExtensionFeatureResolver persistenceExtensionFeatureResolver =
+            persistenceExtensionFeatureResolverInstance.get();
+        DatabaseSnapshot databaseSnapshot = databaseSnapshotProducer.get();
+        if (BuiltInCleanupStrategy.SNAPSHOT.equals(persistenceExtensionFeatureResolver.getCleanupStrategy())
+            && (databaseSnapshot == null || !databaseSnapshot.isCurrent())) {
+            Collection<DataSetResourceDescriptor> seededWith = Collections.emptyList();
+            if (persistenceExtensionFeatureResolver.shouldSeedData()) {
+                seededWith = new DataSetProvider(metadataExtractorInstance.get(), dbUnitConfigurationInstance.get())
+                    .getDescriptorsDefinedFor(testMethod);
+            }
+            final DBUnitConfiguration dbUnitConfiguration = dbUnitConfigurationInstance.get();
+            databaseSnapshot = DatabaseSnapshot.capture(databaseConnectionProducer.get(), dbUnitConfiguration,
+                seededWith, dbUnitConfiguration.getExcludeTablesFromCleanup());
+            databaseSnapshotProducer.set(databaseSnapshot);
+        }
+        if (databaseSnapshot != null) {
+            // the test is about to modify the database
+            databaseSnapshot.markStale();
+        }
+    }
+
+    private void trackChangedRows() {
+        final BuiltInCleanupStrategy cleanupStrategy =
+            persistenceExtensionFeatureResolverInstance.get().getCleanupStrategy();
+        if (BuiltInCleanupStrategy.CHANGED_ROWS_ONLY.equals(cleanupStrategy)) {
+            final DBUnitConfiguration dbUnitConfiguration = dbUnitConfigurationInstance.get();
+            changedRowsTrackerProducer.set(ChangedRowsTracker.capture(databaseConnectionProducer.get(),
+                dbUnitConfiguration, dbUnitConfiguration.getExcludeTablesFromCleanup()));
         }
-        return databaseConnection;
+    }
+
+    private ConnectionLifecycle getConnectionLifecycle() {
+        final DBUnitConfiguration dbUnitConfiguration = dbUnitConfigurationInstance.get();
+        if (dbUnitConfiguration == null || dbUnitConfiguration.getConnectionLifecycle() == null) {
+            return ConnectionLifecycle.TEST;
+        }
+        return dbUnitConfiguration.getConnectionLifecycle();
     }
 
     private void closeDatabaseConnection() {
@@ -163,10 +265,14 @@ public class DBUnitPersistenceTestLifecycleHandler {
         }
     }
 
-    private void createInitialDataSets(Collection<DataSetResourceDescriptor> dataSetDescriptors) {
+    private void createInitialDataSets(Collection<DataSetResourceDescriptor> dataSetDescriptors, boolean streaming) {
         DataSetRegister dataSetRegister = getOrCreateDataSetRegister();
-        for (DataSetResourceDescriptor dataSetDescriptor : dataSetDescriptors) {
-            dataSetRegister.addInitial(dataSetDescriptor.getContent());
+        if (streaming) {
+            dataSetRegister.addInitial(new StreamedDataSet(dataSetDescriptors));
+        } else {
+            for (DataSetResourceDescriptor dataSetDescriptor : dataSetDescriptors) {
+                dataSetRegister.addInitial(loadDataSet(dataSetDescriptor));
+            }
         }
         dataSetRegisterProducer.set(dataSetRegister);
     }
@@ -174,11 +280,23 @@ public class DBUnitPersistenceTestLifecycleHandler {
     private void createExpectedDataSets(Collection<DataSetResourceDescriptor> dataSetDescriptors) {
         DataSetRegister dataSetRegister = getOrCreateDataSetRegister();
         for (DataSetResourceDescriptor dataSetDescriptor : dataSetDescriptors) {
-            dataSetRegister.addExpected(dataSetDescriptor.getContent());
+            dataSetRegister.addExpected(loadDataSet(dataSetDescriptor));
         }
         dataSetRegisterProducer.set(dataSetRegister);
     }
 
+    private IDataSet loadDataSet(DataSetResourceDescriptor dataSetDescriptor) {
+        return DataSetCache.instance().load(dataSetDescriptor);
+    }
+
+    private boolean shouldStreamDataSets(Method testMethod) {
+        if (dbUnitConfigurationInstance.get().isStreamDataSets()) {
+            return true;
+        }
+        final UsingDataSet usingDataSet = metadataExtractorInstance.get().usingDataSet().fetchUsingFirst(testMethod);
+        return usingDataSet != null && usingDataSet.streaming();
+    }
+
     private DataSetRegister getOrCreateDataSetRegister() {
         DataSetRegister dataSetRegister = dataSetRegisterProducer.get();
         if (dataSetRegister == null) {
@@ -32,10 +32,12 @@ import org.dbunit.dataset.Column;
 import org.dbunit.dataset.Columns;
 import org.dbunit.dataset.CompositeTable;
 import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
 import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.FilteredTableMetaData;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.SortedTable;
 import org.dbunit.dataset.filter.DefaultColumnFilter;
 import org.dbunit.dataset.filter.IColumnFilter;
@@ -43,6 +45,7 @@ import org.dbunit.dataset.filter.IncludeTableFilter;
 import org.jboss.arquillian.persistence.core.test.AssertionErrorCollector;
 import org.jboss.arquillian.persistence.dbunit.dataset.TableWrapper;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitDataSetHandlingException;
+import org.jboss.arquillian.persistence.dbunit.fingerprint.DatabaseFingerprintVerifier;
 
 import static org.jboss.arquillian.persistence.dbunit.DataSetUtils.extractColumnNames;
 import static org.jboss.arquillian.persistence.dbunit.DataSetUtils.extractColumnsNotSpecifiedInExpectedDataSet;
@@ -60,11 +63,30 @@ public class DataSetComparator {
 
     final Set<Class<? extends IColumnFilter>> columnFilters;
 
+    private final RowMatcher rowMatcher = new RowMatcher();
+
+    private final DatabaseFingerprintVerifier fingerprintVerifier;
+
+    // part of the key of cached comparison plans
+    private final List<Object> settings;
+
     public DataSetComparator(final String[] orderBy, final String[] toExclude,
         Set<Class<? extends IColumnFilter>> columnFilters) {
+        this(orderBy, toExclude, columnFilters, null);
+    }
+
+    /**
+     * @param fingerprintVerifier
+     *     used to verify tables before their rows are read from the database, can be <code>null</code>.
+     */
+    public DataSetComparator(final String[] orderBy, final String[] toExclude,
+        Set<Class<? extends IColumnFilter>> columnFilters, DatabaseFingerprintVerifier fingerprintVerifier) {
         this.toExclude = new ColumnsHolder(toExclude);
         this.orderBy = new ColumnsHolder(orderBy);
         this.columnFilters = columnFilters;
+        this.fingerprintVerifier = fingerprintVerifier;
+        this.settings = Arrays.<Object>asList(new ArrayList<String>(Arrays.asList(orderBy)),
+            new ArrayList<String>(Arrays.asList(toExclude)));
     }
 
     private static <T> String[] toStringArray(final Collection<T> collection) {
@@ -87,31 +109,52 @@ public class DataSetComparator {
             new FilteredDataSet(new IncludeTableFilter(tableNames), currentDataSet);
 
         for (String tableName : tableNames) {
-            final List<String> columnsForSorting =
-                defineColumnsForSorting(filteredCurrentDataSet, expectedDataSet, tableName);
+            compareTable(tableName, filteredCurrentDataSet, expectedDataSet, errorCollector);
+        }
+    }
 
-            final ITable expectedTable = sort(new TableWrapper(expectedDataSet.getTable(tableName),
-                filteredCurrentDataSet.getTable(tableName).getTableMetaData()), columnsForSorting);
-            final ITable currentTable = sort(filteredCurrentDataSet.getTable(tableName), columnsForSorting);
+    /**
+     * Compares single table of the expected data set with its current state. Tables are independent of each other,
+     * so they can be compared concurrently as long as each one is read through its own current data set.
+     */
+    public void compareTable(String tableName, IDataSet currentDataSet, IDataSet expectedDataSet,
+        AssertionErrorCollector errorCollector) throws DatabaseUnitException {
+        final ITable expectedTableState = expectedDataSet.getTable(tableName);
+        final ITableMetaData currentMetaData = currentDataSet.getTableMetaData(tableName);
+        final TableComparisonPlan plan = planFor(tableName, expectedTableState, currentMetaData);
+        final List<IColumnFilter> customColumnFilters = instantiateCustomFilters();
+
+        if (fingerprintVerifier != null && fingerprintVerifier.matches(
+            filter(new TableWrapper(expectedTableState, currentMetaData), plan, customColumnFilters))) {
+            return;
+        }
 
-            final List<String> columnsToIgnore = extractColumnsToBeIgnored(expectedDataSet.getTable(tableName),
-                filteredCurrentDataSet.getTable(tableName));
+        final ITable currentTableState = currentDataSet.getTable(tableName);
 
-            final DiffCollectingFailureHandler diffCollector = new DiffCollectingFailureHandler();
+        if (!plan.orderingRequested
+            && containSameRows(expectedTableState, currentTableState, plan, customColumnFilters)) {
+            return;
+        }
 
-            final ITable expectedTableWithFilteredColumns = filter(expectedTable, toStringArray(columnsToIgnore));
-            final ITable actualTableWithFilteredColumns = filter(currentTable, toStringArray(columnsToIgnore));
+        // Rows are paired by sorting, so differences can be reported for each row
+        final ITable expectedTable = sort(new TableWrapper(expectedTableState,
+            currentTableState.getTableMetaData()), plan.columnsForSorting);
+        final ITable currentTable = sort(currentTableState, plan.columnsForSorting);
 
-            try {
-                Assertion.assertEquals(expectedTableWithFilteredColumns, actualTableWithFilteredColumns, diffCollector);
-            } catch (Throwable e) {
-                e.printStackTrace();
-                errorCollector.collect(e);
-            }
+        final DiffCollectingFailureHandler diffCollector = new DiffCollectingFailureHandler();
 
-            @SuppressWarnings("unchecked") final List<Difference> diffs = diffCollector.getDiffList();
-            collectErrors(errorCollector, diffs);
+        final ITable expectedTableWithFilteredColumns = filter(expectedTable, plan, customColumnFilters);
+        final ITable actualTableWithFilteredColumns = filter(currentTable, plan, customColumnFilters);
+
+        try {
+            Assertion.assertEquals(expectedTableWithFilteredColumns, actualTableWithFilteredColumns, diffCollector);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            errorCollector.collect(e);
         }
+
+        @SuppressWarnings("unchecked") final List<Difference> diffs = diffCollector.getDiffList();
+        collectErrors(errorCollector, diffs);
     }
 
     public void shouldBeEmpty(IDataSet dataSet, AssertionErrorCollector errorCollector) throws DatabaseUnitException {
@@ -141,6 +184,38 @@ public class DataSetComparator {
         }
     }
 
+    private boolean isOrderingRequested(String tableName) {
+        return !orderBy.global.isEmpty() || orderBy.columnsPerTable.containsKey(tableName);
+    }
+
+    /**
+     * Resolves columns to be ignored and used for sorting only once for the same comparison settings and table
+     * structure.
+     */
+    private TableComparisonPlan planFor(String tableName, ITable expectedTableState, ITableMetaData currentMetaData)
+        throws DataSetException {
+        final Collection<String> currentColumns = extractColumnNames(currentMetaData.getColumns());
+        final List<Object> key = Arrays.<Object>asList(settings, tableName,
+            extractColumnNames(expectedTableState.getTableMetaData().getColumns()), currentColumns);
+        TableComparisonPlan plan = TableComparisonPlanCache.instance().get(key);
+        if (plan == null) {
+            final List<String> columnsToIgnore =
+                extractColumnsToBeIgnored(expectedTableState, new DefaultTable(currentMetaData), currentColumns);
+            plan = new TableComparisonPlan(toStringArray(columnsToIgnore),
+                defineColumnsForSorting(tableName, expectedTableState, columnsToIgnore),
+                isOrderingRequested(tableName));
+            TableComparisonPlanCache.instance().put(key, plan);
+        }
+        return plan;
+    }
+
+    private boolean containSameRows(ITable expectedTableState, ITable currentTableState, TableComparisonPlan plan,
+        List<IColumnFilter> customColumnFilters) throws DataSetException {
+        final ITable expectedTable = filter(new TableWrapper(expectedTableState, currentTableState.getTableMetaData()),
+            plan, customColumnFilters);
+        return rowMatcher.matches(expectedTable, filter(currentTableState, plan, customColumnFilters));
+    }
+
     private ITable sort(ITable table, final List<String> columnsForSorting) throws DataSetException {
         final Column[] columnsToSort = extractColumnsToSort(table, columnsForSorting);
         final SortedTable sortedTable = new SortedTable(table, columnsToSort);
@@ -152,40 +227,39 @@ public class DataSetComparator {
         return Columns.findColumnsByName(toStringArray(columnsForSorting), table.getTableMetaData());
     }
 
-    private List<String> defineColumnsForSorting(IDataSet currentDataSet, IDataSet expectedDataSet, String tableName)
-        throws DataSetException {
+    private List<String> defineColumnsForSorting(String tableName, ITable expectedTableState,
+        List<String> columnsToIgnore) throws DataSetException {
         final List<String> columnsForSorting = new ArrayList<String>();
         columnsForSorting.addAll(orderBy.global);
         final List<String> columsPerTable = orderBy.columnsPerTable.get(tableName);
         if (columsPerTable != null) {
             columnsForSorting.addAll(columsPerTable);
         }
-        columnsForSorting.addAll(additionalColumnsForSorting(expectedDataSet.getTable(tableName),
-            currentDataSet.getTable(tableName)));
+        columnsForSorting.addAll(additionalColumnsForSorting(expectedTableState, columnsToIgnore));
         return columnsForSorting;
     }
 
-    private List<String> additionalColumnsForSorting(final ITable expectedTableState, final ITable currentTableState) {
+    private List<String> additionalColumnsForSorting(final ITable expectedTableState,
+        final List<String> columnsToIgnore) throws DataSetException {
         final List<String> columnsForSorting = new ArrayList<String>();
-        try {
-            final Set<String> allColumns = new HashSet<String>(extractColumnNames(expectedTableState.getTableMetaData()
-                .getColumns()));
-            final Set<String> columnsToIgnore = new HashSet<String>(extractColumnsToBeIgnored(expectedTableState,
-                currentTableState));
-            for (String column : allColumns) {
-                if (!columnsToIgnore.contains(column)) {
-                    columnsForSorting.add(column);
-                }
+        final Set<String> allColumns =
+            new HashSet<String>(extractColumnNames(expectedTableState.getTableMetaData().getColumns()));
+        final Set<String> ignoredColumns = new HashSet<String>(columnsToIgnore);
+        for (String column : allColumns) {
+            if (!ignoredColumns.contains(column)) {
+                columnsForSorting.add(column);
             }
-        } catch (DataSetException e) {
-            throw new DBUnitDataSetHandlingException("Unable to resolve columns", e);
         }
 
         return columnsForSorting;
     }
 
-    private List<String> extractColumnsToBeIgnored(final ITable expectedTableState, final ITable currentTableState)
-        throws DataSetException {
+    /**
+     * @param currentColumns
+     *     names of all columns of the table, which can be more than the columns read for the comparison.
+     */
+    private List<String> extractColumnsToBeIgnored(final ITable expectedTableState, final ITable currentTableState,
+        final Collection<String> currentColumns) throws DataSetException {
         final List<String> columnsToIgnore = extractColumnsNotSpecifiedInExpectedDataSet(expectedTableState,
             currentTableState);
         final String tableName = expectedTableState.getTableMetaData().getTableName();
@@ -197,8 +271,7 @@ public class DataSetComparator {
             columnsToIgnore.addAll(tableColumns);
         }
 
-        final List<String> nonExistingColumns = extractNonExistingColumns(columnsToIgnore,
-            extractColumnNames(currentTableState.getTableMetaData().getColumns()));
+        final List<String> nonExistingColumns = extractNonExistingColumns(columnsToIgnore, currentColumns);
 
         if (!nonExistingColumns.isEmpty()) {
             log.warning("Columns which are specified to be filtered out " + Arrays.toString(nonExistingColumns.toArray())
@@ -207,22 +280,34 @@ public class DataSetComparator {
         return columnsToIgnore;
     }
 
-    private ITable filter(final ITable table, final String[] columnsToFilter) throws DataSetException {
+    private ITable filter(final ITable table, final TableComparisonPlan plan,
+        final List<IColumnFilter> customColumnFilters) throws DataSetException {
         ITable filteredTable = DefaultColumnFilter.excludedColumnsTable(table,
-            Columns.findColumnsByName(columnsToFilter, table.getTableMetaData()));
-        return applyCustomFilters(filteredTable);
+            Columns.findColumnsByName(plan.columnsToIgnore, table.getTableMetaData()));
+        return applyCustomFilters(filteredTable, customColumnFilters);
+    }
+
+    private ITable applyCustomFilters(ITable table, List<IColumnFilter> customColumnFilters)
+        throws DataSetException {
+        for (IColumnFilter customColumnFilter : customColumnFilters) {
+            FilteredTableMetaData metaData = new FilteredTableMetaData(table.getTableMetaData(), customColumnFilter);
+            table = new CompositeTable(metaData, table);
+        }
+        return table;
     }
 
-    private ITable applyCustomFilters(ITable table) {
+    /**
+     * Custom filters are created for each table comparison, so they don't need to be stateless or thread-safe.
+     */
+    private List<IColumnFilter> instantiateCustomFilters() {
+        final List<IColumnFilter> customColumnFilters = new ArrayList<IColumnFilter>(columnFilters.size());
         for (Class<? extends IColumnFilter> columnFilter : columnFilters) {
             try {
-                final IColumnFilter customColumnFilter = columnFilter.newInstance();
-                FilteredTableMetaData metaData = new FilteredTableMetaData(table.getTableMetaData(), customColumnFilter);
-                table = new CompositeTable(metaData, table);
+                customColumnFilters.add(columnFilter.newInstance());
             } catch (Exception e) {
                 throw new DBUnitDataSetHandlingException("Unable to initialize custom column filters", e);
             }
         }
-        return table;
+        return customColumnFilters;
     }
 }
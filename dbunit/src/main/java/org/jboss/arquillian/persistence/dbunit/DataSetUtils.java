@@ -29,6 +29,7 @@ import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.jboss.arquillian.persistence.dbunit.dataset.StreamedDataSet;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
@@ -36,6 +37,10 @@ import org.dbunit.dataset.filter.ExcludeTableFilter;
 public class DataSetUtils {
 
     public static IDataSet mergeDataSets(final List<IDataSet> dataSets) throws DataSetException {
+        if (dataSets.size() == 1 && dataSets.get(0) instanceof StreamedDataSet) {
+            // Composite would read all the tables into memory
+            return dataSets.get(0);
+        }
         return new CompositeDataSet(dataSets.toArray(new IDataSet[dataSets.size()]));
     }
 
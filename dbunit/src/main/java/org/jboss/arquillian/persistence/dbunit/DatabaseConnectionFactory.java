@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.sql.DataSource;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.datatype.DefaultDataTypeFactory;
+import org.jboss.arquillian.persistence.core.util.Strings;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfigurationPropertyMapper;
+
+/**
+ * Creates DBUnit connections for the configured schema with DBUnit features and properties
+ * taken from {@link DBUnitConfiguration}.
+ */
+public class DatabaseConnectionFactory {
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public DatabaseConnectionFactory(DBUnitConfiguration dbUnitConfiguration) {
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    public DatabaseConnection create(DataSource dataSource) throws DatabaseUnitException, SQLException {
+        return create(dataSource.getConnection());
+    }
+
+    public DatabaseConnection create(Connection connection) throws DatabaseUnitException {
+        final String schema = dbUnitConfiguration.getSchema();
+        final DatabaseConnection databaseConnection;
+        if (Strings.isEmpty(schema)) {
+            databaseConnection = new DatabaseConnection(connection);
+        } else {
+            databaseConnection = new DatabaseConnection(connection, schema);
+        }
+
+        final DatabaseConfig dbUnitConfig = databaseConnection.getConfig();
+        dbUnitConfig.setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY, new DefaultDataTypeFactory());
+
+        final Map<String, Object> properties = new DBUnitConfigurationPropertyMapper().map(dbUnitConfiguration);
+        for (Entry<String, Object> property : properties.entrySet()) {
+            dbUnitConfig.setProperty(property.getKey(), property.getValue());
+        }
+        return databaseConnection;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.dbunit.database.DatabaseConnection;
+import org.jboss.arquillian.persistence.core.test.AssertionErrorCollector;
+
+/**
+ * Compares tables of the expected data set with the database using several connections at once. Each table
+ * is read and compared on a single connection obtained from the data source, connections are reused by
+ * subsequent tables.
+ * <br><br>
+ * Errors found in each table are gathered separately and passed to the given collector in the order
+ * of the table names, so the failure output is the same as when tables are compared one by one. As other
+ * connections see only committed changes, the connection of the test has to be in auto-commit mode.
+ */
+public class ParallelDataSetComparator {
+
+    private static final Logger log = Logger.getLogger(ParallelDataSetComparator.class.getName());
+
+    private final DataSource dataSource;
+
+    private final DatabaseConnectionFactory databaseConnectionFactory;
+
+    private final int threads;
+
+    public ParallelDataSetComparator(DataSource dataSource, DatabaseConnectionFactory databaseConnectionFactory,
+        int threads) {
+        this.dataSource = dataSource;
+        this.databaseConnectionFactory = databaseConnectionFactory;
+        this.threads = threads;
+    }
+
+    public void compare(String[] tableNames, TableComparison comparison, AssertionErrorCollector errorCollector)
+        throws Exception {
+        final int poolSize = Math.max(1, Math.min(threads, tableNames.length));
+        log.fine("Comparing " + tableNames.length + " tables using " + poolSize + " threads.");
+
+        final ParallelTableExecutor executor =
+            new ParallelTableExecutor(dataSource, databaseConnectionFactory, poolSize, "comparing");
+        try {
+            final List<TableComparing> tables = new ArrayList<TableComparing>(tableNames.length);
+            for (String tableName : tableNames) {
+                tables.add(new TableComparing(tableName, comparison));
+            }
+            for (AssertionErrorCollector tableErrors : executor.executeAll(tables)) {
+                errorCollector.collectAll(tableErrors);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Compares single table, reading its current state through the given connection.
+     */
+    public interface TableComparison {
+
+        void compare(DatabaseConnection connection, String tableName, AssertionErrorCollector errorCollector)
+            throws Exception;
+    }
+
+    private static class TableComparing implements ParallelTableExecutor.TableOperation<AssertionErrorCollector> {
+
+        private final String tableName;
+
+        private final TableComparison comparison;
+
+        private TableComparing(String tableName, TableComparison comparison) {
+            this.tableName = tableName;
+            this.comparison = comparison;
+        }
+
+        @Override
+        public AssertionErrorCollector execute(DatabaseConnection connection) throws Exception {
+            final AssertionErrorCollector tableErrors = new AssertionErrorCollector();
+            comparison.compare(connection, tableName, tableErrors);
+            return tableErrors;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.dbunit.database.DatabaseConnection;
+
+/**
+ * Runs operations on single tables concurrently, each on its own connection obtained from the data source.
+ * Connections are opened lazily, reused by subsequent tables and closed by {@link #shutdown()}, which has
+ * to be called once the executor is no longer needed.
+ */
+public class ParallelTableExecutor {
+
+    private static final Logger log = Logger.getLogger(ParallelTableExecutor.class.getName());
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private final DataSource dataSource;
+
+    private final DatabaseConnectionFactory databaseConnectionFactory;
+
+    private final ExecutorService executor;
+
+    private final BlockingQueue<DatabaseConnection> idleConnections = new LinkedBlockingQueue<DatabaseConnection>();
+
+    private final List<DatabaseConnection> openedConnections = new ArrayList<DatabaseConnection>();
+
+    /**
+     * @param threadName
+     *     prefix of the names of the threads, e.g. <code>seeding</code>.
+     */
+    public ParallelTableExecutor(DataSource dataSource, DatabaseConnectionFactory databaseConnectionFactory,
+        int threads, String threadName) {
+        this.dataSource = dataSource;
+        this.databaseConnectionFactory = databaseConnectionFactory;
+        this.executor = Executors.newFixedThreadPool(threads, new TableThreadFactory(threadName));
+    }
+
+    /**
+     * Runs all the operations and waits until they are finished, even if some of them fail.
+     *
+     * @return results of the operations in the same order as the operations.
+     * @throws Exception
+     *     the failure of the first failed operation.
+     */
+    public <T> List<T> executeAll(List<? extends TableOperation<T>> operations) throws Exception {
+        final List<Future<T>> futures = new ArrayList<Future<T>>(operations.size());
+        for (TableOperation<T> operation : operations) {
+            futures.add(executor.submit(new PooledConnectionCall<T>(operation)));
+        }
+        final List<T> results = new ArrayList<T>(futures.size());
+        Throwable failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        synchronized (openedConnections) {
+            for (DatabaseConnection connection : openedConnections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warning("Unable to close connection of parallel table operation. " + e.getMessage());
+                }
+            }
+            openedConnections.clear();
+        }
+    }
+
+    /**
+     * Operation on single table, carried out using the given connection.
+     */
+    public interface TableOperation<T> {
+
+        T execute(DatabaseConnection connection) throws Exception;
+    }
+
+    // Private methods
+
+    private DatabaseConnection acquireConnection() throws Exception {
+        DatabaseConnection connection = idleConnections.poll();
+        if (connection == null) {
+            connection = databaseConnectionFactory.create(dataSource);
+            synchronized (openedConnections) {
+                openedConnections.add(connection);
+            }
+        }
+        return connection;
+    }
+
+    private class PooledConnectionCall<T> implements Callable<T> {
+
+        private final TableOperation<T> operation;
+
+        private PooledConnectionCall(TableOperation<T> operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public T call() throws Exception {
+            final DatabaseConnection connection = acquireConnection();
+            try {
+                return operation.execute(connection);
+            } finally {
+                idleConnections.offer(connection);
+            }
+        }
+    }
+
+    private static class TableThreadFactory implements ThreadFactory {
+
+        private final String threadName;
+
+        private TableThreadFactory(String threadName) {
+            this.threadName = threadName;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread =
+                new Thread(runnable, "arquillian-persistence-" + threadName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * Checks if two tables contain the same rows regardless of their order. Rows are matched by hash
+ * of their values, so the check takes linear time instead of sorting both tables.
+ * <br><br>
+ * Values are converted to the type of the column first and compared the same way as by DBUnit,
+ * therefore tables considered matching would pass {@link org.dbunit.Assertion#assertEquals(ITable, ITable)}
+ * once sorted. Other differences, including values which can't be converted, are left to be
+ * reported by DBUnit.
+ */
+class RowMatcher {
+
+    boolean matches(ITable expected, ITable actual) throws DataSetException {
+        final int rowCount = expected.getRowCount();
+        if (rowCount != actual.getRowCount()) {
+            return false;
+        }
+
+        final Column[] expectedColumns = expected.getTableMetaData().getColumns();
+        final Column[] actualColumns = actual.getTableMetaData().getColumns();
+        final DataType[] dataTypes = comparisonDataTypes(expectedColumns, actualColumns);
+        if (dataTypes == null) {
+            return false;
+        }
+
+        try {
+            final Map<Row, Integer> unmatched = new HashMap<Row, Integer>();
+            for (int i = 0; i < rowCount; i++) {
+                final Row row = row(expected, i, expectedColumns, dataTypes);
+                final Integer count = unmatched.get(row);
+                unmatched.put(row, count == null ? 1 : count + 1);
+            }
+            for (int i = 0; i < rowCount; i++) {
+                final Row row = row(actual, i, actualColumns, dataTypes);
+                final Integer count = unmatched.get(row);
+                if (count == null) {
+                    return false;
+                }
+                if (count == 1) {
+                    unmatched.remove(row);
+                } else {
+                    unmatched.put(row, count - 1);
+                }
+            }
+            return unmatched.isEmpty();
+        } catch (TypeCastException e) {
+            return false;
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Resolves data types used for comparing the columns in the same way as DBUnit does, or returns
+     * <code>null</code> if columns of the tables differ.
+     */
+    private DataType[] comparisonDataTypes(Column[] expectedColumns, Column[] actualColumns) {
+        if (expectedColumns.length != actualColumns.length) {
+            return null;
+        }
+        final DataType[] dataTypes = new DataType[expectedColumns.length];
+        for (int i = 0; i < expectedColumns.length; i++) {
+            if (!expectedColumns[i].getColumnName().equalsIgnoreCase(actualColumns[i].getColumnName())) {
+                return null;
+            }
+            final DataType expectedType = expectedColumns[i].getDataType();
+            final DataType actualType = actualColumns[i].getDataType();
+            if (expectedType == DataType.UNKNOWN) {
+                dataTypes[i] = actualType;
+            } else if (actualType == DataType.UNKNOWN || expectedType.getClass().isInstance(actualType)) {
+                dataTypes[i] = expectedType;
+            } else {
+                return null;
+            }
+        }
+        return dataTypes;
+    }
+
+    private Row row(ITable table, int index, Column[] columns, DataType[] dataTypes) throws DataSetException {
+        final Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = normalize(table.getValue(index, columns[i].getColumnName()), dataTypes[i]);
+        }
+        return new Row(values);
+    }
+
+    private Object normalize(Object value, DataType dataType) throws TypeCastException {
+        if (dataType == DataType.UNKNOWN) {
+            // compared by their string representation
+            return DataType.asString(value);
+        }
+        final Object converted = dataType.typeCast(value);
+        if (converted instanceof BigDecimal) {
+            final BigDecimal decimal = (BigDecimal) converted;
+            // equal regardless of the scale, as when compared by DBUnit
+            return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+        }
+        if (converted instanceof byte[]) {
+            return Arrays.toString((byte[]) converted);
+        }
+        return converted;
+    }
+
+    private static class Row {
+
+        private final Object[] values;
+
+        private final int hashCode;
+
+        private Row(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Row)) {
+                return false;
+            }
+
+            return Arrays.equals(values, ((Row) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
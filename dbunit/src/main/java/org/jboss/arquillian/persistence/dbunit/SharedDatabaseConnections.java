@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConnection;
+
+/**
+ * JVM-wide registry of DBUnit connections kept open for the whole test suite when
+ * {@link org.jboss.arquillian.persistence.dbunit.configuration.ConnectionLifecycle#SUITE} is used.
+ * <br><br>
+ * There is one connection per database URL, user and schema. Data sources are only weakly referenced,
+ * so they can be garbage collected together with the deployment they belong to. Each connection is
+ * validated when it's handed out and replaced when it's no longer usable. Connections are closed
+ * at the end of the suite and, if the suite has not finished, when the JVM shuts down.
+ */
+public class SharedDatabaseConnections {
+
+    private static final Logger log = Logger.getLogger(SharedDatabaseConnections.class.getName());
+
+    private static final SharedDatabaseConnections INSTANCE = new SharedDatabaseConnections();
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final Map<String, DatabaseConnection> connections = new HashMap<String, DatabaseConnection>();
+
+    private final Map<DataSource, String> keysByDataSource = new WeakHashMap<DataSource, String>();
+
+    private boolean shutdownHookRegistered;
+
+    public static SharedDatabaseConnections instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns connection opened for the database of given data source, creating a new one if there
+     * is none yet or the previous one is no longer usable.
+     */
+    public synchronized DatabaseConnection get(DataSource dataSource, DatabaseConnectionFactory factory)
+        throws DatabaseUnitException, SQLException {
+        final String knownKey = keysByDataSource.get(dataSource);
+        if (knownKey != null) {
+            final DatabaseConnection shared = connections.get(knownKey);
+            if (shared != null && isUsable(shared)) {
+                return shared;
+            }
+            if (shared != null) {
+                log.info("Shared database connection is no longer usable and will be replaced.");
+                connections.remove(knownKey);
+                close(shared);
+            }
+        }
+        final DatabaseConnection databaseConnection = factory.create(dataSource);
+        final String key = keyOf(databaseConnection);
+        keysByDataSource.put(dataSource, key);
+        final DatabaseConnection shared = connections.get(key);
+        if (shared != null && isUsable(shared)) {
+            // another data source pointing to the same database has already opened one
+            close(databaseConnection);
+            return shared;
+        }
+        if (shared != null) {
+            close(shared);
+        }
+        connections.put(key, databaseConnection);
+        registerShutdownHook();
+        return databaseConnection;
+    }
+
+    public synchronized void closeAll() {
+        final List<DatabaseConnection> toClose = new ArrayList<DatabaseConnection>(connections.values());
+        connections.clear();
+        keysByDataSource.clear();
+        for (DatabaseConnection databaseConnection : toClose) {
+            close(databaseConnection);
+        }
+    }
+
+    public synchronized int size() {
+        return connections.size();
+    }
+
+    /**
+     * Checks if the connection is still open and, if the driver supports JDBC 4 validation, if it's
+     * still alive.
+     */
+    public static boolean isUsable(DatabaseConnection databaseConnection) {
+        try {
+            final Connection connection = databaseConnection.getConnection();
+            return !connection.isClosed() && isValid(connection);
+        } catch (SQLException e) {
+            log.fine("Unable to check database connection. " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Private methods
+
+    private static boolean isValid(Connection connection) {
+        try {
+            final Method isValid = Connection.class.getMethod("isValid", int.class);
+            return (Boolean) isValid.invoke(connection, VALIDATION_TIMEOUT_SECONDS);
+        } catch (NoSuchMethodException e) {
+            return true;
+        } catch (IllegalAccessException e) {
+            return true;
+        } catch (InvocationTargetException e) {
+            // Drivers implementing JDBC 3 only fail with AbstractMethodError, so isClosed() has to be enough
+            return !(e.getCause() instanceof SQLException);
+        }
+    }
+
+    private static String keyOf(DatabaseConnection databaseConnection) throws SQLException {
+        final DatabaseMetaData metaData = databaseConnection.getConnection().getMetaData();
+        return metaData.getURL() + "|" + metaData.getUserName() + "|" + databaseConnection.getSchema();
+    }
+
+    private static void close(DatabaseConnection databaseConnection) {
+        try {
+            final Connection connection = databaseConnection.getConnection();
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            log.warning("Unable to close shared database connection. " + e.getMessage());
+        }
+    }
+
+    private void registerShutdownHook() {
+        if (shutdownHookRegistered) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread("arquillian-persistence-connection-closer") {
+            @Override
+            public void run() {
+                closeAll();
+            }
+        });
+        shutdownHookRegistered = true;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.util.QualifiedTableName;
+
+/**
+ * Table and column names to be used in hand-written SQL statements, escaped with the configured
+ * {@link DatabaseConfig#PROPERTY_ESCAPE_PATTERN} and qualified with the schema the same way as DBUnit does.
+ */
+public final class SqlIdentifiers {
+
+    private SqlIdentifiers() {
+    }
+
+    public static String tableName(IDatabaseConnection connection, String tableName) {
+        return new QualifiedTableName(tableName, connection.getSchema(), escapePattern(connection))
+            .getQualifiedNameIfEnabled(connection.getConfig());
+    }
+
+    public static String columnName(IDatabaseConnection connection, String columnName) {
+        return escape(escapePattern(connection), columnName);
+    }
+
+    /**
+     * @return comma separated names of given columns
+     */
+    public static String columnList(IDatabaseConnection connection, Column[] columns) {
+        final String escapePattern = escapePattern(connection);
+        final StringBuilder columnList = new StringBuilder();
+        for (Column column : columns) {
+            if (columnList.length() > 0) {
+                columnList.append(", ");
+            }
+            columnList.append(escape(escapePattern, column.getColumnName()));
+        }
+        return columnList.toString();
+    }
+
+    // Private methods
+
+    private static String escape(String escapePattern, String name) {
+        return escapePattern == null ? name : escapePattern.replace("?", name);
+    }
+
+    private static String escapePattern(IDatabaseConnection connection) {
+        return (String) connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.util.List;
+
+/**
+ * Columns used for comparing single table, resolved by {@link DataSetComparator} once for given comparison
+ * settings and columns of the expected and current table. Holds names only, so it can be shared by comparisons
+ * running in different tests, threads and deployments.
+ */
+class TableComparisonPlan {
+
+    final String[] columnsToIgnore;
+
+    final List<String> columnsForSorting;
+
+    final boolean orderingRequested;
+
+    TableComparisonPlan(String[] columnsToIgnore, List<String> columnsForSorting, boolean orderingRequested) {
+        this.columnsToIgnore = columnsToIgnore;
+        this.columnsForSorting = columnsForSorting;
+        this.orderingRequested = orderingRequested;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JVM-wide cache of {@link TableComparisonPlan}s, so tables verified by many tests using the same settings
+ * are not resolved again for each of them. Plans are keyed by the comparison settings, table name and column
+ * names of both expected and current table. Keys and plans consist of strings only, so no classes of
+ * the tests are referenced. Least recently used plans are evicted first.
+ */
+class TableComparisonPlanCache {
+
+    private static final TableComparisonPlanCache INSTANCE = new TableComparisonPlanCache();
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private final Map<List<Object>, TableComparisonPlan> plans =
+        new LinkedHashMap<List<Object>, TableComparisonPlan>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, TableComparisonPlan> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    static TableComparisonPlanCache instance() {
+        return INSTANCE;
+    }
+
+    synchronized TableComparisonPlan get(List<Object> key) {
+        return plans.get(key);
+    }
+
+    synchronized void put(List<Object> key, TableComparisonPlan plan) {
+        plans.put(key, plan);
+    }
+
+    synchronized void clear() {
+        plans.clear();
+    }
+
+    synchronized int size() {
+        return plans.size();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.SQLException;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader;
+
+/**
+ * Common functionality of the built-in bulk loaders: resolving database columns and rendering
+ * rows as CSV content, which is the input format of most of the database specific loading facilities.
+ */
+public abstract class AbstractBulkLoader implements BulkLoader {
+
+    /**
+     * Text representing <code>NULL</code> value in the CSV content.
+     */
+    protected static final String NULL = "\\N";
+
+    /**
+     * @return columns of the database table matching columns of given data set table, in the same order.
+     */
+    protected Column[] databaseColumns(IDatabaseConnection connection, ITable table)
+        throws SQLException, DataSetException {
+        final ITableMetaData tableMetaData = table.getTableMetaData();
+        final ITableMetaData databaseMetaData =
+            connection.createDataSet().getTableMetaData(tableMetaData.getTableName());
+        final Column[] columns = tableMetaData.getColumns();
+        final Column[] candidates = databaseMetaData.getColumns();
+        final Column[] databaseColumns = new Column[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            databaseColumns[i] = candidates[databaseMetaData.getColumnIndex(columns[i].getColumnName())];
+        }
+        return databaseColumns;
+    }
+
+    protected boolean hasBinaryColumns(Column[] columns) {
+        for (Column column : columns) {
+            if (byte[].class.equals(column.getDataType().getTypeClass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders rows of the table as UTF-8 encoded CSV content with header line. Values are enclosed in double
+     * quotes, nulls are represented by unquoted {@link #NULL}.
+     *
+     * @param escapeBackslash
+     *     whether backslashes in values should be doubled, as required by databases treating backslash
+     *     as an escape character
+     */
+    protected byte[] csv(ITable table, Column[] columns, boolean escapeBackslash) throws DatabaseUnitException {
+        final Column[] tableColumns = table.getTableMetaData().getColumns();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            final Writer writer = new OutputStreamWriter(content, "UTF-8");
+            for (int i = 0; i < columns.length; i++) {
+                writer.write(i == 0 ? "" : ",");
+                writer.write(columns[i].getColumnName());
+            }
+            writer.write('\n');
+            for (int row = 0; row < table.getRowCount(); row++) {
+                for (int i = 0; i < columns.length; i++) {
+                    writer.write(i == 0 ? "" : ",");
+                    final DataType dataType = columns[i].getDataType();
+                    final Object value = dataType.typeCast(table.getValue(row, tableColumns[i].getColumnName()));
+                    if (value == null) {
+                        writer.write(NULL);
+                    } else {
+                        writer.write(quote(format(value), escapeBackslash));
+                    }
+                }
+                writer.write('\n');
+            }
+            writer.close();
+        } catch (IOException e) {
+            throw new DatabaseUnitException("Unable to render rows of " + table.getTableMetaData().getTableName(), e);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Converts value, already cast to the type of the database column, to its textual representation.
+     */
+    protected String format(Object value) throws DatabaseUnitException {
+        return DataType.asString(value);
+    }
+
+    // Private methods
+
+    private static String quote(String value, boolean escapeBackslash) {
+        String escaped = value.replace("\"", "\"\"");
+        if (escapeBackslash) {
+            escaped = escaped.replace("\\", "\\\\");
+        }
+        return '"' + escaped + '"';
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.sql.SQLException;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.operation.DatabaseOperation;
+import org.jboss.arquillian.persistence.dbunit.dataset.StreamedDataSet;
+import org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader;
+
+/**
+ * Inserts tables having at least given amount of rows using {@link BulkLoader}, all the other tables
+ * are inserted by the regular insert operation. Tables are inserted in the order of the data set.
+ * <br><br>
+ * Streamed data sets are always inserted by the regular operation, as their size is not known upfront.
+ */
+public class BulkInsertOperation extends DatabaseOperation {
+
+    private final DatabaseOperation insertOperation;
+
+    private final BulkLoader bulkLoader;
+
+    private final int rowThreshold;
+
+    public BulkInsertOperation(DatabaseOperation insertOperation, BulkLoader bulkLoader, int rowThreshold) {
+        this.insertOperation = insertOperation;
+        this.bulkLoader = bulkLoader;
+        this.rowThreshold = rowThreshold;
+    }
+
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        if (dataSet instanceof StreamedDataSet) {
+            insertOperation.execute(connection, dataSet);
+            return;
+        }
+
+        DefaultDataSet smallTables = new DefaultDataSet();
+        final ITableIterator tables = dataSet.iterator();
+        while (tables.next()) {
+            final ITable table = tables.getTable();
+            if (table.getRowCount() < rowThreshold) {
+                smallTables.addTable(table);
+                continue;
+            }
+            // preserve the order of the tables
+            if (smallTables.getTableNames().length > 0) {
+                insertOperation.execute(connection, smallTables);
+                smallTables = new DefaultDataSet();
+            }
+            bulkLoader.load(connection, table);
+        }
+        if (smallTables.getTableNames().length > 0) {
+            insertOperation.execute(connection, smallTables);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.jboss.arquillian.persistence.core.util.Strings;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader;
+import org.jboss.arquillian.persistence.util.JavaSPIExtensionLoader;
+
+/**
+ * Chooses {@link BulkLoader} by the name given in {@link DBUnitConfiguration#getCustomBulkLoader()}
+ * or, if not specified, by the name of the database product. Implementations registered through SPI take
+ * precedence over built-in ones.
+ */
+public class BulkLoaderResolver {
+
+    private static final Logger log = Logger.getLogger(BulkLoaderResolver.class.getName());
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public BulkLoaderResolver(DBUnitConfiguration dbUnitConfiguration) {
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    public BulkLoader resolve(IDatabaseConnection connection) throws SQLException {
+        final List<BulkLoader> bulkLoaders = availableBulkLoaders();
+        final String customBulkLoader = dbUnitConfiguration.getCustomBulkLoader();
+        if (!Strings.isEmpty(customBulkLoader)) {
+            for (BulkLoader bulkLoader : bulkLoaders) {
+                if (bulkLoader.simpleName().equals(customBulkLoader)) {
+                    return bulkLoader;
+                }
+            }
+            log.warning("Unable to find bulk loader for " + customBulkLoader
+                + ". Choosing one based on the database product name.");
+        }
+
+        final String databaseProductName = connection.getConnection().getMetaData().getDatabaseProductName();
+        for (BulkLoader bulkLoader : bulkLoaders) {
+            if (bulkLoader.supports(databaseProductName)) {
+                return bulkLoader;
+            }
+        }
+
+        log.fine("No bulk loader found for " + databaseProductName + ". Using multi-row inserts.");
+        return new MultiRowInsertBulkLoader();
+    }
+
+    private List<BulkLoader> availableBulkLoaders() {
+        final List<BulkLoader> bulkLoaders = new ArrayList<BulkLoader>(
+            new JavaSPIExtensionLoader().all(Thread.currentThread().getContextClassLoader(), BulkLoader.class));
+        bulkLoaders.addAll(Arrays.asList(new H2BulkLoader(), new MySqlBulkLoader(), new PostgreSqlBulkLoader(),
+            new MultiRowInsertBulkLoader()));
+        return bulkLoaders;
+    }
+}
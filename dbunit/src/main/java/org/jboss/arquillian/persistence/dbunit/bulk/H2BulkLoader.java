@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+
+/**
+ * Loads rows using <code>INSERT ... SELECT * FROM CSVREAD(...)</code> from a temporary CSV file.
+ * <br><br>
+ * As the file is read by the database engine, rows are loaded with multi-row inserts (see
+ * {@link MultiRowInsertBulkLoader}) whenever the database is accessed remotely (over TCP or SSL),
+ * as well as for tables having binary columns.
+ */
+public class H2BulkLoader extends MultiRowInsertBulkLoader {
+
+    private static final Logger log = Logger.getLogger(H2BulkLoader.class.getName());
+
+    @Override
+    public void load(IDatabaseConnection connection, ITable table) throws SQLException, DatabaseUnitException {
+        final Column[] columns = databaseColumns(connection, table);
+        if (columns.length == 0 || hasBinaryColumns(columns) || isRemote(connection)) {
+            super.load(connection, table);
+            return;
+        }
+
+        final File csvFile = writeCsvFile(table, columns);
+        try {
+            // Backslash escapes characters of CSVREAD options, hence doubled in the null marker
+            final String sql = "INSERT INTO "
+                + SqlIdentifiers.tableName(connection, table.getTableMetaData().getTableName())
+                + " (" + SqlIdentifiers.columnList(connection, columns) + ") SELECT * FROM CSVREAD('"
+                + csvFile.getAbsolutePath().replace("'", "''") + "', NULL, 'charset=UTF-8 nullString="
+                + NULL.replace("\\", "\\\\") + "')";
+            log.fine(sql);
+            final Statement statement = connection.getConnection().createStatement();
+            try {
+                statement.executeUpdate(sql);
+            } finally {
+                statement.close();
+            }
+        } finally {
+            if (!csvFile.delete()) {
+                csvFile.deleteOnExit();
+            }
+        }
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "h2";
+    }
+
+    // Private methods
+
+    private File writeCsvFile(ITable table, Column[] columns) throws DatabaseUnitException {
+        try {
+            final File csvFile = File.createTempFile("arquillian-persistence-", ".csv");
+            final OutputStream outputStream = new FileOutputStream(csvFile);
+            try {
+                outputStream.write(csv(table, columns, false));
+            } finally {
+                outputStream.close();
+            }
+            return csvFile;
+        } catch (IOException e) {
+            throw new DatabaseUnitException("Unable to write rows of " + table.getTableMetaData().getTableName()
+                + " to temporary file.", e);
+        }
+    }
+
+    private boolean isRemote(IDatabaseConnection connection) throws SQLException {
+        final String url = connection.getConnection().getMetaData().getURL();
+        return url.startsWith("jdbc:h2:tcp:") || url.startsWith("jdbc:h2:ssl:");
+    }
+}
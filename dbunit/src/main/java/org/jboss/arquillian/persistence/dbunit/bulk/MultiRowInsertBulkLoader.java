@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+
+/**
+ * Inserts rows using <code>INSERT ... VALUES (...), (...)</code> statements carrying many rows each, which
+ * is supported by most of the databases. Values are bound as parameters, so all the column types are handled
+ * the same way as by DBUnit itself. Used when there is no dedicated loader for the database.
+ */
+public class MultiRowInsertBulkLoader extends AbstractBulkLoader {
+
+    private static final Logger log = Logger.getLogger(MultiRowInsertBulkLoader.class.getName());
+
+    // Limits of the most restrictive databases (SQL Server)
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final int MAX_PARAMETERS_PER_STATEMENT = 2000;
+
+    @Override
+    public void load(IDatabaseConnection connection, ITable table) throws SQLException, DatabaseUnitException {
+        final Column[] columns = databaseColumns(connection, table);
+        final int rowCount = table.getRowCount();
+        if (columns.length == 0 || rowCount == 0) {
+            return;
+        }
+
+        final String tableName = table.getTableMetaData().getTableName();
+        final String insert = "INSERT INTO " + SqlIdentifiers.tableName(connection, tableName)
+            + " (" + SqlIdentifiers.columnList(connection, columns) + ") VALUES ";
+        final int rowsPerStatement =
+            Math.max(1, Math.min(MAX_ROWS_PER_STATEMENT, MAX_PARAMETERS_PER_STATEMENT / columns.length));
+        log.fine(insert + "... (" + rowCount + " rows, " + rowsPerStatement + " per statement)");
+
+        PreparedStatement fullStatement = null;
+        try {
+            for (int firstRow = 0; firstRow < rowCount; firstRow += rowsPerStatement) {
+                final int rows = Math.min(rowsPerStatement, rowCount - firstRow);
+                if (rows == rowsPerStatement) {
+                    if (fullStatement == null) {
+                        fullStatement = connection.getConnection().prepareStatement(insert + rowsValues(columns, rows));
+                    }
+                    insertRows(fullStatement, table, columns, firstRow, rows);
+                } else {
+                    final PreparedStatement lastStatement =
+                        connection.getConnection().prepareStatement(insert + rowsValues(columns, rows));
+                    try {
+                        insertRows(lastStatement, table, columns, firstRow, rows);
+                    } finally {
+                        lastStatement.close();
+                    }
+                }
+            }
+        } finally {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return false;
+    }
+
+    @Override
+    public String simpleName() {
+        return "default";
+    }
+
+    // Private methods
+
+    private void insertRows(PreparedStatement statement, ITable table, Column[] columns, int firstRow, int rows)
+        throws SQLException, DatabaseUnitException {
+        final Column[] tableColumns = table.getTableMetaData().getColumns();
+        int parameter = 1;
+        for (int row = firstRow; row < firstRow + rows; row++) {
+            for (int i = 0; i < columns.length; i++) {
+                final DataType dataType = columns[i].getDataType();
+                final Object value = table.getValue(row, tableColumns[i].getColumnName());
+                if (value == null) {
+                    statement.setNull(parameter, dataType.getSqlType());
+                } else {
+                    dataType.setSqlValue(value, parameter, statement);
+                }
+                parameter++;
+            }
+        }
+        statement.executeUpdate();
+    }
+
+    private static String rowsValues(Column[] columns, int rows) {
+        final StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns.length; i++) {
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(')');
+
+        final StringBuilder values = new StringBuilder(rows * (row.length() + 2));
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append(row);
+        }
+        return values.toString();
+    }
+}
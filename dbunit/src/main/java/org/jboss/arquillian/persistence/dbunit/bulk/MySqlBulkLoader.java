@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+
+/**
+ * Loads rows using <code>LOAD DATA LOCAL INFILE</code> reading from in-memory stream, which is handed over
+ * to the statement of MySQL Connector/J driver. The driver is accessed reflectively, so it's not required
+ * at compile time. Local infile has to be allowed both by the driver (<code>allowLocalInfile=true</code>) and
+ * the server. When the statement doesn't come from the driver, or the table has binary columns, rows are
+ * inserted using multi-row <code>INSERT</code> statements instead.
+ */
+public class MySqlBulkLoader extends MultiRowInsertBulkLoader {
+
+    private static final Logger log = Logger.getLogger(MySqlBulkLoader.class.getName());
+
+    @Override
+    public void load(IDatabaseConnection connection, ITable table) throws SQLException, DatabaseUnitException {
+        final Column[] columns = databaseColumns(connection, table);
+        if (columns.length == 0 || hasBinaryColumns(columns)) {
+            super.load(connection, table);
+            return;
+        }
+
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final Method setLocalInfileInputStream = localInfileInputStreamSetter(statement);
+            if (setLocalInfileInputStream == null) {
+                super.load(connection, table);
+                return;
+            }
+            final String sql = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE "
+                + SqlIdentifiers.tableName(connection, table.getTableMetaData().getTableName())
+                + " CHARACTER SET utf8 FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\'"
+                + " LINES TERMINATED BY '\\n' IGNORE 1 LINES (" + SqlIdentifiers.columnList(connection, columns) + ")";
+            log.fine(sql);
+            final InputStream rows = new ByteArrayInputStream(csv(table, columns, true));
+            try {
+                setLocalInfileInputStream.invoke(statement, rows);
+            } catch (InvocationTargetException e) {
+                throw new DatabaseUnitException("Unable to pass rows of " + table.getTableMetaData().getTableName()
+                    + " to MySQL driver.", e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new DatabaseUnitException("Unable to pass rows of " + table.getTableMetaData().getTableName()
+                    + " to MySQL driver.", e);
+            }
+            statement.execute(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "MySQL".equalsIgnoreCase(databaseProductName) || "MariaDB".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "mysql";
+    }
+
+    @Override
+    protected String format(Object value) throws DatabaseUnitException {
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? "1" : "0";
+        }
+        return super.format(value);
+    }
+
+    // Private methods
+
+    private Method localInfileInputStreamSetter(Statement statement) {
+        try {
+            return statement.getClass().getMethod("setLocalInfileInputStream", InputStream.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+
+/**
+ * Streams rows through <code>COPY ... FROM STDIN</code> using <code>CopyManager</code> of the PostgreSQL
+ * JDBC driver. The driver is accessed reflectively, so it's not required at compile time. When the connection
+ * is not the driver's own one (for example it's wrapped by a connection pool), or the table has binary columns,
+ * rows are inserted using multi-row <code>INSERT</code> statements instead.
+ */
+public class PostgreSqlBulkLoader extends MultiRowInsertBulkLoader {
+
+    private static final Logger log = Logger.getLogger(PostgreSqlBulkLoader.class.getName());
+
+    private static final String PG_CONNECTION = "org.postgresql.PGConnection";
+
+    @Override
+    public void load(IDatabaseConnection connection, ITable table) throws SQLException, DatabaseUnitException {
+        final Column[] columns = databaseColumns(connection, table);
+        final Object copyManager = copyManager(connection.getConnection());
+        if (columns.length == 0 || hasBinaryColumns(columns) || copyManager == null) {
+            super.load(connection, table);
+            return;
+        }
+
+        final String sql = "COPY " + SqlIdentifiers.tableName(connection, table.getTableMetaData().getTableName())
+            + " (" + SqlIdentifiers.columnList(connection, columns) + ") FROM STDIN WITH NULL AS E'\\\\N' CSV HEADER";
+        log.fine(sql);
+        final InputStream rows = new ByteArrayInputStream(csv(table, columns, false));
+        try {
+            final Method copyIn = copyManager.getClass().getMethod("copyIn", String.class, InputStream.class);
+            copyIn.invoke(copyManager, sql, rows);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new DatabaseUnitException("Unable to copy rows of " + table.getTableMetaData().getTableName(),
+                e.getCause());
+        } catch (Exception e) {
+            throw new DatabaseUnitException("Unable to use CopyManager of PostgreSQL driver.", e);
+        }
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "PostgreSQL".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "postgresql";
+    }
+
+    // Private methods
+
+    private Object copyManager(Connection connection) throws DatabaseUnitException {
+        try {
+            final Class<?> pgConnection = Class.forName(PG_CONNECTION, false, connection.getClass().getClassLoader());
+            if (!pgConnection.isInstance(connection)) {
+                return null;
+            }
+            return pgConnection.getMethod("getCopyAPI").invoke(connection);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            throw new DatabaseUnitException("Unable to use CopyManager of PostgreSQL driver.", e);
+        }
+    }
+}
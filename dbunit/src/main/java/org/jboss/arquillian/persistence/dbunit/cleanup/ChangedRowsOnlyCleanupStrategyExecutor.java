@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.util.logging.Logger;
+import org.dbunit.database.DatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+
+/**
+ * Deletes rows inserted or modified by the test (see {@link ChangedRowsTracker}).
+ */
+public class ChangedRowsOnlyCleanupStrategyExecutor implements CleanupStrategyExecutor {
+
+    private static final Logger LOG = Logger.getLogger(ChangedRowsOnlyCleanupStrategyExecutor.class.getName());
+
+    private final DatabaseConnection connection;
+
+    private final ChangedRowsTracker changedRowsTracker;
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public ChangedRowsOnlyCleanupStrategyExecutor(DatabaseConnection connection,
+        ChangedRowsTracker changedRowsTracker, DBUnitConfiguration dbUnitConfiguration) {
+        this.connection = connection;
+        this.changedRowsTracker = changedRowsTracker;
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    @Override
+    public void cleanupDatabase(String... tablesToExclude) {
+        if (changedRowsTracker == null) {
+            LOG.warning("Attempted to cleanup database using CHANGED_ROWS_ONLY strategy, but no test has run yet.");
+            return;
+        }
+        changedRowsTracker.deleteChangedRows(connection, dbUnitConfiguration, tablesToExclude);
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.dataset.filter.ITableFilter;
+import org.dbunit.operation.DatabaseOperation;
+import org.dbunit.util.QualifiedTableName;
+import org.jboss.arquillian.persistence.dbunit.DataSetUtils;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.jboss.arquillian.persistence.dbunit.exception.DBUnitDataSetHandlingException;
+import org.jboss.arquillian.persistence.dbunit.filter.TableFilterResolver;
+import org.jboss.arquillian.persistence.dbunit.tracking.ChangeLog;
+import org.jboss.arquillian.persistence.spi.dbunit.filter.TableFilterProvider;
+
+/**
+ * Tracks rows inserted or modified by the test, used by
+ * {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#CHANGED_ROWS_ONLY} strategy.
+ * <br><br>
+ * Changes are recorded by database triggers as they happen (see {@link ChangeLog}), so after the test
+ * only primary keys of the recorded rows are read, and only from the tables the test has changed. Those rows
+ * are deleted, together with the rows referencing them through foreign keys, referencing tables first.
+ * If triggers can't be used for the database, primary keys and checksums of all the rows are captured
+ * before the test instead, and rows which primary key is not known or which checksum differs are deleted,
+ * which requires reading all tracked tables before and after the test.
+ * Tables without primary key cannot be tracked and are left untouched.
+ */
+public class ChangedRowsTracker {
+
+    private static final Logger log = Logger.getLogger(ChangedRowsTracker.class.getName());
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final String NULL_KEY = "\u0000null\u0000";
+
+    private final Map<String, TrackedTable> tables;
+
+    private final ChangeLog changeLog;
+
+    private ChangedRowsTracker(Map<String, TrackedTable> tables, ChangeLog changeLog) {
+        this.tables = tables;
+        this.changeLog = changeLog;
+    }
+
+    public static ChangedRowsTracker capture(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        String... tablesToExclude) {
+        try {
+            final long start = System.currentTimeMillis();
+            final IDataSet databaseContent =
+                DataSetUtils.excludeTables(TableMetadataCache.instance().createDataSet(connection), tablesToExclude);
+            final Map<String, TrackedTable> tables = new LinkedHashMap<String, TrackedTable>();
+            for (String tableName : databaseContent.getTableNames()) {
+                final Column[] primaryKeys = databaseContent.getTableMetaData(tableName).getPrimaryKeys();
+                if (primaryKeys.length == 0) {
+                    log.warning("Table " + tableName
+                        + " has no primary key, rows changed by the test won't be deleted.");
+                    continue;
+                }
+                tables.put(keyOf(tableName), new TrackedTable(tableName, primaryKeys));
+            }
+
+            final ChangeLog changeLog = ChangeLog.start(connection, dbUnitConfiguration, databaseContent);
+            if (changeLog == null) {
+                for (TrackedTable trackedTable : tables.values()) {
+                    trackedTable.read(connection);
+                }
+            }
+            log.fine((changeLog == null ? "Captured rows of " : "Recording changes of ") + tables.size()
+                + " tables, started in " + (System.currentTimeMillis() - start) + " ms.");
+            return new ChangedRowsTracker(tables, changeLog);
+        } catch (Exception e) {
+            throw new DBUnitDataSetHandlingException("Unable to capture database rows.", e);
+        }
+    }
+
+    /**
+     * Deletes rows inserted or modified since the tracker has been captured, as well as the rows referencing
+     * them. Rows of excluded tables are never deleted.
+     */
+    public void deleteChangedRows(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        String... tablesToExclude) {
+        try {
+            final Map<String, RowsToDelete> rowsToDelete = new LinkedHashMap<String, RowsToDelete>();
+            final ITableFilter excludedTables = new ExcludeTableFilter(tablesToExclude);
+            final Set<String> changedTables = changeLog == null ? null : changeLog.changedTables(connection);
+            for (Map.Entry<String, TrackedTable> trackedTableEntry : tables.entrySet()) {
+                final TrackedTable trackedTable = trackedTableEntry.getValue();
+                if (!excludedTables.accept(trackedTable.tableName)
+                    || changedTables != null && !changedTables.contains(trackedTableEntry.getKey())) {
+                    continue;
+                }
+                final RowsToDelete changedTableRows = changedTables == null ? trackedTable.findChangedRows(connection)
+                    : trackedTable.findRecordedRows(connection, changeLog);
+                if (changedTableRows.table.getRowCount() > 0) {
+                    rowsToDelete.put(trackedTableEntry.getKey(), changedTableRows);
+                }
+            }
+            if (rowsToDelete.isEmpty()) {
+                log.fine("No rows have been changed by the test.");
+                return;
+            }
+            addReferencingRows(connection, rowsToDelete, excludedTables);
+
+            final DefaultDataSet changedRows = new DefaultDataSet();
+            for (RowsToDelete tableRows : rowsToDelete.values()) {
+                changedRows.addTable(tableRows.table);
+            }
+
+            // Rows are deleted one by one, so referencing tables always have to go first
+            final TableFilterProvider tableFilterProvider = new TableFilterResolver(dbUnitConfiguration).resolve();
+            final ITableFilter tableFilter = tableFilterProvider.provide(connection, changedRows.getTableNames());
+            DatabaseOperation.DELETE.execute(connection, new FilteredDataSet(tableFilter, changedRows));
+        } catch (Exception e) {
+            throw new DBUnitDataSetHandlingException("Unable to delete rows changed by the test.", e);
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Adds rows referencing the ones to be deleted, also indirectly, as they would otherwise prevent deleting
+     * rows modified by the test.
+     */
+    private void addReferencingRows(DatabaseConnection connection, Map<String, RowsToDelete> rowsToDelete,
+        ITableFilter excludedTables) throws SQLException, DataSetException {
+        final Map<String, List<ForeignKey>> foreignKeys = new HashMap<String, List<ForeignKey>>();
+        final LinkedList<RowsToDelete> unresolved = new LinkedList<RowsToDelete>(rowsToDelete.values());
+        while (!unresolved.isEmpty()) {
+            final RowsToDelete parentRows = unresolved.removeFirst();
+            final List<Object[]> parentKeys = parentRows.takeUnresolved();
+            final String parentName = parentRows.trackedTable.tableName;
+            List<ForeignKey> referencingKeys = foreignKeys.get(keyOf(parentName));
+            if (referencingKeys == null) {
+                referencingKeys = referencingKeys(connection, parentRows.trackedTable);
+                foreignKeys.put(keyOf(parentName), referencingKeys);
+            }
+            for (ForeignKey foreignKey : referencingKeys) {
+                final TrackedTable child = tables.get(keyOf(foreignKey.tableName));
+                if (!excludedTables.accept(foreignKey.tableName) || child == null) {
+                    log.warning("Rows of " + foreignKey.tableName + " referencing rows of " + parentName
+                        + " changed by the test won't be deleted, as the table is excluded or has no primary key.");
+                    continue;
+                }
+                RowsToDelete childRows = rowsToDelete.get(keyOf(child.tableName));
+                if (childRows == null) {
+                    childRows = new RowsToDelete(child);
+                    rowsToDelete.put(keyOf(child.tableName), childRows);
+                }
+                if (child.findReferencingRows(connection, foreignKey, parentKeys, childRows)
+                    && !unresolved.contains(childRows)) {
+                    unresolved.add(childRows);
+                }
+            }
+        }
+    }
+
+    private List<ForeignKey> referencingKeys(DatabaseConnection connection, TrackedTable parent)
+        throws SQLException {
+        final Map<String, ForeignKey> foreignKeys = new LinkedHashMap<String, ForeignKey>();
+        final Connection jdbcConnection = connection.getConnection();
+        final QualifiedTableName parentName = new QualifiedTableName(parent.tableName, connection.getSchema());
+        final ResultSet resultSet = jdbcConnection.getMetaData()
+            .getExportedKeys(jdbcConnection.getCatalog(), parentName.getSchema(), parentName.getTable());
+        try {
+            while (resultSet.next()) {
+                final String childName = resultSet.getString("FKTABLE_NAME");
+                final String name = childName + KEY_SEPARATOR + resultSet.getString("FK_NAME");
+                ForeignKey foreignKey = foreignKeys.get(name);
+                if (foreignKey == null) {
+                    foreignKey = new ForeignKey(childName);
+                    foreignKeys.put(name, foreignKey);
+                }
+                final int referencedColumn = parent.primaryKeyIndex(resultSet.getString("PKCOLUMN_NAME"));
+                if (referencedColumn < 0) {
+                    // References unique columns other than the primary key, values of which aren't tracked
+                    foreignKey.resolvable = false;
+                } else {
+                    foreignKey.columns.add(resultSet.getString("FKCOLUMN_NAME"));
+                    foreignKey.referencedColumns.add(referencedColumn);
+                }
+            }
+        } finally {
+            resultSet.close();
+        }
+
+        final List<ForeignKey> resolvableKeys = new ArrayList<ForeignKey>(foreignKeys.size());
+        for (ForeignKey foreignKey : foreignKeys.values()) {
+            if (foreignKey.resolvable) {
+                resolvableKeys.add(foreignKey);
+            } else {
+                log.warning("Rows of " + foreignKey.tableName + " referencing rows of " + parent.tableName
+                    + " changed by the test won't be deleted, as they don't reference its primary key.");
+            }
+        }
+        return resolvableKeys;
+    }
+
+    /**
+     * Tables are looked up both by the names given by DBUnit and by the names read from foreign keys.
+     */
+    private static String keyOf(String tableName) {
+        return ChangeLog.tableKey(tableName);
+    }
+
+    private static class TrackedTable {
+
+        private final String tableName;
+
+        private final Column[] primaryKeys;
+
+        private final Map<String, Long> rowChecksums = new HashMap<String, Long>();
+
+        private TrackedTable(String tableName, Column[] primaryKeys) {
+            this.tableName = tableName;
+            this.primaryKeys = primaryKeys;
+        }
+
+        private void read(DatabaseConnection connection) throws SQLException {
+            final Statement statement = connection.getConnection().createStatement();
+            try {
+                final ResultSet resultSet = statement.executeQuery(TableQueries.selectAllFrom(connection, tableName));
+                final boolean[] binaryColumns = TableFingerprint.binaryColumns(resultSet.getMetaData());
+                final CRC32 crc = new CRC32();
+                while (resultSet.next()) {
+                    rowChecksums.put(keyOf(resultSet), TableFingerprint.rowChecksum(resultSet, binaryColumns, crc));
+                }
+            } finally {
+                statement.close();
+            }
+        }
+
+        private RowsToDelete findChangedRows(DatabaseConnection connection) throws SQLException, DataSetException {
+            final RowsToDelete changedRows = new RowsToDelete(this);
+            final Statement statement = connection.getConnection().createStatement();
+            try {
+                final ResultSet resultSet = statement.executeQuery(TableQueries.selectAllFrom(connection, tableName));
+                final boolean[] binaryColumns = TableFingerprint.binaryColumns(resultSet.getMetaData());
+                final CRC32 crc = new CRC32();
+                while (resultSet.next()) {
+                    final Long checksum = rowChecksums.get(keyOf(resultSet));
+                    if (checksum == null || checksum != TableFingerprint.rowChecksum(resultSet, binaryColumns, crc)) {
+                        changedRows.add(keyOf(resultSet), primaryKeyValues(resultSet));
+                    }
+                }
+            } finally {
+                statement.close();
+            }
+            return changedRows;
+        }
+
+        private RowsToDelete findRecordedRows(DatabaseConnection connection, ChangeLog changeLog)
+            throws SQLException, DataSetException {
+            final RowsToDelete changedRows = new RowsToDelete(this);
+            final PreparedStatement statement = connection.getConnection().prepareStatement("SELECT "
+                + SqlIdentifiers.columnList(connection, primaryKeys) + " FROM "
+                + SqlIdentifiers.tableName(connection, tableName) + " WHERE "
+                + changeLog.changedRowsCondition(connection, primaryKeys));
+            try {
+                statement.setString(1, ChangeLog.tableKey(tableName));
+                final ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    changedRows.add(keyOf(resultSet), primaryKeyValues(resultSet));
+                }
+            } finally {
+                statement.close();
+            }
+            return changedRows;
+        }
+
+        /**
+         * Adds rows referencing given primary keys through given foreign key to the rows to be deleted.
+         *
+         * @return true if any row has been added.
+         */
+        private boolean findReferencingRows(DatabaseConnection connection, ForeignKey foreignKey,
+            List<Object[]> parentKeys, RowsToDelete rowsToDelete) throws SQLException, DataSetException {
+            final StringBuilder query = new StringBuilder("SELECT ");
+            for (int i = 0; i < primaryKeys.length; i++) {
+                query.append(i == 0 ? "" : ", ").append(SqlIdentifiers.columnName(connection,
+                    primaryKeys[i].getColumnName()));
+            }
+            query.append(" FROM ").append(SqlIdentifiers.tableName(connection, tableName)).append(" WHERE ");
+            for (int i = 0; i < foreignKey.columns.size(); i++) {
+                query.append(i == 0 ? "" : " AND ").append(SqlIdentifiers.columnName(connection,
+                    foreignKey.columns.get(i))).append(" = ?");
+            }
+
+            boolean added = false;
+            final PreparedStatement statement = connection.getConnection().prepareStatement(query.toString());
+            try {
+                for (Object[] parentKey : parentKeys) {
+                    for (int i = 0; i < foreignKey.referencedColumns.size(); i++) {
+                        statement.setObject(i + 1, parentKey[foreignKey.referencedColumns.get(i)]);
+                    }
+                    final ResultSet resultSet = statement.executeQuery();
+                    try {
+                        while (resultSet.next()) {
+                            added |= rowsToDelete.add(keyOf(resultSet), primaryKeyValues(resultSet));
+                        }
+                    } finally {
+                        resultSet.close();
+                    }
+                }
+            } finally {
+                statement.close();
+            }
+            return added;
+        }
+
+        private int primaryKeyIndex(String columnName) {
+            for (int i = 0; i < primaryKeys.length; i++) {
+                if (primaryKeys[i].getColumnName().equalsIgnoreCase(columnName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private String keyOf(ResultSet resultSet) throws SQLException {
+            final StringBuilder key = new StringBuilder();
+            for (Column primaryKey : primaryKeys) {
+                final String value = resultSet.getString(primaryKey.getColumnName());
+                key.append(value == null ? NULL_KEY : value).append(KEY_SEPARATOR);
+            }
+            return key.toString();
+        }
+
+        private Object[] primaryKeyValues(ResultSet resultSet) throws SQLException {
+            final List<Object> values = new ArrayList<Object>(primaryKeys.length);
+            for (Column primaryKey : primaryKeys) {
+                values.add(resultSet.getObject(primaryKey.getColumnName()));
+            }
+            return values.toArray();
+        }
+    }
+
+    /**
+     * Primary keys of the rows of single table to be deleted. Keys of the rows which referencing rows
+     * haven't been looked up yet are kept separately.
+     */
+    private static class RowsToDelete {
+
+        private final TrackedTable trackedTable;
+
+        private final DefaultTable table;
+
+        private final Set<String> keys = new HashSet<String>();
+
+        private List<Object[]> unresolved = new ArrayList<Object[]>();
+
+        private RowsToDelete(TrackedTable trackedTable) {
+            this.trackedTable = trackedTable;
+            this.table = new DefaultTable(new DefaultTableMetaData(trackedTable.tableName, trackedTable.primaryKeys,
+                trackedTable.primaryKeys));
+        }
+
+        private boolean add(String key, Object[] primaryKeyValues) throws DataSetException {
+            if (!keys.add(key)) {
+                return false;
+            }
+            table.addRow(primaryKeyValues);
+            unresolved.add(primaryKeyValues);
+            return true;
+        }
+
+        private List<Object[]> takeUnresolved() {
+            final List<Object[]> taken = unresolved;
+            unresolved = new ArrayList<Object[]>();
+            return taken;
+        }
+    }
+
+    /**
+     * Foreign key of the referencing table, its columns paired with the indexes of the referenced primary key
+     * columns.
+     */
+    private static class ForeignKey {
+
+        private final String tableName;
+
+        private final List<String> columns = new ArrayList<String>();
+
+        private final List<Integer> referencedColumns = new ArrayList<Integer>();
+
+        private boolean resolvable = true;
+
+        private ForeignKey(String tableName) {
+            this.tableName = tableName;
+        }
+    }
+}
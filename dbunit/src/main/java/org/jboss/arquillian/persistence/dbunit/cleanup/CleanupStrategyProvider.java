@@ -30,11 +30,23 @@ public class CleanupStrategyProvider implements StrategyProvider<CleanupStrategy
 
     private final DBUnitConfiguration dbUnitConfiguration;
 
+    private final DatabaseSnapshot databaseSnapshot;
+
+    private final ChangedRowsTracker changedRowsTracker;
+
     public CleanupStrategyProvider(DatabaseConnection connection, DataSetRegister register,
         DBUnitConfiguration dbUnitConfiguration) {
+        this(connection, register, dbUnitConfiguration, null, null);
+    }
+
+    public CleanupStrategyProvider(DatabaseConnection connection, DataSetRegister register,
+        DBUnitConfiguration dbUnitConfiguration, DatabaseSnapshot databaseSnapshot,
+        ChangedRowsTracker changedRowsTracker) {
         this.connection = connection;
         this.register = (register != null) ? register : new DataSetRegister();
         this.dbUnitConfiguration = dbUnitConfiguration;
+        this.databaseSnapshot = databaseSnapshot;
+        this.changedRowsTracker = changedRowsTracker;
     }
 
     @Override
@@ -52,6 +64,21 @@ public class CleanupStrategyProvider implements StrategyProvider<CleanupStrategy
         return new SeededDataOnlyCleanupStrategyExecutor(connection, register, dbUnitConfiguration);
     }
 
+    @Override
+    public CleanupStrategyExecutor changedRowsOnlyStrategy() {
+        return new ChangedRowsOnlyCleanupStrategyExecutor(connection, changedRowsTracker, dbUnitConfiguration);
+    }
+
+    @Override
+    public CleanupStrategyExecutor rollbackStrategy() {
+        return new RollbackCleanupStrategyExecutor();
+    }
+
+    @Override
+    public CleanupStrategyExecutor snapshotStrategy() {
+        return new SnapshotCleanupStrategyExecutor(connection, databaseSnapshot, dbUnitConfiguration);
+    }
+
     @Override
     public CleanupStrategyExecutor defaultStrategy() {
         return new StrictCleanupStrategyExecutor(connection, dbUnitConfiguration);
@@ -0,0 +1,311 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.dataset.filter.ITableFilter;
+import org.dbunit.util.QualifiedTableName;
+import org.jboss.arquillian.persistence.dbunit.DataSetUtils;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitDataSeedStrategyProvider;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.BinaryDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.BinaryDataSetWriter;
+import org.jboss.arquillian.persistence.dbunit.exception.DBUnitDataSetHandlingException;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraph;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.jboss.arquillian.persistence.dbunit.filter.TableFilterResolver;
+import org.jboss.arquillian.persistence.dbunit.tracking.ChangeLog;
+import org.jboss.arquillian.persistence.spi.dbunit.filter.TableFilterProvider;
+
+/**
+ * Content of the database captured right before the test, used by
+ * {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#SNAPSHOT} strategy.
+ * <br><br>
+ * Tables are copied inside the database and their changes are recorded by database triggers
+ * (see {@link ChangeLog}). When restoring, only tables changed since the snapshot has been taken are
+ * copied back, as well as tables referencing them through foreign keys, because their rows would prevent
+ * deleting the referenced ones. Unchanged tables are not read at all.
+ * <br><br>
+ * If triggers can't be used for the database, rows are kept in memory in the binary data set format instead,
+ * together with the fingerprint (see {@link TableFingerprint}) of every table, and only tables which fingerprint
+ * has changed are reloaded.
+ * <br><br>
+ * Snapshot is also aware whether the database is still in the captured state, so seeding
+ * the same data sets again can be skipped.
+ */
+public class DatabaseSnapshot {
+
+    private static final Logger log = Logger.getLogger(DatabaseSnapshot.class.getName());
+
+    private final ChangeLog changeLog;
+
+    private final Map<String, String> copies;
+
+    private final IDataSet dataSet;
+
+    private final Map<String, TableFingerprint> fingerprints;
+
+    private final List<String> seededDataSets;
+
+    private boolean current = true;
+
+    private DatabaseSnapshot(ChangeLog changeLog, Map<String, String> copies, List<String> seededDataSets) {
+        this.changeLog = changeLog;
+        this.copies = copies;
+        this.dataSet = null;
+        this.fingerprints = null;
+        this.seededDataSets = seededDataSets;
+    }
+
+    private DatabaseSnapshot(IDataSet dataSet, Map<String, TableFingerprint> fingerprints,
+        List<String> seededDataSets) {
+        this.changeLog = null;
+        this.copies = null;
+        this.dataSet = dataSet;
+        this.fingerprints = fingerprints;
+        this.seededDataSets = seededDataSets;
+    }
+
+    public static DatabaseSnapshot capture(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        Collection<DataSetResourceDescriptor> seededWith, String... tablesToExclude) {
+        try {
+            final long start = System.currentTimeMillis();
+            final IDataSet databaseContent =
+                DataSetUtils.excludeTables(TableMetadataCache.instance().createDataSet(connection), tablesToExclude);
+            final ChangeLog changeLog = ChangeLog.start(connection, dbUnitConfiguration, databaseContent);
+            if (changeLog != null) {
+                final Map<String, String> copies = new LinkedHashMap<String, String>();
+                for (String tableName : databaseContent.getTableNames()) {
+                    copies.put(tableName,
+                        changeLog.copyTable(connection, tableName, ChangeLog.COPY_PREFIX + (copies.size() + 1)));
+                }
+                log.fine("Captured database snapshot of " + copies.size() + " tables copied inside the database in "
+                    + (System.currentTimeMillis() - start) + " ms.");
+                return new DatabaseSnapshot(changeLog, copies, keysOf(seededWith));
+            }
+
+            final ByteArrayOutputStream dump = new ByteArrayOutputStream();
+            new BinaryDataSetWriter().write(databaseContent, dump);
+
+            final Map<String, TableFingerprint> fingerprints = new LinkedHashMap<String, TableFingerprint>();
+            for (String tableName : databaseContent.getTableNames()) {
+                fingerprints.put(tableName, fingerprint(connection, tableName));
+            }
+
+            log.fine("Captured database snapshot of " + fingerprints.size() + " tables (" + dump.size()
+                + " bytes) in " + (System.currentTimeMillis() - start) + " ms.");
+            return new DatabaseSnapshot(new BinaryDataSet(ByteBuffer.wrap(dump.toByteArray())), fingerprints,
+                keysOf(seededWith));
+        } catch (Exception e) {
+            throw new DBUnitDataSetHandlingException("Unable to capture database snapshot.", e);
+        }
+    }
+
+    /**
+     * Brings back tables which content has changed since the snapshot has been taken.
+     */
+    public void restore(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        String... tablesToExclude) {
+        try {
+            if (changeLog == null) {
+                reloadChangedTables(connection, dbUnitConfiguration, tablesToExclude);
+            } else {
+                restoreCopies(connection, dbUnitConfiguration, tablesToExclude);
+            }
+            current = true;
+        } catch (Exception e) {
+            throw new DBUnitDataSetHandlingException("Unable to restore database snapshot.", e);
+        }
+    }
+
+    /**
+     * @return true if the database has not been modified since the snapshot has been captured or restored.
+     */
+    public boolean isCurrent() {
+        return current;
+    }
+
+    /**
+     * Indicates that database might have been modified, e.g. by the test or by the script.
+     */
+    public void markStale() {
+        current = false;
+    }
+
+    public boolean isSeededWith(Collection<DataSetResourceDescriptor> dataSetDescriptors) {
+        return seededDataSets.equals(keysOf(dataSetDescriptors));
+    }
+
+    // Private methods
+
+    /**
+     * Deletes all rows of the changed tables, referencing tables first, and inserts rows of their copies.
+     */
+    private void restoreCopies(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        String... tablesToExclude) throws SQLException, DataSetException {
+        final ITableFilter excludedTables = new ExcludeTableFilter(tablesToExclude);
+        final List<String> tableNames = new ArrayList<String>(copies.size());
+        for (String tableName : copies.keySet()) {
+            if (excludedTables.accept(tableName)) {
+                tableNames.add(tableName);
+            }
+        }
+        final String[] snapshotTables = tableNames.toArray(new String[tableNames.size()]);
+
+        final Set<String> changedTables = new LinkedHashSet<String>();
+        final Set<String> recordedTables = changeLog.changedTables(connection);
+        for (String tableName : snapshotTables) {
+            if (recordedTables.contains(ChangeLog.tableKey(tableName))) {
+                changedTables.add(tableName);
+            }
+        }
+        if (changedTables.isEmpty()) {
+            return;
+        }
+        addReferencingTables(connection, changedTables, snapshotTables);
+
+        final IDataSet databaseContent = TableMetadataCache.instance().createDataSet(connection);
+        String[] tablesToRestore = inSnapshotOrder(changedTables);
+        if (dbUnitConfiguration.isFilterTables()) {
+            final TableFilterProvider tableFilterProvider = new TableFilterResolver(dbUnitConfiguration).resolve();
+            tablesToRestore = tableFilterProvider.provide(connection, tablesToRestore)
+                .getTableNames(new FilteredDataSet(tablesToRestore, databaseContent));
+        }
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (int i = tablesToRestore.length - 1; i >= 0; i--) {
+                statement.executeUpdate("DELETE FROM " + SqlIdentifiers.tableName(connection, tablesToRestore[i]));
+            }
+            for (String tableName : tablesToRestore) {
+                final String columns = SqlIdentifiers.columnList(connection,
+                    databaseContent.getTableMetaData(tableName).getColumns());
+                statement.executeUpdate("INSERT INTO " + SqlIdentifiers.tableName(connection, tableName) + " ("
+                    + columns + ") SELECT " + columns + " FROM " + copies.get(tableName));
+            }
+        } finally {
+            statement.close();
+        }
+        changeLog.clear(connection);
+        log.fine("Restored " + changedTables + " from copies of the tables.");
+    }
+
+    private void reloadChangedTables(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        String... tablesToExclude) throws DatabaseUnitException, SQLException {
+        final IDataSet tables = DataSetUtils.excludeTables(dataSet, tablesToExclude);
+        final Set<String> changedTables = findChangedTables(connection, tables.getTableNames());
+        if (!changedTables.isEmpty()) {
+            addReferencingTables(connection, changedTables, tables.getTableNames());
+            IDataSet tablesToRestore = new FilteredDataSet(inSnapshotOrder(changedTables), tables);
+            if (dbUnitConfiguration.isFilterTables()) {
+                final TableFilterProvider tableFilterProvider = new TableFilterResolver(dbUnitConfiguration).resolve();
+                final ITableFilter tableFilter =
+                    tableFilterProvider.provide(connection, tablesToRestore.getTableNames());
+                tablesToRestore = new FilteredDataSet(tableFilter, tablesToRestore);
+            }
+            new DBUnitDataSeedStrategyProvider(dbUnitConfiguration.isUseIdentityInsert()).cleanInsertStrategy()
+                .execute(connection, tablesToRestore);
+            log.fine("Restored " + changedTables + " from database snapshot.");
+        }
+    }
+
+    private Set<String> findChangedTables(DatabaseConnection connection, String[] tableNames)
+        throws SQLException {
+        final Set<String> changedTables = new LinkedHashSet<String>();
+        for (String tableName : tableNames) {
+            if (!fingerprints.get(tableName).equals(fingerprint(connection, tableName))) {
+                changedTables.add(tableName);
+            }
+        }
+        return changedTables;
+    }
+
+    private void addReferencingTables(DatabaseConnection connection, Set<String> changedTables, String[] tableNames)
+        throws SQLException, DataSetException {
+        final Map<String, String> tablesByName = new HashMap<String, String>();
+        for (String tableName : tableNames) {
+            tablesByName.put(qualifiedName(connection, tableName).getTable().toUpperCase(), tableName);
+        }
+
+        final TableDependencyGraph graph = TableDependencyGraphCache.instance().get(connection);
+        final LinkedList<String> pending = new LinkedList<String>(changedTables);
+        while (!pending.isEmpty()) {
+            for (String referencing : graph.getReferencingTables(pending.removeFirst())) {
+                final String referencingTable =
+                    tablesByName.get(qualifiedName(connection, referencing).getTable().toUpperCase());
+                if (referencingTable != null && changedTables.add(referencingTable)) {
+                    pending.add(referencingTable);
+                }
+            }
+        }
+    }
+
+    private String[] inSnapshotOrder(Set<String> tableNames) throws DataSetException {
+        final List<String> ordered = new ArrayList<String>(tableNames.size());
+        for (String tableName : copies == null ? Arrays.asList(dataSet.getTableNames()) : copies.keySet()) {
+            if (tableNames.contains(tableName)) {
+                ordered.add(tableName);
+            }
+        }
+        return ordered.toArray(new String[ordered.size()]);
+    }
+
+    private static TableFingerprint fingerprint(DatabaseConnection connection, String tableName)
+        throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            return TableFingerprint.of(statement.executeQuery(TableQueries.selectAllFrom(connection, tableName)));
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static QualifiedTableName qualifiedName(DatabaseConnection connection, String tableName) {
+        return new QualifiedTableName(tableName, connection.getSchema());
+    }
+
+    private static List<String> keysOf(Collection<DataSetResourceDescriptor> dataSetDescriptors) {
+        final List<String> keys = new ArrayList<String>(dataSetDescriptors.size());
+        for (DataSetResourceDescriptor descriptor : dataSetDescriptors) {
+            keys.add(descriptor.getFormat() + ":" + descriptor.getLocation());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.truncate.TableTruncatorResolver;
+
+/**
+ * Empties all the tables of the data set, either using {@link DatabaseOperation#DELETE_ALL}
+ * or truncating them when {@link DBUnitConfiguration#isTruncateTables()} is enabled.
+ */
+final class DeleteAllOperation {
+
+    private DeleteAllOperation() {
+    }
+
+    static void execute(DatabaseConnection connection, IDataSet dataSet, DBUnitConfiguration dbUnitConfiguration)
+        throws Exception {
+        if (dbUnitConfiguration.isTruncateTables()) {
+            new TableTruncatorResolver(dbUnitConfiguration).resolve(connection)
+                .truncate(connection, dataSet.getTableNames());
+        } else {
+            DatabaseOperation.DELETE_ALL.execute(connection, dataSet);
+        }
+    }
+}
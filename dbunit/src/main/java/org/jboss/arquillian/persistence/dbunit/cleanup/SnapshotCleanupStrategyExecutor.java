@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.util.logging.Logger;
+import org.dbunit.database.DatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+
+/**
+ * Brings back the content of the database captured before the test (see {@link DatabaseSnapshot}).
+ * If there is no snapshot yet, e.g. when cleaning up before the very first test, the whole database is cleaned.
+ */
+public class SnapshotCleanupStrategyExecutor implements CleanupStrategyExecutor {
+
+    private static final Logger LOG = Logger.getLogger(SnapshotCleanupStrategyExecutor.class.getName());
+
+    private final DatabaseConnection connection;
+
+    private final DatabaseSnapshot databaseSnapshot;
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public SnapshotCleanupStrategyExecutor(DatabaseConnection connection, DatabaseSnapshot databaseSnapshot,
+        DBUnitConfiguration dbUnitConfiguration) {
+        this.connection = connection;
+        this.databaseSnapshot = databaseSnapshot;
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    @Override
+    public void cleanupDatabase(String... tablesToExclude) {
+        if (databaseSnapshot == null) {
+            LOG.fine("No database snapshot has been captured yet, cleaning entire database.");
+            new StrictCleanupStrategyExecutor(connection, dbUnitConfiguration).cleanupDatabase(tablesToExclude);
+            return;
+        }
+        databaseSnapshot.restore(connection, dbUnitConfiguration, tablesToExclude);
+    }
+}
@@ -21,9 +21,9 @@ import org.dbunit.database.DatabaseConnection;
 import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.filter.ITableFilter;
-import org.dbunit.operation.DatabaseOperation;
 import org.jboss.arquillian.persistence.dbunit.DataSetUtils;
 import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitDataSetHandlingException;
 import org.jboss.arquillian.persistence.dbunit.filter.TableFilterResolver;
 import org.jboss.arquillian.persistence.spi.dbunit.filter.TableFilterProvider;
@@ -42,13 +42,14 @@ public class StrictCleanupStrategyExecutor implements CleanupStrategyExecutor {
     @Override
     public void cleanupDatabase(String... tablesToExclude) {
         try {
-            IDataSet dataSet = DataSetUtils.excludeTables(connection.createDataSet(), tablesToExclude);
+            IDataSet dataSet =
+                DataSetUtils.excludeTables(TableMetadataCache.instance().createDataSet(connection), tablesToExclude);
             if (dbUnitConfiguration.isFilterTables()) {
                 final TableFilterProvider tableFilterProvider = new TableFilterResolver(dbUnitConfiguration).resolve();
                 final ITableFilter tableFilter = tableFilterProvider.provide(connection, dataSet.getTableNames());
                 dataSet = new FilteredDataSet(tableFilter, dataSet);
             }
-            DatabaseOperation.DELETE_ALL.execute(connection, dataSet);
+            DeleteAllOperation.execute(connection, dataSet, dbUnitConfiguration);
         } catch (Exception e) {
             throw new DBUnitDataSetHandlingException("Unable to clean database.", e);
         }
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.io.UnsupportedEncodingException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.zip.CRC32;
+
+/**
+ * Row count and checksum of the table content. Checksum of each row is summed up,
+ * so it does not depend on the order in which rows are returned by the database.
+ */
+final class TableFingerprint {
+
+    private static final String ENCODING = "UTF-8";
+
+    private final long rowCount;
+
+    private final long checksum;
+
+    TableFingerprint(long rowCount, long checksum) {
+        this.rowCount = rowCount;
+        this.checksum = checksum;
+    }
+
+    static TableFingerprint of(ResultSet resultSet) throws SQLException {
+        final boolean[] binaryColumns = binaryColumns(resultSet.getMetaData());
+        final CRC32 crc = new CRC32();
+        long rowCount = 0;
+        long checksum = 0;
+        while (resultSet.next()) {
+            checksum += rowChecksum(resultSet, binaryColumns, crc);
+            rowCount++;
+        }
+        return new TableFingerprint(rowCount, checksum);
+    }
+
+    /**
+     * @return flags indicating which columns (indexed from 1) hold binary content.
+     */
+    static boolean[] binaryColumns(ResultSetMetaData metaData) throws SQLException {
+        final int columnCount = metaData.getColumnCount();
+        final boolean[] binaryColumns = new boolean[columnCount + 1];
+        for (int column = 1; column <= columnCount; column++) {
+            binaryColumns[column] = isBinary(metaData.getColumnType(column));
+        }
+        return binaryColumns;
+    }
+
+    static long rowChecksum(ResultSet resultSet, boolean[] binaryColumns, CRC32 crc) throws SQLException {
+        crc.reset();
+        for (int column = 1; column < binaryColumns.length; column++) {
+            final byte[] value =
+                binaryColumns[column] ? resultSet.getBytes(column) : bytesOf(resultSet.getString(column));
+            if (value == null) {
+                crc.update(0);
+            } else {
+                crc.update(1);
+                crc.update(value);
+            }
+        }
+        return crc.getValue();
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof TableFingerprint)) {
+            return false;
+        }
+
+        final TableFingerprint other = (TableFingerprint) obj;
+        return rowCount == other.rowCount && checksum == other.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 17;
+        int result = 1;
+        result = prime * result + (int) (rowCount ^ (rowCount >>> 32));
+        result = prime * result + (int) (checksum ^ (checksum >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TableFingerprint [rows=" + rowCount + ", checksum=" + Long.toHexString(checksum) + "]";
+    }
+
+    // Private methods
+
+    private static boolean isBinary(int sqlType) {
+        return sqlType == Types.BINARY || sqlType == Types.VARBINARY || sqlType == Types.LONGVARBINARY
+            || sqlType == Types.BLOB;
+    }
+
+    private static byte[] bytesOf(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.getBytes(ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(ENCODING + " is not supported.");
+        }
+    }
+}
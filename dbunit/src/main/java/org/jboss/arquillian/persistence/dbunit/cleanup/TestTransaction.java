@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Transaction spanning seeding, the test and verification, used by the
+ * {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#ROLLBACK} strategy.
+ * <br><br>
+ * If the connection is in auto-commit mode, a local transaction is started and auto-commit
+ * is restored after the rollback. Otherwise the connection already takes part in a transaction,
+ * so only the work done after the savepoint set at the beginning is rolled back.
+ */
+public class TestTransaction {
+
+    private final Connection connection;
+
+    private final Savepoint savepoint;
+
+    private TestTransaction(Connection connection, Savepoint savepoint) {
+        this.connection = connection;
+        this.savepoint = savepoint;
+    }
+
+    public static TestTransaction begin(Connection connection) throws SQLException {
+        if (connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            return new TestTransaction(connection, null);
+        }
+        return new TestTransaction(connection, connection.setSavepoint());
+    }
+
+    public void rollback() throws SQLException {
+        if (savepoint != null) {
+            connection.rollback(savepoint);
+            return;
+        }
+        try {
+            connection.rollback();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.sql.DataSource;
+
+/**
+ * Creates {@link DataSource} handing out the connection of the {@link TestTransaction} instead of
+ * new ones, so the application under test sees the seeded data and its changes are rolled back
+ * together with them.
+ * <br><br>
+ * Transaction is owned by the test, therefore {@code close}, {@code commit}, {@code rollback}
+ * and {@code setAutoCommit} called on the connection are ignored.
+ */
+public final class TransactionBoundDataSource {
+
+    private static final Set<String> IGNORED_CONNECTION_METHODS =
+        new HashSet<String>(Arrays.asList("close", "commit", "rollback", "setAutoCommit"));
+
+    private TransactionBoundDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource, TestTransaction transaction) {
+        final Connection connection = (Connection) Proxy.newProxyInstance(
+            TransactionBoundDataSource.class.getClassLoader(), new Class<?>[] {Connection.class},
+            new ConnectionHandler(transaction.getConnection()));
+        return (DataSource) Proxy.newProxyInstance(TransactionBoundDataSource.class.getClassLoader(),
+            new Class<?>[] {DataSource.class}, new DataSourceHandler(dataSource, connection));
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterTypes().length == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterTypes().length == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class DataSourceHandler implements InvocationHandler {
+
+        private final DataSource dataSource;
+
+        private final Connection connection;
+
+        private DataSourceHandler(DataSource dataSource, Connection connection) {
+            this.dataSource = dataSource;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("getConnection".equals(method.getName())) {
+                return connection;
+            }
+            return TransactionBoundDataSource.invoke(proxy, dataSource, method, args);
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final boolean rollbackToSavepoint = "rollback".equals(method.getName()) && args != null;
+            if (IGNORED_CONNECTION_METHODS.contains(method.getName()) && !rollbackToSavepoint) {
+                return null;
+            }
+            return TransactionBoundDataSource.invoke(proxy, connection, method, args);
+        }
+    }
+}
@@ -22,7 +22,6 @@ import org.dbunit.database.DatabaseConnection;
 import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.filter.ITableFilter;
-import org.dbunit.operation.DatabaseOperation;
 import org.jboss.arquillian.persistence.dbunit.DataSetUtils;
 import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
 import org.jboss.arquillian.persistence.dbunit.dataset.DataSetRegister;
@@ -61,7 +60,7 @@ public class UsedTablesOnlyCleanupStrategyExecutor implements CleanupStrategyExe
                 final ITableFilter tableFilter = tableFilterProvider.provide(connection, dataSet.getTableNames());
                 dataSet = new FilteredDataSet(tableFilter, dataSet);
             }
-            DatabaseOperation.DELETE_ALL.execute(connection, dataSet);
+            DeleteAllOperation.execute(connection, dataSet, dbUnitConfiguration);
         } catch (Exception e) {
             throw new DBUnitDataSetHandlingException("Unable to clean database.", e);
         }
@@ -19,6 +19,7 @@ package org.jboss.arquillian.persistence.dbunit.client;
 import org.jboss.arquillian.container.test.spi.client.deployment.ApplicationArchiveProcessor;
 import org.jboss.arquillian.container.test.spi.client.deployment.AuxiliaryArchiveAppender;
 import org.jboss.arquillian.core.spi.LoadableExtension;
+import org.jboss.arquillian.persistence.dbunit.DBUnitDataSourceResourceProvider;
 import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfigurationClientSideProducer;
 import org.jboss.arquillian.persistence.dbunit.deployment.DBUnitArchiveAppender;
 import org.jboss.arquillian.persistence.dbunit.deployment.DBUnitConfigurationTestArchiveEnricher;
@@ -40,6 +41,7 @@ public class DBUnitExtension implements LoadableExtension {
             .service(ApplicationArchiveProcessor.class, DBUnitConfigurationTestArchiveEnricher.class)
             .service(ApplicationArchiveProcessor.class, DBUnitDataSetsTestArchiveEnricher.class)
             .service(ResourceProvider.class, DBUnitConfigurationEnricher.class)
+            .service(ResourceProvider.class, DBUnitDataSourceResourceProvider.class)
             .observer(DBUnitConfigurationClientSideProducer.class);
     }
 }
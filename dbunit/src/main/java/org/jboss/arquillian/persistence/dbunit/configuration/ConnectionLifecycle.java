@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.configuration;
+
+/**
+ * Defines how long DBUnit database connection, together with the table metadata DBUnit caches
+ * for it, is kept open.
+ */
+public enum ConnectionLifecycle {
+    /**
+     * New connection is opened before and closed after each test.
+     */
+    TEST,
+    /**
+     * Connection is shared by all tests of the class and closed after the class.
+     */
+    CLASS,
+    /**
+     * Connection is shared by all tests using the same database and closed at the end of the suite.
+     */
+    SUITE
+}
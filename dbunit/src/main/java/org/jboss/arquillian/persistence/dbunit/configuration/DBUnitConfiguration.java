@@ -112,6 +112,34 @@ public class DBUnitConfiguration extends Configuration {
 
     private String customTableFilter;
 
+    private int dataSetCacheSize = 20;
+
+    private long dataSetCacheMaxRows = 1000000L;
+
+    private boolean streamDataSets = false;
+
+    private boolean truncateTables = false;
+
+    private String customTableTruncator;
+
+    private int seedingThreads = 1;
+
+    private int bulkLoadThreshold = 0;
+
+    private String customBulkLoader;
+
+    private ConnectionLifecycle connectionLifecycle = ConnectionLifecycle.TEST;
+
+    private boolean cacheTableMetadata = true;
+
+    private int fingerprintVerificationThreshold = 0;
+
+    private String customFingerprintDialect;
+
+    private String customChangeTrackingDialect;
+
+    private int comparisonThreads = 1;
+
     public DBUnitConfiguration() {
         super("persistence-dbunit", "arquillian.extension.persistence.dbunit.");
     }
@@ -455,4 +483,211 @@ public class DBUnitConfiguration extends Configuration {
     public void setCustomTableFilter(String customTableFilter) {
         this.customTableFilter = customTableFilter;
     }
+
+    public int getDataSetCacheSize() {
+        return dataSetCacheSize;
+    }
+
+    /**
+     * @param dataSetCacheSize
+     *     Maximum amount of parsed data sets kept in the JVM-wide cache, so the same file
+     *     used by several tests is not parsed over and over again. <code>0</code> disables caching.
+     *     Default value is <code>20</code>.
+     */
+    public void setDataSetCacheSize(int dataSetCacheSize) {
+        this.dataSetCacheSize = dataSetCacheSize;
+    }
+
+    public long getDataSetCacheMaxRows() {
+        return dataSetCacheMaxRows;
+    }
+
+    /**
+     * @param dataSetCacheMaxRows
+     *     Maximum amount of rows of all data sets kept in the cache. Least recently used data sets
+     *     are evicted when exceeded.
+     *     Default value is <code>1000000</code>.
+     */
+    public void setDataSetCacheMaxRows(long dataSetCacheMaxRows) {
+        this.dataSetCacheMaxRows = dataSetCacheMaxRows;
+    }
+
+    public boolean isStreamDataSets() {
+        return streamDataSets;
+    }
+
+    /**
+     * @param streamDataSets
+     *     Enable or disable streaming of initial data sets for all tests. When enabled rows are inserted
+     *     while the file is being read instead of loading whole data set into memory first. Supported for
+     *     XML, YAML and JSON formats. Might be also enabled per test using {@code @UsingDataSet(streaming = true)}.
+     *     Default value is <code>false</code>.
+     */
+    public void setStreamDataSets(boolean streamDataSets) {
+        this.streamDataSets = streamDataSets;
+    }
+
+    public boolean isTruncateTables() {
+        return truncateTables;
+    }
+
+    /**
+     * @param truncateTables
+     *     Enable or disable emptying tables using database specific statements, such as <code>TRUNCATE</code>,
+     *     instead of deleting rows one by one when cleaning the database using
+     *     {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#STRICT} or
+     *     {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#USED_TABLES_ONLY} strategy.
+     *     Identity columns and sequences are reset as well. Related to {@link #customTableTruncator}.
+     *     Default value is <code>false</code>.
+     */
+    public void setTruncateTables(boolean truncateTables) {
+        this.truncateTables = truncateTables;
+    }
+
+    public String getCustomTableTruncator() {
+        return customTableTruncator;
+    }
+
+    /**
+     * Specifies which implementation of {@link org.jboss.arquillian.persistence.spi.dbunit.truncate.TableTruncator}
+     * should be used when {@link #truncateTables} is enabled. If not defined, it's chosen based on the database
+     * product name.
+     */
+    public void setCustomTableTruncator(String customTableTruncator) {
+        this.customTableTruncator = customTableTruncator;
+    }
+
+    public int getSeedingThreads() {
+        return seedingThreads;
+    }
+
+    /**
+     * @param seedingThreads
+     *     Number of threads inserting initial data sets. When greater than one, tables which don't reference
+     *     each other are inserted concurrently using separate connections obtained from the data source.
+     *     Used only when the connection is in auto-commit mode and data sets are not streamed.
+     *     Default value is <code>1</code>.
+     */
+    public void setSeedingThreads(int seedingThreads) {
+        this.seedingThreads = seedingThreads;
+    }
+
+    public int getBulkLoadThreshold() {
+        return bulkLoadThreshold;
+    }
+
+    /**
+     * @param bulkLoadThreshold
+     *     Minimum amount of rows of the table for being inserted using database specific bulk loading
+     *     facility (see {@link #customBulkLoader}) when
+     *     {@link org.jboss.arquillian.persistence.DataSeedStrategy#INSERT} seeding strategy is used.
+     *     Zero or negative value disables bulk loading.
+     *     Default value is <code>0</code>.
+     */
+    public void setBulkLoadThreshold(int bulkLoadThreshold) {
+        this.bulkLoadThreshold = bulkLoadThreshold;
+    }
+
+    public String getCustomBulkLoader() {
+        return customBulkLoader;
+    }
+
+    /**
+     * Specifies which implementation of {@link org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader}
+     * should be used when {@link #bulkLoadThreshold} is set. If not defined, it's chosen based on the database
+     * product name.
+     */
+    public void setCustomBulkLoader(String customBulkLoader) {
+        this.customBulkLoader = customBulkLoader;
+    }
+
+    public ConnectionLifecycle getConnectionLifecycle() {
+        return connectionLifecycle;
+    }
+
+    /**
+     * @param connectionLifecycle
+     *     Defines if DBUnit connection, together with table metadata cached by DBUnit, is opened for each test,
+     *     shared by all tests of the class or by the whole test suite. Shared connections are validated
+     *     before each test and replaced when they are no longer usable.
+     *     Default value is {@link ConnectionLifecycle#TEST}.
+     */
+    public void setConnectionLifecycle(ConnectionLifecycle connectionLifecycle) {
+        this.connectionLifecycle = connectionLifecycle;
+    }
+
+    public boolean isCacheTableMetadata() {
+        return cacheTableMetadata;
+    }
+
+    /**
+     * @param cacheTableMetadata
+     *     Enables JVM-wide cache of tables, their columns and primary keys read while cleaning, comparing
+     *     and dumping database content. Cache is cleared whenever executed script contains DDL statements
+     *     or tables of the schema have been created or dropped by other means.
+     *     Default value is <code>true</code>.
+     */
+    public void setCacheTableMetadata(boolean cacheTableMetadata) {
+        this.cacheTableMetadata = cacheTableMetadata;
+    }
+
+    public int getFingerprintVerificationThreshold() {
+        return fingerprintVerificationThreshold;
+    }
+
+    /**
+     * @param fingerprintVerificationThreshold
+     *     Minimum amount of expected rows of the table for being verified by comparing its fingerprint computed
+     *     by the database (see {@link #customFingerprintDialect}) before reading its rows. Rows are read and
+     *     compared only when fingerprints differ or the table can't be verified this way.
+     *     Zero or negative value disables fingerprint verification.
+     *     Default value is <code>0</code>.
+     */
+    public void setFingerprintVerificationThreshold(int fingerprintVerificationThreshold) {
+        this.fingerprintVerificationThreshold = fingerprintVerificationThreshold;
+    }
+
+    public String getCustomFingerprintDialect() {
+        return customFingerprintDialect;
+    }
+
+    /**
+     * Specifies which implementation of
+     * {@link org.jboss.arquillian.persistence.spi.dbunit.fingerprint.FingerprintDialect} should be used when
+     * {@link #fingerprintVerificationThreshold} is set. If not defined, it's chosen based on the database
+     * product name.
+     */
+    public void setCustomFingerprintDialect(String customFingerprintDialect) {
+        this.customFingerprintDialect = customFingerprintDialect;
+    }
+
+    public String getCustomChangeTrackingDialect() {
+        return customChangeTrackingDialect;
+    }
+
+    /**
+     * Specifies which implementation of
+     * {@link org.jboss.arquillian.persistence.spi.dbunit.tracking.ChangeTrackingDialect} should be used to record
+     * changes of the tables for {@link org.jboss.arquillian.persistence.BuiltInCleanupStrategy#CHANGED_ROWS_ONLY}
+     * cleanup strategy. If not defined, it's chosen based on the database product name.
+     */
+    public void setCustomChangeTrackingDialect(String customChangeTrackingDialect) {
+        this.customChangeTrackingDialect = customChangeTrackingDialect;
+    }
+
+    public int getComparisonThreads() {
+        return comparisonThreads;
+    }
+
+    /**
+     * @param comparisonThreads
+     *     Number of threads comparing tables of expected data sets with the database. When greater than one,
+     *     tables are read and compared concurrently using separate connections obtained from the data source,
+     *     and differences are reported in the order of the tables. Used only when the connection is in
+     *     auto-commit mode and data sets are not streamed.
+     *     Default value is <code>1</code>.
+     */
+    public void setComparisonThreads(int comparisonThreads) {
+        this.comparisonThreads = comparisonThreads;
+    }
 }
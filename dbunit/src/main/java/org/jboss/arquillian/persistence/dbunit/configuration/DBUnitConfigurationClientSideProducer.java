@@ -23,6 +23,7 @@ import org.jboss.arquillian.core.api.annotation.ApplicationScoped;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.api.annotation.Observes;
 import org.jboss.arquillian.persistence.core.configuration.ConfigurationProducer;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetCache;
 
 /**
  * Triggers DBUnit configuration creation on the client side.
@@ -42,6 +43,8 @@ public class DBUnitConfigurationClientSideProducer extends ConfigurationProducer
 
     @Override
     public void observe(@Observes ArquillianDescriptor descriptorCreated) {
-        configurationProducer.set(configureFromArquillianDescriptor(descriptorCreated));
+        final DBUnitConfiguration configuration = configureFromArquillianDescriptor(descriptorCreated);
+        DataSetCache.instance().resize(configuration.getDataSetCacheSize(), configuration.getDataSetCacheMaxRows());
+        configurationProducer.set(configuration);
     }
 }
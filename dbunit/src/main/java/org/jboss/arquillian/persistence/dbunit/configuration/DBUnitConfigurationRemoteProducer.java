@@ -23,6 +23,7 @@ import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.api.annotation.Observes;
 import org.jboss.arquillian.persistence.core.configuration.Configuration;
 import org.jboss.arquillian.persistence.core.event.InitializeConfiguration;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetCache;
 
 /**
  * Triggers dbunit configuration creation on the container side.
@@ -38,6 +39,7 @@ public class DBUnitConfigurationRemoteProducer {
     public void configure(@Observes InitializeConfiguration event) {
         final DBUnitConfiguration configuration = new DBUnitConfiguration();
         Configuration.importTo(configuration).loadFromPropertyFile(configuration.getPrefix() + "properties");
+        DataSetCache.instance().resize(configuration.getDataSetCacheSize(), configuration.getDataSetCacheMaxRows());
         configurationProducer.set(configuration);
     }
 }
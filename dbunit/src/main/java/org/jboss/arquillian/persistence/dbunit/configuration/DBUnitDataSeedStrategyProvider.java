@@ -20,6 +20,9 @@ package org.jboss.arquillian.persistence.dbunit.configuration;
 import org.dbunit.ext.mssql.InsertIdentityOperation;
 import org.dbunit.operation.DatabaseOperation;
 import org.jboss.arquillian.persistence.DataSeedStrategy.StrategyProvider;
+import org.jboss.arquillian.persistence.dbunit.bulk.BulkInsertOperation;
+import org.jboss.arquillian.persistence.dbunit.seed.IncrementalInsertOperation;
+import org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
@@ -28,8 +31,23 @@ public class DBUnitDataSeedStrategyProvider implements StrategyProvider<Database
 
     private final boolean useIdentityInsert;
 
+    private final BulkLoader bulkLoader;
+
+    private final int bulkLoadThreshold;
+
     public DBUnitDataSeedStrategyProvider(boolean useIdentityInsert) {
+        this(useIdentityInsert, null, 0);
+    }
+
+    /**
+     * @param bulkLoader
+     *     used for inserting tables having at least <code>bulkLoadThreshold</code> rows when seeding with
+     *     {@link #insertStrategy()}. Not used together with identity insert.
+     */
+    public DBUnitDataSeedStrategyProvider(boolean useIdentityInsert, BulkLoader bulkLoader, int bulkLoadThreshold) {
         this.useIdentityInsert = useIdentityInsert;
+        this.bulkLoader = bulkLoader;
+        this.bulkLoadThreshold = bulkLoadThreshold;
     }
 
     @Override
@@ -37,6 +55,9 @@ public class DBUnitDataSeedStrategyProvider implements StrategyProvider<Database
         if (useIdentityInsert) {
             return InsertIdentityOperation.INSERT;
         }
+        if (bulkLoader != null && bulkLoadThreshold > 0) {
+            return new BulkInsertOperation(DatabaseOperation.INSERT, bulkLoader, bulkLoadThreshold);
+        }
         return DatabaseOperation.INSERT;
     }
 
@@ -61,6 +82,14 @@ public class DBUnitDataSeedStrategyProvider implements StrategyProvider<Database
         return DatabaseOperation.UPDATE;
     }
 
+    @Override
+    public DatabaseOperation incrementalStrategy() {
+        if (useIdentityInsert) {
+            return new IncrementalInsertOperation(InsertIdentityOperation.INSERT);
+        }
+        return new IncrementalInsertOperation(DatabaseOperation.INSERT);
+    }
+
     @Override
     public DatabaseOperation defaultStrategy() {
         return DatabaseOperation.INSERT;
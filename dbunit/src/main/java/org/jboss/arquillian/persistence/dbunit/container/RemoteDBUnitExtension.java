@@ -19,6 +19,7 @@ package org.jboss.arquillian.persistence.dbunit.container;
 import org.jboss.arquillian.container.test.spi.RemoteLoadableExtension;
 import org.jboss.arquillian.core.spi.LoadableExtension;
 import org.jboss.arquillian.persistence.dbunit.DBUnitDataHandler;
+import org.jboss.arquillian.persistence.dbunit.DBUnitDataSourceResourceProvider;
 import org.jboss.arquillian.persistence.dbunit.DBUnitDataStateLogger;
 import org.jboss.arquillian.persistence.dbunit.DBUnitDatabaseConnectionProvider;
 import org.jboss.arquillian.persistence.dbunit.DBUnitPersistenceTestLifecycleHandler;
@@ -51,7 +52,8 @@ public class RemoteDBUnitExtension implements RemoteLoadableExtension {
             .observer(DBUnitConfigurationRemoteProducer.class)
             .observer(DBUnitPersistenceTestLifecycleHandler.class)
             .observer(DBUnitDataStateLogger.class)
-            .service(ResourceProvider.class, DBUnitDatabaseConnectionProvider.class);
+            .service(ResourceProvider.class, DBUnitDatabaseConnectionProvider.class)
+            .service(ResourceProvider.class, DBUnitDataSourceResourceProvider.class);
     }
 
     private void registerDBUnitTestLifecycleHandlers(ExtensionBuilder builder) {
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.sql.SQLException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * Database content described by metadata held in {@link TableMetadataCache}. Rows are read
+ * through given connection in the same way as by {@link org.dbunit.database.DatabaseDataSet}.
+ */
+class CachedDatabaseDataSet implements IDataSet {
+
+    private final IDatabaseConnection connection;
+
+    private final TableMetadataCache.SchemaMetadata schema;
+
+    CachedDatabaseDataSet(IDatabaseConnection connection, TableMetadataCache.SchemaMetadata schema) {
+        this.connection = connection;
+        this.schema = schema;
+    }
+
+    @Override
+    public String[] getTableNames() throws DataSetException {
+        try {
+            return schema.getTableNames(connection);
+        } catch (SQLException e) {
+            throw new DataSetException(e);
+        }
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+        try {
+            return schema.getTableMetaData(connection, tableName);
+        } catch (SQLException e) {
+            throw new DataSetException(e);
+        }
+    }
+
+    @Override
+    public ITable getTable(String tableName) throws DataSetException {
+        final ITableMetaData metaData = getTableMetaData(tableName);
+        final IResultSetTableFactory factory = (IResultSetTableFactory) connection.getConfig()
+            .getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+        try {
+            return factory.createTable(metaData, connection);
+        } catch (SQLException e) {
+            throw new DataSetException(e);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public ITable[] getTables() throws DataSetException {
+        final String[] tableNames = getTableNames();
+        final ITable[] tables = new ITable[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++) {
+            tables[i] = getTable(tableNames[i]);
+        }
+        return tables;
+    }
+
+    @Override
+    public ITableIterator iterator() throws DataSetException {
+        return new TableNameIterator(this, getTableNames(), false);
+    }
+
+    @Override
+    public ITableIterator reverseIterator() throws DataSetException {
+        return new TableNameIterator(this, getTableNames(), true);
+    }
+
+    @Override
+    public boolean isCaseSensitiveTableNames() {
+        return schema.isCaseSensitive();
+    }
+}
@@ -19,18 +19,27 @@ package org.jboss.arquillian.persistence.dbunit.dataset;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import org.dbunit.dataset.DataSetException;
-import org.dbunit.dataset.DefaultDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ReplacementDataSet;
 import org.dbunit.dataset.excel.XlsDataSet;
+import org.dbunit.dataset.stream.IDataSetProducer;
+import org.dbunit.dataset.stream.StreamingDataSet;
+import org.dbunit.dataset.xml.FlatDtdDataSet;
 import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.dataset.xml.FlatXmlProducer;
 import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.core.util.Resources;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.BinaryDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.PrecompiledDataSets;
 import org.jboss.arquillian.persistence.dbunit.dataset.json.JsonDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.json.JsonDataSetProducer;
 import org.jboss.arquillian.persistence.dbunit.dataset.xml.DtdResolver;
 import org.jboss.arquillian.persistence.dbunit.dataset.yaml.YamlDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.yaml.YamlDataSetProducer;
 import org.jboss.arquillian.persistence.dbunit.exception.DBUnitInitializationException;
-import org.yaml.snakeyaml.Yaml;
+import org.xml.sax.InputSource;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
@@ -47,7 +56,24 @@ public class DataSetBuilder {
         return new DataSetBuilder(format);
     }
 
+    /**
+     * Builds data set from the given file, or from its precompiled version if there is one
+     * up to date (see {@link PrecompiledDataSets}).
+     */
     public IDataSet build(final String file) {
+        if (!Format.BINARY.equals(format)) {
+            final String precompiled = PrecompiledDataSets.locate(file);
+            if (precompiled != null) {
+                return builderFor(Format.BINARY).build(precompiled);
+            }
+        }
+        return buildFromSource(file);
+    }
+
+    /**
+     * Builds data set from the given file, ignoring its precompiled version.
+     */
+    public IDataSet buildFromSource(final String file) {
         IDataSet dataSet;
         try {
             switch (format) {
@@ -63,6 +89,9 @@ public class DataSetBuilder {
                 case JSON:
                     dataSet = loadJsonDataSet(file);
                     break;
+                case BINARY:
+                    dataSet = loadBinaryDataSet(file);
+                    break;
                 default:
                     throw new DBUnitInitializationException("Unsupported data type " + format);
             }
@@ -73,21 +102,57 @@ public class DataSetBuilder {
         return defineReplaceableExpressions(dataSet);
     }
 
+    public boolean isStreamingSupported() {
+        return Format.XML.equals(format) || Format.YAML.equals(format) || Format.JSON.equals(format);
+    }
+
+    /**
+     * Creates forward-only data set which passes rows from the parser to the consumer as they are read,
+     * without holding the whole content in memory. It can be iterated only once.
+     * <br><br>
+     * As there is no column sensing for streamed XML, columns are defined either by the DTD or by the
+     * first row of each table. YAML and JSON tables are passed in parts instead, next one starting whenever
+     * a row brings a new column (see {@link TableStream}).
+     */
+    public IDataSet buildStreaming(final String file, final InputStream inputStream) {
+        final IDataSetProducer producer;
+        try {
+            switch (format) {
+                case XML:
+                    producer = createXmlProducer(file, inputStream);
+                    break;
+                case YAML:
+                    producer = new YamlDataSetProducer(inputStream);
+                    break;
+                case JSON:
+                    producer = new JsonDataSetProducer(inputStream);
+                    break;
+                default:
+                    throw new DBUnitInitializationException("Streaming is not supported for " + format);
+            }
+        } catch (DataSetException e) {
+            throw new DBUnitInitializationException("Unable to load data set from given file: " + file, e);
+        } catch (IOException e) {
+            throw new DBUnitInitializationException("Unable to load data set from given file: " + file, e);
+        }
+
+        return defineReplaceableExpressions(new StreamingDataSet(producer));
+    }
+
     // Private methods
 
-    private IDataSet loadXmlDataSet(final String xmlFile) throws DataSetException {
+    private IDataSet loadXmlDataSet(final String xmlFile) throws DataSetException, IOException {
         final FlatXmlDataSetBuilder flatXmlDataSetBuilder = new FlatXmlDataSetBuilder();
         flatXmlDataSetBuilder.setColumnSensing(true);
         addDtdIfDefined(flatXmlDataSetBuilder, xmlFile);
-        return flatXmlDataSetBuilder.build(Thread.currentThread().getContextClassLoader().getResourceAsStream(xmlFile));
+        return flatXmlDataSetBuilder.build(openResource(xmlFile));
     }
 
     private void addDtdIfDefined(final FlatXmlDataSetBuilder flatXmlDataSetBuilder, final String xmlFile) {
         String dtd = new DtdResolver().resolveDtdLocationFullPath(xmlFile);
         if (dtd != null) {
             try {
-                flatXmlDataSetBuilder.setMetaDataSetFromDtd(
-                    Thread.currentThread().getContextClassLoader().getResourceAsStream(dtd));
+                flatXmlDataSetBuilder.setMetaDataSetFromDtd(openResource(dtd));
             } catch (DataSetException e) {
                 throw new DBUnitInitializationException("Unable to attach DTD " + dtd + " defined for " + xmlFile, e);
             } catch (IOException e) {
@@ -96,38 +161,65 @@ public class DataSetBuilder {
         }
     }
 
+    private IDataSetProducer createXmlProducer(final String xmlFile, final InputStream inputStream)
+        throws DataSetException, IOException {
+        final InputSource xmlSource = new InputSource(inputStream);
+        final String dtd = new DtdResolver().resolveDtdLocationFullPath(xmlFile);
+        if (dtd != null) {
+            final InputStream dtdStream = openResource(dtd);
+            try {
+                return new FlatXmlProducer(xmlSource, new FlatDtdDataSet(dtdStream));
+            } finally {
+                if (dtdStream != null) {
+                    dtdStream.close();
+                }
+            }
+        }
+        return new FlatXmlProducer(xmlSource, false, false);
+    }
+
     private XlsDataSet loadExcelDataSet(final String file) throws IOException, DataSetException {
-        final InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(file);
+        final InputStream inputStream = openResource(file);
         return new XlsDataSet(inputStream);
     }
 
-    private JsonDataSet loadJsonDataSet(final String file) throws DataSetException {
-        final InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(file);
+    private JsonDataSet loadJsonDataSet(final String file) throws IOException, DataSetException {
+        final InputStream inputStream = openResource(file);
         return new JsonDataSet(inputStream);
     }
 
-    private IDataSet loadYamlDataSet(final String file) throws IOException,
-        DataSetException {
-        IDataSet dataSet;
-        if (isYamlEmpty(file)) {
-            dataSet = new DefaultDataSet();
-        } else {
-            final InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(file);
-            dataSet = new YamlDataSet(inputStream);
+    /**
+     * Empty document is recognized by the producer from the first parser events, resulting in data set without tables.
+     */
+    private YamlDataSet loadYamlDataSet(final String file) throws IOException, DataSetException {
+        final InputStream inputStream = openResource(file);
+        try {
+            return new YamlDataSet(inputStream);
+        } finally {
             if (inputStream != null) {
                 inputStream.close();
             }
         }
-        return dataSet;
     }
 
-    private boolean isYamlEmpty(final String yamlFile) throws IOException {
-        final InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(yamlFile);
-        final boolean isEmpty = new Yaml().load(inputStream) == null;
-        if (inputStream != null) {
-            inputStream.close();
+    private BinaryDataSet loadBinaryDataSet(final String file) throws IOException, DataSetException {
+        final URL resource = Resources.find(file);
+        if (resource == null) {
+            throw new DataSetException("Unable to find " + file);
+        }
+        return BinaryDataSet.load(resource);
+    }
+
+    /**
+     * @return content of the resource, memory-mapped when it's available on the local file system,
+     * or null if there is no such resource.
+     */
+    private InputStream openResource(final String file) throws IOException {
+        final URL resource = Resources.find(file);
+        if (resource == null) {
+            return null;
         }
-        return isEmpty;
+        return Resources.openStream(resource);
     }
 
     private IDataSet defineReplaceableExpressions(IDataSet dataSet) {
@@ -0,0 +1,283 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableIterator;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.PrecompiledDataSets;
+import org.jboss.arquillian.persistence.dbunit.exception.DBUnitInitializationException;
+
+/**
+ * JVM-wide cache of parsed data sets, so the same file used by many test methods is read only once.
+ * <br><br>
+ * Entries are keyed by resource location and format. Each entry remembers modification time and length
+ * of the resource, as well as of its precompiled version (see {@link PrecompiledDataSets}), which might be
+ * the file actually parsed. When any of them changes, the data set is parsed again. Resources are not read
+ * to verify the entry. Cache is bounded both by the amount of entries and total amount of rows held; least
+ * recently used data sets are evicted first. Values are softly referenced, so they can also be reclaimed
+ * by the garbage collector when memory gets low.
+ */
+public class DataSetCache {
+
+    private static final Logger log = Logger.getLogger(DataSetCache.class.getName());
+
+    private static final DataSetCache INSTANCE = new DataSetCache();
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+    private int maxEntries = 20;
+
+    private long maxRows = 1000000L;
+
+    private long cachedRows;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    public static DataSetCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns parsed content of the given descriptor, building it only if it's not cached yet.
+     */
+    public IDataSet load(DataSetResourceDescriptor descriptor) {
+        if (!isEnabled()) {
+            return descriptor.getContent();
+        }
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final URL source = classLoader.getResource(descriptor.getLocation());
+        if (source == null) {
+            // Let the builder report missing resource
+            return descriptor.getContent();
+        }
+
+        final List<Long> version = new ArrayList<Long>(4);
+        addVersionOf(source, version);
+        if (!Format.BINARY.equals(descriptor.getFormat())) {
+            final URL precompiled =
+                classLoader.getResource(PrecompiledDataSets.precompiledLocationOf(descriptor.getLocation()));
+            if (precompiled != null) {
+                addVersionOf(precompiled, version);
+            }
+        }
+
+        final Key key = new Key(descriptor.getLocation(), descriptor.getFormat());
+        final IDataSet cached = lookup(key, version);
+        if (cached != null) {
+            return cached;
+        }
+
+        final IDataSet dataSet = descriptor.getContent();
+        store(key, version, dataSet, countRows(dataSet));
+        return dataSet;
+    }
+
+    /**
+     * @param maxEntries
+     *     maximum amount of data sets kept in the cache. Zero or negative value disables caching.
+     * @param maxRows
+     *     maximum amount of rows of all cached data sets.
+     */
+    public synchronized void resize(int maxEntries, long maxRows) {
+        if (this.maxEntries == maxEntries && this.maxRows == maxRows) {
+            return;
+        }
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+        evictExceeding();
+    }
+
+    public synchronized boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cachedRows = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DataSetCache [entries=" + entries.size() + ", rows=" + cachedRows + ", hits=" + hitCount
+            + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+    }
+
+    // Private methods
+
+    private synchronized IDataSet lookup(Key key, List<Long> version) {
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            final IDataSet dataSet = entry.dataSet.get();
+            if (dataSet != null && entry.version.equals(version)) {
+                hitCount++;
+                return dataSet;
+            }
+            entries.remove(key);
+            cachedRows -= entry.rows;
+        }
+        missCount++;
+        log.fine("Data set " + key.location + " not found in cache. " + this);
+        return null;
+    }
+
+    private synchronized void store(Key key, List<Long> version, IDataSet dataSet, long rows) {
+        if (rows > maxRows) {
+            log.fine("Data set " + key.location + " with " + rows + " rows exceeds cache limit and won't be cached.");
+            return;
+        }
+        final Entry previous = entries.put(key, new Entry(version, dataSet, rows));
+        if (previous != null) {
+            cachedRows -= previous.rows;
+        }
+        cachedRows += rows;
+        evictExceeding();
+    }
+
+    private void evictExceeding() {
+        final Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext() && (entries.size() > Math.max(maxEntries, 0) || cachedRows > maxRows)) {
+            cachedRows -= eldest.next().rows;
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Adds modification time and length of the resource, read without opening its content.
+     */
+    private void addVersionOf(URL resource, List<Long> version) {
+        if ("file".equals(resource.getProtocol())) {
+            File file;
+            try {
+                file = new File(resource.toURI());
+            } catch (URISyntaxException e) {
+                file = new File(resource.getPath());
+            }
+            version.add(file.lastModified());
+            version.add(file.length());
+            return;
+        }
+        try {
+            final URLConnection connection = resource.openConnection();
+            version.add(connection.getLastModified());
+            version.add((long) connection.getContentLength());
+        } catch (IOException e) {
+            throw new DBUnitInitializationException("Unable to read data set from given file: " + resource, e);
+        }
+    }
+
+    private long countRows(IDataSet dataSet) {
+        long rows = 0;
+        try {
+            final ITableIterator tables = dataSet.iterator();
+            while (tables.next()) {
+                rows += tables.getTable().getRowCount();
+            }
+        } catch (DataSetException e) {
+            throw new DBUnitInitializationException("Unable to determine size of the data set.", e);
+        }
+        return rows;
+    }
+
+    private static class Entry {
+
+        // modification time and length of the source and of its precompiled version
+        private final List<Long> version;
+
+        private final SoftReference<IDataSet> dataSet;
+
+        private final long rows;
+
+        private Entry(List<Long> version, IDataSet dataSet, long rows) {
+            this.version = version;
+            this.dataSet = new SoftReference<IDataSet>(dataSet);
+            this.rows = rows;
+        }
+    }
+
+    private static class Key {
+
+        private final String location;
+
+        private final Format format;
+
+        private Key(String location, Format format) {
+            this.location = location;
+            this.format = format;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+            return location.equals(other.location) && format.equals(other.format);
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 17;
+            int result = 1;
+            result = prime * result + location.hashCode();
+            result = prime * result + format.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.jboss.arquillian.persistence.dbunit.ColumnsHolder;
+
+/**
+ * Current content of the tables present in the expected data set, used for verifying database state
+ * without reading the rest of the schema.
+ * <br><br>
+ * Each table is read using a single query selecting only the columns present in the expected data set
+ * and given additional columns (e.g. used for sorting). If none of them exists in the table, all columns
+ * are selected. Metadata returned by {@link #getTableMetaData(String)} always describes all columns
+ * of the table.
+ */
+public class ExpectedTablesDataSet implements IDataSet {
+
+    private final IDatabaseConnection connection;
+
+    private final IDataSet expectedDataSet;
+
+    private final ColumnsHolder additionalColumns;
+
+    private final IDataSet databaseDataSet;
+
+    private final Map<String, ITable> tables = new HashMap<String, ITable>();
+
+    public ExpectedTablesDataSet(IDatabaseConnection connection, IDataSet expectedDataSet, String[] additionalColumns)
+        throws SQLException {
+        this.connection = connection;
+        this.expectedDataSet = expectedDataSet;
+        this.additionalColumns = new ColumnsHolder(additionalColumns);
+        this.databaseDataSet = TableMetadataCache.instance().createDataSet(connection);
+    }
+
+    @Override
+    public String[] getTableNames() throws DataSetException {
+        return expectedDataSet.getTableNames();
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+        return databaseDataSet.getTableMetaData(tableName);
+    }
+
+    @Override
+    public ITable getTable(String tableName) throws DataSetException {
+        final String key = isCaseSensitiveTableNames() ? tableName : tableName.toUpperCase(Locale.ENGLISH);
+        ITable table = tables.get(key);
+        if (table == null) {
+            table = readTable(tableName);
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    @Override
+    @Deprecated
+    public ITable[] getTables() throws DataSetException {
+        final String[] tableNames = getTableNames();
+        final ITable[] currentTables = new ITable[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++) {
+            currentTables[i] = getTable(tableNames[i]);
+        }
+        return currentTables;
+    }
+
+    @Override
+    public ITableIterator iterator() throws DataSetException {
+        return new TableNameIterator(this, getTableNames(), false);
+    }
+
+    @Override
+    public ITableIterator reverseIterator() throws DataSetException {
+        return new TableNameIterator(this, getTableNames(), true);
+    }
+
+    @Override
+    public boolean isCaseSensitiveTableNames() {
+        return expectedDataSet.isCaseSensitiveTableNames();
+    }
+
+    // Private methods
+
+    private ITable readTable(String tableName) throws DataSetException {
+        final ITableMetaData selectedColumns = selectColumns(tableName, getTableMetaData(tableName));
+        final IResultSetTableFactory factory = (IResultSetTableFactory) connection.getConfig()
+            .getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+        try {
+            return factory.createTable(selectedColumns, connection);
+        } catch (SQLException e) {
+            throw new DataSetException("Unable to read content of " + tableName + ".", e);
+        }
+    }
+
+    private ITableMetaData selectColumns(String tableName, ITableMetaData metaData) throws DataSetException {
+        final Set<String> columnNames = new HashSet<String>();
+        for (Column column : expectedDataSet.getTableMetaData(tableName).getColumns()) {
+            columnNames.add(column.getColumnName().toLowerCase());
+        }
+        for (String columnName : additionalColumns.columnsFor(tableName)) {
+            columnNames.add(columnName.toLowerCase());
+        }
+
+        final List<Column> columns = new ArrayList<Column>();
+        for (Column column : metaData.getColumns()) {
+            if (columnNames.contains(column.getColumnName().toLowerCase())) {
+                columns.add(column);
+            }
+        }
+        if (columns.isEmpty()) {
+            return metaData;
+        }
+
+        final List<Column> primaryKeys = new ArrayList<Column>();
+        for (Column primaryKey : metaData.getPrimaryKeys()) {
+            if (columnNames.contains(primaryKey.getColumnName().toLowerCase())) {
+                primaryKeys.add(primaryKey);
+            }
+        }
+        return new DefaultTableMetaData(metaData.getTableName(), columns.toArray(new Column[columns.size()]),
+            primaryKeys.toArray(new Column[primaryKeys.size()]));
+    }
+}
@@ -17,26 +17,55 @@
  */
 package org.jboss.arquillian.persistence.dbunit.dataset;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Represents row entry in the data set file.
+ * <br><br>
+ * Cells are kept as an array of values indexed by column positions. Rows belonging to
+ * the same {@link Table} share its column index, so column names are not repeated per row.
  *
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  */
 public class Row {
 
-    private final Map<String, String> cells = new HashMap<String, String>();
+    private final Map<String, Integer> columnIndexes;
+
+    /**
+     * Cell values by column index, <code>null</code> when cell is not defined in this row.
+     */
+    private final String[] values;
 
     public Row(Map<String, String> cells) {
+        this.columnIndexes = new LinkedHashMap<String, Integer>(cells.size() * 2);
+        this.values = new String[cells.size()];
         for (Map.Entry<String, String> cell : cells.entrySet()) {
-            this.cells.put(String.valueOf(cell.getKey()), String.valueOf(cell.getValue()));
+            final String name = String.valueOf(cell.getKey()).intern();
+            Integer index = columnIndexes.get(name);
+            if (index == null) {
+                index = columnIndexes.size();
+                columnIndexes.put(name, index);
+            }
+            values[index] = String.valueOf(cell.getValue());
         }
     }
 
+    Row(Map<String, Integer> columnIndexes, String[] values) {
+        this.columnIndexes = columnIndexes;
+        this.values = values;
+    }
+
     public String valueOf(String name) {
-        return cells.get(name);
+        final Integer index = columnIndexes.get(name);
+        if (index == null || index >= values.length) {
+            return null;
+        }
+        return values[index];
+    }
+
+    Map<String, Integer> getColumnIndexes() {
+        return columnIndexes;
     }
 
     @Override
@@ -51,16 +80,13 @@ public class Row {
 
         final Row other = (Row) obj;
 
-        final Map<String, String> otherCells = other.cells;
-
-        if (cells.size() != otherCells.size()) {
+        if (cellCount() != other.cellCount()) {
             return false;
         }
 
-        for (Map.Entry<String, String> cell : cells.entrySet()) {
-            final String name = cell.getKey();
-            final String value = cell.getValue();
-            if (!value.equals(otherCells.get(name))) {
+        for (Map.Entry<String, Integer> column : columnIndexes.entrySet()) {
+            final String value = valueAt(column.getValue());
+            if (value != null && !value.equals(other.valueOf(column.getKey()))) {
                 return false;
             }
         }
@@ -72,29 +98,47 @@ public class Row {
     public int hashCode() {
         final int prime = 17;
         int result = 1;
-        result = prime * result + ((cells == null) ? 0 : cellHashCode());
+        result = prime * result + cellHashCode();
         return result;
     }
 
     @Override
     public String toString() {
-        return "Row [cells=" + toString(cells) + "]";
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> column : columnIndexes.entrySet()) {
+            final String value = valueAt(column.getValue());
+            if (value != null) {
+                sb.append("{key = ").append(column.getKey()).append(", value = ").append(value).append("} ");
+            }
+        }
+        return "Row [cells=" + sb + "]";
     }
 
-    private String toString(Map<String, String> cells2) {
-        final StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, String> cell : cells.entrySet()) {
-            sb.append("{key = ").append(cell.getKey()).append(", value = ").append(cell.getValue()).append("} ");
+    private String valueAt(int index) {
+        return index < values.length ? values[index] : null;
+    }
+
+    private int cellCount() {
+        int count = 0;
+        for (String value : values) {
+            if (value != null) {
+                count++;
+            }
         }
-        return sb.toString();
+        return count;
     }
 
+    /**
+     * Independent of the column order, so equal rows of differently organized tables have the same hash.
+     */
     private int cellHashCode() {
         final int prime = 41;
-        int result = 1;
-        for (Map.Entry<String, String> cell : cells.entrySet()) {
-            result = prime * result + cell.getKey().hashCode();
-            result = prime * result + cell.getValue().hashCode();
+        int result = 0;
+        for (Map.Entry<String, Integer> column : columnIndexes.entrySet()) {
+            final String value = valueAt(column.getValue());
+            if (value != null) {
+                result += prime * column.getKey().hashCode() + value.hashCode();
+            }
         }
         return result;
     }
@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.jboss.arquillian.persistence.dbunit.DataSetUtils;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.PrecompiledDataSets;
+import org.jboss.arquillian.persistence.dbunit.exception.DBUnitInitializationException;
+
+/**
+ * Data set reading its tables directly from the underlying files each time it is iterated,
+ * so rows are passed from the parser to the database operation one by one and memory usage
+ * does not depend on the size of the files.
+ * <br><br>
+ * Only forward iteration is streamed. Operations requiring random access to the tables
+ * (such as reverse iteration used by <code>DELETE</code> or table lookup by name used by table filters)
+ * work on the copy loaded into memory on first use.
+ */
+public class StreamedDataSet extends AbstractDataSet {
+
+    private static final Logger log = Logger.getLogger(StreamedDataSet.class.getName());
+
+    private final List<DataSetResourceDescriptor> descriptors;
+
+    private String[] tableNames;
+
+    private IDataSet materialized;
+
+    public StreamedDataSet(Collection<DataSetResourceDescriptor> descriptors) {
+        super(false);
+        this.descriptors = new ArrayList<DataSetResourceDescriptor>(descriptors);
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        if (reversed) {
+            return materialized().reverseIterator();
+        }
+        return new StreamingTableIterator();
+    }
+
+    @Override
+    public String[] getTableNames() throws DataSetException {
+        if (tableNames == null) {
+            final Map<String, String> names = new LinkedHashMap<String, String>();
+            final ITableIterator iterator = createIterator(false);
+            while (iterator.next()) {
+                final String tableName = iterator.getTableMetaData().getTableName();
+                if (!names.containsKey(tableName.toUpperCase())) {
+                    names.put(tableName.toUpperCase(), tableName);
+                }
+            }
+            tableNames = names.values().toArray(new String[names.size()]);
+        }
+        return tableNames.clone();
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+        return materialized().getTableMetaData(tableName);
+    }
+
+    @Override
+    public ITable getTable(String tableName) throws DataSetException {
+        return materialized().getTable(tableName);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public ITable[] getTables() throws DataSetException {
+        return materialized().getTables();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedDataSet " + descriptors;
+    }
+
+    // Private methods
+
+    private synchronized IDataSet materialized() throws DataSetException {
+        if (materialized == null) {
+            log.info("Random access to the tables requested, loading streamed data sets " + descriptors
+                + " into memory.");
+            final List<IDataSet> dataSets = new ArrayList<IDataSet>(descriptors.size());
+            for (DataSetResourceDescriptor descriptor : descriptors) {
+                dataSets.add(descriptor.getContent());
+            }
+            materialized = DataSetUtils.mergeDataSets(dataSets);
+        }
+        return materialized;
+    }
+
+    private class StreamingTableIterator implements ITableIterator {
+
+        private final Iterator<DataSetResourceDescriptor> pending = descriptors.iterator();
+
+        private ITableIterator current;
+
+        private InputStream currentStream;
+
+        @Override
+        public boolean next() throws DataSetException {
+            while (current == null || !current.next()) {
+                closeCurrentStream();
+                if (!pending.hasNext()) {
+                    current = null;
+                    return false;
+                }
+                current = open(pending.next());
+            }
+            return true;
+        }
+
+        @Override
+        public ITableMetaData getTableMetaData() throws DataSetException {
+            return current.getTableMetaData();
+        }
+
+        @Override
+        public ITable getTable() throws DataSetException {
+            return current.getTable();
+        }
+
+        private ITableIterator open(DataSetResourceDescriptor descriptor) throws DataSetException {
+            final DataSetBuilder builder = DataSetBuilder.builderFor(descriptor.getFormat());
+            if (!builder.isStreamingSupported() || PrecompiledDataSets.locate(descriptor.getLocation()) != null) {
+                return descriptor.getContent().iterator();
+            }
+            currentStream =
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(descriptor.getLocation());
+            if (currentStream == null) {
+                throw new DBUnitInitializationException("Unable to load data set from given file: "
+                    + descriptor.getLocation());
+            }
+            return builder.buildStreaming(descriptor.getLocation(), currentStream).iterator();
+        }
+
+        private void closeCurrentStream() {
+            if (currentStream != null) {
+                try {
+                    currentStream.close();
+                } catch (IOException e) {
+                    log.warning("Unable to close data set stream. " + e.getMessage());
+                }
+                currentStream = null;
+            }
+        }
+    }
+}
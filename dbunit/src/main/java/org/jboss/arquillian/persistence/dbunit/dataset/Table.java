@@ -17,36 +17,69 @@
  */
 package org.jboss.arquillian.persistence.dbunit.dataset;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents table described in data set. Stores information such as
  * table's name, list of columns and {@link Row}s.
+ * <br><br>
+ * Rows are stored column by column - each column has its own array of values, column names
+ * are resolved to indexes only once per table and repeated values share single instance
+ * taken from the dictionary of the table. {@link #getRows()} provides row view on top of it.
  *
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  */
 public class Table {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+
     private final String tableName;
 
-    private final Set<String> columns = new HashSet<String>();
+    private final Map<String, Integer> columnIndexes = new LinkedHashMap<String, Integer>();
+
+    private final List<String[]> columnValues = new ArrayList<String[]>();
 
-    private final List<Row> rows = new ArrayList<Row>();
+    private final Map<String, String> dictionary = new HashMap<String, String>();
+
+    private int rowCount;
+
+    private int capacity = INITIAL_CAPACITY;
 
     public Table(String tableName) {
         this.tableName = tableName;
     }
 
     public void addRows(Collection<Row> rows) {
-        this.rows.addAll(rows);
+        for (Row row : rows) {
+            addRow(row);
+        }
+    }
+
+    public void addRow(Row row) {
+        ensureCapacity(rowCount + 1);
+        for (String column : row.getColumnIndexes().keySet()) {
+            final String value = row.valueOf(column);
+            if (value != null) {
+                columnValues.get(indexOf(column))[rowCount] = shared(value);
+            }
+        }
+        rowCount++;
     }
 
     public void addColumns(Collection<String> columns) {
-        this.columns.addAll(columns);
+        for (String column : columns) {
+            indexOf(column);
+        }
     }
 
     public String getTableName() {
@@ -54,10 +87,63 @@ public class Table {
     }
 
     public Set<String> getColumns() {
-        return Collections.unmodifiableSet(columns);
+        return Collections.unmodifiableSet(columnIndexes.keySet());
     }
 
     public List<Row> getRows() {
-        return Collections.unmodifiableList(rows);
+        return new AbstractList<Row>() {
+            @Override
+            public Row get(int index) {
+                if (index < 0 || index >= rowCount) {
+                    throw new IndexOutOfBoundsException("Row " + index + " of table " + tableName + " with "
+                        + rowCount + " rows");
+                }
+                final String[] values = new String[columnValues.size()];
+                for (int column = 0; column < values.length; column++) {
+                    values[column] = columnValues.get(column)[index];
+                }
+                return new Row(columnIndexes, values);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    // Private methods
+
+    private int indexOf(String column) {
+        final Integer index = columnIndexes.get(column);
+        if (index != null) {
+            return index;
+        }
+        columnIndexes.put(column.intern(), columnValues.size());
+        columnValues.add(new String[capacity]);
+        return columnValues.size() - 1;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= capacity) {
+            return;
+        }
+        capacity = Math.max(rows, capacity + (capacity >> 1));
+        for (int i = 0; i < columnValues.size(); i++) {
+            final String[] values = new String[capacity];
+            System.arraycopy(columnValues.get(i), 0, values, 0, rowCount);
+            columnValues.set(i, values);
+        }
+    }
+
+    private String shared(String value) {
+        final String shared = dictionary.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(value, value);
+        }
+        return value;
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.stream.IDataSetProducer;
+
+/**
+ * Joins consecutive parts of the same table emitted by {@link TableStream} into a single table having all
+ * the columns, before passing it to the consumer. Meant for consumers keeping the whole data set in memory
+ * anyway, such as {@link org.dbunit.dataset.CachedDataSet}, as each table is buffered until it's complete.
+ */
+public class TableJoiningProducer implements IDataSetProducer {
+
+    private final IDataSetProducer producer;
+
+    public TableJoiningProducer(IDataSetProducer producer) {
+        this.producer = producer;
+    }
+
+    @Override
+    public void setConsumer(IDataSetConsumer consumer) throws DataSetException {
+        producer.setConsumer(new JoiningConsumer(consumer));
+    }
+
+    @Override
+    public void produce() throws DataSetException {
+        producer.produce();
+    }
+
+    private static class JoiningConsumer implements IDataSetConsumer {
+
+        private final IDataSetConsumer consumer;
+
+        private Table table;
+
+        private Column[] columns;
+
+        private JoiningConsumer(IDataSetConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startDataSet() throws DataSetException {
+            consumer.startDataSet();
+        }
+
+        @Override
+        public void endDataSet() throws DataSetException {
+            flush();
+            consumer.endDataSet();
+        }
+
+        @Override
+        public void startTable(ITableMetaData metaData) throws DataSetException {
+            if (table == null || !table.getTableName().equals(metaData.getTableName())) {
+                flush();
+                table = new Table(metaData.getTableName());
+            }
+            columns = metaData.getColumns();
+            final List<String> columnNames = new ArrayList<String>(columns.length);
+            for (Column column : columns) {
+                columnNames.add(column.getColumnName());
+            }
+            table.addColumns(columnNames);
+        }
+
+        @Override
+        public void endTable() throws DataSetException {
+            // Next part of the same table might follow
+        }
+
+        @Override
+        public void row(Object[] values) throws DataSetException {
+            final Map<String, String> cells = new LinkedHashMap<String, String>();
+            for (int i = 0; i < columns.length; i++) {
+                if (values[i] != null) {
+                    cells.put(columns[i].getColumnName(), String.valueOf(values[i]));
+                }
+            }
+            table.addRow(new Row(cells));
+        }
+
+        private void flush() throws DataSetException {
+            if (table == null) {
+                return;
+            }
+            final List<Column> tableColumns = new ArrayList<Column>();
+            for (String columnName : table.getColumns()) {
+                tableColumns.add(new Column(columnName, DataType.UNKNOWN));
+            }
+            final ITableMetaData tableMetaData = new DefaultTableMetaData(table.getTableName(),
+                tableColumns.toArray(new Column[tableColumns.size()]));
+            consumer.startTable(tableMetaData);
+            for (Row row : table.getRows()) {
+                final Object[] values = new Object[tableColumns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = row.valueOf(tableColumns.get(i).getColumnName());
+                }
+                consumer.row(values);
+            }
+            consumer.endTable();
+            table = null;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseDataSet;
+import org.dbunit.database.DatabaseTableMetaData;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.jboss.arquillian.persistence.dbunit.tracking.ChangeLog;
+
+/**
+ * JVM-wide cache of table metadata, so tables of the schema, their columns and primary keys are read
+ * from the database only once instead of by every new connection reading database content.
+ * <br><br>
+ * Metadata is kept per database URL, user and schema. List of tables is read when a data set is created
+ * for the first time, metadata of each table when it's accessed for the first time. Table missing from
+ * the cached list is looked up again when it's accessed by name. Cached metadata is dropped only through
+ * {@link #invalidate(IDatabaseConnection)}, which is called whenever executed script contains DDL
+ * statements, so it has to be called as well when tables are created, dropped or altered by other means.
+ * Change log table and copies of the tables (see {@link ChangeLog}) are left out.
+ */
+public class TableMetadataCache {
+
+    private static final Logger log = Logger.getLogger(TableMetadataCache.class.getName());
+
+    private static final TableMetadataCache INSTANCE = new TableMetadataCache();
+
+    private final Map<String, SchemaMetadata> schemas = new HashMap<String, SchemaMetadata>();
+
+    private boolean enabled = true;
+
+    private long hitCount;
+
+    private long loadCount;
+
+    public static TableMetadataCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns content of the schema used by given connection, described by cached metadata. Rows are
+     * always read from the database.
+     */
+    public IDataSet createDataSet(IDatabaseConnection connection) throws SQLException {
+        if (!isEnabled()) {
+            return new FilteredDataSet(ChangeLog.excludeOwnTables(), connection.createDataSet());
+        }
+        return new CachedDatabaseDataSet(connection, schemaOf(connection));
+    }
+
+    /**
+     * Removes cached metadata of the schema used by given connection, e.g. after the schema has been altered.
+     */
+    public void invalidate(IDatabaseConnection connection) throws SQLException {
+        final String key = keyOf(connection);
+        synchronized (this) {
+            schemas.remove(key);
+        }
+    }
+
+    /**
+     * @param enabled
+     *     if disabled, metadata is read by each connection separately.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            schemas.clear();
+        }
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void clear() {
+        schemas.clear();
+    }
+
+    public synchronized int size() {
+        return schemas.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return how many times list of tables or metadata of a single table has been read from the database.
+     */
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TableMetadataCache [schemas=" + schemas.size() + ", hits=" + hitCount + ", loads=" + loadCount + "]";
+    }
+
+    // Private methods
+
+    private synchronized SchemaMetadata schemaOf(IDatabaseConnection connection) throws SQLException {
+        final String key = keyOf(connection);
+        SchemaMetadata schema = schemas.get(key);
+        if (schema == null) {
+            schema = new SchemaMetadata(key, isCaseSensitive(connection));
+            schemas.put(key, schema);
+        }
+        return schema;
+    }
+
+    private synchronized void recordHit() {
+        hitCount++;
+    }
+
+    private synchronized void recordLoad() {
+        loadCount++;
+    }
+
+    private String keyOf(IDatabaseConnection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        return metaData.getURL() + "|" + metaData.getUserName() + "|" + connection.getSchema();
+    }
+
+    private static boolean isCaseSensitive(IDatabaseConnection connection) {
+        return Boolean.TRUE.equals(
+            connection.getConfig().getProperty(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES));
+    }
+
+    /**
+     * Metadata of the tables of a single schema. Metadata of each table is copied out of DBUnit's
+     * {@link DatabaseTableMetaData}, so it's not bound to the connection it has been read with.
+     */
+    class SchemaMetadata {
+
+        private final String key;
+
+        private final boolean caseSensitive;
+
+        private final Map<String, String> tableNamesByKey = new HashMap<String, String>();
+
+        private final Map<String, ITableMetaData> tables = new HashMap<String, ITableMetaData>();
+
+        private String[] tableNames;
+
+        private SchemaMetadata(String key, boolean caseSensitive) {
+            this.key = key;
+            this.caseSensitive = caseSensitive;
+        }
+
+        boolean isCaseSensitive() {
+            return caseSensitive;
+        }
+
+        synchronized String[] getTableNames(IDatabaseConnection connection) throws SQLException {
+            if (tableNames == null) {
+                loadTableNames(connection);
+            } else {
+                recordHit();
+            }
+            return tableNames.clone();
+        }
+
+        synchronized ITableMetaData getTableMetaData(IDatabaseConnection connection, String tableName)
+            throws SQLException, DataSetException {
+            final String tableKey = normalize(tableName);
+            final ITableMetaData cached = tables.get(tableKey);
+            if (cached != null) {
+                recordHit();
+                return cached;
+            }
+
+            // DBUnit keeps tables read by connection.createDataSet() for the lifetime of the connection
+            final IDataSet databaseDataSet =
+                new DatabaseDataSet(connection, caseSensitive, ChangeLog.excludeOwnTables());
+            if (tableNames == null || !tableNamesByKey.containsKey(tableKey)) {
+                updateTableNames(databaseDataSet.getTableNames());
+            }
+            final String name = tableNamesByKey.get(tableKey);
+            if (name == null) {
+                throw new NoSuchTableException(tableName);
+            }
+
+            final ITableMetaData databaseMetaData = databaseDataSet.getTableMetaData(name);
+            final ITableMetaData metaData = new DefaultTableMetaData(databaseMetaData.getTableName(),
+                databaseMetaData.getColumns(), databaseMetaData.getPrimaryKeys());
+            tables.put(tableKey, metaData);
+            recordLoad();
+            return metaData;
+        }
+
+        private void loadTableNames(IDatabaseConnection connection) throws SQLException {
+            updateTableNames(readTableNames(connection));
+        }
+
+        private String[] readTableNames(IDatabaseConnection connection) throws SQLException {
+            try {
+                // DBUnit keeps tables read by connection.createDataSet() for the lifetime of the connection
+                return new DatabaseDataSet(connection, caseSensitive, ChangeLog.excludeOwnTables()).getTableNames();
+            } catch (DataSetException e) {
+                final SQLException sqlException = new SQLException("Unable to read tables of " + key + ".");
+                sqlException.initCause(e);
+                throw sqlException;
+            }
+        }
+
+        private void updateTableNames(String[] currentTableNames) {
+            tableNames = currentTableNames;
+            tableNamesByKey.clear();
+            for (String tableName : tableNames) {
+                tableNamesByKey.put(normalize(tableName), tableName);
+            }
+            recordLoad();
+            log.fine("Read " + tableNames.length + " tables of " + key + ". " + TableMetadataCache.this);
+        }
+
+        private String normalize(String tableName) {
+            return caseSensitive ? tableName : tableName.toUpperCase(Locale.ENGLISH);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * Iterates over tables of the data set by their names, so each table is read only when reached.
+ */
+class TableNameIterator implements ITableIterator {
+
+    private final IDataSet dataSet;
+
+    private final String[] tableNames;
+
+    private final boolean reversed;
+
+    private int position = -1;
+
+    TableNameIterator(IDataSet dataSet, String[] tableNames, boolean reversed) {
+        this.dataSet = dataSet;
+        this.tableNames = tableNames;
+        this.reversed = reversed;
+    }
+
+    @Override
+    public boolean next() {
+        position++;
+        return position < tableNames.length;
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData() throws DataSetException {
+        return dataSet.getTableMetaData(currentTableName());
+    }
+
+    @Override
+    public ITable getTable() throws DataSetException {
+        return dataSet.getTable(currentTableName());
+    }
+
+    private String currentTableName() {
+        return reversed ? tableNames[tableNames.length - 1 - position] : tableNames[position];
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+
+/**
+ * Passes rows of a single table to the consumer as soon as they are read, so the table is never held in memory.
+ * <br><br>
+ * Columns of the table are not known upfront, therefore the table is started with the columns of its first row.
+ * Whenever a row brings a column not seen before, the consumer gets the next part of the same table, which
+ * has all the columns seen so far. Cells not defined in the row are passed as <code>null</code>.
+ * Use {@link TableJoiningProducer} when the consumer expects each table only once.
+ */
+public class TableStream {
+
+    private final IDataSetConsumer consumer;
+
+    private final String tableName;
+
+    private final Set<String> columns = new LinkedHashSet<String>();
+
+    private boolean started;
+
+    public TableStream(IDataSetConsumer consumer, String tableName) {
+        this.consumer = consumer;
+        this.tableName = tableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void row(Map<String, String> cells) throws DataSetException {
+        if (!started || !columns.containsAll(cells.keySet())) {
+            if (started) {
+                consumer.endTable();
+            }
+            columns.addAll(cells.keySet());
+            startTable();
+        }
+
+        final Object[] values = new Object[columns.size()];
+        int i = 0;
+        for (String column : columns) {
+            values[i++] = cells.get(column);
+        }
+        consumer.row(values);
+    }
+
+    public void end() throws DataSetException {
+        if (!started) {
+            startTable();
+        }
+        consumer.endTable();
+    }
+
+    // Private methods
+
+    private void startTable() throws DataSetException {
+        final List<Column> tableColumns = new ArrayList<Column>(columns.size());
+        for (String column : columns) {
+            tableColumns.add(new Column(column, DataType.UNKNOWN));
+        }
+        consumer.startTable(new DefaultTableMetaData(tableName, tableColumns.toArray(new Column[tableColumns.size()])));
+        started = true;
+    }
+}
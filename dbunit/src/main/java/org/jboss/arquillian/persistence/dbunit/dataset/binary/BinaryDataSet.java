@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset.binary;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableIterator;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.jboss.arquillian.persistence.core.util.Resources;
+
+/**
+ * Data set read from the precompiled binary file (see {@link BinaryDataSetWriter}).
+ * <br><br>
+ * Files available on the local file system are memory-mapped. Tables are located by skipping over
+ * their blocks and values are decoded lazily, column by column, when accessed for the first time.
+ */
+public class BinaryDataSet extends AbstractDataSet {
+
+    private final ByteBuffer buffer;
+
+    private List<ITable> tables;
+
+    public BinaryDataSet(ByteBuffer buffer) throws DataSetException {
+        super(false);
+        this.buffer = buffer.duplicate();
+        verifyHeader();
+    }
+
+    public static BinaryDataSet load(URL resource) throws IOException, DataSetException {
+        return new BinaryDataSet(Resources.read(resource));
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        final List<ITable> tables = getTablesInOrder();
+        return new DefaultTableIterator(tables.toArray(new ITable[tables.size()]), reversed);
+    }
+
+    // Package-private helpers used by tables
+
+    static String readString(ByteBuffer buffer) throws DataSetException {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, BinaryDataSetFormat.ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new DataSetException("Unable to decode precompiled data set", e);
+        }
+    }
+
+    // Private methods
+
+    private synchronized List<ITable> getTablesInOrder() throws DataSetException {
+        if (tables == null) {
+            final ByteBuffer content = buffer.duplicate();
+            content.position(3 * 4);
+            final int tableCount = buffer.getInt(2 * 4);
+            final List<ITable> readTables = new ArrayList<ITable>(tableCount);
+            try {
+                for (int i = 0; i < tableCount; i++) {
+                    final int blockLength = content.getInt();
+                    final ByteBuffer block = content.slice();
+                    block.limit(blockLength);
+                    readTables.add(new BinaryTable(block));
+                    content.position(content.position() + blockLength);
+                }
+            } catch (BufferUnderflowException e) {
+                throw new DataSetException("Precompiled data set is truncated", e);
+            } catch (IllegalArgumentException e) {
+                throw new DataSetException("Precompiled data set is truncated", e);
+            }
+            tables = readTables;
+        }
+        return tables;
+    }
+
+    private void verifyHeader() throws DataSetException {
+        if (buffer.remaining() < 3 * 4 || buffer.getInt(0) != BinaryDataSetFormat.MAGIC) {
+            throw new DataSetException("Not a precompiled data set");
+        }
+        final int version = buffer.getInt(4);
+        if (version != BinaryDataSetFormat.VERSION) {
+            throw new DataSetException("Unsupported version " + version + " of precompiled data set, expected "
+                + BinaryDataSetFormat.VERSION + ". Please compile it again.");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset.binary;
+
+/**
+ * Layout of precompiled data set files.
+ * <br><br>
+ * All numbers are big-endian, strings are stored as UTF-8 bytes prefixed with their length.
+ * <pre>
+ * data set := MAGIC VERSION tableCount:int table*
+ * table    := blockLength:int name:string columnCount:int columnName:string* rowCount:int column*
+ * column   := blockLength:int value{rowCount}
+ * value    := tag:byte payload
+ * </pre>
+ * Block lengths let the reader skip tables and columns without decoding them.
+ */
+final class BinaryDataSetFormat {
+
+    static final int MAGIC = 0x41504453;
+
+    static final int VERSION = 1;
+
+    static final String ENCODING = "UTF-8";
+
+    static final byte NULL = 0;
+
+    static final byte STRING = 1;
+
+    static final byte BIG_DECIMAL = 2;
+
+    static final byte BOOLEAN = 3;
+
+    static final byte DATE = 4;
+
+    static final byte TIMESTAMP = 5;
+
+    static final byte LONG = 6;
+
+    static final byte INTEGER = 7;
+
+    static final byte DOUBLE = 8;
+
+    static final byte BYTES = 9;
+
+    private BinaryDataSetFormat() {
+    }
+}
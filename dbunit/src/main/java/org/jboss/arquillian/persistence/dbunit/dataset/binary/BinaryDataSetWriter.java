@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+
+/**
+ * Writes data set in the precompiled binary format read by {@link BinaryDataSet}.
+ */
+public class BinaryDataSetWriter {
+
+    public void write(IDataSet dataSet, OutputStream outputStream) throws DataSetException, IOException {
+        final List<ITable> tables = new ArrayList<ITable>();
+        final ITableIterator iterator = dataSet.iterator();
+        while (iterator.next()) {
+            tables.add(iterator.getTable());
+        }
+
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(BinaryDataSetFormat.MAGIC);
+        output.writeInt(BinaryDataSetFormat.VERSION);
+        output.writeInt(tables.size());
+        for (ITable table : tables) {
+            writeBlock(output, tableBlock(table));
+        }
+        output.flush();
+    }
+
+    // Private methods
+
+    private ByteArrayOutputStream tableBlock(ITable table) throws DataSetException, IOException {
+        final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(block);
+        final Column[] columns = table.getTableMetaData().getColumns();
+        final int rowCount = table.getRowCount();
+
+        writeString(output, table.getTableMetaData().getTableName());
+        output.writeInt(columns.length);
+        for (Column column : columns) {
+            writeString(output, column.getColumnName());
+        }
+        output.writeInt(rowCount);
+
+        for (Column column : columns) {
+            final ByteArrayOutputStream columnBlock = new ByteArrayOutputStream();
+            final DataOutputStream columnOutput = new DataOutputStream(columnBlock);
+            for (int row = 0; row < rowCount; row++) {
+                writeValue(columnOutput, table.getValue(row, column.getColumnName()));
+            }
+            columnOutput.flush();
+            writeBlock(output, columnBlock);
+        }
+        output.flush();
+        return block;
+    }
+
+    private void writeBlock(DataOutputStream output, ByteArrayOutputStream block) throws IOException {
+        output.writeInt(block.size());
+        block.writeTo(output);
+    }
+
+    private void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(BinaryDataSetFormat.NULL);
+        } else if (value instanceof String) {
+            output.writeByte(BinaryDataSetFormat.STRING);
+            writeString(output, (String) value);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            output.writeByte(BinaryDataSetFormat.BIG_DECIMAL);
+            writeString(output, value.toString());
+        } else if (value instanceof Boolean) {
+            output.writeByte(BinaryDataSetFormat.BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            output.writeByte(BinaryDataSetFormat.TIMESTAMP);
+            output.writeLong(((Timestamp) value).getTime());
+            output.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof Date) {
+            output.writeByte(BinaryDataSetFormat.DATE);
+            output.writeLong(((Date) value).getTime());
+        } else if (value instanceof Long) {
+            output.writeByte(BinaryDataSetFormat.LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            output.writeByte(BinaryDataSetFormat.INTEGER);
+            output.writeInt(((Number) value).intValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            output.writeByte(BinaryDataSetFormat.DOUBLE);
+            output.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof byte[]) {
+            output.writeByte(BinaryDataSetFormat.BYTES);
+            output.writeInt(((byte[]) value).length);
+            output.write((byte[]) value);
+        } else {
+            output.writeByte(BinaryDataSetFormat.STRING);
+            writeString(output, String.valueOf(value));
+        }
+    }
+
+    private void writeString(DataOutputStream output, String value) throws IOException {
+        final byte[] bytes = value.getBytes(BinaryDataSetFormat.ENCODING);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
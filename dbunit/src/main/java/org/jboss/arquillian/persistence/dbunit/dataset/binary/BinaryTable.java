@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset.binary;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.Date;
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Table of {@link BinaryDataSet}, decoding values of each column on first access.
+ */
+class BinaryTable extends AbstractTable {
+
+    private final ITableMetaData tableMetaData;
+
+    private final int rowCount;
+
+    private final ByteBuffer[] columnBlocks;
+
+    private final Object[][] columnValues;
+
+    BinaryTable(ByteBuffer block) throws DataSetException {
+        final String tableName = BinaryDataSet.readString(block);
+        final Column[] columns = new Column[block.getInt()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(BinaryDataSet.readString(block), DataType.UNKNOWN);
+        }
+        this.tableMetaData = new DefaultTableMetaData(tableName, columns);
+        this.rowCount = block.getInt();
+        this.columnBlocks = new ByteBuffer[columns.length];
+        this.columnValues = new Object[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            final int blockLength = block.getInt();
+            final ByteBuffer columnBlock = block.slice();
+            columnBlock.limit(blockLength);
+            columnBlocks[i] = columnBlock;
+            block.position(block.position() + blockLength);
+        }
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData() {
+        return tableMetaData;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Object getValue(int row, String column) throws DataSetException {
+        assertValidRowIndex(row);
+        return values(getColumnIndex(column))[row];
+    }
+
+    // Private methods
+
+    private synchronized Object[] values(int column) throws DataSetException {
+        if (columnValues[column] == null) {
+            final ByteBuffer columnBlock = columnBlocks[column].duplicate();
+            final Object[] values = new Object[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                values[row] = readValue(columnBlock);
+            }
+            columnValues[column] = values;
+        }
+        return columnValues[column];
+    }
+
+    private Object readValue(ByteBuffer buffer) throws DataSetException {
+        final byte tag = buffer.get();
+        switch (tag) {
+            case BinaryDataSetFormat.NULL:
+                return null;
+            case BinaryDataSetFormat.STRING:
+                return BinaryDataSet.readString(buffer);
+            case BinaryDataSetFormat.BIG_DECIMAL:
+                return new BigDecimal(BinaryDataSet.readString(buffer));
+            case BinaryDataSetFormat.BOOLEAN:
+                return buffer.get() != 0;
+            case BinaryDataSetFormat.DATE:
+                return new Date(buffer.getLong());
+            case BinaryDataSetFormat.TIMESTAMP:
+                final Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            case BinaryDataSetFormat.LONG:
+                return buffer.getLong();
+            case BinaryDataSetFormat.INTEGER:
+                return buffer.getInt();
+            case BinaryDataSetFormat.DOUBLE:
+                return buffer.getDouble();
+            case BinaryDataSetFormat.BYTES:
+                final byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return bytes;
+            default:
+                throw new DataSetException("Unknown value type " + tag + " in table " + tableMetaData.getTableName());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset.binary;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.logging.Logger;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+
+/**
+ * Locates precompiled versions of data set files. Precompiled file sits next to its source
+ * and has the {@link Format#BINARY binary format} extension appended to the source file name,
+ * e.g. <code>datasets/users.yml.dsb</code>.
+ */
+public final class PrecompiledDataSets {
+
+    private static final Logger log = Logger.getLogger(PrecompiledDataSets.class.getName());
+
+    private PrecompiledDataSets() {
+    }
+
+    public static String precompiledLocationOf(String source) {
+        return source + "." + Format.BINARY.extension();
+    }
+
+    /**
+     * @return location of the precompiled version of given data set or null if there is none
+     * or it's older than its source.
+     */
+    public static String locate(String source) {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final String precompiledLocation = precompiledLocationOf(source);
+        final URL precompiled = classLoader.getResource(precompiledLocation);
+        if (precompiled == null) {
+            return null;
+        }
+
+        final URL sourceResource = classLoader.getResource(source);
+        if (sourceResource != null && lastModified(sourceResource) > lastModified(precompiled)) {
+            log.warning("Precompiled data set " + precompiledLocation + " is older than its source, using " + source
+                + " instead.");
+            return null;
+        }
+        return precompiledLocation;
+    }
+
+    /**
+     * Modification time is only known for files, other resources (e.g. archive entries) are treated as
+     * up to date, as their freshness is verified when they are packaged.
+     */
+    private static long lastModified(URL resource) {
+        if (!"file".equals(resource.getProtocol())) {
+            return 0L;
+        }
+        try {
+            return new File(resource.toURI()).lastModified();
+        } catch (URISyntaxException e) {
+            return new File(resource.getPath()).lastModified();
+        }
+    }
+}
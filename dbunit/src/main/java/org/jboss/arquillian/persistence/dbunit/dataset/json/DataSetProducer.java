@@ -18,26 +18,19 @@
 package org.jboss.arquillian.persistence.dbunit.dataset.json;
 
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import org.dbunit.dataset.Column;
 import org.dbunit.dataset.DataSetException;
-import org.dbunit.dataset.DefaultTableMetaData;
-import org.dbunit.dataset.ITableMetaData;
-import org.dbunit.dataset.datatype.DataType;
 import org.dbunit.dataset.stream.DefaultConsumer;
 import org.dbunit.dataset.stream.IDataSetConsumer;
 import org.dbunit.dataset.stream.IDataSetProducer;
-import org.jboss.arquillian.persistence.dbunit.dataset.Row;
-import org.jboss.arquillian.persistence.dbunit.dataset.Table;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableStream;
 
 /**
  * Abstract DataSetProducer class with template method for producing data
  * set in the given format.
+ * <br><br>
+ * Implementations are expected to read the input incrementally and pass each row
+ * to the {@link TableStream} obtained from {@link #startTable(String)} as soon as it's read,
+ * so memory usage does not depend on the size of the input.
  *
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  */
@@ -51,7 +44,7 @@ public abstract class DataSetProducer implements IDataSetProducer {
         this.input = input;
     }
 
-    abstract Map<String, List<Map<String, String>>> loadDataSet() throws DataSetException;
+    abstract void produceTables() throws DataSetException;
 
     @Override
     public void setConsumer(IDataSetConsumer consumer) {
@@ -61,66 +54,12 @@ public abstract class DataSetProducer implements IDataSetProducer {
     @Override
     public void produce() throws DataSetException {
         consumer.startDataSet();
-
-        Map<String, List<Map<String, String>>> dataset = loadDataSet();
-
-        final List<Table> tables = createTables(dataset);
-
-        for (Table table : tables) {
-            ITableMetaData tableMetaData = createTableMetaData(table);
-            consumer.startTable(tableMetaData);
-            for (Row row : table.getRows()) {
-                List<String> values = new ArrayList<String>();
-                for (Column column : tableMetaData.getColumns()) {
-                    values.add(row.valueOf(column.getColumnName()));
-                }
-                consumer.row(values.toArray());
-            }
-
-            consumer.endTable();
-        }
-
+        produceTables();
         consumer.endDataSet();
     }
 
-    private ITableMetaData createTableMetaData(Table table) {
-        return new DefaultTableMetaData(table.getTableName(), createColumns(table.getColumns()));
-    }
-
-    private Column[] createColumns(Collection<String> columnNames) {
-        final List<Column> columns = new ArrayList<Column>();
-        for (String columnName : columnNames) {
-            Column column = new Column(columnName, DataType.UNKNOWN);
-            columns.add(column);
-        }
-        return columns.toArray(new Column[columns.size()]);
-    }
-
-    private List<Table> createTables(Map<String, List<Map<String, String>>> jsonStructure) {
-        List<Table> tables = new ArrayList<Table>();
-        for (Map.Entry<String, List<Map<String, String>>> entry : jsonStructure.entrySet()) {
-            Table table = new Table(entry.getKey());
-            table.addColumns(extractColumns(entry.getValue()));
-            table.addRows(extractRows(entry.getValue()));
-            tables.add(table);
-        }
-        return tables;
-    }
-
-    private Collection<Row> extractRows(List<Map<String, String>> rows) {
-        final List<Row> extractedRows = new ArrayList<Row>();
-        for (Map<String, String> row : rows) {
-            extractedRows.add(new Row(row));
-        }
-        return extractedRows;
-    }
-
-    private Collection<String> extractColumns(List<Map<String, String>> rows) {
-        final Set<String> columns = new HashSet<String>();
-        for (Map<String, String> row : rows) {
-            columns.addAll(row.keySet());
-        }
-        return columns;
+    TableStream startTable(String tableName) {
+        return new TableStream(consumer, tableName);
     }
 
     public boolean isCaseSensitiveTableNames() {
@@ -130,4 +69,4 @@ public abstract class DataSetProducer implements IDataSetProducer {
     public void setCaseSensitiveTableNames(boolean caseSensitiveTableNames) {
         this.caseSensitiveTableNames = caseSensitiveTableNames;
     }
-}
\ No newline at end of file
+}
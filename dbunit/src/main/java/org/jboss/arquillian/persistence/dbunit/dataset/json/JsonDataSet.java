@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import org.dbunit.dataset.CachedDataSet;
 import org.dbunit.dataset.DataSetException;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableJoiningProducer;
 
 /**
  * DBUnit data set produced from JSON format.
@@ -68,7 +69,7 @@ import org.dbunit.dataset.DataSetException;
 public class JsonDataSet extends CachedDataSet {
 
     public JsonDataSet(JsonDataSetProducer producer, boolean caseSensitiveTableNames) throws DataSetException {
-        super(producer, caseSensitiveTableNames);
+        super(new TableJoiningProducer(producer), caseSensitiveTableNames);
     }
 
     public JsonDataSet(File file, boolean caseSensitiveTableNames) throws DataSetException, FileNotFoundException {
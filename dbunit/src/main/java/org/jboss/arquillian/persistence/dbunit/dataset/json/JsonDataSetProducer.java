@@ -19,37 +19,112 @@ package org.jboss.arquillian.persistence.dbunit.dataset.json;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.codehaus.jackson.JsonParseException;
-import org.codehaus.jackson.map.JsonMappingException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.dbunit.dataset.DataSetException;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableStream;
 
 /**
  * Produces JSON data set from the given file.
+ * <br><br>
+ * Document is read token by token and each row is passed to the consumer as soon as it's read,
+ * see {@link TableStream} for how columns of the tables are determined.
  *
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  * @see JsonDataSet
  */
 public class JsonDataSetProducer extends DataSetProducer {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     public JsonDataSetProducer(InputStream input) {
         super(input);
     }
 
     @Override
-    Map<String, List<Map<String, String>>> loadDataSet() throws DataSetException {
-        Map<String, List<Map<String, String>>> dataset;
+    void produceTables() throws DataSetException {
+        JsonParser parser = null;
         try {
-            dataset = new ObjectMapper().readValue(input, Map.class);
+            parser = OBJECT_MAPPER.getJsonFactory().createJsonParser(input);
+            expect(parser.nextToken(), JsonToken.START_OBJECT, "data set");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                produceTable(parser);
+            }
+            expect(parser.getCurrentToken(), JsonToken.END_OBJECT, "data set");
         } catch (JsonParseException e) {
             throw new DataSetException("Error parsing json data set", e);
-        } catch (JsonMappingException e) {
-            throw new DataSetException("Error mapping json data set", e);
         } catch (IOException e) {
             throw new DataSetException("Error opening json data set", e);
+        } finally {
+            closeQuietly(parser);
+        }
+    }
+
+    // Private methods
+
+    private void produceTable(JsonParser parser) throws IOException, DataSetException {
+        final TableStream table = startTable(parser.getCurrentName());
+        final JsonToken token = parser.nextToken();
+        if (token != JsonToken.VALUE_NULL) {
+            expect(token, JsonToken.START_ARRAY, "table " + table.getTableName());
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                table.row(readCells(parser));
+            }
+            expect(parser.getCurrentToken(), JsonToken.END_ARRAY, "table " + table.getTableName());
+        }
+        table.end();
+    }
+
+    private Map<String, String> readCells(JsonParser parser) throws IOException {
+        final Map<String, String> cells = new LinkedHashMap<String, String>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String column = parser.getCurrentName();
+            parser.nextToken();
+            cells.put(column, readValue(parser));
+        }
+        return cells;
+    }
+
+    /**
+     * Converts value to the same text as it would have when whole document is mapped to
+     * {@link Map} and stringified.
+     */
+    private String readValue(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return String.valueOf(parser.getNumberValue());
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return String.valueOf(parser.getBooleanValue());
+            case VALUE_NULL:
+                return String.valueOf((Object) null);
+            case START_OBJECT:
+            case START_ARRAY:
+                return String.valueOf(parser.readValueAs(Object.class));
+            default:
+                return parser.getText();
+        }
+    }
+
+    private void expect(JsonToken actual, JsonToken expected, String element) throws DataSetException {
+        if (actual != expected) {
+            throw new DataSetException("Error mapping json data set. Expected " + expected + " for " + element
+                + " but found " + actual);
+        }
+    }
+
+    private void closeQuietly(JsonParser parser) {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                // ignore
+            }
         }
-        return dataset;
     }
 }
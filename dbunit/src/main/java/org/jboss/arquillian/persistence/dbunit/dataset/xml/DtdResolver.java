@@ -20,40 +20,46 @@ package org.jboss.arquillian.persistence.dbunit.dataset.xml;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.xml.sax.EntityResolver;
+import java.net.URL;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.jboss.arquillian.persistence.core.util.Resources;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
 
 /**
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  */
 public class DtdResolver {
 
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
     /**
      * @return name of DTD file specified in the !DOCTYPE or null if not specified.
      */
     public String resolveDtdLocation(final String xmlFile) {
-        final InputStream xmlStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(xmlFile);
+        final DoctypeHandler handler = new DoctypeHandler();
         try {
-            final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            builder.setEntityResolver(new EntityResolver() {
-                @Override
-                public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
-                    // Ignore schema validation at this point - we only need to know where DTD sits
-                    return new InputSource(new StringReader(""));
-                }
-            });
-            final Document document = builder.parse(xmlStream);
-            if (document.getDoctype() == null) {
-                return null;
+            final URL resource = Resources.find(xmlFile);
+            if (resource == null) {
+                throw new IllegalArgumentException("Unable to find " + xmlFile);
+            }
+            final InputStream xmlStream = Resources.openStream(resource);
+            try {
+                final SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+                parser.setProperty(LEXICAL_HANDLER, handler);
+                parser.parse(xmlStream, handler);
+            } finally {
+                xmlStream.close();
             }
-            return document.getDoctype().getSystemId();
+        } catch (PrologParsed e) {
+            // DOCTYPE can only appear before the root element, no need to read the rest of the document
         } catch (Exception e) {
             throw new RuntimeException("Unable to resolve dtd for " + xmlFile, e);
         }
+        return handler.systemId;
     }
 
     /**
@@ -68,4 +74,32 @@ public class DtdResolver {
         final String path = xml.substring(0, xml.lastIndexOf('/'));
         return path + '/' + dtd;
     }
+
+    private static class DoctypeHandler extends DefaultHandler2 {
+
+        private String systemId;
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) throws SAXException {
+            this.systemId = systemId;
+            throw new PrologParsed();
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+            throws SAXException {
+            throw new PrologParsed();
+        }
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+            // Ignore schema validation at this point - we only need to know where DTD sits
+            return new InputSource(new StringReader(""));
+        }
+    }
+
+    private static class PrologParsed extends SAXException {
+
+        private static final long serialVersionUID = 1L;
+    }
 }
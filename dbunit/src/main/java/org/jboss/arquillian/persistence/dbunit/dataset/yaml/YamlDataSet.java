@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import org.dbunit.dataset.CachedDataSet;
 import org.dbunit.dataset.DataSetException;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableJoiningProducer;
 
 /**
  * DBUnit data set produced from YAML format. Each table has its own
@@ -53,7 +54,7 @@ import org.dbunit.dataset.DataSetException;
 public class YamlDataSet extends CachedDataSet {
 
     public YamlDataSet(YamlDataSetProducer producer, boolean caseSensitiveTableNames) throws DataSetException {
-        super(producer, caseSensitiveTableNames);
+        super(new TableJoiningProducer(producer), caseSensitiveTableNames);
     }
 
     public YamlDataSet(File file, boolean caseSensitiveTableNames) throws DataSetException, FileNotFoundException {
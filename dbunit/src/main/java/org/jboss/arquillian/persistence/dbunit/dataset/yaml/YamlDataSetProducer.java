@@ -18,30 +18,42 @@
 package org.jboss.arquillian.persistence.dbunit.dataset.yaml;
 
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import org.dbunit.dataset.Column;
 import org.dbunit.dataset.DataSetException;
-import org.dbunit.dataset.DefaultTableMetaData;
-import org.dbunit.dataset.ITableMetaData;
-import org.dbunit.dataset.datatype.DataType;
 import org.dbunit.dataset.stream.DefaultConsumer;
 import org.dbunit.dataset.stream.IDataSetConsumer;
 import org.dbunit.dataset.stream.IDataSetProducer;
-import org.jboss.arquillian.persistence.dbunit.dataset.Row;
-import org.jboss.arquillian.persistence.dbunit.dataset.Table;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableStream;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
 import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 import org.yaml.snakeyaml.representer.Representer;
 import org.yaml.snakeyaml.resolver.Resolver;
 
 /**
  * Produces YAML data set from the given file.
+ * <br><br>
+ * Document is read as a stream of parser events and each row is passed to the consumer as soon
+ * as it's read, see {@link TableStream} for how columns of the tables are determined. Scalars are
+ * converted the same way as when loading the whole document, anchors and aliases are supported
+ * for scalar values and rows (only rows defining an anchor are kept in memory).
  *
  * @author <a href="mailto:bartosz.majsak@gmail.com">Bartosz Majsak</a>
  * @see YamlDataSet
@@ -52,6 +64,14 @@ public class YamlDataSetProducer implements IDataSetProducer {
     private boolean caseSensitiveTableNames;
     private IDataSetConsumer consumer = new DefaultConsumer();
 
+    private final Resolver resolver = new TimestampAsStringResolver();
+    private final ScalarConstructor scalarConstructor = new ScalarConstructor();
+
+    private final Map<String, String> scalarAnchors = new HashMap<String, String>();
+    private final Map<String, Map<String, String>> rowAnchors = new HashMap<String, Map<String, String>>();
+
+    private Iterator<Event> events;
+
     public YamlDataSetProducer(InputStream inputStream) {
         input = inputStream;
     }
@@ -65,90 +85,181 @@ public class YamlDataSetProducer implements IDataSetProducer {
     public void produce() throws DataSetException {
         consumer.startDataSet();
 
-        @SuppressWarnings("unchecked") final List<Table> tables =
-            createTables((Map<String, List<Map<String, String>>>) createYamlReader().load(input));
-
-        for (Table table : tables) {
-            ITableMetaData tableMetaData = createTableMetaData(table);
-            consumer.startTable(tableMetaData);
-            for (Row row : table.getRows()) {
-                List<String> values = new ArrayList<String>();
-                for (Column column : tableMetaData.getColumns()) {
-                    values.add(row.valueOf(column.getColumnName()));
+        try {
+            events = createYamlReader().parse(new UnicodeReader(input)).iterator();
+            if (startDataSet()) {
+                Event event;
+                while (!((event = nextEvent()) instanceof MappingEndEvent)) {
+                    produceTable(event);
                 }
-                consumer.row(values.toArray());
             }
-
-            consumer.endTable();
+        } catch (YAMLException e) {
+            throw new DataSetException("Error parsing yaml data set", e);
+        } finally {
+            events = null;
+            scalarAnchors.clear();
+            rowAnchors.clear();
         }
 
         consumer.endDataSet();
     }
 
     public Yaml createYamlReader() {
-        final Yaml yaml = new Yaml(new Constructor(), new Representer(), new DumperOptions(),
-            new Resolver() {
-                @Override
-                protected void addImplicitResolvers() {
-                    // Intentionally left TIMESTAMP as string to let DBUnit deal with the conversion
-                    addImplicitResolver(Tag.BOOL, BOOL, "yYnNtTfFoO");
-                    addImplicitResolver(Tag.INT, INT, "-+0123456789");
-                    addImplicitResolver(Tag.FLOAT, FLOAT, "-+0123456789.");
-                    addImplicitResolver(Tag.MERGE, MERGE, "<");
-                    addImplicitResolver(Tag.NULL, NULL, "~nN\0");
-                    addImplicitResolver(Tag.NULL, EMPTY, null);
-                    addImplicitResolver(Tag.YAML, YAML, "!&*");
-                }
-            });
-        return yaml;
+        return new Yaml(new Constructor(), new Representer(), new DumperOptions(), new TimestampAsStringResolver());
     }
 
-    private ITableMetaData createTableMetaData(Table table) {
-        return new DefaultTableMetaData(table.getTableName(), createColumns(table.getColumns()));
+    // Private methods
+
+    /**
+     * Moves to the beginning of the tables mapping.
+     *
+     * @return false if the document is empty
+     */
+    private boolean startDataSet() throws DataSetException {
+        expect(nextEvent(), StreamStartEvent.class);
+        if (!events.hasNext()) {
+            return false;
+        }
+        final Event event = events.next();
+        if (!(event instanceof DocumentStartEvent)) {
+            return false;
+        }
+        final Event content = nextEvent();
+        if (content instanceof ScalarEvent && constructScalar((ScalarEvent) content) == null) {
+            return false;
+        }
+        expect(content, MappingStartEvent.class);
+        return true;
     }
 
-    private Column[] createColumns(Collection<String> columnNames) {
-        final List<Column> columns = new ArrayList<Column>();
-        for (String columnName : columnNames) {
-            Column column = new Column(columnName, DataType.UNKNOWN);
-            columns.add(column);
+    private void produceTable(Event tableNameEvent) throws DataSetException {
+        final TableStream table = new TableStream(consumer, readScalar(tableNameEvent));
+        final Event rowsEvent = nextEvent();
+        if (!(rowsEvent instanceof ScalarEvent && constructScalar((ScalarEvent) rowsEvent) == null)) {
+            expect(rowsEvent, SequenceStartEvent.class);
+            Event event;
+            while (!((event = nextEvent()) instanceof SequenceEndEvent)) {
+                table.row(readRow(event));
+            }
         }
-        return columns.toArray(new Column[columns.size()]);
+        table.end();
     }
 
-    private List<Table> createTables(Map<String, List<Map<String, String>>> yamlStructure) {
-        final List<Table> tables = new ArrayList<Table>();
-        for (Map.Entry<String, List<Map<String, String>>> entry : yamlStructure.entrySet()) {
-            Table table = new Table(entry.getKey());
-            table.addColumns(extractColumns(entry.getValue()));
-            table.addRows(extractRows(entry.getValue()));
-            tables.add(table);
+    private Map<String, String> readRow(Event rowEvent) throws DataSetException {
+        if (rowEvent instanceof AliasEvent) {
+            return anchoredRow((AliasEvent) rowEvent);
+        }
+        expect(rowEvent, MappingStartEvent.class);
+
+        final Map<String, String> cells = new LinkedHashMap<String, String>();
+        final Map<String, String> mergedCells = new LinkedHashMap<String, String>();
+        Event event;
+        while (!((event = nextEvent()) instanceof MappingEndEvent)) {
+            if (isMergeKey(event)) {
+                readMergedRows(mergedCells);
+            } else {
+                final String column = readScalar(event);
+                cells.put(column, readScalar(nextEvent()));
+            }
+        }
+
+        for (Map.Entry<String, String> mergedCell : mergedCells.entrySet()) {
+            if (!cells.containsKey(mergedCell.getKey())) {
+                cells.put(mergedCell.getKey(), mergedCell.getValue());
+            }
+        }
+
+        final String anchor = ((MappingStartEvent) rowEvent).getAnchor();
+        if (anchor != null) {
+            rowAnchors.put(anchor, cells);
         }
-        return tables;
+        return cells;
     }
 
-    private Collection<Row> extractRows(List<Map<String, String>> rows) {
-        final Collection<Row> extractedRows = new ArrayList<Row>();
-        if (rows == null || rows.isEmpty()) {
-            return extractedRows;
+    private void readMergedRows(Map<String, String> mergedCells) throws DataSetException {
+        final Event event = nextEvent();
+        if (event instanceof SequenceStartEvent) {
+            Event merged;
+            while (!((merged = nextEvent()) instanceof SequenceEndEvent)) {
+                putAbsent(mergedCells, readRow(merged));
+            }
+        } else {
+            putAbsent(mergedCells, readRow(event));
         }
+    }
 
-        for (Map<String, String> row : rows) {
-            extractedRows.add(new Row(row));
+    private void putAbsent(Map<String, String> target, Map<String, String> source) {
+        for (Map.Entry<String, String> entry : source.entrySet()) {
+            if (!target.containsKey(entry.getKey())) {
+                target.put(entry.getKey(), entry.getValue());
+            }
         }
-        return extractedRows;
     }
 
-    private Collection<String> extractColumns(List<Map<String, String>> rows) {
-        final Collection<String> columns = new HashSet<String>();
-        if (rows == null || rows.isEmpty()) {
-            return columns;
+    private boolean isMergeKey(Event event) {
+        return event instanceof ScalarEvent && Tag.MERGE.equals(resolveTag((ScalarEvent) event));
+    }
+
+    private Map<String, String> anchoredRow(AliasEvent alias) throws DataSetException {
+        final Map<String, String> cells = rowAnchors.get(alias.getAnchor());
+        if (cells == null) {
+            throw new DataSetException("Alias *" + alias.getAnchor() + " does not refer to a row "
+                + alias.getStartMark());
         }
+        return new LinkedHashMap<String, String>(cells);
+    }
+
+    private String readScalar(Event event) throws DataSetException {
+        if (event instanceof AliasEvent) {
+            final String anchor = ((AliasEvent) event).getAnchor();
+            if (!scalarAnchors.containsKey(anchor)) {
+                throw new DataSetException("Alias *" + anchor + " does not refer to a scalar value "
+                    + event.getStartMark());
+            }
+            return scalarAnchors.get(anchor);
+        }
+        expect(event, ScalarEvent.class);
+
+        final ScalarEvent scalar = (ScalarEvent) event;
+        final String value = String.valueOf(constructScalar(scalar));
+        if (scalar.getAnchor() != null) {
+            scalarAnchors.put(scalar.getAnchor(), value);
+        }
+        return value;
+    }
+
+    private Object constructScalar(ScalarEvent scalar) {
+        final ScalarNode node = new ScalarNode(resolveTag(scalar), scalar.getValue(), scalar.getStartMark(),
+            scalar.getEndMark(), scalar.getStyle());
+        return scalarConstructor.construct(node);
+    }
+
+    /**
+     * Resolves tag of the scalar the same way as {@link org.yaml.snakeyaml.composer.Composer} does.
+     */
+    private Tag resolveTag(ScalarEvent scalar) {
+        final String tag = scalar.getTag();
+        if (tag == null || "!".equals(tag)) {
+            return resolver.resolve(NodeId.scalar, scalar.getValue(),
+                scalar.getImplicit().canOmitTagInPlainScalar());
+        }
+        return new Tag(tag);
+    }
 
-        for (Map<String, String> row : rows) {
-            columns.addAll(row.keySet());
+    private Event nextEvent() throws DataSetException {
+        if (!events.hasNext()) {
+            throw new DataSetException("Unexpected end of yaml data set");
+        }
+        return events.next();
+    }
+
+    private void expect(Event event, Class<? extends Event> expected) throws DataSetException {
+        if (!expected.isInstance(event)) {
+            final String description =
+                event instanceof AliasEvent ? event + " (only scalars and rows can be aliased)" : String.valueOf(event);
+            throw new DataSetException("Error mapping yaml data set. Expected " + expected.getSimpleName()
+                + " but found " + description + " " + event.getStartMark());
         }
-        return columns;
     }
 
     // Getters & Setters
@@ -160,4 +271,30 @@ public class YamlDataSetProducer implements IDataSetProducer {
     public void setCaseSensitiveTableNames(boolean caseSensitiveTableNames) {
         this.caseSensitiveTableNames = caseSensitiveTableNames;
     }
+
+    private static class TimestampAsStringResolver extends Resolver {
+
+        @Override
+        protected void addImplicitResolvers() {
+            // Intentionally left TIMESTAMP as string to let DBUnit deal with the conversion
+            addImplicitResolver(Tag.BOOL, BOOL, "yYnNtTfFoO");
+            addImplicitResolver(Tag.INT, INT, "-+0123456789");
+            addImplicitResolver(Tag.FLOAT, FLOAT, "-+0123456789.");
+            addImplicitResolver(Tag.MERGE, MERGE, "<");
+            addImplicitResolver(Tag.NULL, NULL, "~nN\0");
+            addImplicitResolver(Tag.NULL, EMPTY, null);
+            addImplicitResolver(Tag.YAML, YAML, "!&*");
+        }
+    }
+
+    /**
+     * Exposes construction of single scalar values, without tracking constructed nodes
+     * as it's done for whole documents.
+     */
+    private static class ScalarConstructor extends Constructor {
+
+        private Object construct(ScalarNode node) {
+            return getConstructor(node).construct(node);
+        }
+    }
 }
@@ -35,6 +35,7 @@ import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration
 import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
 import org.jboss.arquillian.persistence.dbunit.data.provider.DataSetProvider;
 import org.jboss.arquillian.persistence.dbunit.data.provider.ExpectedDataSetProvider;
+import org.jboss.arquillian.persistence.dbunit.dataset.binary.PrecompiledDataSets;
 import org.jboss.arquillian.persistence.dbunit.dataset.xml.DtdResolver;
 import org.jboss.arquillian.test.spi.TestClass;
 import org.jboss.shrinkwrap.api.Archive;
@@ -149,6 +150,12 @@ public class DBUnitDataSetsTestArchiveEnricher implements ApplicationArchiveProc
             if (isFileType(descriptor.getFormat())) {
                 paths.add(descriptor.getLocation());
             }
+            if (descriptor instanceof DataSetResourceDescriptor) {
+                final String precompiled = PrecompiledDataSets.locate(descriptor.getLocation());
+                if (precompiled != null) {
+                    paths.add(precompiled);
+                }
+            }
         }
 
         return paths;
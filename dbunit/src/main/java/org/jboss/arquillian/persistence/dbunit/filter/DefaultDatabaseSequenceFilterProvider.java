@@ -18,23 +18,26 @@
 package org.jboss.arquillian.persistence.dbunit.filter;
 
 import java.sql.SQLException;
-import org.dbunit.database.DatabaseSequenceFilter;
+import java.util.List;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.filter.ITableFilter;
+import org.dbunit.dataset.filter.SequenceTableFilter;
 import org.jboss.arquillian.persistence.spi.dbunit.filter.TableFilterProvider;
 
 public class DefaultDatabaseSequenceFilterProvider implements TableFilterProvider {
 
     @Override
     public ITableFilter provide(IDatabaseConnection connection) throws SQLException, DataSetException {
-        return new DatabaseSequenceFilter(connection);
+        final TableDependencyGraph graph = TableDependencyGraphCache.instance().get(connection);
+        final List<String> tableNames = graph.getTableNames();
+        return new SequenceTableFilter(graph.sort(tableNames.toArray(new String[tableNames.size()])));
     }
 
     @Override
     public ITableFilter provide(IDatabaseConnection connection, String[] tableNames)
         throws SQLException, DataSetException {
-        return new DatabaseSequenceFilter(connection, tableNames);
+        return new SequenceTableFilter(TableDependencyGraphCache.instance().get(connection).sort(tableNames));
     }
 
     @Override
@@ -0,0 +1,249 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.filter;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseDataSet;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.util.QualifiedTableName;
+
+/**
+ * Foreign key dependencies between all tables of the database schema, read from the JDBC metadata once
+ * and then used for ordering any subset of tables without querying the database again.
+ * <br><br>
+ * Tables are matched by their unqualified names, ignoring case. Self-references are not considered to be
+ * dependencies, as they can't be resolved by ordering the tables anyway.
+ */
+public class TableDependencyGraph {
+
+    private final List<String> tableNames;
+
+    private final Map<String, String> tableNamesByKey;
+
+    private final Map<String, Set<String>> parents;
+
+    private final Map<String, Set<String>> children;
+
+    TableDependencyGraph(List<String> tableNames, Map<String, Set<String>> dependencies) {
+        this.tableNames = Collections.unmodifiableList(new ArrayList<String>(tableNames));
+        this.tableNamesByKey = new HashMap<String, String>();
+        this.parents = new HashMap<String, Set<String>>();
+        this.children = new HashMap<String, Set<String>>();
+        for (String tableName : tableNames) {
+            tableNamesByKey.put(keyOf(tableName), tableName);
+            parents.put(keyOf(tableName), new LinkedHashSet<String>());
+            children.put(keyOf(tableName), new LinkedHashSet<String>());
+        }
+        for (Map.Entry<String, Set<String>> dependency : dependencies.entrySet()) {
+            for (String parent : dependency.getValue()) {
+                addEdge(dependency.getKey(), parent);
+            }
+        }
+    }
+
+    /**
+     * Reads all tables visible through given connection together with foreign keys between them.
+     */
+    public static TableDependencyGraph build(IDatabaseConnection connection) throws SQLException, DataSetException {
+        final List<String> tableNames = currentTableNames(connection);
+        final Map<String, Set<String>> parents = new LinkedHashMap<String, Set<String>>();
+        final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        final String catalog = connection.getConnection().getCatalog();
+        for (String tableName : tableNames) {
+            final QualifiedTableName table = new QualifiedTableName(tableName, connection.getSchema());
+            final Set<String> tableParents = new LinkedHashSet<String>();
+            final ResultSet importedKeys = metaData.getImportedKeys(catalog, table.getSchema(), table.getTable());
+            try {
+                while (importedKeys.next()) {
+                    tableParents.add(importedKeys.getString("PKTABLE_NAME"));
+                }
+            } finally {
+                importedKeys.close();
+            }
+            parents.put(tableName, tableParents);
+        }
+        return new TableDependencyGraph(tableNames, parents);
+    }
+
+    /**
+     * Reads names of all tables visible through given connection. Unlike
+     * {@link IDatabaseConnection#createDataSet()}, which DBUnit keeps for the lifetime of the connection,
+     * tables are always listed from the database metadata.
+     */
+    static List<String> currentTableNames(IDatabaseConnection connection) throws SQLException, DataSetException {
+        final boolean caseSensitive = Boolean.TRUE.equals(
+            connection.getConfig().getProperty(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES));
+        return Arrays.asList(new DatabaseDataSet(connection, caseSensitive).getTableNames());
+    }
+
+    /**
+     * @return names of all tables in the schema, as reported by the database.
+     */
+    public List<String> getTableNames() {
+        return tableNames;
+    }
+
+    /**
+     * @return names of the tables having a foreign key pointing to the given table.
+     */
+    public Set<String> getReferencingTables(String tableName) {
+        final Set<String> referencing = children.get(keyOf(tableName));
+        if (referencing == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(referencing);
+    }
+
+    /**
+     * Orders given tables so that every table comes after all the tables it references, also through
+     * tables which are not listed. Tables unknown to the graph keep their relative position.
+     *
+     * @return the same table names as given, sorted in insertion order.
+     *
+     * @throws DataSetException
+     *     when tables are depending on each other in a cycle.
+     */
+    public String[] sort(String[] tableNamesToSort) throws DataSetException {
+        final Map<String, String> requested = new LinkedHashMap<String, String>();
+        for (String tableName : tableNamesToSort) {
+            requested.put(keyOf(tableName), tableName);
+        }
+
+        final List<String> sorted = new ArrayList<String>(tableNamesToSort.length);
+        final Set<String> visited = new HashSet<String>();
+        final List<String> path = new ArrayList<String>();
+        for (String key : requested.keySet()) {
+            visit(key, requested, visited, path, sorted);
+        }
+        return sorted.toArray(new String[sorted.size()]);
+    }
+
+    /**
+     * Groups given tables into levels, so that every table references only the tables from preceding levels,
+     * also through tables which are not listed. Tables within one level don't depend on each other and
+     * therefore can be populated in any order or concurrently. Tables unknown to the graph are placed on
+     * the first level.
+     *
+     * @throws DataSetException
+     *     when tables are depending on each other in a cycle.
+     */
+    public List<String[]> levels(String[] tableNamesToGroup) throws DataSetException {
+        final Map<String, Integer> depths = new HashMap<String, Integer>();
+        final SortedMap<Integer, List<String>> levels = new TreeMap<Integer, List<String>>();
+        for (String tableName : tableNamesToGroup) {
+            final Integer depth = depth(keyOf(tableName), depths, new ArrayList<String>());
+            List<String> level = levels.get(depth);
+            if (level == null) {
+                level = new ArrayList<String>();
+                levels.put(depth, level);
+            }
+            level.add(tableName);
+        }
+
+        final List<String[]> grouped = new ArrayList<String[]>(levels.size());
+        for (List<String> level : levels.values()) {
+            grouped.add(level.toArray(new String[level.size()]));
+        }
+        return grouped;
+    }
+
+    // Private methods
+
+    private int depth(String key, Map<String, Integer> depths, List<String> path) throws DataSetException {
+        final Integer known = depths.get(key);
+        if (known != null) {
+            return known;
+        }
+        if (path.contains(key)) {
+            throw cyclicDependency(key, path);
+        }
+
+        path.add(key);
+        int depth = 0;
+        final Set<String> tableParents = parents.get(key);
+        if (tableParents != null) {
+            for (String parent : tableParents) {
+                depth = Math.max(depth, depth(parent, depths, path) + 1);
+            }
+        }
+        path.remove(path.size() - 1);
+        depths.put(key, depth);
+        return depth;
+    }
+
+    private void visit(String key, Map<String, String> requested, Set<String> visited, List<String> path,
+        List<String> sorted) throws DataSetException {
+        if (path.contains(key)) {
+            throw cyclicDependency(key, path);
+        }
+        if (!visited.add(key)) {
+            return;
+        }
+
+        path.add(key);
+        final Set<String> tableParents = parents.get(key);
+        if (tableParents != null) {
+            for (String parent : tableParents) {
+                visit(parent, requested, visited, path, sorted);
+            }
+        }
+        path.remove(path.size() - 1);
+
+        final String tableName = requested.get(key);
+        if (tableName != null) {
+            sorted.add(tableName);
+        }
+    }
+
+    private static DataSetException cyclicDependency(String key, List<String> path) {
+        final List<String> cycle = new ArrayList<String>(path.subList(path.indexOf(key), path.size()));
+        cycle.add(key);
+        return new DataSetException("Cyclic dependency between tables " + cycle);
+    }
+
+    private void addEdge(String child, String parent) {
+        final String childKey = keyOf(child);
+        final String parentKey = keyOf(parent);
+        if (childKey.equals(parentKey) || !parents.containsKey(childKey) || !parents.containsKey(parentKey)) {
+            return;
+        }
+        parents.get(childKey).add(parentKey);
+        children.get(parentKey).add(tableNamesByKey.get(childKey));
+    }
+
+    private static String keyOf(String tableName) {
+        return new QualifiedTableName(tableName, null).getTable().toUpperCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.filter;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+
+/**
+ * JVM-wide cache of {@link TableDependencyGraph}s, so foreign keys of the schema are read only once
+ * instead of every time tables are ordered for seeding or cleanup.
+ * <br><br>
+ * Graphs are kept per database URL, user and schema. Cached graph is still verified against current
+ * list of tables, which is a single metadata query, so tables created or dropped outside of
+ * the scripts executed by the extension (e.g. by JPA provider) are noticed as well. Changes of the
+ * foreign keys alone are detected only through {@link #invalidate(IDatabaseConnection)}, which is
+ * called whenever executed script contains DDL statements.
+ */
+public class TableDependencyGraphCache {
+
+    private static final Logger log = Logger.getLogger(TableDependencyGraphCache.class.getName());
+
+    private static final TableDependencyGraphCache INSTANCE = new TableDependencyGraphCache();
+
+    private final Map<String, TableDependencyGraph> graphs = new HashMap<String, TableDependencyGraph>();
+
+    private long hitCount;
+
+    private long buildCount;
+
+    private long lastBuildTimeMillis;
+
+    private long totalBuildTimeMillis;
+
+    public static TableDependencyGraphCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns dependency graph of the schema used by given connection, building it only if it's not cached yet
+     * or the tables in the schema have changed since.
+     */
+    public TableDependencyGraph get(IDatabaseConnection connection) throws SQLException, DataSetException {
+        final String key = keyOf(connection);
+        final TableDependencyGraph cached = lookup(key);
+        if (cached != null && isUpToDate(cached, connection)) {
+            recordHit();
+            return cached;
+        }
+
+        final long start = System.currentTimeMillis();
+        final TableDependencyGraph graph = TableDependencyGraph.build(connection);
+        store(key, graph, System.currentTimeMillis() - start);
+        return graph;
+    }
+
+    /**
+     * Removes cached graph of the schema used by given connection, e.g. after the schema has been altered.
+     */
+    public void invalidate(IDatabaseConnection connection) throws SQLException {
+        final String key = keyOf(connection);
+        synchronized (this) {
+            graphs.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        graphs.clear();
+    }
+
+    public synchronized int size() {
+        return graphs.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return how many times dependency graph has been read from the database.
+     */
+    public synchronized long getBuildCount() {
+        return buildCount;
+    }
+
+    /**
+     * @return time in milliseconds spent reading the most recently built dependency graph.
+     */
+    public synchronized long getLastBuildTimeMillis() {
+        return lastBuildTimeMillis;
+    }
+
+    /**
+     * @return total time in milliseconds spent reading dependency graphs.
+     */
+    public synchronized long getTotalBuildTimeMillis() {
+        return totalBuildTimeMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TableDependencyGraphCache [graphs=" + graphs.size() + ", hits=" + hitCount + ", builds=" + buildCount
+            + ", lastBuildTime=" + lastBuildTimeMillis + "ms, totalBuildTime=" + totalBuildTimeMillis + "ms]";
+    }
+
+    // Private methods
+
+    private synchronized TableDependencyGraph lookup(String key) {
+        return graphs.get(key);
+    }
+
+    private synchronized void recordHit() {
+        hitCount++;
+    }
+
+    private boolean isUpToDate(TableDependencyGraph graph, IDatabaseConnection connection)
+        throws SQLException, DataSetException {
+        return TableDependencyGraph.currentTableNames(connection).equals(graph.getTableNames());
+    }
+
+    private synchronized void store(String key, TableDependencyGraph graph, long buildTimeMillis) {
+        graphs.put(key, graph);
+        buildCount++;
+        lastBuildTimeMillis = buildTimeMillis;
+        totalBuildTimeMillis += buildTimeMillis;
+        log.fine("Dependency graph of " + graph.getTableNames().size() + " tables in " + key + " built in "
+            + buildTimeMillis + "ms. " + this);
+    }
+
+    private String keyOf(IDatabaseConnection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        return metaData.getURL() + "|" + metaData.getUserName() + "|" + connection.getSchema();
+    }
+}
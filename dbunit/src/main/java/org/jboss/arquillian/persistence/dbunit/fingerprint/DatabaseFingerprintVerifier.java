@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.fingerprint;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.spi.dbunit.fingerprint.FingerprintDialect;
+
+/**
+ * Verifies content of the database table without reading its rows, by comparing fingerprint computed
+ * by the database with the fingerprint of the expected table.
+ * <br><br>
+ * Fingerprint consists of the row count and the digest of sorted digests of all rows. Row is rendered
+ * as text by joining its values with <code>|</code>, where <code>NULL</code> is represented as <code>N</code>
+ * and any other value as <code>V</code> followed by its text. Only tables having at least given amount
+ * of expected rows and consisting solely of integer and character columns are verified, as only those
+ * values are rendered to the same text by the database and by Java. When fingerprints differ, or the table
+ * can't be verified this way, its rows have to be compared as usual.
+ */
+public class DatabaseFingerprintVerifier {
+
+    private static final Logger log = Logger.getLogger(DatabaseFingerprintVerifier.class.getName());
+
+    // java.sql.Types constants introduced in Java 6
+    private static final int NVARCHAR = -9;
+
+    private static final int LONGNVARCHAR = -16;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final IDatabaseConnection connection;
+
+    private final FingerprintDialect dialect;
+
+    private final int threshold;
+
+    /**
+     * @param threshold
+     *     minimum amount of expected rows for the table to be verified using fingerprints
+     */
+    public DatabaseFingerprintVerifier(IDatabaseConnection connection, FingerprintDialect dialect, int threshold) {
+        this.connection = connection;
+        this.dialect = dialect;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param expectedTable
+     *     expected table limited to the compared columns, described by metadata of the database table
+     *
+     * @return true if the database table contains exactly the expected rows, false if it differs
+     * or can't be verified using fingerprints.
+     */
+    public boolean matches(ITable expectedTable) throws DataSetException {
+        final Column[] columns = expectedTable.getTableMetaData().getColumns();
+        if (expectedTable.getRowCount() < threshold || columns.length == 0 || !hasEligibleColumnsOnly(columns)) {
+            return false;
+        }
+
+        final String tableName = expectedTable.getTableMetaData().getTableName();
+        try {
+            final boolean matches = expectedFingerprint(expectedTable, columns)
+                .equals(databaseFingerprint(tableName, columns));
+            if (!matches) {
+                log.fine("Fingerprint of " + tableName + " differs from the expected one. Comparing its rows.");
+            }
+            return matches;
+        } catch (SQLException e) {
+            log.warning("Unable to compute fingerprint of " + tableName + ". Comparing its rows. " + e.getMessage());
+            return false;
+        } catch (TypeCastException e) {
+            log.fine("Unable to compute fingerprint of expected " + tableName + ". " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Private methods
+
+    private boolean hasEligibleColumnsOnly(Column[] columns) {
+        for (Column column : columns) {
+            switch (column.getDataType().getSqlType()) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case NVARCHAR:
+                case LONGNVARCHAR:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private String expectedFingerprint(ITable expectedTable, Column[] columns) throws DataSetException {
+        final int rowCount = expectedTable.getRowCount();
+        final String[] rowDigests = new String[rowCount];
+        final StringBuilder rowText = new StringBuilder();
+        for (int row = 0; row < rowCount; row++) {
+            rowText.setLength(0);
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    rowText.append('|');
+                }
+                final Object value =
+                    columns[i].getDataType().typeCast(expectedTable.getValue(row, columns[i].getColumnName()));
+                if (value == null) {
+                    rowText.append('N');
+                } else {
+                    rowText.append('V').append(value);
+                }
+            }
+            rowDigests[row] = digest(rowText.toString());
+        }
+        Arrays.sort(rowDigests);
+
+        final StringBuilder concatenation = new StringBuilder(rowCount * 64);
+        for (String rowDigest : rowDigests) {
+            concatenation.append(rowDigest);
+        }
+        return rowCount + ":" + (rowCount == 0 ? null : digest(concatenation.toString()));
+    }
+
+    private String databaseFingerprint(String tableName, Column[] columns) throws SQLException {
+        final Connection jdbcConnection = connection.getConnection();
+        // Failed statement would abort whole transaction on some databases, eg. PostgreSQL
+        final Savepoint savepoint = jdbcConnection.getAutoCommit() ? null : jdbcConnection.setSavepoint();
+        final Statement statement = jdbcConnection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(fingerprintQuery(tableName, columns));
+            resultSet.next();
+            final String fingerprint = resultSet.getLong(1) + ":" + resultSet.getString(2);
+            if (savepoint != null) {
+                jdbcConnection.releaseSavepoint(savepoint);
+            }
+            return fingerprint;
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                jdbcConnection.rollback(savepoint);
+            }
+            throw e;
+        } finally {
+            statement.close();
+        }
+    }
+
+    private String fingerprintQuery(String tableName, Column[] columns) {
+        final StringBuilder rowText = new StringBuilder();
+        for (Column column : columns) {
+            if (rowText.length() > 0) {
+                rowText.append(" || '|' || ");
+            }
+            final String columnName = SqlIdentifiers.columnName(connection, column.getColumnName());
+            rowText.append("COALESCE('V' || ").append(dialect.text(columnName)).append(", 'N')");
+        }
+        return "SELECT COUNT(*), " + dialect.digest(dialect.orderedConcatenation(dialect.digest(rowText.toString())))
+            + " FROM " + SqlIdentifiers.tableName(connection, tableName);
+    }
+
+    private String digest(String text) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance(dialect.digestAlgorithm()).digest(text.getBytes("UTF-8"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm " + dialect.digestAlgorithm() + " is not available.", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 encoding is not supported.", e);
+        }
+        final char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+}
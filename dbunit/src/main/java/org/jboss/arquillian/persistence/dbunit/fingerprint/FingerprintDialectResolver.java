@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.fingerprint;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.jboss.arquillian.persistence.core.util.Strings;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.spi.dbunit.fingerprint.FingerprintDialect;
+import org.jboss.arquillian.persistence.util.JavaSPIExtensionLoader;
+
+/**
+ * Chooses {@link FingerprintDialect} by the name given in {@link DBUnitConfiguration#getCustomFingerprintDialect()}
+ * or, if not specified, by the name of the database product. Implementations registered through SPI take
+ * precedence over built-in ones.
+ */
+public class FingerprintDialectResolver {
+
+    private static final Logger log = Logger.getLogger(FingerprintDialectResolver.class.getName());
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public FingerprintDialectResolver(DBUnitConfiguration dbUnitConfiguration) {
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    /**
+     * @return dialect to be used or <code>null</code> if the database is not supported.
+     */
+    public FingerprintDialect resolve(IDatabaseConnection connection) throws SQLException {
+        final List<FingerprintDialect> dialects = availableDialects();
+        final String customFingerprintDialect = dbUnitConfiguration.getCustomFingerprintDialect();
+        if (!Strings.isEmpty(customFingerprintDialect)) {
+            for (FingerprintDialect dialect : dialects) {
+                if (dialect.simpleName().equals(customFingerprintDialect)) {
+                    return dialect;
+                }
+            }
+            log.warning("Unable to find fingerprint dialect for " + customFingerprintDialect
+                + ". Choosing one based on the database product name.");
+        }
+
+        final String databaseProductName = connection.getConnection().getMetaData().getDatabaseProductName();
+        for (FingerprintDialect dialect : dialects) {
+            if (dialect.supports(databaseProductName)) {
+                return dialect;
+            }
+        }
+
+        log.fine("No fingerprint dialect found for " + databaseProductName + ". Comparing all rows.");
+        return null;
+    }
+
+    private List<FingerprintDialect> availableDialects() {
+        final List<FingerprintDialect> dialects = new ArrayList<FingerprintDialect>(new JavaSPIExtensionLoader()
+            .all(Thread.currentThread().getContextClassLoader(), FingerprintDialect.class));
+        dialects.addAll(Arrays.asList(new H2FingerprintDialect(), new PostgreSqlFingerprintDialect()));
+        return dialects;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.fingerprint;
+
+import org.jboss.arquillian.persistence.spi.dbunit.fingerprint.FingerprintDialect;
+
+/**
+ * Computes fingerprints using H2 <code>HASH</code> function with SHA-256 algorithm.
+ */
+public class H2FingerprintDialect implements FingerprintDialect {
+
+    @Override
+    public String text(String columnExpression) {
+        return "CAST(" + columnExpression + " AS VARCHAR)";
+    }
+
+    @Override
+    public String digest(String textExpression) {
+        return "LOWER(RAWTOHEX(HASH('SHA256', STRINGTOUTF8(" + textExpression + "), 1)))";
+    }
+
+    @Override
+    public String orderedConcatenation(String expression) {
+        return "GROUP_CONCAT(" + expression + " ORDER BY " + expression + " SEPARATOR '')";
+    }
+
+    @Override
+    public String digestAlgorithm() {
+        return "SHA-256";
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "h2";
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.seed;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.operation.DatabaseOperation;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraph;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+
+/**
+ * Brings tables of the data set to the same state as {@link DatabaseOperation#CLEAN_INSERT} would, writing
+ * only the rows which differ from the current content of the database.
+ * <br><br>
+ * Rows are matched by primary key and compared column by column using the data types of the database
+ * columns, the same way DBUnit compares data sets. Columns missing in the data set are expected to hold
+ * their default value, or <code>null</code> if they have none. Columns which default is not a literal, such as
+ * <code>CURRENT_TIMESTAMP</code>, can't be compared and are set to <code>DEFAULT</code> in every row.
+ * <br><br>
+ * Missing rows are inserted first, parent tables before the referencing ones, then changed rows are updated
+ * and finally rows not present in the data set are deleted, referencing tables first. This way foreign keys
+ * hold after each step. Tables without primary key, as well as tables of the data set referencing them, are
+ * cleaned before anything else, referencing tables first, and inserted as a whole.
+ */
+public class IncrementalInsertOperation extends DatabaseOperation {
+
+    private static final Logger log = Logger.getLogger(IncrementalInsertOperation.class.getName());
+
+    private final DatabaseOperation insertOperation;
+
+    public IncrementalInsertOperation(DatabaseOperation insertOperation) {
+        this.insertOperation = insertOperation;
+    }
+
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        final IDataSet databaseDataSet = connection.createDataSet();
+        final Map<String, ITable> tables = new LinkedHashMap<String, ITable>();
+        final Map<String, TableDiff> diffs = new HashMap<String, TableDiff>();
+        final Set<String> tablesWithoutPrimaryKey = new HashSet<String>();
+
+        final ITableIterator tableIterator = dataSet.iterator();
+        while (tableIterator.next()) {
+            final ITable table = tableIterator.getTable();
+            final String tableName = table.getTableMetaData().getTableName();
+            final ITableMetaData databaseMetaData = databaseDataSet.getTableMetaData(tableName);
+            tables.put(tableName, table);
+            if (hasPrimaryKey(table, databaseMetaData)) {
+                diffs.put(tableName, new TableDiff(table, databaseMetaData));
+            } else {
+                log.fine("Rows of " + tableName
+                    + " can't be matched by primary key, cleaning and inserting the table.");
+                tablesWithoutPrimaryKey.add(tableName);
+            }
+        }
+
+        final TableDependencyGraph graph = TableDependencyGraphCache.instance().get(connection);
+        final Set<String> tablesToClean = withReferencingTables(graph, tablesWithoutPrimaryKey, tables.keySet());
+
+        // tables are added parent tables first, DELETE and DELETE_ALL process them in reverse order
+        final DefaultDataSet cleanedTables = new DefaultDataSet();
+        final DefaultDataSet rowsToInsert = new DefaultDataSet();
+        final DefaultDataSet rowsToUpdate = new DefaultDataSet();
+        final DefaultDataSet rowsToDelete = new DefaultDataSet();
+        final List<TableDiff> tablesToReset = new ArrayList<TableDiff>();
+        long skipped = 0;
+
+        for (String tableName : parentsFirst(graph, tables.keySet())) {
+            final ITable table = tables.get(tableName);
+            if (tablesToClean.contains(tableName)) {
+                cleanedTables.addTable(table);
+                rowsToInsert.addTable(table);
+                continue;
+            }
+            final TableDiff diff = diffs.get(tableName);
+            diff.compareWith(currentRows(connection, diff));
+            addIfNotEmpty(rowsToInsert, diff.inserted);
+            addIfNotEmpty(rowsToUpdate, diff.updated);
+            addIfNotEmpty(rowsToDelete, diff.deleted);
+            if (!diff.columnsToReset.isEmpty()) {
+                tablesToReset.add(diff);
+            }
+            skipped += diff.unchanged;
+        }
+
+        DatabaseOperation.DELETE_ALL.execute(connection, cleanedTables);
+        insertOperation.execute(connection, rowsToInsert);
+        DatabaseOperation.UPDATE.execute(connection, rowsToUpdate);
+        for (TableDiff diff : tablesToReset) {
+            resetToDefaults(connection, diff);
+        }
+        DatabaseOperation.DELETE.execute(connection, rowsToDelete);
+
+        log.info("Incremental seeding skipped " + skipped + " unchanged rows, inserted " + rowCount(rowsToInsert)
+            + ", updated " + rowCount(rowsToUpdate) + " and deleted " + rowCount(rowsToDelete) + " rows.");
+        if (cleanedTables.getTableNames().length > 0) {
+            log.info("Tables " + Arrays.toString(cleanedTables.getTableNames()) + " have been cleaned and inserted.");
+        }
+    }
+
+    // Private methods
+
+    private List<Object[]> currentRows(IDatabaseConnection connection, TableDiff diff) throws SQLException,
+        DataSetException {
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final String query = "SELECT " + SqlIdentifiers.columnList(connection, diff.columns)
+                + " FROM " + SqlIdentifiers.tableName(connection, diff.tableName);
+            final ResultSet resultSet = statement.executeQuery(query);
+            while (resultSet.next()) {
+                final Object[] row = new Object[diff.columns.length];
+                for (int i = 0; i < diff.columns.length; i++) {
+                    row[i] = diff.columns[i].getDataType().getSqlValue(i + 1, resultSet);
+                }
+                rows.add(row);
+            }
+        } finally {
+            statement.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Rows of the tables referencing cleaned tables have to be deleted before, so the referencing tables
+     * of the data set are cleaned as well.
+     */
+    private static Set<String> withReferencingTables(TableDependencyGraph graph, Set<String> tablesToClean,
+        Set<String> tableNames) {
+        final Map<String, String> tablesByName = new HashMap<String, String>();
+        for (String tableName : tableNames) {
+            tablesByName.put(tableName.toUpperCase(Locale.ENGLISH), tableName);
+        }
+        final Set<String> withReferencing = new HashSet<String>(tablesToClean);
+        final LinkedList<String> pending = new LinkedList<String>(tablesToClean);
+        while (!pending.isEmpty()) {
+            for (String referencing : graph.getReferencingTables(pending.removeFirst())) {
+                final String referencingTable = tablesByName.get(referencing.toUpperCase(Locale.ENGLISH));
+                if (referencingTable != null && withReferencing.add(referencingTable)) {
+                    pending.add(referencingTable);
+                }
+            }
+        }
+        return withReferencing;
+    }
+
+    private static String[] parentsFirst(TableDependencyGraph graph, Set<String> tableNames) {
+        final String[] unsorted = tableNames.toArray(new String[tableNames.size()]);
+        try {
+            return graph.sort(unsorted);
+        } catch (DataSetException e) {
+            log.warning("Unable to order tables by their foreign keys, keeping the order of the data set. "
+                + e.getMessage());
+            return unsorted;
+        }
+    }
+
+    private static void resetToDefaults(IDatabaseConnection connection, TableDiff diff) throws SQLException {
+        final StringBuilder assignments = new StringBuilder();
+        for (Column column : diff.columnsToReset) {
+            if (assignments.length() > 0) {
+                assignments.append(", ");
+            }
+            assignments.append(SqlIdentifiers.columnName(connection, column.getColumnName())).append(" = DEFAULT");
+        }
+        final String sql = "UPDATE " + SqlIdentifiers.tableName(connection, diff.tableName) + " SET " + assignments;
+        log.fine(sql);
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            statement.executeUpdate(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static boolean hasPrimaryKey(ITable table, ITableMetaData databaseMetaData) throws DataSetException {
+        final Column[] primaryKeys = databaseMetaData.getPrimaryKeys();
+        if (primaryKeys.length == 0) {
+            return false;
+        }
+        final ITableMetaData tableMetaData = table.getTableMetaData();
+        for (Column primaryKey : primaryKeys) {
+            try {
+                tableMetaData.getColumnIndex(primaryKey.getColumnName());
+            } catch (NoSuchColumnException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addIfNotEmpty(DefaultDataSet dataSet, DefaultTable table) throws DataSetException {
+        if (table.getRowCount() > 0) {
+            dataSet.addTable(table);
+        }
+    }
+
+    private static long rowCount(IDataSet dataSet) throws DataSetException {
+        long rows = 0;
+        for (ITable table : dataSet.getTables()) {
+            rows += table.getRowCount();
+        }
+        return rows;
+    }
+
+    /**
+     * Differences between rows of one data set table and the database, as separate tables of rows to insert,
+     * update and delete.
+     */
+    private static class TableDiff {
+
+        // marks columns which values are taken from the data set, as opposed to their default values
+        private static final Object IN_DATA_SET = new Object();
+
+        private static final Object NOT_A_LITERAL = new Object();
+
+        private static final Pattern NUMBER = Pattern.compile("[-+]?\\d+(\\.\\d+)?");
+
+        private final ITable table;
+
+        private final String tableName;
+
+        // database columns: primary keys followed by all the other columns which can be compared
+        private final Column[] columns;
+
+        // values of columns missing in the data set, IN_DATA_SET for the others
+        private final Object[] defaultValues;
+
+        // columns missing in the data set which default value is not known
+        private final List<Column> columnsToReset = new ArrayList<Column>();
+
+        private final int primaryKeyCount;
+
+        private final DefaultTable inserted;
+
+        private final DefaultTable updated;
+
+        private final DefaultTable deleted;
+
+        private long unchanged;
+
+        private TableDiff(ITable table, ITableMetaData databaseMetaData) throws DataSetException {
+            this.table = table;
+            this.tableName = table.getTableMetaData().getTableName();
+            final Column[] primaryKeys = databaseMetaData.getPrimaryKeys();
+            final List<Column> columnList = new ArrayList<Column>();
+            final List<Object> defaultValueList = new ArrayList<Object>();
+            for (Column primaryKey : primaryKeys) {
+                columnList.add(primaryKey);
+                defaultValueList.add(IN_DATA_SET);
+            }
+            for (Column databaseColumn : databaseMetaData.getColumns()) {
+                if (isPrimaryKey(databaseColumn, primaryKeys)) {
+                    continue;
+                }
+                if (hasColumn(table.getTableMetaData(), databaseColumn)) {
+                    columnList.add(databaseColumn);
+                    defaultValueList.add(IN_DATA_SET);
+                    continue;
+                }
+                final Object defaultValue = defaultValueOf(databaseColumn);
+                if (defaultValue != NOT_A_LITERAL) {
+                    columnList.add(databaseColumn);
+                    defaultValueList.add(defaultValue);
+                } else if (!Column.AutoIncrement.YES.equals(databaseColumn.getAutoIncrement())) {
+                    columnsToReset.add(databaseColumn);
+                }
+            }
+            this.columns = columnList.toArray(new Column[columnList.size()]);
+            this.defaultValues = defaultValueList.toArray();
+            this.primaryKeyCount = primaryKeys.length;
+            this.inserted = new DefaultTable(table.getTableMetaData());
+            this.updated = new DefaultTable(new DefaultTableMetaData(tableName, columns, primaryKeys));
+            this.deleted = new DefaultTable(tableName, primaryKeys);
+        }
+
+        private void compareWith(List<Object[]> currentRows) throws DataSetException {
+            final Map<List<String>, Object[]> current = new LinkedHashMap<List<String>, Object[]>();
+            for (Object[] row : currentRows) {
+                current.put(key(row), row);
+            }
+
+            for (int row = 0; row < table.getRowCount(); row++) {
+                final Object[] expected = rowValues(row);
+                final Object[] actual = current.remove(key(expected));
+                if (actual == null) {
+                    inserted.addRow(tableRow(row));
+                } else if (differs(expected, actual)) {
+                    updated.addRow(expected);
+                } else {
+                    unchanged++;
+                }
+            }
+
+            for (Object[] row : current.values()) {
+                final Object[] primaryKey = new Object[primaryKeyCount];
+                System.arraycopy(row, 0, primaryKey, 0, primaryKeyCount);
+                deleted.addRow(primaryKey);
+            }
+        }
+
+        private Object[] rowValues(int row) throws DataSetException {
+            final Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (defaultValues[i] == IN_DATA_SET) {
+                    values[i] = table.getValue(row, columns[i].getColumnName());
+                } else {
+                    values[i] = defaultValues[i];
+                }
+            }
+            return values;
+        }
+
+        private Object[] tableRow(int row) throws DataSetException {
+            final Column[] tableColumns = table.getTableMetaData().getColumns();
+            final Object[] values = new Object[tableColumns.length];
+            for (int i = 0; i < tableColumns.length; i++) {
+                values[i] = table.getValue(row, tableColumns[i].getColumnName());
+            }
+            return values;
+        }
+
+        private List<String> key(Object[] row) throws DataSetException {
+            final List<String> key = new ArrayList<String>(primaryKeyCount);
+            for (int i = 0; i < primaryKeyCount; i++) {
+                final DataType dataType = columns[i].getDataType();
+                key.add(DataType.asString(dataType.typeCast(row[i])));
+            }
+            return key;
+        }
+
+        private boolean differs(Object[] expected, Object[] actual) throws DataSetException {
+            for (int i = primaryKeyCount; i < columns.length; i++) {
+                if (columns[i].getDataType().compare(expected[i], actual[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return value of the <code>DEFAULT</code> clause if it's a literal, <code>NOT_A_LITERAL</code> otherwise.
+         */
+        private static Object defaultValueOf(Column column) {
+            if (column.getDefaultValue() == null) {
+                return null;
+            }
+            final String defaultValue = column.getDefaultValue().trim();
+            if ("NULL".equalsIgnoreCase(defaultValue)) {
+                return null;
+            }
+            if (defaultValue.length() > 1 && defaultValue.startsWith("'") && defaultValue.endsWith("'")) {
+                return defaultValue.substring(1, defaultValue.length() - 1).replace("''", "'");
+            }
+            if (NUMBER.matcher(defaultValue).matches()) {
+                return defaultValue;
+            }
+            return NOT_A_LITERAL;
+        }
+
+        private static boolean hasColumn(ITableMetaData tableMetaData, Column column) throws DataSetException {
+            try {
+                tableMetaData.getColumnIndex(column.getColumnName());
+                return true;
+            } catch (NoSuchColumnException e) {
+                return false;
+            }
+        }
+
+        private static boolean isPrimaryKey(Column column, Column[] primaryKeys) {
+            for (Column primaryKey : primaryKeys) {
+                if (primaryKey.getColumnName().equalsIgnoreCase(column.getColumnName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.seed;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.SequenceTableFilter;
+import org.dbunit.ext.mssql.InsertIdentityOperation;
+import org.dbunit.operation.DatabaseOperation;
+import org.jboss.arquillian.persistence.dbunit.DatabaseConnectionFactory;
+import org.jboss.arquillian.persistence.dbunit.ParallelTableExecutor;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraph;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+
+/**
+ * Seeds the database using several connections at once. Tables of the data set are grouped into levels
+ * according to the foreign keys between them (see {@link TableDependencyGraph#levels(String[])}), and
+ * tables of each level are populated concurrently. The next level is started only when all tables of
+ * the previous one are committed, so every inserted row finds the rows it references.
+ * <br><br>
+ * Rows ending up in the database are the same as when the operation is executed on a single connection.
+ * Clean insert is carried out by deleting all the tables on the given connection first, referencing tables
+ * before the referenced ones, and inserting them level by level afterwards. {@link IncrementalInsertOperation}
+ * is executed on the given connection only, as it deletes rows after inserting the referencing ones.
+ * Given connection has to be in auto-commit mode, otherwise other connections wouldn't see its changes
+ * and could be blocked by its locks.
+ */
+public class ParallelDataSeeder {
+
+    private static final Logger log = Logger.getLogger(ParallelDataSeeder.class.getName());
+
+    private final DataSource dataSource;
+
+    private final DatabaseConnectionFactory databaseConnectionFactory;
+
+    private final int threads;
+
+    public ParallelDataSeeder(DataSource dataSource, DatabaseConnectionFactory databaseConnectionFactory,
+        int threads) {
+        this.dataSource = dataSource;
+        this.databaseConnectionFactory = databaseConnectionFactory;
+        this.threads = threads;
+    }
+
+    public void seed(DatabaseConnection connection, IDataSet dataSet, DatabaseOperation operation) throws Exception {
+        if (operation instanceof IncrementalInsertOperation) {
+            operation.execute(connection, dataSet);
+            return;
+        }
+
+        final TableDependencyGraph graph = TableDependencyGraphCache.instance().get(connection);
+        final String[] tableNames = dataSet.getTableNames();
+
+        DatabaseOperation tableOperation = operation;
+        if (DatabaseOperation.CLEAN_INSERT.equals(operation)) {
+            deleteAll(connection, dataSet, graph.sort(tableNames));
+            tableOperation = DatabaseOperation.INSERT;
+        } else if (InsertIdentityOperation.CLEAN_INSERT.equals(operation)) {
+            deleteAll(connection, dataSet, graph.sort(tableNames));
+            tableOperation = InsertIdentityOperation.INSERT;
+        }
+
+        final List<String[]> levels = graph.levels(tableNames);
+        log.fine("Seeding " + levels.size() + " levels of tables using " + threads + " threads.");
+
+        final ParallelTableExecutor executor =
+            new ParallelTableExecutor(dataSource, databaseConnectionFactory, threads, "seeding");
+        try {
+            for (String[] level : levels) {
+                final List<TableSeeding> tables = new ArrayList<TableSeeding>(level.length);
+                for (String tableName : level) {
+                    tables.add(new TableSeeding(tableOperation, new DefaultDataSet(dataSet.getTable(tableName))));
+                }
+                executor.executeAll(tables);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Private methods
+
+    private void deleteAll(DatabaseConnection connection, IDataSet dataSet, String[] sortedTableNames)
+        throws Exception {
+        // rows are deleted in reverse order, i.e. referencing tables first
+        DatabaseOperation.DELETE_ALL.execute(connection,
+            new FilteredDataSet(new SequenceTableFilter(sortedTableNames), dataSet));
+    }
+
+    private static class TableSeeding implements ParallelTableExecutor.TableOperation<Void> {
+
+        private final DatabaseOperation operation;
+
+        private final IDataSet table;
+
+        private TableSeeding(DatabaseOperation operation, IDataSet table) {
+            this.operation = operation;
+            this.table = table;
+        }
+
+        @Override
+        public Void execute(DatabaseConnection connection) throws Exception {
+            operation.execute(connection, table);
+            final Connection jdbcConnection = connection.getConnection();
+            if (!jdbcConnection.getAutoCommit()) {
+                jdbcConnection.commit();
+            }
+            return null;
+        }
+    }
+}
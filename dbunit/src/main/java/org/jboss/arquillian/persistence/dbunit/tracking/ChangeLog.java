@@ -0,0 +1,216 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.dataset.filter.ITableFilter;
+import org.dbunit.util.QualifiedTableName;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.spi.dbunit.tracking.ChangeTrackingDialect;
+
+/**
+ * Changes of the tables recorded by database triggers as they happen (see {@link ChangeTrackingDialect}), so
+ * tables and rows changed by the test can be found without reading all of them.
+ * <br><br>
+ * Change log table and triggers are created in the schema of the tracked tables for the tables which don't
+ * have them yet, and are left in place for the following tests, as well as copies of the tables made by
+ * {@link #copyTable(DatabaseConnection, String, String)}. Neither of them is part of the database content read
+ * by the extension (see {@link #excludeOwnTables()}). Entries are removed whenever tracking starts, therefore
+ * tests changing the same schema concurrently share the same log.
+ */
+public class ChangeLog {
+
+    public static final String TABLE_NAME = "ARQ_CHANGE_LOG";
+
+    public static final String COPY_PREFIX = "ARQ_SNAPSHOT_";
+
+    private static final Logger log = Logger.getLogger(ChangeLog.class.getName());
+
+    private final ChangeTrackingDialect dialect;
+
+    private final String changeLogTable;
+
+    private ChangeLog(ChangeTrackingDialect dialect, String changeLogTable) {
+        this.dialect = dialect;
+        this.changeLogTable = changeLogTable;
+    }
+
+    /**
+     * Creates change log table and triggers of given tables, if they don't exist yet, and removes all the entries
+     * of the change log.
+     *
+     * @return change log or <code>null</code> if the database is not supported or triggers can't be created.
+     */
+    public static ChangeLog start(DatabaseConnection connection, DBUnitConfiguration dbUnitConfiguration,
+        IDataSet tables) throws SQLException, DataSetException {
+        final ChangeTrackingDialect dialect =
+            new ChangeTrackingDialectResolver(dbUnitConfiguration).resolve(connection);
+        if (dialect == null) {
+            return null;
+        }
+        final ChangeLog changeLog = new ChangeLog(dialect, qualifiedName(connection, TABLE_NAME));
+        try {
+            changeLog.createTriggers(connection, tables);
+        } catch (SQLException e) {
+            log.log(Level.WARNING, "Unable to create triggers recording changes of the tables. Reading all rows to"
+                + " find changes instead.", e);
+            return null;
+        }
+        changeLog.clear(connection);
+        return changeLog;
+    }
+
+    /**
+     * @return names of the tables changed since the log has been cleared, as given by {@link #tableKey(String)}.
+     */
+    public Set<String> changedTables(DatabaseConnection connection) throws SQLException {
+        final Set<String> changedTables = new HashSet<String>();
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT DISTINCT TABLE_NAME FROM " + changeLogTable);
+            while (resultSet.next()) {
+                changedTables.add(resultSet.getString(1));
+            }
+        } finally {
+            statement.close();
+        }
+        return changedTables;
+    }
+
+    /**
+     * @return SQL condition matching rows of the table inserted or updated since the log has been cleared. Takes
+     * the key of the table (see {@link #tableKey(String)}) as the only parameter.
+     */
+    public String changedRowsCondition(DatabaseConnection connection, Column[] primaryKeys) {
+        return dialect.rowKey(columnNames(connection, primaryKeys)) + " IN (SELECT ROW_KEY FROM " + changeLogTable
+            + " WHERE TABLE_NAME = ?)";
+    }
+
+    /**
+     * Copies rows of given table into the table with given name inside the database, replacing the previous copy.
+     *
+     * @param copyName
+     *     name of the copy starting with {@link #COPY_PREFIX}
+     *
+     * @return name of the copy to be used in SQL statements.
+     */
+    public String copyTable(DatabaseConnection connection, String tableName, String copyName) throws SQLException {
+        final String copy = qualifiedName(connection, copyName);
+        execute(connection, dialect.copyTable(SqlIdentifiers.tableName(connection, tableName), copy));
+        return copy;
+    }
+
+    public void clear(DatabaseConnection connection) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            statement.executeUpdate("DELETE FROM " + changeLogTable);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * @return name under which changes of given table are recorded.
+     */
+    public static String tableKey(String tableName) {
+        return new QualifiedTableName(tableName, null).getTable().toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return filter leaving out change log table and copies of the tables from the database content.
+     */
+    public static ITableFilter excludeOwnTables() {
+        return new ExcludeTableFilter(new String[] {TABLE_NAME, "*." + TABLE_NAME, COPY_PREFIX + "*",
+            "*." + COPY_PREFIX + "*"});
+    }
+
+    // Private methods
+
+    private void createTriggers(DatabaseConnection connection, IDataSet tables)
+        throws SQLException, DataSetException {
+        execute(connection, dialect.createChangeLog(changeLogTable));
+        final Set<String> trackedTables = trackedTables(connection);
+        int created = 0;
+        for (String tableName : tables.getTableNames()) {
+            final String tableKey = tableKey(tableName);
+            if (!trackedTables.contains(tableKey) && !TABLE_NAME.equals(tableKey)
+                && !tableKey.startsWith(COPY_PREFIX)) {
+                execute(connection, dialect.createTriggers(SqlIdentifiers.tableName(connection, tableName), tableKey,
+                    columnNames(connection, tables.getTableMetaData(tableName).getPrimaryKeys()), changeLogTable));
+                created++;
+            }
+        }
+        if (created > 0) {
+            log.fine("Created triggers recording changes of " + created + " tables.");
+        }
+    }
+
+    private Set<String> trackedTables(DatabaseConnection connection) throws SQLException {
+        final Set<String> trackedTables = new HashSet<String>();
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(dialect.trackedTablesQuery(connection.getSchema()));
+            while (resultSet.next()) {
+                trackedTables.add(resultSet.getString(1).toUpperCase(Locale.ENGLISH));
+            }
+        } finally {
+            statement.close();
+        }
+        return trackedTables;
+    }
+
+    private static String qualifiedName(DatabaseConnection connection, String tableName) {
+        return connection.getSchema() == null ? tableName : connection.getSchema() + "." + tableName;
+    }
+
+    private static List<String> columnNames(DatabaseConnection connection, Column[] columns) {
+        final List<String> columnNames = new ArrayList<String>(columns.length);
+        for (Column column : columns) {
+            columnNames.add(SqlIdentifiers.columnName(connection, column.getColumnName()));
+        }
+        return columnNames;
+    }
+
+    private static void execute(DatabaseConnection connection, List<String> statements) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                log.finest(sql);
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
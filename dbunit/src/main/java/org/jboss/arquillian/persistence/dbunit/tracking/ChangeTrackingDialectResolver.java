@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.jboss.arquillian.persistence.core.util.Strings;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.spi.dbunit.tracking.ChangeTrackingDialect;
+import org.jboss.arquillian.persistence.util.JavaSPIExtensionLoader;
+
+/**
+ * Chooses {@link ChangeTrackingDialect} by the name given in
+ * {@link DBUnitConfiguration#getCustomChangeTrackingDialect()} or, if not specified, by the name of the database
+ * product. Implementations registered through SPI take
+ * precedence over built-in ones.
+ */
+public class ChangeTrackingDialectResolver {
+
+    private static final Logger log = Logger.getLogger(ChangeTrackingDialectResolver.class.getName());
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public ChangeTrackingDialectResolver(DBUnitConfiguration dbUnitConfiguration) {
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    /**
+     * @return dialect to be used or <code>null</code> if the database is not supported.
+     */
+    public ChangeTrackingDialect resolve(IDatabaseConnection connection) throws SQLException {
+        final List<ChangeTrackingDialect> dialects = availableDialects();
+        final String customChangeTrackingDialect = dbUnitConfiguration.getCustomChangeTrackingDialect();
+        if (!Strings.isEmpty(customChangeTrackingDialect)) {
+            for (ChangeTrackingDialect dialect : dialects) {
+                if (dialect.simpleName().equals(customChangeTrackingDialect)) {
+                    return dialect;
+                }
+            }
+            log.warning("Unable to find change tracking dialect for " + customChangeTrackingDialect
+                + ". Choosing one based on the database product name.");
+        }
+
+        final String databaseProductName = connection.getConnection().getMetaData().getDatabaseProductName();
+        for (ChangeTrackingDialect dialect : dialects) {
+            if (dialect.supports(databaseProductName)) {
+                return dialect;
+            }
+        }
+
+        log.fine("No change tracking dialect found for " + databaseProductName
+            + ". Reading all rows to find changes.");
+        return null;
+    }
+
+    private List<ChangeTrackingDialect> availableDialects() {
+        final List<ChangeTrackingDialect> dialects = new ArrayList<ChangeTrackingDialect>(
+            new JavaSPIExtensionLoader().all(Thread.currentThread().getContextClassLoader(),
+                ChangeTrackingDialect.class));
+        dialects.addAll(Arrays.asList(new H2ChangeTrackingDialect(), new HsqldbChangeTrackingDialect(),
+            new PostgreSqlChangeTrackingDialect()));
+        return dialects;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jboss.arquillian.persistence.spi.dbunit.tracking.ChangeTrackingDialect;
+
+/**
+ * Records changes using a single H2 trigger per table, implemented by {@link H2ChangeTrigger}.
+ */
+public class H2ChangeTrackingDialect implements ChangeTrackingDialect {
+
+    private static final String TRIGGER_PREFIX = "ARQ_CHANGES_";
+
+    @Override
+    public List<String> createChangeLog(String changeLogTable) {
+        return Collections.singletonList("CREATE TABLE IF NOT EXISTS " + changeLogTable
+            + " (TABLE_NAME VARCHAR(255), ROW_KEY VARCHAR(4000))");
+    }
+
+    @Override
+    public String trackedTablesQuery(String schema) {
+        return "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TRIGGERS WHERE JAVA_CLASS = '"
+            + H2ChangeTrigger.class.getName() + "' AND TABLE_SCHEMA = "
+            + (schema == null ? "SCHEMA()" : "'" + schema.replace("'", "''") + "'");
+    }
+
+    /**
+     * Change log table and primary key columns are resolved by the trigger itself when the database loads it.
+     */
+    @Override
+    public List<String> createTriggers(String tableName, String tableKey, List<String> primaryKeyColumns,
+        String changeLogTable) {
+        return Collections.singletonList("CREATE TRIGGER IF NOT EXISTS \"" + TRIGGER_PREFIX + tableKey.replace("\"", "")
+            + "\" AFTER INSERT, UPDATE, DELETE ON " + tableName + " FOR EACH ROW CALL \""
+            + H2ChangeTrigger.class.getName() + "\"");
+    }
+
+    @Override
+    public List<String> copyTable(String tableName, String copyName) {
+        return Arrays.asList("DROP TABLE IF EXISTS " + copyName,
+            "CREATE TABLE " + copyName + " AS SELECT * FROM " + tableName);
+    }
+
+    @Override
+    public String rowKey(List<String> columnExpressions) {
+        if (columnExpressions.isEmpty()) {
+            return "NULL";
+        }
+        final StringBuilder rowKey = new StringBuilder();
+        for (String columnExpression : columnExpressions) {
+            rowKey.append(rowKey.length() == 0 ? "" : " || '|' || ").append("CAST(").append(columnExpression)
+                .append(" AS VARCHAR)");
+        }
+        return rowKey.toString();
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "h2";
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.h2.api.Trigger;
+
+/**
+ * H2 trigger adding an entry to the change log table (see {@link ChangeLog}) for every inserted, updated or
+ * deleted row. Primary key values are converted to text by the database the same way as by
+ * {@link H2ChangeTrackingDialect#rowKey(List)}.
+ * <br><br>
+ * Loaded by H2 only, so H2 classes are not required unless the database is used.
+ */
+public class H2ChangeTrigger implements Trigger {
+
+    private String tableKey;
+
+    private int[] primaryKeyColumns;
+
+    private String insertChanged;
+
+    private String insertDeleted;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+        int type) throws SQLException {
+        final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+        final ResultSet columns = conn.getMetaData().getColumns(null, schemaName, tableName, null);
+        try {
+            while (columns.next()) {
+                columnIndexes.put(columns.getString("COLUMN_NAME"), columns.getInt("ORDINAL_POSITION") - 1);
+            }
+        } finally {
+            columns.close();
+        }
+
+        final Map<Integer, Integer> primaryKeyColumnsBySequence = new TreeMap<Integer, Integer>();
+        final ResultSet primaryKeys = conn.getMetaData().getPrimaryKeys(null, schemaName, tableName);
+        try {
+            while (primaryKeys.next()) {
+                primaryKeyColumnsBySequence.put(primaryKeys.getInt("KEY_SEQ"),
+                    columnIndexes.get(primaryKeys.getString("COLUMN_NAME")));
+            }
+        } finally {
+            primaryKeys.close();
+        }
+
+        final List<String> parameters = new ArrayList<String>();
+        primaryKeyColumns = new int[primaryKeyColumnsBySequence.size()];
+        for (Integer columnIndex : primaryKeyColumnsBySequence.values()) {
+            primaryKeyColumns[parameters.size()] = columnIndex;
+            parameters.add("?");
+        }
+
+        tableKey = tableName.toUpperCase(Locale.ENGLISH);
+        final String changeLogTable = "\"" + schemaName + "\"." + ChangeLog.TABLE_NAME;
+        insertChanged = "INSERT INTO " + changeLogTable + " (TABLE_NAME, ROW_KEY) VALUES (?, "
+            + new H2ChangeTrackingDialect().rowKey(parameters) + ")";
+        insertDeleted = "INSERT INTO " + changeLogTable + " (TABLE_NAME, ROW_KEY) VALUES (?, NULL)";
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        final PreparedStatement statement = conn.prepareStatement(newRow == null ? insertDeleted : insertChanged);
+        try {
+            statement.setString(1, tableKey);
+            if (newRow != null) {
+                for (int i = 0; i < primaryKeyColumns.length; i++) {
+                    statement.setObject(i + 2, newRow[primaryKeyColumns[i]]);
+                }
+            }
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jboss.arquillian.persistence.spi.dbunit.tracking.ChangeTrackingDialect;
+
+/**
+ * Records changes using HSQLDB SQL triggers, separate one for inserted, updated and deleted rows.
+ */
+public class HsqldbChangeTrackingDialect implements ChangeTrackingDialect {
+
+    @Override
+    public List<String> createChangeLog(String changeLogTable) {
+        return Collections.singletonList("CREATE TABLE IF NOT EXISTS " + changeLogTable
+            + " (TABLE_NAME VARCHAR(255), ROW_KEY VARCHAR(4000))");
+    }
+
+    /**
+     * Trigger for deleted rows is created last, so it marks the tables having all the triggers.
+     */
+    @Override
+    public String trackedTablesQuery(String schema) {
+        return "SELECT EVENT_OBJECT_TABLE FROM INFORMATION_SCHEMA.TRIGGERS WHERE TRIGGER_NAME LIKE 'ARQ_DELETED_%'"
+            + " AND EVENT_OBJECT_SCHEMA = " + (schema == null ? "CURRENT_SCHEMA" : literal(schema));
+    }
+
+    @Override
+    public List<String> createTriggers(String tableName, String tableKey, List<String> primaryKeyColumns,
+        String changeLogTable) {
+        final List<String> newRowKey = new ArrayList<String>(primaryKeyColumns.size());
+        for (String primaryKeyColumn : primaryKeyColumns) {
+            newRowKey.add("NEWROW." + primaryKeyColumn);
+        }
+        final String insertChanged =
+            " REFERENCING NEW ROW AS NEWROW FOR EACH ROW INSERT INTO " + changeLogTable + " (TABLE_NAME, ROW_KEY)"
+                + " VALUES (" + literal(tableKey) + ", " + rowKey(newRowKey) + ")";
+        final String insertDeleted = " FOR EACH ROW INSERT INTO " + changeLogTable + " (TABLE_NAME, ROW_KEY)"
+            + " VALUES (" + literal(tableKey) + ", NULL)";
+        final String triggerSuffix = tableKey.replace("\"", "") + "\"";
+        return Arrays.asList(
+            "DROP TRIGGER \"ARQ_INSERTED_" + triggerSuffix + " IF EXISTS",
+            "DROP TRIGGER \"ARQ_UPDATED_" + triggerSuffix + " IF EXISTS",
+            "CREATE TRIGGER \"ARQ_INSERTED_" + triggerSuffix + " AFTER INSERT ON " + tableName + insertChanged,
+            "CREATE TRIGGER \"ARQ_UPDATED_" + triggerSuffix + " AFTER UPDATE ON " + tableName + insertChanged,
+            "CREATE TRIGGER \"ARQ_DELETED_" + triggerSuffix + " AFTER DELETE ON " + tableName + insertDeleted);
+    }
+
+    @Override
+    public List<String> copyTable(String tableName, String copyName) {
+        return Arrays.asList("DROP TABLE " + copyName + " IF EXISTS",
+            "CREATE TABLE " + copyName + " AS (SELECT * FROM " + tableName + ") WITH DATA");
+    }
+
+    @Override
+    public String rowKey(List<String> columnExpressions) {
+        if (columnExpressions.isEmpty()) {
+            return "NULL";
+        }
+        final StringBuilder rowKey = new StringBuilder();
+        for (String columnExpression : columnExpressions) {
+            rowKey.append(rowKey.length() == 0 ? "" : " || '|' || ").append("CAST(").append(columnExpression)
+                .append(" AS VARCHAR(4000))");
+        }
+        return rowKey.toString();
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return databaseProductName != null && databaseProductName.startsWith("HSQL");
+    }
+
+    @Override
+    public String simpleName() {
+        return "hsqldb";
+    }
+
+    private static String literal(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.jboss.arquillian.persistence.spi.dbunit.tracking.ChangeTrackingDialect;
+
+/**
+ * Records changes using PostgreSQL trigger calling PL/pgSQL function generated for each table.
+ */
+public class PostgreSqlChangeTrackingDialect implements ChangeTrackingDialect {
+
+    private static final String TRIGGER_NAME = "arq_changes";
+
+    @Override
+    public List<String> createChangeLog(String changeLogTable) {
+        return Collections.singletonList("CREATE TABLE IF NOT EXISTS " + changeLogTable
+            + " (TABLE_NAME VARCHAR(255), ROW_KEY VARCHAR(4000))");
+    }
+
+    @Override
+    public String trackedTablesQuery(String schema) {
+        return "SELECT DISTINCT event_object_table FROM information_schema.triggers WHERE trigger_name = '"
+            + TRIGGER_NAME + "' AND event_object_schema = "
+            + (schema == null ? "current_schema()" : "'" + schema.replace("'", "''") + "'");
+    }
+
+    @Override
+    public List<String> createTriggers(String tableName, String tableKey, List<String> primaryKeyColumns,
+        String changeLogTable) {
+        final List<String> newRowKey = new ArrayList<String>(primaryKeyColumns.size());
+        for (String primaryKeyColumn : primaryKeyColumns) {
+            newRowKey.add("NEW." + primaryKeyColumn);
+        }
+        final String tableLiteral = "'" + tableKey.replace("'", "''") + "'";
+        final String function = "\"" + TRIGGER_NAME + "_" + tableKey.toLowerCase(Locale.ENGLISH).replace("\"", "")
+            + "\"()";
+        return Arrays.asList(
+            "CREATE OR REPLACE FUNCTION " + function + " RETURNS trigger AS $$ BEGIN"
+                + " IF TG_OP = 'DELETE' THEN"
+                + " INSERT INTO " + changeLogTable + " (TABLE_NAME, ROW_KEY) VALUES (" + tableLiteral + ", NULL);"
+                + " ELSE"
+                + " INSERT INTO " + changeLogTable + " (TABLE_NAME, ROW_KEY) VALUES (" + tableLiteral + ", "
+                + rowKey(newRowKey) + ");"
+                + " END IF; RETURN NULL; END $$ LANGUAGE plpgsql",
+            "DROP TRIGGER IF EXISTS " + TRIGGER_NAME + " ON " + tableName,
+            "CREATE TRIGGER " + TRIGGER_NAME + " AFTER INSERT OR UPDATE OR DELETE ON " + tableName
+                + " FOR EACH ROW EXECUTE PROCEDURE " + function);
+    }
+
+    @Override
+    public List<String> copyTable(String tableName, String copyName) {
+        return Arrays.asList("DROP TABLE IF EXISTS " + copyName,
+            "CREATE TABLE " + copyName + " AS SELECT * FROM " + tableName);
+    }
+
+    @Override
+    public String rowKey(List<String> columnExpressions) {
+        if (columnExpressions.isEmpty()) {
+            return "NULL";
+        }
+        final StringBuilder rowKey = new StringBuilder();
+        for (String columnExpression : columnExpressions) {
+            rowKey.append(rowKey.length() == 0 ? "" : " || '|' || ").append("CAST(").append(columnExpression)
+                .append(" AS TEXT)");
+        }
+        return rowKey.toString();
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "PostgreSQL".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "postgresql";
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.spi.dbunit.truncate.TableTruncator;
+
+/**
+ * Truncates tables one by one, with constraints checking disabled for the time of the truncation.
+ */
+public abstract class AbstractTableTruncator implements TableTruncator {
+
+    private static final Logger log = Logger.getLogger(AbstractTableTruncator.class.getName());
+
+    @Override
+    public void truncate(IDatabaseConnection connection, String[] tableNames) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            disableConstraints(statement);
+            try {
+                for (String tableName : tableNames) {
+                    execute(statement, truncateStatement(SqlIdentifiers.tableName(connection, tableName)));
+                }
+            } finally {
+                enableConstraints(statement);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    protected abstract String truncateStatement(String qualifiedTableName);
+
+    protected void disableConstraints(Statement statement) throws SQLException {
+    }
+
+    protected void enableConstraints(Statement statement) throws SQLException {
+    }
+
+    protected void execute(Statement statement, String sql) throws SQLException {
+        log.fine(sql);
+        statement.execute(sql);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.dbunit.database.IDatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+
+/**
+ * Used for databases without dedicated implementation. Deletes content of the tables in reverse order,
+ * the same way as {@link org.dbunit.operation.DatabaseOperation#DELETE_ALL}, so identity columns are not reset.
+ */
+public class DefaultTableTruncator extends AbstractTableTruncator {
+
+    @Override
+    public void truncate(IDatabaseConnection connection, String[] tableNames) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (int i = tableNames.length - 1; i >= 0; i--) {
+                execute(statement, truncateStatement(SqlIdentifiers.tableName(connection, tableNames[i])));
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Override
+    protected String truncateStatement(String qualifiedTableName) {
+        return "DELETE FROM " + qualifiedTableName;
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return false;
+    }
+
+    @Override
+    public String simpleName() {
+        return "default";
+    }
+}
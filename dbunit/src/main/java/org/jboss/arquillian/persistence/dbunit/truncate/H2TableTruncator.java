@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class H2TableTruncator extends AbstractTableTruncator {
+
+    @Override
+    protected String truncateStatement(String qualifiedTableName) {
+        return "TRUNCATE TABLE " + qualifiedTableName + " RESTART IDENTITY";
+    }
+
+    @Override
+    protected void disableConstraints(Statement statement) throws SQLException {
+        execute(statement, "SET REFERENTIAL_INTEGRITY FALSE");
+    }
+
+    @Override
+    protected void enableConstraints(Statement statement) throws SQLException {
+        execute(statement, "SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "h2";
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * <code>TRUNCATE</code> resets <code>AUTO_INCREMENT</code> counters on its own. Also used for MariaDB.
+ */
+public class MySqlTableTruncator extends AbstractTableTruncator {
+
+    @Override
+    protected String truncateStatement(String qualifiedTableName) {
+        return "TRUNCATE TABLE " + qualifiedTableName;
+    }
+
+    @Override
+    protected void disableConstraints(Statement statement) throws SQLException {
+        execute(statement, "SET FOREIGN_KEY_CHECKS = 0");
+    }
+
+    @Override
+    protected void enableConstraints(Statement statement) throws SQLException {
+        execute(statement, "SET FOREIGN_KEY_CHECKS = 1");
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "MySQL".equalsIgnoreCase(databaseProductName) || "MariaDB".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "mysql";
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.jboss.arquillian.persistence.dbunit.SqlIdentifiers;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraph;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+
+/**
+ * Truncates all the tables using single statement. PostgreSQL refuses to truncate a table referenced by
+ * a table which is not truncated along with it, therefore in such case rows are deleted the same way as
+ * in {@link DefaultTableTruncator}. Tables outside of the list are never emptied.
+ */
+public class PostgreSqlTableTruncator extends AbstractTableTruncator {
+
+    private static final Logger log = Logger.getLogger(PostgreSqlTableTruncator.class.getName());
+
+    @Override
+    public void truncate(IDatabaseConnection connection, String[] tableNames) throws SQLException {
+        if (tableNames.length == 0) {
+            return;
+        }
+        final String referencingTable = referencingTableOutside(connection, tableNames);
+        if (referencingTable != null) {
+            log.fine("Table " + referencingTable + " references truncated tables but is not truncated itself."
+                + " Deleting rows instead.");
+            new DefaultTableTruncator().truncate(connection, tableNames);
+            return;
+        }
+        final StringBuilder tables = new StringBuilder();
+        for (String tableName : tableNames) {
+            if (tables.length() > 0) {
+                tables.append(", ");
+            }
+            tables.append(SqlIdentifiers.tableName(connection, tableName));
+        }
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            execute(statement, truncateStatement(tables.toString()));
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Override
+    protected String truncateStatement(String qualifiedTableNames) {
+        return "TRUNCATE TABLE " + qualifiedTableNames + " RESTART IDENTITY";
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "PostgreSQL".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String simpleName() {
+        return "postgresql";
+    }
+
+    private String referencingTableOutside(IDatabaseConnection connection, String[] tableNames)
+        throws SQLException {
+        final TableDependencyGraph graph;
+        try {
+            graph = TableDependencyGraphCache.instance().get(connection);
+        } catch (DataSetException e) {
+            final SQLException sqlException = new SQLException("Unable to read foreign keys of truncated tables.");
+            sqlException.initCause(e);
+            throw sqlException;
+        }
+        final Set<String> truncated = new HashSet<String>();
+        for (String tableName : tableNames) {
+            truncated.add(tableName.toUpperCase(Locale.ENGLISH));
+        }
+        for (String tableName : tableNames) {
+            for (String referencingTable : graph.getReferencingTables(tableName)) {
+                if (!truncated.contains(referencingTable.toUpperCase(Locale.ENGLISH))) {
+                    return referencingTable;
+                }
+            }
+        }
+        return null;
+    }
+}
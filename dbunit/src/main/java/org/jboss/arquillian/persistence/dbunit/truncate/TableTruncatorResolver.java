@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.jboss.arquillian.persistence.core.util.Strings;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.spi.dbunit.truncate.TableTruncator;
+import org.jboss.arquillian.persistence.util.JavaSPIExtensionLoader;
+
+/**
+ * Chooses {@link TableTruncator} by the name given in {@link DBUnitConfiguration#getCustomTableTruncator()}
+ * or, if not specified, by the name of the database product. Implementations registered through SPI take
+ * precedence over built-in ones.
+ */
+public class TableTruncatorResolver {
+
+    private static final Logger log = Logger.getLogger(TableTruncatorResolver.class.getName());
+
+    private final DBUnitConfiguration dbUnitConfiguration;
+
+    public TableTruncatorResolver(DBUnitConfiguration dbUnitConfiguration) {
+        this.dbUnitConfiguration = dbUnitConfiguration;
+    }
+
+    public TableTruncator resolve(IDatabaseConnection connection) throws SQLException {
+        final List<TableTruncator> tableTruncators = availableTableTruncators();
+        final String customTableTruncator = dbUnitConfiguration.getCustomTableTruncator();
+        if (!Strings.isEmpty(customTableTruncator)) {
+            for (TableTruncator tableTruncator : tableTruncators) {
+                if (tableTruncator.simpleName().equals(customTableTruncator)) {
+                    return tableTruncator;
+                }
+            }
+            log.warning("Unable to find table truncator for " + customTableTruncator
+                + ". Choosing one based on the database product name.");
+        }
+
+        final String databaseProductName = connection.getConnection().getMetaData().getDatabaseProductName();
+        for (TableTruncator tableTruncator : tableTruncators) {
+            if (tableTruncator.supports(databaseProductName)) {
+                return tableTruncator;
+            }
+        }
+
+        log.fine("No table truncator found for " + databaseProductName + ". Deleting rows instead.");
+        return new DefaultTableTruncator();
+    }
+
+    private List<TableTruncator> availableTableTruncators() {
+        final List<TableTruncator> tableTruncators = new ArrayList<TableTruncator>(
+            new JavaSPIExtensionLoader().all(Thread.currentThread().getContextClassLoader(), TableTruncator.class));
+        tableTruncators.addAll(Arrays.asList(new H2TableTruncator(), new HsqldbTableTruncator(),
+            new MySqlTableTruncator(), new PostgreSqlTableTruncator(), new DefaultTableTruncator()));
+        return tableTruncators;
+    }
+}
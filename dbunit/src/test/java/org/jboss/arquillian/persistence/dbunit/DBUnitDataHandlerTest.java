@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.lang.reflect.Field;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.persistence.DataSeedStrategy;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.core.metadata.PersistenceExtensionFeatureResolver;
+import org.jboss.arquillian.persistence.dbunit.cleanup.DatabaseSnapshot;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetRegister;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.jboss.arquillian.persistence.dbunit.event.PrepareDBUnitData;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DBUnitDataHandlerTest {
+
+    private final DataSetResourceDescriptor authors =
+        new DataSetResourceDescriptor("datasets/authors.yml", Format.YAML);
+
+    private final DataSetResourceDescriptor books = new DataSetResourceDescriptor("datasets/books.yml", Format.YAML);
+
+    private final DBUnitDataHandler dataHandler = new DBUnitDataHandler();
+
+    private DatabaseConnection connection;
+
+    @Before
+    public void createHandler() throws Exception {
+        connection = new DatabaseConnection(DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", ""));
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+
+        final DefaultTable author = new DefaultTable("author",
+            new Column[] {new Column("id", DataType.BIGINT), new Column("name", DataType.VARCHAR)});
+        author.addRow(new Object[] {1L, "Stanislaw Lem"});
+        final DataSetRegister dataSetRegister = new DataSetRegister();
+        dataSetRegister.addInitial(new DefaultDataSet(author));
+
+        final PersistenceExtensionFeatureResolver featureResolver = mock(PersistenceExtensionFeatureResolver.class);
+        when(featureResolver.getDataSeedStrategy()).thenReturn(DataSeedStrategy.INSERT);
+
+        inject("databaseConnection", connection);
+        inject("dataSetRegister", dataSetRegister);
+        inject("dbunitConfigurationInstance", new DBUnitConfiguration());
+        inject("persistenceExtensionFeatureResolverInstance", featureResolver);
+        inject("dataSourceInstance", null);
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        TableMetadataCache.instance().invalidate(connection);
+        TableDependencyGraphCache.instance().invalidate(connection);
+        connection.close();
+    }
+
+    @Test
+    public void should_skip_seeding_when_database_is_in_state_captured_after_seeding_same_data_sets()
+        throws Exception {
+        // given
+        final DatabaseSnapshot snapshot =
+            DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), Arrays.asList(authors, books));
+        inject("databaseSnapshotInstance", snapshot);
+
+        // when
+        dataHandler.prepare(new PrepareDBUnitData(Arrays.asList(authors, books)));
+
+        // then
+        assertThat(count("author")).isZero();
+        assertThat(snapshot.isCurrent()).isTrue();
+    }
+
+    @Test
+    public void should_seed_database_when_snapshot_was_captured_after_seeding_other_data_sets() throws Exception {
+        // given
+        final DatabaseSnapshot snapshot =
+            DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), Collections.singletonList(authors));
+        inject("databaseSnapshotInstance", snapshot);
+
+        // when
+        dataHandler.prepare(new PrepareDBUnitData(Arrays.asList(authors, books)));
+
+        // then
+        assertThat(count("author")).isEqualTo(1);
+        assertThat(snapshot.isCurrent()).isFalse();
+    }
+
+    @Test
+    public void should_seed_database_when_it_has_been_modified_since_snapshot_was_captured() throws Exception {
+        // given
+        final DatabaseSnapshot snapshot =
+            DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), Arrays.asList(authors, books));
+        snapshot.markStale();
+        inject("databaseSnapshotInstance", snapshot);
+
+        // when
+        dataHandler.prepare(new PrepareDBUnitData(Arrays.asList(authors, books)));
+
+        // then
+        assertThat(count("author")).isEqualTo(1);
+    }
+
+    @Test
+    public void should_seed_database_when_there_is_no_snapshot() throws Exception {
+        // given
+        inject("databaseSnapshotInstance", null);
+
+        // when
+        dataHandler.prepare(new PrepareDBUnitData(Arrays.asList(authors, books)));
+
+        // then
+        assertThat(count("author")).isEqualTo(1);
+    }
+
+    private <T> void inject(String fieldName, final T value) throws Exception {
+        final Field field = DBUnitDataHandler.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(dataHandler, new Instance<T>() {
+            @Override
+            public T get() {
+                return value;
+            }
+        });
+    }
+
+    private void execute(String sql) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            statement.execute(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table);
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.jboss.arquillian.persistence.dbunit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
@@ -146,6 +147,42 @@ public class DataSetComparatorTest {
         verify(firstColumn, atLeastOnce()).getDataType();
     }
 
+    @Test
+    public void should_not_share_custom_column_filters_between_comparisons() throws Exception {
+        // given
+        final Set<Class<? extends IColumnFilter>> customFilters =
+            Collections.<Class<? extends IColumnFilter>>singleton(CountingColumnFilter.class);
+        IDataSet usersXml = DataSetBuilder.builderFor(Format.XML).build("datasets/users.xml");
+        new DataSetComparator(new String[] {}, new String[] {}, customFilters)
+            .compare(usersXml, usersXml, new AssertionErrorCollector());
+        final int instancesAfterFirstComparison = CountingColumnFilter.instances.get();
+
+        // when
+        new DataSetComparator(new String[] {}, new String[] {}, customFilters)
+            .compare(usersXml, usersXml, new AssertionErrorCollector());
+
+        // then
+        assertThat(instancesAfterFirstComparison).isPositive();
+        assertThat(CountingColumnFilter.instances.get()).isEqualTo(2 * instancesAfterFirstComparison);
+    }
+
+    @Test
+    public void should_resolve_columns_once_for_the_same_tables() throws Exception {
+        // given
+        IDataSet usersXml = DataSetBuilder.builderFor(Format.XML).build("datasets/users.xml");
+        new DataSetComparator(new String[] {"id"}, new String[] {}, noCustomFilters())
+            .compare(usersXml, usersXml, new AssertionErrorCollector());
+        final int plansAfterFirstComparison = TableComparisonPlanCache.instance().size();
+
+        // when
+        new DataSetComparator(new String[] {"id"}, new String[] {}, noCustomFilters())
+            .compare(usersXml, usersXml, new AssertionErrorCollector());
+
+        // then
+        assertThat(plansAfterFirstComparison).isPositive();
+        assertThat(TableComparisonPlanCache.instance().size()).isEqualTo(plansAfterFirstComparison);
+    }
+
     // -- Helper methods
 
     private Column spyOnFirstColumn(IDataSet current) throws DataSetException {
@@ -158,4 +195,18 @@ public class DataSetComparatorTest {
     private Set<Class<? extends IColumnFilter>> noCustomFilters() {
         return emptySet();
     }
+
+    public static class CountingColumnFilter implements IColumnFilter {
+
+        static final AtomicInteger instances = new AtomicInteger();
+
+        public CountingColumnFilter() {
+            instances.incrementAndGet();
+        }
+
+        @Override
+        public boolean accept(String tableName, Column column) {
+            return true;
+        }
+    }
 }
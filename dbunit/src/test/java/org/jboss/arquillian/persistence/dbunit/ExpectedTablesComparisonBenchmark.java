@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.jboss.arquillian.persistence.core.test.AssertionErrorCollector;
+import org.jboss.arquillian.persistence.dbunit.dataset.ExpectedTablesDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures verification of three expected tables in a schema of 500 tables on H2, reading the whole
+ * schema compared to reading only the expected tables. Each verification uses a new connection,
+ * as it's done when the connection is opened for each test.
+ * <br><br>
+ * Run with <code>mvn test -Pbenchmark -Dtest=ExpectedTablesComparisonBenchmark</code>.
+ */
+public class ExpectedTablesComparisonBenchmark {
+
+    private static final int TABLES = 500;
+
+    private static final int EXPECTED_TABLES = 3;
+
+    private static final int ROWS = 1000;
+
+    private static final int VERIFICATIONS = 20;
+
+    private String url;
+
+    private Connection connection;
+
+    @Before
+    public void createTables() throws Exception {
+        url = "jdbc:h2:mem:" + UUID.randomUUID();
+        connection = DriverManager.getConnection(url, "sa", "");
+        final Statement statement = connection.createStatement();
+        try {
+            for (int i = 0; i < TABLES; i++) {
+                statement.execute("CREATE TABLE table_" + i + " (id BIGINT PRIMARY KEY, name VARCHAR(50), "
+                    + "description VARCHAR(200), created TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+            for (int i = 0; i < EXPECTED_TABLES; i++) {
+                statement.execute("INSERT INTO table_" + i + " (id, name, description) "
+                    + "SELECT x, 'name ' || x, 'description ' || x FROM SYSTEM_RANGE(1, " + ROWS + ")");
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableMetadataCache.instance().clear();
+        connection.close();
+    }
+
+    @Test
+    public void should_verify_expected_tables_without_reading_whole_schema() throws Exception {
+        // given
+        final IDataSet expected = expectedDataSet();
+
+        // when
+        final long wholeSchemaStart = System.nanoTime();
+        for (int i = 0; i < VERIFICATIONS; i++) {
+            final DatabaseConnection databaseConnection = openConnection();
+            try {
+                verify(databaseConnection.createDataSet(), expected);
+            } finally {
+                databaseConnection.close();
+            }
+        }
+        final long wholeSchemaTime = (System.nanoTime() - wholeSchemaStart) / 1000000;
+
+        final long expectedTablesStart = System.nanoTime();
+        for (int i = 0; i < VERIFICATIONS; i++) {
+            final DatabaseConnection databaseConnection = openConnection();
+            try {
+                verify(new ExpectedTablesDataSet(databaseConnection, expected, new String[0]), expected);
+            } finally {
+                databaseConnection.close();
+            }
+        }
+        final long expectedTablesTime = (System.nanoTime() - expectedTablesStart) / 1000000;
+
+        // then
+        System.out.println(String.format("%d verifications of %d tables out of %d: whole schema %d ms, "
+            + "expected tables only %d ms", VERIFICATIONS, EXPECTED_TABLES, TABLES, wholeSchemaTime,
+            expectedTablesTime));
+    }
+
+    private DatabaseConnection openConnection() throws Exception {
+        return new DatabaseConnection(DriverManager.getConnection(url, "sa", ""));
+    }
+
+    private void verify(IDataSet current, IDataSet expected) throws Exception {
+        final AssertionErrorCollector errorCollector = new AssertionErrorCollector();
+        new DataSetComparator(new String[0], new String[0], Collections.<Class<? extends IColumnFilter>>emptySet())
+            .compare(current, expected, errorCollector);
+        assertThat(errorCollector.amountOfErrors()).isZero();
+    }
+
+    private IDataSet expectedDataSet() throws Exception {
+        final DefaultDataSet dataSet = new DefaultDataSet();
+        for (int i = 0; i < EXPECTED_TABLES; i++) {
+            final DefaultTable table = new DefaultTable("TABLE_" + i,
+                new Column[] {new Column("ID", DataType.BIGINT), new Column("NAME", DataType.VARCHAR)});
+            for (long id = 1; id <= ROWS; id++) {
+                table.addRow(new Object[] {id, "name " + id});
+            }
+            dataSet.addTable(table);
+        }
+        return dataSet;
+    }
+}
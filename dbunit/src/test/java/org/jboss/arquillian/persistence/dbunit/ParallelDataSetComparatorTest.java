@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jboss.arquillian.persistence.core.test.AssertionErrorCollector;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.dataset.ExpectedTablesDataSet;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Collections.emptySet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelDataSetComparatorTest {
+
+    private static final String EXPECTED = "<dataset>"
+        + "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+        + "<author id=\"2\" name=\"Philip K. Dick\"/>"
+        + "<book id=\"1\" title=\"Solaris\"/>"
+        + "<book id=\"2\" title=\"Ubik\"/>"
+        + "<tag id=\"1\" name=\"sci-fi\"/>"
+        + "<review id=\"1\" stars=\"5\"/>"
+        + "</dataset>";
+
+    private JdbcDataSource dataSource;
+
+    private DatabaseConnection databaseConnection;
+
+    private ParallelDataSetComparator parallelDataSetComparator;
+
+    @Before
+    public void createTables() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID());
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        final DatabaseConnectionFactory databaseConnectionFactory =
+            new DatabaseConnectionFactory(new DBUnitConfiguration());
+        databaseConnection = databaseConnectionFactory.create(dataSource);
+        parallelDataSetComparator = new ParallelDataSetComparator(dataSource, databaseConnectionFactory, 4);
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(50))",
+            "CREATE TABLE tag (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE review (id BIGINT PRIMARY KEY, stars INT)",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem')",
+            "INSERT INTO author VALUES (2, 'Philip K. Dick')",
+            "INSERT INTO book VALUES (1, 'Solaris')",
+            "INSERT INTO book VALUES (2, 'Ubik')",
+            "INSERT INTO tag VALUES (1, 'sci-fi')",
+            "INSERT INTO review VALUES (1, 5)");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableMetadataCache.instance().invalidate(databaseConnection);
+        databaseConnection.close();
+    }
+
+    @Test
+    public void should_not_report_errors_when_all_tables_match() throws Exception {
+        // given
+        final AssertionErrorCollector errorCollector = new AssertionErrorCollector();
+
+        // when
+        parallelDataSetComparator.compare(expected().getTableNames(), comparison(expected()), errorCollector);
+
+        // then
+        assertThat(errorCollector.amountOfErrors()).isZero();
+    }
+
+    @Test
+    public void should_report_errors_in_the_same_order_as_sequential_comparison() throws Exception {
+        // given
+        execute("UPDATE author SET name = 'P. K. Dick' WHERE id = 2",
+            "UPDATE tag SET name = 'fantasy' WHERE id = 1",
+            "UPDATE review SET stars = 1 WHERE id = 1");
+        final IDataSet expected = expected();
+        final AssertionErrorCollector sequentialErrors = new AssertionErrorCollector();
+        dataSetComparator().compare(new ExpectedTablesDataSet(databaseConnection, expected, new String[0]),
+            expected, sequentialErrors);
+        final AssertionErrorCollector errorCollector = new AssertionErrorCollector();
+
+        // when
+        parallelDataSetComparator.compare(expected.getTableNames(), comparison(expected), errorCollector);
+
+        // then
+        assertThat(errorCollector.amountOfErrors()).isEqualTo(3);
+        assertThat(errorCollector.showAllErrors()).isEqualTo(sequentialErrors.showAllErrors());
+    }
+
+    private ParallelDataSetComparator.TableComparison comparison(final IDataSet expected) {
+        return new ParallelDataSetComparator.TableComparison() {
+            @Override
+            public void compare(DatabaseConnection connection, String tableName,
+                AssertionErrorCollector errorCollector) throws Exception {
+                dataSetComparator().compareTable(tableName,
+                    new ExpectedTablesDataSet(connection, expected, new String[0]), expected, errorCollector);
+            }
+        };
+    }
+
+    private DataSetComparator dataSetComparator() {
+        return new DataSetComparator(new String[] {}, new String[] {}, noCustomFilters());
+    }
+
+    private IDataSet expected() throws Exception {
+        return new FlatXmlDataSetBuilder().build(new StringReader(EXPECTED));
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = databaseConnection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private Set<Class<? extends IColumnFilter>> noCustomFilters() {
+        return emptySet();
+    }
+}
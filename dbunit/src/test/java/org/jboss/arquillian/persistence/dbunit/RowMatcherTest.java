@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.math.BigDecimal;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RowMatcherTest {
+
+    private final RowMatcher rowMatcher = new RowMatcher();
+
+    @Test
+    public void should_match_same_rows_in_different_order() throws Exception {
+        // given
+        final ITable expected = table(DataType.BIGINT, new Object[] {1L, "Lem"}, new Object[] {2L, "Dick"});
+        final ITable actual = table(DataType.BIGINT, new Object[] {2L, "Dick"}, new Object[] {1L, "Lem"});
+
+        // when
+        final boolean matches = rowMatcher.matches(expected, actual);
+
+        // then
+        assertThat(matches).isTrue();
+    }
+
+    @Test
+    public void should_match_values_converted_to_column_type() throws Exception {
+        // given
+        final ITable expected = table(DataType.DECIMAL, new Object[] {"1.5", "Lem"}, new Object[] {"0", "Dick"});
+        final ITable actual = table(DataType.DECIMAL, new Object[] {new BigDecimal("0.00"), "Dick"},
+            new Object[] {new BigDecimal("1.50"), "Lem"});
+
+        // when
+        final boolean matches = rowMatcher.matches(expected, actual);
+
+        // then
+        assertThat(matches).isTrue();
+    }
+
+    @Test
+    public void should_match_values_of_unknown_type_by_string_representation() throws Exception {
+        // given
+        final ITable expected = table(DataType.UNKNOWN, new Object[] {"1", "Lem"});
+        final ITable actual = table(DataType.UNKNOWN, new Object[] {1, "Lem"});
+
+        // when
+        final boolean matches = rowMatcher.matches(expected, actual);
+
+        // then
+        assertThat(matches).isTrue();
+    }
+
+    @Test
+    public void should_not_match_when_duplicated_rows_differ() throws Exception {
+        // given
+        final ITable expected = table(DataType.BIGINT, new Object[] {1L, "Lem"}, new Object[] {1L, "Lem"},
+            new Object[] {2L, "Dick"});
+        final ITable actual = table(DataType.BIGINT, new Object[] {1L, "Lem"}, new Object[] {2L, "Dick"},
+            new Object[] {2L, "Dick"});
+
+        // when
+        final boolean matches = rowMatcher.matches(expected, actual);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    public void should_not_match_when_value_differs() throws Exception {
+        // given
+        final ITable expected = table(DataType.BIGINT, new Object[] {1L, "Lem"}, new Object[] {2L, "Dick"});
+        final ITable actual = table(DataType.BIGINT, new Object[] {1L, "Lem"}, new Object[] {2L, null});
+
+        // when
+        final boolean matches = rowMatcher.matches(expected, actual);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    public void should_not_match_when_value_cannot_be_converted() throws Exception {
+        // given
+        final ITable expected = table(DataType.BIGINT, new Object[] {"one", "Lem"});
+        final ITable actual = table(DataType.BIGINT, new Object[] {1L, "Lem"});
+
+        // when
+        final boolean matches = rowMatcher.matches(expected, actual);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    private ITable table(DataType idType, Object[]... rows) throws Exception {
+        final DefaultTable table = new DefaultTable("author",
+            new Column[] {new Column("id", idType), new Column("name", DataType.VARCHAR)});
+        for (Object[] row : rows) {
+            table.addRow(row);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit;
+
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharedDatabaseConnectionsTest {
+
+    private final SharedDatabaseConnections sharedDatabaseConnections = new SharedDatabaseConnections();
+
+    private final DatabaseConnectionFactory databaseConnectionFactory =
+        new DatabaseConnectionFactory(new DBUnitConfiguration());
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void createDataSource() {
+        dataSource = createH2DataSource();
+    }
+
+    @After
+    public void closeConnections() {
+        sharedDatabaseConnections.closeAll();
+    }
+
+    @Test
+    public void should_reuse_connection_for_the_same_data_source() throws Exception {
+        // given
+        final DatabaseConnection first = sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+
+        // when
+        final DatabaseConnection second = sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+
+        // then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void should_open_separate_connection_for_each_data_source() throws Exception {
+        // given
+        final DatabaseConnection first = sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+
+        // when
+        final DatabaseConnection second =
+            sharedDatabaseConnections.get(createH2DataSource(), databaseConnectionFactory);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(sharedDatabaseConnections.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_share_connection_between_data_sources_of_the_same_database() throws Exception {
+        // given
+        final DatabaseConnection first = sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+        final JdbcDataSource sameDatabase = new JdbcDataSource();
+        sameDatabase.setURL(dataSource.getURL());
+        sameDatabase.setUser("sa");
+        sameDatabase.setPassword("");
+
+        // when
+        final DatabaseConnection second = sharedDatabaseConnections.get(sameDatabase, databaseConnectionFactory);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(sharedDatabaseConnections.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_replace_connection_when_it_was_closed() throws Exception {
+        // given
+        final DatabaseConnection first = sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+        first.getConnection().close();
+
+        // when
+        final DatabaseConnection second = sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(SharedDatabaseConnections.isUsable(second)).isTrue();
+    }
+
+    @Test
+    public void should_close_all_connections() throws Exception {
+        // given
+        final DatabaseConnection databaseConnection =
+            sharedDatabaseConnections.get(dataSource, databaseConnectionFactory);
+
+        // when
+        sharedDatabaseConnections.closeAll();
+
+        // then
+        assertThat(databaseConnection.getConnection().isClosed()).isTrue();
+        assertThat(sharedDatabaseConnections.size()).isZero();
+    }
+
+    private JdbcDataSource createH2DataSource() {
+        final JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID());
+        h2DataSource.setUser("sa");
+        h2DataSource.setPassword("");
+        return h2DataSource;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.operation.DatabaseOperation;
+import org.jboss.arquillian.persistence.spi.dbunit.bulk.BulkLoader;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkInsertOperationTest {
+
+    @Mock
+    private IDatabaseConnection connection;
+
+    @Mock
+    private DatabaseOperation insertOperation;
+
+    @Mock
+    private BulkLoader bulkLoader;
+
+    @Test
+    public void should_load_only_tables_reaching_threshold_preserving_order() throws Exception {
+        // given
+        final DefaultTable author = table("author", 2);
+        final DefaultTable book = table("book", 10);
+        final DefaultTable review = table("review", 3);
+        final DefaultDataSet dataSet = new DefaultDataSet(new DefaultTable[] {author, book, review});
+
+        // when
+        new BulkInsertOperation(insertOperation, bulkLoader, 10).execute(connection, dataSet);
+
+        // then
+        final ArgumentCaptor<IDataSet> inserted = ArgumentCaptor.forClass(IDataSet.class);
+        final InOrder inOrder = inOrder(insertOperation, bulkLoader);
+        inOrder.verify(insertOperation).execute(eq(connection), inserted.capture());
+        inOrder.verify(bulkLoader).load(connection, book);
+        inOrder.verify(insertOperation).execute(eq(connection), inserted.capture());
+        assertThat(inserted.getAllValues().get(0).getTableNames()).containsExactly("author");
+        assertThat(inserted.getAllValues().get(1).getTableNames()).containsExactly("review");
+    }
+
+    @Test
+    public void should_not_call_insert_operation_when_all_tables_are_loaded() throws Exception {
+        // given
+        final DefaultTable book = table("book", 10);
+
+        // when
+        new BulkInsertOperation(insertOperation, bulkLoader, 5).execute(connection, new DefaultDataSet(book));
+
+        // then
+        verify(bulkLoader).load(connection, book);
+        verify(insertOperation, never()).execute(eq(connection), any(IDataSet.class));
+    }
+
+    private static DefaultTable table(String name, int rows) throws Exception {
+        final DefaultTable table = new DefaultTable(name, new Column[] {new Column("id", DataType.BIGINT)});
+        for (long id = 1; id <= rows; id++) {
+            table.addRow(new Object[] {id});
+        }
+        return table;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class H2BulkLoaderTest {
+
+    private Connection connection;
+
+    private DatabaseConnection databaseConnection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+        databaseConnection = new DatabaseConnection(connection);
+        execute("CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(50), published DATE, available BOOLEAN)",
+            "CREATE TABLE cover (id BIGINT PRIMARY KEY, image BLOB)");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void should_load_rows_through_csv_file() throws Exception {
+        // given
+        final DefaultTable book = new DefaultTable("BOOK",
+            new Column[] {new Column("ID", DataType.UNKNOWN), new Column("TITLE", DataType.UNKNOWN),
+                new Column("PUBLISHED", DataType.UNKNOWN), new Column("AVAILABLE", DataType.UNKNOWN)});
+        book.addRow(new Object[] {"1", "Solaris", "1961-01-01", "true"});
+        book.addRow(new Object[] {"2", "\"Quoted\", with comma\nand new line \\N", null, "false"});
+        book.addRow(new Object[] {"3", null, null, null});
+
+        // when
+        new H2BulkLoader().load(databaseConnection, book);
+
+        // then
+        assertThat(single("SELECT COUNT(*) FROM book")).isEqualTo("3");
+        assertThat(single("SELECT published FROM book WHERE id = 1")).isEqualTo("1961-01-01");
+        assertThat(single("SELECT title FROM book WHERE id = 2")).isEqualTo("\"Quoted\", with comma\nand new line \\N");
+        assertThat(single("SELECT available FROM book WHERE id = 2")).isEqualTo("FALSE");
+        assertThat(single("SELECT title FROM book WHERE id = 3")).isNull();
+    }
+
+    @Test
+    public void should_insert_rows_of_table_with_binary_columns() throws Exception {
+        // given
+        final DefaultTable cover = new DefaultTable("COVER",
+            new Column[] {new Column("ID", DataType.UNKNOWN), new Column("IMAGE", DataType.UNKNOWN)});
+        cover.addRow(new Object[] {"1", "AQID"});
+
+        // when
+        new H2BulkLoader().load(databaseConnection, cover);
+
+        // then
+        assertThat(single("SELECT LENGTH(image) FROM cover")).isEqualTo("3");
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private String single(String query) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(query);
+            resultSet.next();
+            return resultSet.getString(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
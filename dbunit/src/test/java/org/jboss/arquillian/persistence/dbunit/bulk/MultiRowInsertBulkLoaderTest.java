@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.bulk;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiRowInsertBulkLoaderTest {
+
+    private Connection connection;
+
+    private DatabaseConnection databaseConnection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+        databaseConnection = new DatabaseConnection(connection);
+        execute("CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(50), published TIMESTAMP, "
+            + "cover BLOB, available BOOLEAN)");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void should_insert_rows_exceeding_single_statement() throws Exception {
+        // given
+        final DefaultTable book = new DefaultTable("book",
+            new Column[] {new Column("id", DataType.BIGINT), new Column("title", DataType.VARCHAR)});
+        for (long id = 1; id <= 2500; id++) {
+            book.addRow(new Object[] {id, "title " + id});
+        }
+
+        // when
+        new MultiRowInsertBulkLoader().load(databaseConnection, book);
+
+        // then
+        assertThat(single("SELECT COUNT(*) FROM book")).isEqualTo("2500");
+        assertThat(single("SELECT title FROM book WHERE id = 2500")).isEqualTo("title 2500");
+    }
+
+    @Test
+    public void should_convert_values_to_column_types() throws Exception {
+        // given
+        final DefaultTable book = new DefaultTable("BOOK",
+            new Column[] {new Column("ID", DataType.UNKNOWN), new Column("PUBLISHED", DataType.UNKNOWN),
+                new Column("COVER", DataType.UNKNOWN), new Column("AVAILABLE", DataType.UNKNOWN),
+                new Column("TITLE", DataType.UNKNOWN)});
+        book.addRow(new Object[] {"1", "1961-01-01 00:00:00.0", "AQID", "true", null});
+
+        // when
+        new MultiRowInsertBulkLoader().load(databaseConnection, book);
+
+        // then
+        assertThat(single("SELECT published FROM book")).startsWith("1961-01-01 00:00:00");
+        assertThat(single("SELECT LENGTH(cover) FROM book")).isEqualTo("3");
+        assertThat(single("SELECT available FROM book")).isEqualTo("TRUE");
+        assertThat(single("SELECT title FROM book")).isNull();
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private String single(String query) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(query);
+            resultSet.next();
+            return resultSet.getString(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
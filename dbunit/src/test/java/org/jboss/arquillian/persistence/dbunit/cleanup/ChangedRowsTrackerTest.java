@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChangedRowsTrackerTest {
+
+    private DatabaseConnection connection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = new DatabaseConnection(DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", ""));
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, author_id BIGINT REFERENCES author(id), title VARCHAR(50))",
+            "CREATE TABLE review (id BIGINT PRIMARY KEY, book_id BIGINT REFERENCES book(id), stars INT)",
+            "CREATE TABLE tag (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem')",
+            "INSERT INTO author VALUES (2, 'Philip K. Dick')",
+            "INSERT INTO book VALUES (1, 1, 'Solaris')",
+            "INSERT INTO book VALUES (2, 1, 'Fiasco')",
+            "INSERT INTO book VALUES (3, 2, 'Ubik')",
+            "INSERT INTO review VALUES (1, 1, 5)",
+            "INSERT INTO tag VALUES (1, 'sci-fi')");
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        TableMetadataCache.instance().invalidate(connection);
+        TableDependencyGraphCache.instance().invalidate(connection);
+        connection.close();
+    }
+
+    @Test
+    public void should_delete_rows_inserted_by_the_test() throws Exception {
+        // given
+        final ChangedRowsTracker tracker = ChangedRowsTracker.capture(connection, new DBUnitConfiguration());
+        execute("INSERT INTO author VALUES (3, 'Ursula K. Le Guin')",
+            "INSERT INTO book VALUES (4, 3, 'The Dispossessed')");
+
+        // when
+        tracker.deleteChangedRows(connection, new DBUnitConfiguration());
+
+        // then
+        assertThat(ids("author")).containsExactly("1", "2");
+        assertThat(ids("book")).containsExactly("1", "2", "3");
+    }
+
+    @Test
+    public void should_delete_rows_referencing_rows_modified_by_the_test() throws Exception {
+        // given
+        final ChangedRowsTracker tracker = ChangedRowsTracker.capture(connection, new DBUnitConfiguration());
+        execute("UPDATE author SET name = 'Stanislaw Herman Lem' WHERE id = 1");
+
+        // when
+        tracker.deleteChangedRows(connection, new DBUnitConfiguration());
+
+        // then
+        assertThat(ids("author")).containsExactly("2");
+        assertThat(ids("book")).containsExactly("3");
+        assertThat(ids("review")).isEmpty();
+        assertThat(ids("tag")).containsExactly("1");
+    }
+
+    @Test
+    public void should_leave_excluded_tables_untouched() throws Exception {
+        // given
+        final ChangedRowsTracker tracker = ChangedRowsTracker.capture(connection, new DBUnitConfiguration(), "tag");
+        execute("INSERT INTO tag VALUES (2, 'fantasy')",
+            "UPDATE tag SET name = 'science fiction' WHERE id = 1",
+            "INSERT INTO author VALUES (3, 'Ursula K. Le Guin')");
+
+        // when
+        tracker.deleteChangedRows(connection, new DBUnitConfiguration(), "tag");
+
+        // then
+        assertThat(ids("tag")).containsExactly("1", "2");
+        assertThat(ids("author")).containsExactly("1", "2");
+    }
+
+    @Test
+    public void should_keep_rows_changed_before_the_tracker_has_been_captured() throws Exception {
+        // given
+        ChangedRowsTracker.capture(connection, new DBUnitConfiguration());
+        execute("INSERT INTO tag VALUES (2, 'fantasy')");
+        final ChangedRowsTracker tracker = ChangedRowsTracker.capture(connection, new DBUnitConfiguration());
+        execute("INSERT INTO author VALUES (3, 'Ursula K. Le Guin')");
+
+        // when
+        tracker.deleteChangedRows(connection, new DBUnitConfiguration());
+
+        // then
+        assertThat(ids("tag")).containsExactly("1", "2");
+        assertThat(ids("author")).containsExactly("1", "2");
+    }
+
+    @Test
+    public void should_delete_referencing_rows_when_table_names_are_qualified() throws Exception {
+        // given
+        connection.getConfig().setProperty(DatabaseConfig.FEATURE_QUALIFIED_TABLE_NAMES, true);
+        final ChangedRowsTracker tracker = ChangedRowsTracker.capture(connection, new DBUnitConfiguration());
+        execute("UPDATE book SET title = 'Solaris (1961)' WHERE id = 1");
+
+        // when
+        tracker.deleteChangedRows(connection, new DBUnitConfiguration());
+
+        // then
+        assertThat(ids("book")).containsExactly("2", "3");
+        assertThat(ids("review")).isEmpty();
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private List<String> ids(String table) throws SQLException {
+        final List<String> ids = new ArrayList<String>();
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT id FROM " + table + " ORDER BY id");
+            while (resultSet.next()) {
+                ids.add(resultSet.getString(1));
+            }
+        } finally {
+            statement.close();
+        }
+        return ids;
+    }
+}
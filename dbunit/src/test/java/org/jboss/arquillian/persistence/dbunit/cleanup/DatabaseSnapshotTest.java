@@ -0,0 +1,227 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.h2.api.Trigger;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatabaseSnapshotTest {
+
+    private static final List<DataSetResourceDescriptor> NO_DATA_SETS = Collections.emptyList();
+
+    private DatabaseConnection connection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = new DatabaseConnection(DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", ""));
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, author_id BIGINT REFERENCES author(id), title VARCHAR(50))",
+            "CREATE TABLE tag (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem')",
+            "INSERT INTO book VALUES (1, 1, 'Solaris')",
+            "INSERT INTO tag VALUES (1, 'sci-fi')");
+        for (String table : Arrays.asList("author", "book", "tag")) {
+            execute("CREATE TRIGGER " + table + "_deleted AFTER DELETE ON " + table + " FOR EACH ROW CALL \""
+                + DeletedRowsCounter.class.getName() + "\"");
+        }
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        TableMetadataCache.instance().invalidate(connection);
+        TableDependencyGraphCache.instance().invalidate(connection);
+        DeletedRowsCounter.forget(connection.getConnection());
+        connection.close();
+    }
+
+    @Test
+    public void should_restore_only_changed_tables_and_tables_referencing_them() throws Exception {
+        // given
+        final DatabaseSnapshot snapshot = DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), NO_DATA_SETS);
+        execute("UPDATE author SET name = 'Stanislaw Herman Lem' WHERE id = 1");
+
+        // when
+        snapshot.restore(connection, new DBUnitConfiguration());
+
+        // then
+        assertThat(names("author")).containsExactly("Stanislaw Lem");
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "AUTHOR")).isEqualTo(1);
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "BOOK")).isEqualTo(1);
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "TAG")).isZero();
+        assertThat(snapshot.isCurrent()).isTrue();
+    }
+
+    @Test
+    public void should_not_touch_database_when_nothing_has_changed() throws Exception {
+        // given
+        final DatabaseSnapshot snapshot = DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), NO_DATA_SETS);
+        snapshot.markStale();
+
+        // when
+        snapshot.restore(connection, new DBUnitConfiguration());
+
+        // then
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "AUTHOR")).isZero();
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "BOOK")).isZero();
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "TAG")).isZero();
+        assertThat(snapshot.isCurrent()).isTrue();
+    }
+
+    @Test
+    public void should_leave_excluded_tables_untouched() throws Exception {
+        // given
+        final DatabaseSnapshot snapshot =
+            DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), NO_DATA_SETS, "tag");
+        execute("UPDATE tag SET name = 'science fiction' WHERE id = 1",
+            "INSERT INTO book VALUES (2, 1, 'Fiasco')");
+
+        // when
+        snapshot.restore(connection, new DBUnitConfiguration(), "tag");
+
+        // then
+        assertThat(names("tag")).containsExactly("science fiction");
+        assertThat(names("book")).containsExactly("Solaris");
+        assertThat(DeletedRowsCounter.deletedFrom(connection.getConnection(), "TAG")).isZero();
+    }
+
+    @Test
+    public void should_be_seeded_only_with_the_same_data_sets() throws Exception {
+        // given
+        final DataSetResourceDescriptor authors = new DataSetResourceDescriptor("datasets/authors.yml", Format.YAML);
+        final DataSetResourceDescriptor books = new DataSetResourceDescriptor("datasets/books.yml", Format.YAML);
+
+        // when
+        final DatabaseSnapshot snapshot =
+            DatabaseSnapshot.capture(connection, new DBUnitConfiguration(), Arrays.asList(authors, books));
+
+        // then
+        assertThat(snapshot.isSeededWith(Arrays.asList(authors, books))).isTrue();
+        assertThat(snapshot.isSeededWith(Arrays.asList(books, authors))).isFalse();
+        assertThat(snapshot.isSeededWith(Collections.singletonList(authors))).isFalse();
+        assertThat(snapshot.isSeededWith(Arrays.asList(authors,
+            new DataSetResourceDescriptor("datasets/books.json", Format.JSON)))).isFalse();
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private List<String> names(String table) throws SQLException {
+        final String column = "book".equals(table) ? "title" : "name";
+        final List<String> names = new ArrayList<String>();
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT " + column + " FROM " + table + " ORDER BY id");
+            while (resultSet.next()) {
+                names.add(resultSet.getString(1));
+            }
+        } finally {
+            statement.close();
+        }
+        return names;
+    }
+
+    public static class DeletedRowsCounter implements Trigger {
+
+        private static final Map<String, Map<String, Integer>> deletedRowsByDatabase =
+            new HashMap<String, Map<String, Integer>>();
+
+        private String database;
+
+        private String tableName;
+
+        static synchronized int deletedFrom(Connection connection, String tableName) throws SQLException {
+            final Map<String, Integer> deletedRows = deletedRowsByDatabase.get(databaseOf(connection));
+            final Integer deleted = deletedRows == null ? null : deletedRows.get(tableName);
+            return deleted == null ? 0 : deleted;
+        }
+
+        static synchronized void forget(Connection connection) throws SQLException {
+            deletedRowsByDatabase.remove(databaseOf(connection));
+        }
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+            int type) throws SQLException {
+            this.database = databaseOf(conn);
+            this.tableName = tableName;
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) {
+            synchronized (DeletedRowsCounter.class) {
+                Map<String, Integer> deletedRows = deletedRowsByDatabase.get(database);
+                if (deletedRows == null) {
+                    deletedRows = new HashMap<String, Integer>();
+                    deletedRowsByDatabase.put(database, deletedRows);
+                }
+                final Integer deleted = deletedRows.get(tableName);
+                deletedRows.put(tableName, deleted == null ? 1 : deleted + 1);
+            }
+        }
+
+        // URL of the connection passed to the trigger differs from the one used by the test
+        private static String databaseOf(Connection connection) throws SQLException {
+            final Statement statement = connection.createStatement();
+            try {
+                final ResultSet resultSet = statement.executeQuery("CALL DATABASE()");
+                resultSet.next();
+                return resultSet.getString(1);
+            } finally {
+                statement.close();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void remove() {
+        }
+    }
+}
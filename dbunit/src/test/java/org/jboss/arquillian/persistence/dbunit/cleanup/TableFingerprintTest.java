@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TableFingerprintTest {
+
+    @Test
+    public void should_not_depend_on_order_of_rows() throws Exception {
+        // given
+        final ResultSet rows = resultSet(new String[][] {{"1", "Clark"}, {"2", "Bruce"}});
+        final ResultSet reversedRows = resultSet(new String[][] {{"2", "Bruce"}, {"1", "Clark"}});
+
+        // when
+        final TableFingerprint fingerprint = TableFingerprint.of(rows);
+        final TableFingerprint reversedFingerprint = TableFingerprint.of(reversedRows);
+
+        // then
+        assertThat(fingerprint).isEqualTo(reversedFingerprint);
+        assertThat(fingerprint.getRowCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_differ_when_values_are_swapped_between_rows() throws Exception {
+        // given
+        final ResultSet rows = resultSet(new String[][] {{"1", "Clark"}, {"2", "Bruce"}});
+        final ResultSet modifiedRows = resultSet(new String[][] {{"1", "Bruce"}, {"2", "Clark"}});
+
+        // when
+        final TableFingerprint fingerprint = TableFingerprint.of(rows);
+        final TableFingerprint modifiedFingerprint = TableFingerprint.of(modifiedRows);
+
+        // then
+        assertThat(fingerprint).isNotEqualTo(modifiedFingerprint);
+    }
+
+    @Test
+    public void should_distinguish_null_from_empty_value() throws Exception {
+        // given
+        final ResultSet rows = resultSet(new String[][] {{"1", null}});
+        final ResultSet modifiedRows = resultSet(new String[][] {{"1", ""}});
+
+        // when
+        final TableFingerprint fingerprint = TableFingerprint.of(rows);
+        final TableFingerprint modifiedFingerprint = TableFingerprint.of(modifiedRows);
+
+        // then
+        assertThat(fingerprint).isNotEqualTo(modifiedFingerprint);
+    }
+
+    private ResultSet resultSet(String[][] rows) throws Exception {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        final Boolean[] hasNext = new Boolean[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            hasNext[i] = i < rows.length - 1;
+        }
+        when(resultSet.next()).thenReturn(rows.length > 0, hasNext);
+        final String[] ids = new String[rows.length];
+        final String[] names = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = rows[i][0];
+            names[i] = rows[i][1];
+        }
+        when(resultSet.getString(1)).thenReturn(ids[0], tail(ids));
+        when(resultSet.getString(2)).thenReturn(names[0], tail(names));
+        return resultSet;
+    }
+
+    private String[] tail(String[] values) {
+        final String[] tail = new String[values.length - 1];
+        System.arraycopy(values, 1, tail, 0, tail.length);
+        return tail;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.cleanup;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import javax.sql.DataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestTransactionTest {
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Savepoint savepoint;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Test
+    public void should_start_local_transaction_and_restore_auto_commit_after_rollback() throws Exception {
+        // given
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        // when
+        final TestTransaction transaction = TestTransaction.begin(connection);
+        transaction.rollback();
+
+        // then
+        verify(connection).setAutoCommit(false);
+        verify(connection).rollback();
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    public void should_rollback_to_savepoint_when_connection_is_already_in_transaction() throws Exception {
+        // given
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+
+        // when
+        final TestTransaction transaction = TestTransaction.begin(connection);
+        transaction.rollback();
+
+        // then
+        verify(connection).rollback(savepoint);
+        verify(connection, never()).rollback();
+        verify(connection, never()).setAutoCommit(true);
+    }
+
+    @Test
+    public void should_hand_out_transaction_connection_ignoring_transaction_demarcation() throws Exception {
+        // given
+        when(connection.getAutoCommit()).thenReturn(true);
+        final TestTransaction transaction = TestTransaction.begin(connection);
+        final DataSource transactionBound = TransactionBoundDataSource.wrap(dataSource, transaction);
+
+        // when
+        final Connection applicationConnection = transactionBound.getConnection();
+        applicationConnection.createStatement();
+        applicationConnection.commit();
+        applicationConnection.close();
+
+        // then
+        assertThat(transactionBound.getConnection()).isSameAs(applicationConnection);
+        verify(connection).createStatement();
+        verify(connection, never()).commit();
+        verify(connection, never()).close();
+        verify(dataSource, never()).getConnection();
+    }
+}
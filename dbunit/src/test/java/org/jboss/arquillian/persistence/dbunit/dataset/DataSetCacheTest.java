@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.dbunit.dataset.IDataSet;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataSetCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DataSetCache dataSetCache = new DataSetCache();
+
+    @Test
+    public void should_parse_data_set_only_once_when_loaded_twice() throws Exception {
+        // given
+        final DataSetResourceDescriptor descriptor = new DataSetResourceDescriptor("datasets/users.xml", Format.XML);
+
+        // when
+        final IDataSet first = dataSetCache.load(descriptor);
+        final IDataSet second = dataSetCache.load(descriptor);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(dataSetCache.getMissCount()).isEqualTo(1);
+        assertThat(dataSetCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_distinguish_data_sets_by_location() throws Exception {
+        // given
+        final DataSetResourceDescriptor users = new DataSetResourceDescriptor("datasets/users.xml", Format.XML);
+        final DataSetResourceDescriptor json = new DataSetResourceDescriptor("datasets/users.json", Format.JSON);
+
+        // when
+        final IDataSet first = dataSetCache.load(users);
+        final IDataSet second = dataSetCache.load(json);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(dataSetCache.size()).isEqualTo(2);
+        assertThat(dataSetCache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_evict_least_recently_used_data_set_when_exceeding_amount_of_entries() throws Exception {
+        // given
+        dataSetCache.resize(1, 1000);
+        final DataSetResourceDescriptor users = new DataSetResourceDescriptor("datasets/users.xml", Format.XML);
+        final DataSetResourceDescriptor json = new DataSetResourceDescriptor("datasets/users.json", Format.JSON);
+
+        // when
+        final IDataSet first = dataSetCache.load(users);
+        dataSetCache.load(json);
+        final IDataSet reloaded = dataSetCache.load(users);
+
+        // then
+        assertThat(reloaded).isNotSameAs(first);
+        assertThat(dataSetCache.size()).isEqualTo(1);
+        assertThat(dataSetCache.getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_not_cache_data_set_exceeding_row_limit() throws Exception {
+        // given
+        dataSetCache.resize(10, 1);
+        final DataSetResourceDescriptor users = new DataSetResourceDescriptor("datasets/users.xml", Format.XML);
+
+        // when
+        final IDataSet first = dataSetCache.load(users);
+        final IDataSet second = dataSetCache.load(users);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(dataSetCache.size()).isZero();
+    }
+
+    @Test
+    public void should_always_parse_data_set_when_cache_is_disabled() throws Exception {
+        // given
+        dataSetCache.resize(0, 1000);
+        final DataSetResourceDescriptor users = new DataSetResourceDescriptor("datasets/users.xml", Format.XML);
+
+        // when
+        final IDataSet first = dataSetCache.load(users);
+        final IDataSet second = dataSetCache.load(users);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(dataSetCache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void should_parse_data_set_again_when_file_was_modified() throws Exception {
+        // given
+        final File dataSetFile = folder.newFile("users.xml");
+        write(dataSetFile, "<dataset><useraccount id=\"1\" /></dataset>");
+        final DataSetResourceDescriptor users = new DataSetResourceDescriptor("users.xml", Format.XML);
+        final ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {folder.getRoot().toURI().toURL()}));
+
+        try {
+            final IDataSet first = dataSetCache.load(users);
+
+            // when
+            write(dataSetFile, "<dataset><useraccount id=\"1\" /><useraccount id=\"2\" /></dataset>");
+            dataSetFile.setLastModified(dataSetFile.lastModified() - 10000);
+            final IDataSet reloaded = dataSetCache.load(users);
+
+            // then
+            assertThat(reloaded).isNotSameAs(first);
+            assertThat(reloaded.getTable("useraccount").getRowCount()).isEqualTo(2);
+            assertThat(dataSetCache.size()).isEqualTo(1);
+            assertThat(dataSetCache.getHitCount()).isZero();
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalClassLoader);
+        }
+    }
+
+    private void write(File file, String content) throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpectedTablesDataSetTest {
+
+    private DatabaseConnection connection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = new DatabaseConnection(DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", ""));
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50), born INT, bio VARCHAR(200))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(50))",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem', 1921, 'Polish writer')",
+            "INSERT INTO book VALUES (1, 'Solaris')");
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        TableMetadataCache.instance().invalidate(connection);
+        connection.close();
+    }
+
+    @Test
+    public void should_contain_only_expected_tables() throws Exception {
+        // given
+        final IDataSet currentDataSet = new ExpectedTablesDataSet(connection, expectedAuthors(), new String[0]);
+
+        // when
+        final String[] tableNames = currentDataSet.getTableNames();
+
+        // then
+        assertThat(tableNames).containsExactly("author");
+    }
+
+    @Test
+    public void should_select_only_expected_and_additional_columns() throws Exception {
+        // given
+        final IDataSet currentDataSet =
+            new ExpectedTablesDataSet(connection, expectedAuthors(), new String[] {"author.born", "title"});
+
+        // when
+        final ITable author = currentDataSet.getTable("author");
+
+        // then
+        assertThat(columnNames(author.getTableMetaData().getColumns())).containsExactly("ID", "NAME", "BORN");
+        assertThat(author.getValue(0, "name")).isEqualTo("Stanislaw Lem");
+        assertThat(currentDataSet.getTableMetaData("author").getColumns()).hasSize(4);
+    }
+
+    @Test
+    public void should_select_all_columns_when_expected_table_has_none() throws Exception {
+        // given
+        final DefaultDataSet expected = new DefaultDataSet(new DefaultTable("author"));
+        final IDataSet currentDataSet = new ExpectedTablesDataSet(connection, expected, new String[0]);
+
+        // when
+        final ITable author = currentDataSet.getTable("author");
+
+        // then
+        assertThat(author.getTableMetaData().getColumns()).hasSize(4);
+        assertThat(author.getRowCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_read_table_only_once() throws Exception {
+        // given
+        final IDataSet currentDataSet = new ExpectedTablesDataSet(connection, expectedAuthors(), new String[0]);
+
+        // when
+        final ITable author = currentDataSet.getTable("author");
+
+        // then
+        assertThat(currentDataSet.getTable("AUTHOR")).isSameAs(author);
+    }
+
+    private IDataSet expectedAuthors() throws Exception {
+        final DefaultTable author = new DefaultTable("author",
+            new Column[] {new Column("id", DataType.BIGINT), new Column("name", DataType.VARCHAR)});
+        author.addRow(new Object[] {1L, "Stanislaw Lem"});
+        return new DefaultDataSet(author);
+    }
+
+    private List<String> columnNames(Column[] columns) {
+        final List<String> names = new ArrayList<String>();
+        for (Column column : columns) {
+            names.add(column.getColumnName());
+        }
+        return names;
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.data.descriptor.DataSetResourceDescriptor;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamedDataSetTest {
+
+    private static final DataSetResourceDescriptor THREE_USERS =
+        new DataSetResourceDescriptor("datasets/three-users.yml", Format.YAML);
+
+    private static final DataSetResourceDescriptor USERS_JSON =
+        new DataSetResourceDescriptor("datasets/users.json", Format.JSON);
+
+    @Test
+    public void should_stream_rows_in_order_defined_in_file() throws Exception {
+        // given
+        final IDataSet dataSet = new StreamedDataSet(Arrays.asList(THREE_USERS));
+
+        // when
+        final List<String> usernames = streamColumn(dataSet, "username");
+
+        // then
+        assertThat(usernames).containsExactly("doovde", "superman", "ironman");
+    }
+
+    @Test
+    public void should_stream_data_set_again_when_iterated_twice() throws Exception {
+        // given
+        final IDataSet dataSet = new StreamedDataSet(Arrays.asList(THREE_USERS));
+
+        // when
+        final List<String> first = streamColumn(dataSet, "username");
+        final List<String> second = streamColumn(dataSet, "username");
+
+        // then
+        assertThat(second).isEqualTo(first).hasSize(3);
+    }
+
+    @Test
+    public void should_chain_all_files_when_streaming() throws Exception {
+        // given
+        final IDataSet dataSet = new StreamedDataSet(Arrays.asList(THREE_USERS, USERS_JSON));
+
+        // when
+        final List<String> usernames = streamColumn(dataSet, "username");
+
+        // then
+        assertThat(usernames).containsExactly("doovde", "superman", "ironman", "doovde", "ckent");
+        assertThat(dataSet.getTableNames()).containsExactly("useraccount");
+    }
+
+    @Test
+    public void should_merge_tables_of_all_files_when_accessed_by_name() throws Exception {
+        // given
+        final IDataSet dataSet = new StreamedDataSet(Arrays.asList(THREE_USERS, USERS_JSON));
+
+        // when
+        final ITable table = dataSet.getTable("useraccount");
+
+        // then
+        assertThat(table.getRowCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void should_stream_rows_with_new_columns_as_next_part_of_the_table() throws Exception {
+        // given
+        final IDataSet dataSet = new StreamedDataSet(Arrays.asList(USERS_JSON));
+
+        // when
+        final List<Integer> columnCounts = new ArrayList<Integer>();
+        final List<Object> nicknames = new ArrayList<Object>();
+        final ITableIterator iterator = dataSet.iterator();
+        while (iterator.next()) {
+            final ITable table = iterator.getTable();
+            columnCounts.add(table.getTableMetaData().getColumns().length);
+            if (columnCounts.size() > 1) {
+                nicknames.add(table.getValue(0, "nickname"));
+            }
+        }
+
+        // then
+        assertThat(columnCounts).containsExactly(5, 6);
+        assertThat(nicknames).containsExactly("superman");
+    }
+
+    @Test
+    public void should_join_parts_of_the_table_when_loaded_into_memory() throws Exception {
+        // when
+        final ITable table = USERS_JSON.getContent().getTable("useraccount");
+
+        // then
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getTableMetaData().getColumns()).hasSize(6);
+        assertThat(table.getValue(0, "nickname")).isNull();
+        assertThat(table.getValue(1, "nickname")).isEqualTo("superman");
+    }
+
+    private List<String> streamColumn(IDataSet dataSet, String column) throws Exception {
+        final List<String> values = new ArrayList<String>();
+        final ITableIterator iterator = dataSet.iterator();
+        while (iterator.next()) {
+            final ITable table = iterator.getTable();
+            int row = 0;
+            while (hasRow(table, row)) {
+                values.add(String.valueOf(table.getValue(row, column)));
+                row++;
+            }
+        }
+        return values;
+    }
+
+    private boolean hasRow(ITable table, int row) throws Exception {
+        try {
+            table.getValue(row, table.getTableMetaData().getColumns()[0].getColumnName());
+            return true;
+        } catch (RowOutOfBoundsException e) {
+            return false;
+        }
+    }
+}
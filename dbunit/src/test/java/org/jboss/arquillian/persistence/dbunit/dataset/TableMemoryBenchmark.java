@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares heap retained by {@link Table} with per-row maps of cells it used to be based on.
+ * <br><br>
+ * Run with <code>mvn test -Pbenchmark -Dtest=TableMemoryBenchmark</code>.
+ */
+public class TableMemoryBenchmark {
+
+    private static final int ROWS = 100000;
+
+    private static final String[] COLUMNS = {"id", "firstname", "lastname", "username", "password", "active"};
+
+    private static final String[] NAMES = {"John", "Clark", "Tony", "Bruce", "Diana", "Peter", "Natasha", "Steve"};
+
+    @Test
+    public void should_retain_less_memory_than_row_maps() throws Exception {
+        // given
+        final long mapsMemory = retainedBy(new Allocation() {
+            @Override
+            Object allocate() {
+                return createRowMaps();
+            }
+        });
+
+        // when
+        final long tableMemory = retainedBy(new Allocation() {
+            @Override
+            Object allocate() {
+                return createTable();
+            }
+        });
+
+        // then
+        System.out.println(String.format("%d rows: row maps %d KB, columnar table %d KB", ROWS, mapsMemory / 1024,
+            tableMemory / 1024));
+        assertThat(tableMemory).isLessThan(mapsMemory);
+    }
+
+    private List<Map<String, String>> createRowMaps() {
+        final Set<String> columns = new HashSet<String>();
+        final List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < ROWS; i++) {
+            final Map<String, String> parsed = parsedRow(i);
+            columns.addAll(parsed.keySet());
+            final Map<String, String> row = new HashMap<String, String>();
+            for (Map.Entry<String, String> cell : parsed.entrySet()) {
+                row.put(String.valueOf(cell.getKey()), String.valueOf(cell.getValue()));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Table createTable() {
+        final Table table = new Table("useraccount");
+        for (int i = 0; i < ROWS; i++) {
+            final Map<String, String> parsed = parsedRow(i);
+            table.addColumns(parsed.keySet());
+            table.addRow(new Row(parsed));
+        }
+        return table;
+    }
+
+    /**
+     * Every key and value is a new instance, the same way as they come out of the parser.
+     */
+    private Map<String, String> parsedRow(int i) {
+        final Map<String, String> cells = new LinkedHashMap<String, String>();
+        cells.put(new String(COLUMNS[0]), String.valueOf(i));
+        cells.put(new String(COLUMNS[1]), new String(NAMES[i % NAMES.length]));
+        cells.put(new String(COLUMNS[2]), new String(NAMES[(i / NAMES.length) % NAMES.length]));
+        cells.put(new String(COLUMNS[3]), "user" + i);
+        cells.put(new String(COLUMNS[4]), new String("password"));
+        cells.put(new String(COLUMNS[5]), String.valueOf(i % 2 == 0));
+        return cells;
+    }
+
+    private long retainedBy(Allocation allocation) throws InterruptedException {
+        final long before = usedMemory();
+        final Object allocated = allocation.allocate();
+        final long after = usedMemory();
+        assertThat(allocated).isNotNull();
+        return after - before;
+    }
+
+    private long usedMemory() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private abstract static class Allocation {
+
+        abstract Object allocate();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableMetadataCacheTest {
+
+    private final TableMetadataCache tableMetadataCache = new TableMetadataCache();
+
+    private DatabaseConnection first;
+
+    private DatabaseConnection second;
+
+    @Before
+    public void createTables() throws Exception {
+        final String url = "jdbc:h2:mem:" + UUID.randomUUID();
+        first = new DatabaseConnection(DriverManager.getConnection(url, "sa", ""));
+        second = new DatabaseConnection(DriverManager.getConnection(url, "sa", ""));
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, author_id BIGINT REFERENCES author(id), title VARCHAR(50))",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem')");
+    }
+
+    @After
+    public void closeConnections() throws Exception {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void should_read_table_metadata_only_once_for_all_connections() throws Exception {
+        // given
+        final ITableMetaData metaData = tableMetadataCache.createDataSet(first).getTableMetaData("author");
+
+        // when
+        final ITableMetaData cached = tableMetadataCache.createDataSet(second).getTableMetaData("AUTHOR");
+
+        // then
+        assertThat(cached).isSameAs(metaData);
+        assertThat(tableMetadataCache.getLoadCount()).isEqualTo(2);
+        assertThat(tableMetadataCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_describe_table_same_way_as_dbunit() throws Exception {
+        // when
+        final ITableMetaData metaData = tableMetadataCache.createDataSet(first).getTableMetaData("book");
+
+        // then
+        final ITableMetaData expected = first.createDataSet().getTableMetaData("book");
+        assertThat(metaData.getTableName()).isEqualTo(expected.getTableName());
+        assertThat(metaData.getColumns()).containsExactly(expected.getColumns());
+        assertThat(metaData.getPrimaryKeys()).containsExactly(expected.getPrimaryKeys());
+    }
+
+    @Test
+    public void should_read_rows_through_given_connection() throws Exception {
+        // given
+        tableMetadataCache.createDataSet(first).getTableMetaData("author");
+        execute("INSERT INTO author VALUES (2, 'Philip K. Dick')");
+
+        // when
+        final IDataSet dataSet = tableMetadataCache.createDataSet(second);
+
+        // then
+        assertThat(dataSet.getTable("author").getRowCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_find_table_created_after_tables_have_been_read() throws Exception {
+        // given
+        tableMetadataCache.createDataSet(first).getTableNames();
+        execute("CREATE TABLE review (id BIGINT PRIMARY KEY, stars INT)");
+
+        // when
+        final ITableMetaData metaData = tableMetadataCache.createDataSet(first).getTableMetaData("review");
+
+        // then
+        assertThat(metaData.getColumns()).hasSize(2);
+    }
+
+    @Test
+    public void should_list_tables_once_for_all_data_sets() throws Exception {
+        // given
+        tableMetadataCache.createDataSet(first).getTableNames();
+
+        // when
+        final String[] tableNames = tableMetadataCache.createDataSet(second).getTableNames();
+
+        // then
+        assertThat(tableNames).containsOnly("AUTHOR", "BOOK");
+        assertThat(tableMetadataCache.getLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_list_tables_created_and_dropped_by_other_means_after_invalidation() throws Exception {
+        // given
+        tableMetadataCache.createDataSet(first).getTableMetaData("book");
+        execute("DROP TABLE book", "CREATE TABLE review (id BIGINT PRIMARY KEY, stars INT)");
+
+        // when
+        tableMetadataCache.invalidate(first);
+        final String[] tableNames = tableMetadataCache.createDataSet(second).getTableNames();
+
+        // then
+        assertThat(tableNames).containsOnly("AUTHOR", "REVIEW");
+    }
+
+    @Test(expected = NoSuchTableException.class)
+    public void should_fail_for_unknown_table() throws Exception {
+        tableMetadataCache.createDataSet(first).getTableMetaData("publisher");
+    }
+
+    @Test
+    public void should_read_metadata_again_after_invalidation() throws Exception {
+        // given
+        tableMetadataCache.createDataSet(first).getTableMetaData("author");
+        execute("ALTER TABLE author ADD COLUMN born INT");
+
+        // when
+        tableMetadataCache.invalidate(first);
+
+        // then
+        assertThat(tableMetadataCache.createDataSet(second).getTableMetaData("author").getColumns()).hasSize(3);
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Connection connection = first.getConnection();
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
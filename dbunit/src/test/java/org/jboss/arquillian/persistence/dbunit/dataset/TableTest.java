@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableTest {
+
+    @Test
+    public void should_provide_rows_with_cells_defined_for_them_only() throws Exception {
+        // given
+        final Table table = new Table("useraccount");
+
+        // when
+        table.addRow(row("id", "1", "firstname", "John"));
+        table.addRow(row("id", "2", "nickname", "superman"));
+
+        // then
+        assertThat(table.getColumns()).containsExactly("id", "firstname", "nickname");
+        assertThat(table.getRows()).containsExactly(row("id", "1", "firstname", "John"),
+            row("nickname", "superman", "id", "2"));
+        assertThat(table.getRows().get(0).valueOf("nickname")).isNull();
+    }
+
+    @Test
+    public void should_have_same_hash_code_for_rows_with_differently_ordered_cells() throws Exception {
+        // given
+        final Row row = row("id", "1", "firstname", "John");
+        final Row reordered = row("firstname", "John", "id", "1");
+
+        // when
+        final boolean equal = row.equals(reordered);
+
+        // then
+        assertThat(equal).isTrue();
+        assertThat(row.hashCode()).isEqualTo(reordered.hashCode());
+    }
+
+    private Row row(String... cells) {
+        final Map<String, String> row = new LinkedHashMap<String, String>();
+        for (int i = 0; i < cells.length; i += 2) {
+            row.put(cells[i], cells[i + 1]);
+        }
+        return new Row(row);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.dbunit.dataset.IDataSet;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.dataset.yaml.YamlDataSet;
+import org.jboss.arquillian.persistence.testutils.FileLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yaml.snakeyaml.Yaml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards single-pass loading of YAML data sets. Loading through {@link DataSetBuilder} should cost
+ * about the same as running the producer alone, not the producer plus another parse of the document.
+ * <br><br>
+ * Run with <code>mvn test -Pbenchmark -Dtest=YamlLoadingBenchmark</code>.
+ */
+public class YamlLoadingBenchmark {
+
+    private static final String DATA_SET = "large-data-set.yml";
+
+    private static final int ROWS = 50000;
+
+    private static final int WARM_UP = 3;
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ClassLoader originalClassLoader;
+
+    @Before
+    public void generateDataSet() throws Exception {
+        final File file = folder.newFile(DATA_SET);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write("useraccount:\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("  - id: " + i + "\n");
+                writer.write("    firstname: John" + i + "\n");
+                writer.write("    lastname: Smith\n");
+                writer.write("    username: user" + i + "\n");
+                writer.write("    password: password\n");
+                writer.write("    created: 2012-01-01 10:00:00\n");
+            }
+        } finally {
+            writer.close();
+        }
+        System.out.println(String.format("Generated %s with %d KB", DATA_SET, file.length() / 1024));
+
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(
+            new URLClassLoader(new URL[] {folder.getRoot().toURI().toURL()}, originalClassLoader));
+    }
+
+    @After
+    public void restoreClassLoader() {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+    }
+
+    @Test
+    public void should_load_yaml_data_set_in_single_pass() throws Exception {
+        // given
+        final DataSetBuilder builder = DataSetBuilder.builderFor(Format.YAML);
+        for (int i = 0; i < WARM_UP; i++) {
+            builder.build(DATA_SET);
+            produceDataSet();
+            parseDocument();
+        }
+
+        // when
+        long builderLoad = 0;
+        long producerLoad = 0;
+        long documentParse = 0;
+        IDataSet dataSet = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            dataSet = builder.build(DATA_SET);
+            builderLoad += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            produceDataSet();
+            producerLoad += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parseDocument();
+            documentParse += System.nanoTime() - start;
+        }
+
+        // then
+        System.out.println(String.format("Builder %d ms, producer only %d ms, whole document parse %d ms",
+            builderLoad / ITERATIONS / 1000000, producerLoad / ITERATIONS / 1000000,
+            documentParse / ITERATIONS / 1000000));
+        assertThat(dataSet.getTable("useraccount").getRowCount()).isEqualTo(ROWS);
+        // Additional pass over the file would add whole document parse on top of the producer
+        assertThat(builderLoad).isLessThan(producerLoad + documentParse / 2);
+    }
+
+    private void produceDataSet() throws Exception {
+        final InputStream input = FileLoader.load(DATA_SET);
+        try {
+            new YamlDataSet(input);
+        } finally {
+            FileLoader.close(input);
+        }
+    }
+
+    private void parseDocument() {
+        final InputStream input = FileLoader.load(DATA_SET);
+        try {
+            new Yaml().load(input);
+        } finally {
+            FileLoader.close(input);
+        }
+    }
+}
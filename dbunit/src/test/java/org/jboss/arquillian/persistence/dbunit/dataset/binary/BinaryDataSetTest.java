@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.dataset.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.jboss.arquillian.persistence.core.data.descriptor.Format;
+import org.jboss.arquillian.persistence.dbunit.dataset.DataSetBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryDataSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void should_read_tables_written_in_binary_format() throws Exception {
+        // given
+        final IDataSet source = DataSetBuilder.builderFor(Format.YAML).build("tables.yml");
+
+        // when
+        final IDataSet precompiled = new BinaryDataSet(ByteBuffer.wrap(compile(source)));
+
+        // then
+        assertThat(precompiled.getTableNames()).containsExactly("useraccount", "testtable");
+        final ITable table = precompiled.getTable("useraccount");
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getValue(1, "username")).isEqualTo("superman");
+        assertThat(table.getValue(0, "email")).isNull();
+    }
+
+    @Test
+    public void should_map_precompiled_file() throws Exception {
+        // given
+        final File file = folder.newFile("users.json.dsb");
+        final OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(compile(DataSetBuilder.builderFor(Format.JSON).build("datasets/users.json")));
+        } finally {
+            outputStream.close();
+        }
+
+        // when
+        final IDataSet precompiled = BinaryDataSet.load(file.toURI().toURL());
+
+        // then
+        final ITable table = precompiled.getTable("useraccount");
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getValue(1, "nickname")).isEqualTo("superman");
+    }
+
+    @Test(expected = DataSetException.class)
+    public void should_reject_content_which_is_not_precompiled_data_set() throws Exception {
+        new BinaryDataSet(ByteBuffer.wrap("useraccount:".getBytes("UTF-8")));
+    }
+
+    private byte[] compile(IDataSet dataSet) throws Exception {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        new BinaryDataSetWriter().write(dataSet, content);
+        return content.toByteArray();
+    }
+}
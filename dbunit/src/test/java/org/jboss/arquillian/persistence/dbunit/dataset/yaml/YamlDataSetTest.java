@@ -18,6 +18,7 @@
 package org.jboss.arquillian.persistence.dbunit.dataset.yaml;
 
 import java.io.InputStream;
+import org.assertj.core.api.Assertions;
 import org.jboss.arquillian.persistence.testutils.DataSetAssert;
 import org.jboss.arquillian.persistence.testutils.FileLoader;
 import org.jboss.arquillian.persistence.testutils.TableAssert;
@@ -96,4 +97,43 @@ public class YamlDataSetTest {
         // then
         DataSetAssert.assertThat(yamlDataSet).hasTables("useraccount", "testtable");
     }
+
+    @Test
+    public void should_resolve_anchored_values_and_merged_rows_from_yaml_file() throws Exception {
+        // given
+        input = FileLoader.load("anchors.yml");
+
+        // when
+        YamlDataSet yamlDataSet = new YamlDataSet(input);
+
+        // then
+        TableAssert.assertThat(yamlDataSet.getTable("useraccount"))
+            .hasRow("id: 1", "firstname: Clark", "lastname: Kent")
+            .hasRow("id: 2", "firstname: Clark", "lastname: Clark");
+    }
+
+    @Test
+    public void should_load_table_without_rows_from_yaml_file() throws Exception {
+        // given
+        input = FileLoader.load("anchors.yml");
+
+        // when
+        YamlDataSet yamlDataSet = new YamlDataSet(input);
+
+        // then
+        DataSetAssert.assertThat(yamlDataSet).hasTables("useraccount", "emptytable");
+        TableAssert.assertThat(yamlDataSet.getTable("emptytable")).hasRows(0);
+    }
+
+    @Test
+    public void should_load_data_set_without_tables_from_empty_yaml_file() throws Exception {
+        // given
+        input = FileLoader.load("empty.yml");
+
+        // when
+        YamlDataSet yamlDataSet = new YamlDataSet(input);
+
+        // then
+        Assertions.assertThat(yamlDataSet.getTableNames()).isEmpty();
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.filter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class TableDependencyGraphTest {
+
+    private Connection connection;
+
+    private DatabaseConnection databaseConnection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", "");
+        databaseConnection = new DatabaseConnection(connection);
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, mentor_id BIGINT REFERENCES author(id))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, author_id BIGINT REFERENCES author(id))",
+            "CREATE TABLE review (id BIGINT PRIMARY KEY, book_id BIGINT REFERENCES book(id))");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableDependencyGraphCache.instance().invalidate(databaseConnection);
+        connection.close();
+    }
+
+    @Test
+    public void should_order_referenced_tables_first() throws Exception {
+        // given
+        final TableDependencyGraph graph = TableDependencyGraph.build(databaseConnection);
+
+        // when
+        final String[] sorted = graph.sort(new String[] {"review", "book", "author"});
+
+        // then
+        assertThat(sorted).containsExactly("author", "book", "review");
+    }
+
+    @Test
+    public void should_order_tables_depending_on_each_other_through_omitted_table() throws Exception {
+        // given
+        final TableDependencyGraph graph = TableDependencyGraph.build(databaseConnection);
+
+        // when
+        final String[] sorted = graph.sort(new String[] {"REVIEW", "unknown", "AUTHOR"});
+
+        // then
+        assertThat(sorted).containsExactly("AUTHOR", "REVIEW", "unknown");
+    }
+
+    @Test
+    public void should_report_cyclic_dependency() throws Exception {
+        // given
+        execute("ALTER TABLE author ADD COLUMN favourite_book_id BIGINT REFERENCES book(id)");
+        final TableDependencyGraph graph = TableDependencyGraph.build(databaseConnection);
+
+        // when
+        try {
+            graph.sort(new String[] {"BOOK", "AUTHOR"});
+            failBecauseExceptionWasNotThrown(DataSetException.class);
+        } catch (DataSetException e) {
+            // then
+            assertThat(e).hasMessageContaining("Cyclic dependency");
+        }
+    }
+
+    @Test
+    public void should_list_referencing_tables() throws Exception {
+        // when
+        final TableDependencyGraph graph = TableDependencyGraph.build(databaseConnection);
+
+        // then
+        assertThat(graph.getReferencingTables("author")).containsExactly("BOOK");
+        assertThat(graph.getReferencingTables("REVIEW")).isEmpty();
+    }
+
+    @Test
+    public void should_reuse_cached_graph_until_invalidated() throws Exception {
+        // given
+        final TableDependencyGraphCache cache = TableDependencyGraphCache.instance();
+        final TableDependencyGraph graph = cache.get(databaseConnection);
+
+        // when
+        final TableDependencyGraph cached = cache.get(databaseConnection);
+        cache.invalidate(databaseConnection);
+        final TableDependencyGraph rebuilt = cache.get(databaseConnection);
+
+        // then
+        assertThat(cached).isSameAs(graph);
+        assertThat(rebuilt).isNotSameAs(graph);
+    }
+
+    @Test
+    public void should_rebuild_cached_graph_when_tables_have_changed() throws Exception {
+        // given
+        final TableDependencyGraphCache cache = TableDependencyGraphCache.instance();
+        final TableDependencyGraph graph = cache.get(databaseConnection);
+
+        // when
+        execute("CREATE TABLE publisher (id BIGINT PRIMARY KEY)");
+        final TableDependencyGraph rebuilt = cache.get(databaseConnection);
+
+        // then
+        assertThat(rebuilt).isNotSameAs(graph);
+        assertThat(rebuilt.getTableNames()).contains("PUBLISHER");
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
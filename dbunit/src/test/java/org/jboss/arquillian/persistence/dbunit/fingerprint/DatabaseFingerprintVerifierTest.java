@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.fingerprint;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatabaseFingerprintVerifierTest {
+
+    private Connection connection;
+
+    private DatabaseConnection databaseConnection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+        databaseConnection = new DatabaseConnection(connection);
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50), nickname VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, published DATE)",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem', NULL)",
+            "INSERT INTO author VALUES (2, 'Philip K. Dick', 'PKD')",
+            "INSERT INTO author VALUES (3, 'Ursula K. Le Guin', 'Ursula')",
+            "INSERT INTO book VALUES (1, '1961-01-01')");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void should_match_table_with_expected_rows_in_different_order() throws Exception {
+        // given
+        final ITable expected = expectedTable("author",
+            "<author id=\"3\" name=\"Ursula K. Le Guin\" nickname=\"Ursula\"/>"
+            + "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+            + "<author id=\"2\" name=\"Philip K. Dick\" nickname=\"PKD\"/>");
+
+        // when
+        final boolean matches = verifier(1).matches(expected);
+
+        // then
+        assertThat(matches).isTrue();
+    }
+
+    @Test
+    public void should_not_match_when_value_differs() throws Exception {
+        // given
+        final ITable expected = expectedTable("author",
+            "<author id=\"3\" name=\"Ursula K. Le Guin\" nickname=\"Ursula\"/>"
+            + "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+            + "<author id=\"2\" name=\"Philip K. Dick\" nickname=\"Phil\"/>");
+
+        // when
+        final boolean matches = verifier(1).matches(expected);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    public void should_not_match_when_row_is_missing() throws Exception {
+        // given
+        final ITable expected = expectedTable("author", "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+            + "<author id=\"2\" name=\"Philip K. Dick\" nickname=\"PKD\"/>");
+
+        // when
+        final boolean matches = verifier(1).matches(expected);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    public void should_not_verify_table_with_fewer_rows_than_threshold() throws Exception {
+        // given
+        final ITable expected = expectedTable("author",
+            "<author id=\"3\" name=\"Ursula K. Le Guin\" nickname=\"Ursula\"/>"
+            + "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+            + "<author id=\"2\" name=\"Philip K. Dick\" nickname=\"PKD\"/>");
+
+        // when
+        final boolean matches = verifier(4).matches(expected);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    public void should_not_verify_table_with_date_columns() throws Exception {
+        // given
+        final ITable expected = expectedTable("book", "<book id=\"1\" published=\"1961-01-01\"/>");
+
+        // when
+        final boolean matches = verifier(1).matches(expected);
+
+        // then
+        assertThat(matches).isFalse();
+    }
+
+    private DatabaseFingerprintVerifier verifier(int threshold) {
+        return new DatabaseFingerprintVerifier(databaseConnection, new H2FingerprintDialect(), threshold);
+    }
+
+    private ITable expectedTable(String tableName, String rows) throws Exception {
+        final ITable table = new FlatXmlDataSetBuilder().setColumnSensing(true)
+            .build(new StringReader("<dataset>" + rows + "</dataset>")).getTable(tableName);
+        return new TableWrapper(table, databaseConnection.createDataSet().getTableMetaData(tableName));
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.seed;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.h2.api.Trigger;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalInsertOperationTest {
+
+    private static final String DATA_SET = "<dataset>"
+        + "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+        + "<author id=\"2\" name=\"Philip K. Dick\"/>"
+        + "<author id=\"4\" name=\"Ursula K. Le Guin\"/>"
+        + "<book id=\"1\" author_id=\"1\" title=\"Solaris\"/>"
+        + "<book id=\"4\" author_id=\"4\" title=\"The Dispossessed\"/>"
+        + "<tag name=\"sci-fi\"/>"
+        + "</dataset>";
+
+    private Connection connection;
+
+    private DatabaseConnection databaseConnection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", "");
+        databaseConnection = new DatabaseConnection(connection);
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50), rating INT DEFAULT 3, "
+                + "nickname VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, author_id BIGINT REFERENCES author(id), title VARCHAR(50), "
+                + "added TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+            "CREATE TABLE tag (name VARCHAR(50))",
+            "INSERT INTO author (id, name) VALUES (1, 'Stanislaw Lem')",
+            "INSERT INTO author (id, name) VALUES (2, 'P. K. Dick')",
+            "INSERT INTO author (id, name) VALUES (3, 'Isaac Asimov')",
+            "INSERT INTO book (id, author_id, title) VALUES (1, 1, 'Solaris')",
+            "INSERT INTO book (id, author_id, title) VALUES (3, 3, 'Foundation')",
+            "INSERT INTO tag VALUES ('sci-fi')",
+            "INSERT INTO tag VALUES ('fantasy')",
+            "CREATE TRIGGER author_written AFTER INSERT, UPDATE ON author FOR EACH ROW CALL \""
+                + WrittenRows.class.getName() + "\"");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableDependencyGraphCache.instance().invalidate(databaseConnection);
+        WrittenRows.forget(connection);
+        connection.close();
+    }
+
+    @Test
+    public void should_leave_tables_in_the_same_state_as_clean_insert() throws Exception {
+        // when
+        new IncrementalInsertOperation(DatabaseOperation.INSERT).execute(databaseConnection, dataSet());
+
+        // then
+        assertThat(rows("SELECT id, name FROM author ORDER BY id"))
+            .containsExactly("1 Stanislaw Lem", "2 Philip K. Dick", "4 Ursula K. Le Guin");
+        assertThat(rows("SELECT id, author_id FROM book ORDER BY id")).containsExactly("1 1", "4 4");
+        assertThat(rows("SELECT name, name FROM tag")).containsExactly("sci-fi sci-fi");
+    }
+
+    @Test
+    public void should_not_write_unchanged_rows() throws Exception {
+        // when
+        new IncrementalInsertOperation(DatabaseOperation.INSERT).execute(databaseConnection, dataSet());
+
+        // then
+        assertThat(WrittenRows.ids(connection)).containsExactly(2L, 4L);
+    }
+
+    @Test
+    public void should_reset_columns_missing_in_data_set_to_their_defaults() throws Exception {
+        // given
+        execute("UPDATE author SET rating = 5, nickname = 'Staszek' WHERE id = 1",
+            "UPDATE book SET added = TIMESTAMP '2000-01-01 00:00:00' WHERE id = 1");
+
+        // when
+        new IncrementalInsertOperation(DatabaseOperation.INSERT).execute(databaseConnection, dataSet());
+
+        // then
+        assertThat(rows("SELECT rating, nickname FROM author ORDER BY id"))
+            .containsExactly("3 null", "3 null", "3 null");
+        assertThat(rows("SELECT id, YEAR(added) FROM book WHERE YEAR(added) = 2000")).isEmpty();
+    }
+
+    @Test
+    public void should_clean_tables_referencing_table_without_primary_key_first() throws Exception {
+        // given
+        execute("CREATE TABLE genre (name VARCHAR(50) UNIQUE)",
+            "CREATE TABLE shelf (id BIGINT PRIMARY KEY, genre VARCHAR(50) REFERENCES genre(name))",
+            "INSERT INTO genre VALUES ('sci-fi')",
+            "INSERT INTO genre VALUES ('fantasy')",
+            "INSERT INTO shelf VALUES (1, 'sci-fi')",
+            "INSERT INTO shelf VALUES (2, 'fantasy')");
+        final IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader("<dataset>"
+            + "<shelf id=\"1\" genre=\"sci-fi\"/>"
+            + "<genre name=\"sci-fi\"/>"
+            + "</dataset>"));
+
+        // when
+        new IncrementalInsertOperation(DatabaseOperation.INSERT).execute(databaseConnection, dataSet);
+
+        // then
+        assertThat(rows("SELECT name, name FROM genre")).containsExactly("sci-fi sci-fi");
+        assertThat(rows("SELECT id, genre FROM shelf")).containsExactly("1 sci-fi");
+    }
+
+    private IDataSet dataSet() throws Exception {
+        return new FlatXmlDataSetBuilder().build(new StringReader(DATA_SET));
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private List<String> rows(String query) throws SQLException {
+        final List<String> rows = new ArrayList<String>();
+        final Statement statement = connection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(query);
+            while (resultSet.next()) {
+                rows.add(resultSet.getString(1) + " " + resultSet.getString(2));
+            }
+        } finally {
+            statement.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Records ids of written rows per database, as test methods run in parallel.
+     */
+    public static class WrittenRows implements Trigger {
+
+        private static final Map<String, List<Long>> idsByDatabase = new HashMap<String, List<Long>>();
+
+        private String database;
+
+        static synchronized List<Long> ids(Connection connection) throws SQLException {
+            final List<Long> ids = idsByDatabase.get(databaseOf(connection));
+            final List<Long> sorted = ids == null ? new ArrayList<Long>() : new ArrayList<Long>(ids);
+            Collections.sort(sorted);
+            return sorted;
+        }
+
+        static synchronized void forget(Connection connection) throws SQLException {
+            idsByDatabase.remove(databaseOf(connection));
+        }
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+            int type) throws SQLException {
+            database = databaseOf(conn);
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) {
+            synchronized (WrittenRows.class) {
+                List<Long> ids = idsByDatabase.get(database);
+                if (ids == null) {
+                    ids = new ArrayList<Long>();
+                    idsByDatabase.put(database, ids);
+                }
+                ids.add(((Number) newRow[0]).longValue());
+            }
+        }
+
+        // URL of the connection passed to the trigger differs from the one used by the test
+        private static String databaseOf(Connection connection) throws SQLException {
+            final Statement statement = connection.createStatement();
+            try {
+                final ResultSet resultSet = statement.executeQuery("CALL DATABASE()");
+                resultSet.next();
+                return resultSet.getString(1);
+            } finally {
+                statement.close();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void remove() {
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.seed;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jboss.arquillian.persistence.dbunit.DatabaseConnectionFactory;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class ParallelDataSeederTest {
+
+    private static final String DATA_SET = "<dataset>"
+        + "<review id=\"1\" book_id=\"1\" stars=\"5\"/>"
+        + "<review id=\"2\" book_id=\"2\" stars=\"4\"/>"
+        + "<book id=\"1\" author_id=\"1\" title=\"Solaris\"/>"
+        + "<book id=\"2\" author_id=\"2\" title=\"Ubik\"/>"
+        + "<tag id=\"1\" name=\"sci-fi\"/>"
+        + "<author id=\"1\" name=\"Stanislaw Lem\"/>"
+        + "<author id=\"2\" name=\"Philip K. Dick\"/>"
+        + "</dataset>";
+
+    private JdbcDataSource dataSource;
+
+    private DatabaseConnection databaseConnection;
+
+    private ParallelDataSeeder parallelDataSeeder;
+
+    @Before
+    public void createTables() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID());
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        final DatabaseConnectionFactory databaseConnectionFactory =
+            new DatabaseConnectionFactory(new DBUnitConfiguration());
+        databaseConnection = databaseConnectionFactory.create(dataSource);
+        parallelDataSeeder = new ParallelDataSeeder(dataSource, databaseConnectionFactory, 4);
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, author_id BIGINT REFERENCES author(id), title VARCHAR(50))",
+            "CREATE TABLE review (id BIGINT PRIMARY KEY, book_id BIGINT REFERENCES book(id), stars INT)",
+            "CREATE TABLE tag (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableDependencyGraphCache.instance().invalidate(databaseConnection);
+        databaseConnection.close();
+    }
+
+    @Test
+    public void should_insert_tables_in_order_of_foreign_keys() throws Exception {
+        // when
+        parallelDataSeeder.seed(databaseConnection, dataSet(), DatabaseOperation.INSERT);
+
+        // then
+        assertThat(count("author")).isEqualTo(2);
+        assertThat(count("book")).isEqualTo(2);
+        assertThat(count("review")).isEqualTo(2);
+        assertThat(count("tag")).isEqualTo(1);
+    }
+
+    @Test
+    public void should_replace_existing_rows_when_using_clean_insert() throws Exception {
+        // given
+        execute("INSERT INTO author VALUES (3, 'Ursula K. Le Guin')",
+            "INSERT INTO book VALUES (3, 3, 'The Dispossessed')",
+            "INSERT INTO review VALUES (3, 3, 5)");
+
+        // when
+        parallelDataSeeder.seed(databaseConnection, dataSet(), DatabaseOperation.CLEAN_INSERT);
+
+        // then
+        assertThat(count("author")).isEqualTo(2);
+        assertThat(count("book")).isEqualTo(2);
+        assertThat(count("review")).isEqualTo(2);
+    }
+
+    @Test
+    public void should_report_failure_of_table_insertion() throws Exception {
+        // given
+        execute("INSERT INTO tag VALUES (1, 'fantasy')");
+
+        // when
+        try {
+            parallelDataSeeder.seed(databaseConnection, dataSet(), DatabaseOperation.INSERT);
+            failBecauseExceptionWasNotThrown(DatabaseUnitException.class);
+        } catch (DatabaseUnitException e) {
+            // then
+            assertThat(e.getMessage()).containsIgnoringCase("TAG");
+        }
+    }
+
+    private IDataSet dataSet() throws Exception {
+        return new FlatXmlDataSetBuilder().build(new StringReader(DATA_SET));
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = databaseConnection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        final Connection connection = databaseConnection.getConnection();
+        final Statement statement = connection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table);
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
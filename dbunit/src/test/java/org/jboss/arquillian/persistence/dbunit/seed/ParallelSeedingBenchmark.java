@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.seed;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.operation.DatabaseOperation;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jboss.arquillian.persistence.dbunit.DatabaseConnectionFactory;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.filter.TableDependencyGraphCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures seeding of eight independent tables and eight tables referencing them on H2
+ * using growing number of threads.
+ * <br><br>
+ * Run with <code>mvn test -Pbenchmark -Dtest=ParallelSeedingBenchmark</code>.
+ */
+public class ParallelSeedingBenchmark {
+
+    private static final int TABLES_PER_LEVEL = 8;
+
+    private static final int ROWS = 20000;
+
+    private static final int[] THREADS = {1, 2, 4, 8};
+
+    private JdbcDataSource dataSource;
+
+    private DatabaseConnection databaseConnection;
+
+    private DatabaseConnectionFactory databaseConnectionFactory;
+
+    @Before
+    public void createTables() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID());
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        final DBUnitConfiguration dbUnitConfiguration = new DBUnitConfiguration();
+        dbUnitConfiguration.setBatchedStatements(true);
+        databaseConnectionFactory = new DatabaseConnectionFactory(dbUnitConfiguration);
+        databaseConnection = databaseConnectionFactory.create(dataSource);
+        for (int i = 0; i < TABLES_PER_LEVEL; i++) {
+            execute("CREATE TABLE parent_" + i + " (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+                "CREATE TABLE child_" + i + " (id BIGINT PRIMARY KEY, name VARCHAR(50), "
+                    + "parent_id BIGINT REFERENCES parent_" + i + "(id))");
+        }
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableDependencyGraphCache.instance().invalidate(databaseConnection);
+        databaseConnection.close();
+    }
+
+    @Test
+    public void should_seed_tables_using_growing_number_of_threads() throws Exception {
+        // given
+        final IDataSet dataSet = dataSet();
+        final StringBuilder curve = new StringBuilder();
+
+        for (int threads : THREADS) {
+            // when
+            final long start = System.nanoTime();
+            new ParallelDataSeeder(dataSource, databaseConnectionFactory, threads)
+                .seed(databaseConnection, dataSet, DatabaseOperation.CLEAN_INSERT);
+            final long time = (System.nanoTime() - start) / 1000000;
+
+            // then
+            assertThat(count("child_" + (TABLES_PER_LEVEL - 1))).isEqualTo(ROWS);
+            curve.append(String.format("%n%d threads: %d ms", threads, time));
+        }
+
+        final long sequentialStart = System.nanoTime();
+        DatabaseOperation.CLEAN_INSERT.execute(databaseConnection, dataSet);
+        final long sequentialTime = (System.nanoTime() - sequentialStart) / 1000000;
+        System.out.println(String.format("%d rows in %d tables, sequential CLEAN_INSERT: %d ms%s",
+            2 * TABLES_PER_LEVEL * ROWS, 2 * TABLES_PER_LEVEL, sequentialTime, curve));
+    }
+
+    private IDataSet dataSet() throws Exception {
+        final DefaultDataSet dataSet = new DefaultDataSet();
+        for (int i = 0; i < TABLES_PER_LEVEL; i++) {
+            final DefaultTable parent = new DefaultTable("PARENT_" + i,
+                new Column[] {new Column("ID", DataType.BIGINT), new Column("NAME", DataType.VARCHAR)});
+            final DefaultTable child = new DefaultTable("CHILD_" + i,
+                new Column[] {new Column("ID", DataType.BIGINT), new Column("NAME", DataType.VARCHAR),
+                    new Column("PARENT_ID", DataType.BIGINT)});
+            for (long id = 1; id <= ROWS; id++) {
+                parent.addRow(new Object[] {id, "parent " + id});
+                child.addRow(new Object[] {id, "child " + id, id});
+            }
+            dataSet.addTable(parent);
+            dataSet.addTable(child);
+        }
+        return dataSet;
+    }
+
+    private long count(String table) throws Exception {
+        final Statement statement = databaseConnection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table);
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private void execute(String... statements) throws Exception {
+        final Statement statement = databaseConnection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.tracking;
+
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.dbunit.dataset.TableMetadataCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HsqldbChangeTrackingDialectTest {
+
+    private DatabaseConnection connection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection =
+            new DatabaseConnection(DriverManager.getConnection("jdbc:hsqldb:mem:" + UUID.randomUUID(), "sa", ""));
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT, edition INT, title VARCHAR(50), PRIMARY KEY (id, edition))",
+            "CREATE TABLE note (text VARCHAR(50))",
+            "INSERT INTO author VALUES (1, 'Stanislaw Lem')",
+            "INSERT INTO book VALUES (1, 1, 'Solaris')",
+            "INSERT INTO note VALUES ('first')");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        TableMetadataCache.instance().invalidate(connection);
+        execute("SHUTDOWN");
+        connection.close();
+    }
+
+    @Test
+    public void should_record_tables_changed_after_start() throws Exception {
+        // given
+        final ChangeLog changeLog = start();
+
+        // when
+        execute("UPDATE author SET name = 'Stanislaw Herman Lem' WHERE id = 1",
+            "DELETE FROM note");
+
+        // then
+        assertThat(changeLog.changedTables(connection)).containsOnly("AUTHOR", "NOTE");
+    }
+
+    @Test
+    public void should_find_rows_inserted_and_updated_after_start() throws Exception {
+        // given
+        final ChangeLog changeLog = start();
+
+        // when
+        execute("INSERT INTO book VALUES (1, 2, 'Solaris')",
+            "INSERT INTO book VALUES (2, 1, 'Fiasco')",
+            "UPDATE book SET title = 'Solaris (1961)' WHERE id = 1 AND edition = 1");
+
+        // then
+        assertThat(changedBooks(changeLog)).containsExactly("1/1", "1/2", "2/1");
+    }
+
+    @Test
+    public void should_forget_changes_when_started_again() throws Exception {
+        // given
+        start();
+        execute("INSERT INTO author VALUES (2, 'Philip K. Dick')");
+
+        // when
+        final ChangeLog changeLog = start();
+
+        // then
+        assertThat(changeLog.changedTables(connection)).isEmpty();
+    }
+
+    @Test
+    public void should_leave_change_log_out_of_database_content() throws Exception {
+        // given
+        start();
+        TableMetadataCache.instance().invalidate(connection);
+
+        // when
+        final String[] tableNames = TableMetadataCache.instance().createDataSet(connection).getTableNames();
+
+        // then
+        assertThat(tableNames).containsOnly("AUTHOR", "BOOK", "NOTE");
+    }
+
+    @Test
+    public void should_replace_previous_copy_of_table_without_recording_changes() throws Exception {
+        // given
+        final ChangeLog changeLog = start();
+        changeLog.copyTable(connection, "AUTHOR", ChangeLog.COPY_PREFIX + 1);
+        execute("INSERT INTO author VALUES (2, 'Philip K. Dick')");
+        changeLog.clear(connection);
+
+        // when
+        final String copy = changeLog.copyTable(connection, "AUTHOR", ChangeLog.COPY_PREFIX + 1);
+
+        // then
+        assertThat(count(copy)).isEqualTo(2);
+        assertThat(changeLog.changedTables(connection)).isEmpty();
+    }
+
+    private ChangeLog start() throws Exception {
+        final ChangeLog changeLog = ChangeLog.start(connection, new DBUnitConfiguration(),
+            TableMetadataCache.instance().createDataSet(connection));
+        assertThat(changeLog).isNotNull();
+        return changeLog;
+    }
+
+    private List<String> changedBooks(ChangeLog changeLog) throws Exception {
+        final List<String> books = new ArrayList<String>();
+        final PreparedStatement statement = connection.getConnection().prepareStatement(
+            "SELECT id, edition FROM book WHERE " + changeLog.changedRowsCondition(connection,
+                TableMetadataCache.instance().createDataSet(connection).getTableMetaData("BOOK").getPrimaryKeys())
+                + " ORDER BY id, edition");
+        try {
+            statement.setString(1, "BOOK");
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                books.add(resultSet.getString(1) + "/" + resultSet.getString(2));
+            }
+        } finally {
+            statement.close();
+        }
+        return books;
+    }
+
+    private int count(String tableName) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + tableName);
+            resultSet.next();
+            return resultSet.getInt(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import org.dbunit.database.DatabaseConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HsqldbTableTruncatorTest {
+
+    private Connection connection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:hsqldb:mem:" + UUID.randomUUID(), "sa", "");
+        execute("CREATE TABLE author (id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY, "
+                + "name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY, "
+                + "title VARCHAR(50), author_id BIGINT REFERENCES author(id))",
+            "INSERT INTO author (name) VALUES ('Stanislaw Lem')",
+            "INSERT INTO author (name) VALUES ('Philip K. Dick')",
+            "INSERT INTO book (title, author_id) VALUES ('Solaris', 1)");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        execute("SHUTDOWN");
+        connection.close();
+    }
+
+    @Test
+    public void should_truncate_tables_referenced_by_foreign_keys() throws Exception {
+        // when
+        new HsqldbTableTruncator().truncate(new DatabaseConnection(connection), new String[] {"AUTHOR", "BOOK"});
+
+        // then
+        assertThat(count("author")).isZero();
+        assertThat(count("book")).isZero();
+    }
+
+    @Test
+    public void should_reset_identity_columns() throws Exception {
+        // given
+        new HsqldbTableTruncator().truncate(new DatabaseConnection(connection), new String[] {"AUTHOR", "BOOK"});
+
+        // when
+        execute("INSERT INTO author (name) VALUES ('Ursula K. Le Guin')");
+
+        // then
+        assertThat(single("SELECT id FROM author")).isEqualTo(1L);
+    }
+
+    @Test
+    public void should_restore_referential_integrity_after_truncation() throws Exception {
+        // given
+        new HsqldbTableTruncator().truncate(new DatabaseConnection(connection), new String[] {"BOOK"});
+
+        // when
+        Throwable violation = null;
+        try {
+            execute("INSERT INTO book (title, author_id) VALUES ('Ubik', 42)");
+        } catch (SQLException e) {
+            violation = e;
+        }
+
+        // then
+        assertThat(violation).isNotNull();
+        assertThat(count("author")).isEqualTo(2);
+    }
+
+    private void execute(String... statements) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        return single("SELECT COUNT(*) FROM " + table);
+    }
+
+    private long single(String query) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            final ResultSet resultSet = statement.executeQuery(query);
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import org.dbunit.database.DatabaseConnection;
+import org.jboss.arquillian.persistence.dbunit.configuration.DBUnitConfiguration;
+import org.jboss.arquillian.persistence.spi.dbunit.truncate.TableTruncator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableTruncatorResolverTest {
+
+    private Connection connection;
+
+    private final DBUnitConfiguration configuration = new DBUnitConfiguration();
+
+    @Before
+    public void openDatabase() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void should_resolve_table_truncator_based_on_database_product_name() throws Exception {
+        // when
+        final TableTruncator tableTruncator =
+            new TableTruncatorResolver(configuration).resolve(new DatabaseConnection(connection));
+
+        // then
+        assertThat(tableTruncator).isInstanceOf(H2TableTruncator.class);
+    }
+
+    @Test
+    public void should_resolve_table_truncator_defined_in_configuration() throws Exception {
+        // given
+        configuration.setCustomTableTruncator("default");
+
+        // when
+        final TableTruncator tableTruncator =
+            new TableTruncatorResolver(configuration).resolve(new DatabaseConnection(connection));
+
+        // then
+        assertThat(tableTruncator).isInstanceOf(DefaultTableTruncator.class);
+    }
+
+    @Test
+    public void should_fall_back_to_database_product_name_when_configured_table_truncator_is_unknown()
+        throws Exception {
+        // given
+        configuration.setCustomTableTruncator("sybase");
+
+        // when
+        final TableTruncator tableTruncator =
+            new TableTruncatorResolver(configuration).resolve(new DatabaseConnection(connection));
+
+        // then
+        assertThat(tableTruncator).isInstanceOf(H2TableTruncator.class);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.dbunit.truncate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares cleaning tables using {@link DatabaseOperation#DELETE_ALL} with truncating them on H2.
+ * <br><br>
+ * Run with <code>mvn test -Pbenchmark -Dtest=TruncateCleanupBenchmark</code>.
+ */
+public class TruncateCleanupBenchmark {
+
+    private static final int ROWS = 200000;
+
+    private static final String[] TABLES = {"AUTHOR", "BOOK"};
+
+    private Connection connection;
+
+    private DatabaseConnection databaseConnection;
+
+    @Before
+    public void createTables() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+        databaseConnection = new DatabaseConnection(connection);
+        execute("CREATE TABLE author (id BIGINT PRIMARY KEY, name VARCHAR(50))",
+            "CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(50), author_id BIGINT REFERENCES author(id))");
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void should_truncate_faster_than_delete_all() throws Exception {
+        // given
+        populate();
+        final long deleteAllStart = System.nanoTime();
+        DatabaseOperation.DELETE_ALL.execute(databaseConnection, databaseConnection.createDataSet(TABLES));
+        final long deleteAllTime = System.nanoTime() - deleteAllStart;
+        populate();
+
+        // when
+        final long truncateStart = System.nanoTime();
+        new H2TableTruncator().truncate(databaseConnection, TABLES);
+        final long truncateTime = System.nanoTime() - truncateStart;
+
+        // then
+        System.out.println(String.format("%d rows: DELETE_ALL %d ms, TRUNCATE %d ms", 2 * ROWS,
+            deleteAllTime / 1000000, truncateTime / 1000000));
+        assertThat(truncateTime).isLessThan(deleteAllTime);
+    }
+
+    private void populate() throws Exception {
+        execute("INSERT INTO author SELECT x, 'author ' || x FROM SYSTEM_RANGE(1, " + ROWS + ")",
+            "INSERT INTO book SELECT x, 'book ' || x, x FROM SYSTEM_RANGE(1, " + ROWS + ")");
+    }
+
+    private void execute(String... statements) throws Exception {
+        final Statement statement = connection.createStatement();
+        try {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.jboss.arquillian.persistence.BuiltInCleanupStrategy.CHANGED_ROWS_ONLY;
 import static org.jboss.arquillian.persistence.BuiltInCleanupStrategy.STRICT;
 import static org.jboss.arquillian.persistence.BuiltInCleanupStrategy.USED_ROWS_ONLY;
 import static org.jboss.arquillian.persistence.BuiltInCleanupStrategy.USED_TABLES_ONLY;
@@ -124,4 +125,14 @@ public class DataCleanupStrategiesTest {
         assertThat(users).hasSize(3);
         assertThat(addresses).hasSize(1);
     }
+
+    @Test
+    @InSequence(6)
+    @UsingDataSet("users.yml")
+    @Cleanup(phase = TestExecutionPhase.AFTER)
+    @CleanupStrategy(CHANGED_ROWS_ONLY)
+    @DatabaseShouldContainAfterTest({"users.yml", "expected-address.yml"})
+    public void should_cleanup_only_entries_added_by_the_test() {
+        em.persist(new Address("Kryptonite", 1, "Metropolis", 7272));
+    }
 }
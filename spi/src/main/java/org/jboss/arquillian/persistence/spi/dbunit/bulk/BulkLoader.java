@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.spi.dbunit.bulk;
+
+import java.sql.SQLException;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+
+/**
+ * Extension point to define how large tables of initial data sets are inserted using database specific
+ * bulk loading facilities (such as <code>COPY</code> or <code>LOAD DATA</code>) instead of inserting
+ * them row by row.
+ * <p>
+ * Custom implementation can be bundled with the test class (for example as separated JAR) and should have
+ * proper SPI entry in META-INF/services.
+ */
+public interface BulkLoader {
+
+    /**
+     * Inserts all rows of given table. Columns of the table are matched with the database columns by name.
+     */
+    void load(IDatabaseConnection connection, ITable table) throws SQLException, DatabaseUnitException;
+
+    /**
+     * @param databaseProductName
+     *     name reported by {@link java.sql.DatabaseMetaData#getDatabaseProductName()}
+     *
+     * @return true if this implementation should be used for given database
+     */
+    boolean supports(String databaseProductName);
+
+    /**
+     * Simple name used in configuration to refer to given implementation eg. 'h2', 'postgresql'
+     */
+    String simpleName();
+}
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.spi.dbunit.fingerprint;
+
+/**
+ * Extension point to define SQL functions used for computing fingerprint of the table content inside
+ * the database, so tables of large expected data sets can be verified without reading their rows.
+ * <p>
+ * Fingerprint consists of the row count and the digest of ordered digests of all rows. The same
+ * fingerprint is computed from the expected data set using {@link java.security.MessageDigest}, therefore
+ * digests produced by the database have to be the same as by the algorithm named by {@link #digestAlgorithm()}
+ * applied to UTF-8 encoded text.
+ * <p>
+ * Custom implementation can be bundled with the test class (for example as separated JAR) and should have
+ * proper SPI entry in META-INF/services.
+ */
+public interface FingerprintDialect {
+
+    /**
+     * @return SQL expression converting value of the integer or character column to text. Integers have to
+     * be rendered without leading zeros and fraction.
+     */
+    String text(String columnExpression);
+
+    /**
+     * @return SQL expression computing lower-case hexadecimal digest of given text expression.
+     */
+    String digest(String textExpression);
+
+    /**
+     * @return SQL aggregate expression concatenating results of given expression for all rows, sorted in
+     * ascending binary order and without separators.
+     */
+    String orderedConcatenation(String expression);
+
+    /**
+     * @return name of the digest algorithm as understood by {@link java.security.MessageDigest}, eg. 'MD5'
+     */
+    String digestAlgorithm();
+
+    /**
+     * @param databaseProductName
+     *     name reported by {@link java.sql.DatabaseMetaData#getDatabaseProductName()}
+     *
+     * @return true if this implementation should be used for given database
+     */
+    boolean supports(String databaseProductName);
+
+    /**
+     * Simple name used in configuration to refer to given implementation eg. 'h2', 'postgresql'
+     */
+    String simpleName();
+}
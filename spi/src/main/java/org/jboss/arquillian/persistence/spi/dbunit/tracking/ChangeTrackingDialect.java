@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.spi.dbunit.tracking;
+
+import java.util.List;
+
+/**
+ * Extension point to record changes of the tables as they happen using database triggers, so cleanup
+ * after the test doesn't have to read all the rows to find out what the test has changed.
+ * <p>
+ * Triggers add an entry to the change log table for every row inserted, updated or deleted in the tracked
+ * table. Change log table has two character columns: <code>TABLE_NAME</code> holding upper-case name of the
+ * table without schema and <code>ROW_KEY</code> holding primary key of the inserted or updated row, as produced
+ * by {@link #rowKey(List)}. Key of deleted rows and rows of tables without primary key is <code>NULL</code>.
+ * Tables can also be copied inside the database (see {@link #copyTable(String, String)}), so they can be brought
+ * back when they have changed.
+ * <p>
+ * Custom implementation can be bundled with the test class (for example as separated JAR) and should have
+ * proper SPI entry in META-INF/services.
+ */
+public interface ChangeTrackingDialect {
+
+    /**
+     * @return statements creating change log table with given name, unless it already exists.
+     */
+    List<String> createChangeLog(String changeLogTable);
+
+    /**
+     * @param schema
+     *     schema of the tables or <code>null</code> for the current schema of the connection
+     *
+     * @return query listing names of the tables which already have triggers created by
+     * {@link #createTriggers(String, String, List, String)}.
+     */
+    String trackedTablesQuery(String schema);
+
+    /**
+     * @param tableName
+     *     name of the tracked table, escaped and qualified if needed
+     * @param tableKey
+     *     upper-case name of the table without schema, to be stored in <code>TABLE_NAME</code> column
+     * @param primaryKeyColumns
+     *     escaped names of the primary key columns, empty if the table has no primary key
+     * @param changeLogTable
+     *     name of the change log table
+     *
+     * @return statements creating triggers which record changes of given table.
+     */
+    List<String> createTriggers(String tableName, String tableKey, List<String> primaryKeyColumns,
+        String changeLogTable);
+
+    /**
+     * @param tableName
+     *     name of the table to be copied, escaped and qualified if needed
+     * @param copyName
+     *     name of the table holding the copy
+     *
+     * @return statements dropping the table holding the copy, if it exists, and creating it again with the rows
+     * of given table, without reading them outside of the database.
+     */
+    List<String> copyTable(String tableName, String copyName);
+
+    /**
+     * @return SQL expression converting values of given expressions to text and joining them with '|',
+     * or <code>NULL</code> if there are no expressions. Used with columns of the table to find rows recorded
+     * in the change log, therefore triggers have to produce the same text for the same values.
+     */
+    String rowKey(List<String> columnExpressions);
+
+    /**
+     * @param databaseProductName
+     *     name reported by {@link java.sql.DatabaseMetaData#getDatabaseProductName()}
+     *
+     * @return true if this implementation should be used for given database
+     */
+    boolean supports(String databaseProductName);
+
+    /**
+     * Simple name used in configuration to refer to given implementation eg. 'h2', 'postgresql'
+     */
+    String simpleName();
+}
@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.spi.dbunit.truncate;
+
+import java.sql.SQLException;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * Extension point to define how tables are emptied using database specific statements (such as
+ * <code>TRUNCATE</code>) instead of deleting them row by row, when table truncation is enabled.
+ * <p>
+ * Custom implementation can be bundled with the test class (for example as separated JAR) and should have
+ * proper SPI entry in META-INF/services.
+ */
+public interface TableTruncator {
+
+    /**
+     * Removes all rows from given tables regardless of foreign keys between them and resets their identity
+     * columns and sequences, if database allows that.
+     *
+     * @param tableNames
+     *     tables to truncate, referenced tables come before the ones referencing them
+     */
+    void truncate(IDatabaseConnection connection, String[] tableNames) throws SQLException;
+
+    /**
+     * @param databaseProductName
+     *     name reported by {@link java.sql.DatabaseMetaData#getDatabaseProductName()}
+     *
+     * @return true if this implementation should be used for given database
+     */
+    boolean supports(String databaseProductName);
+
+    /**
+     * Simple name used in configuration to refer to given implementation eg. 'h2', 'postgresql'
+     */
+    String simpleName();
+}
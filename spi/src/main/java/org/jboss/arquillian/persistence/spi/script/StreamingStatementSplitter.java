@@ -0,0 +1,35 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.persistence.spi.script;
+
+import java.io.Reader;
+import java.util.Iterator;
+
+/**
+ * {@link StatementSplitter} which is able to split the script lazily. Statements are read from the
+ * underlying reader only when requested, so they can be executed while the rest of the script is
+ * still being loaded.
+ */
+public interface StreamingStatementSplitter extends StatementSplitter {
+
+    /**
+     * Splits script read from given reader into executable statements on demand. Reader is not closed
+     * by the returned iterator.
+     */
+    Iterator<String> iterateStatements(Reader reader);
+}